@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.gui.swing.components.CircuitScene;
+import se.openflisp.gui.swing.components.GateFigure;
+import se.openflisp.sls.component.Gate;
+import se.openflisp.sls.component.NandGate;
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Measures the work of a frame of the CircuitCanvas on a large board, painting a full HD viewport 
+ * and hit-testing the mouse.
+ * 
+ * The board is a square mesh of NAND gates where every gate is driven by its left and upper 
+ * neighbour, laid out on a grid. Painting is done headless into an image. The scene has figures for 
+ * the viewport, like the canvas when it shows the board in detail. The overview paints the whole 
+ * board zoomed out to fit the image, with and without the details that the canvas leaves out below 
+ * its detail scale. Painting the overview in detail creates figures for the whole board.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class CanvasPaintBenchmark {
+	
+	/**
+	 * Horizontal and vertical distance between the gates.
+	 */
+	private static final int SPACING_X = GateFigure.WIDTH * 2, SPACING_Y = GateFigure.HEIGHT * 2;
+	
+	@Param({"50000"})
+	public int components;
+	
+	private CircuitScene scene;
+	
+	private BufferedImage image;
+	
+	private Graphics2D graphics;
+	
+	private Rectangle viewport;
+	
+	private BufferedImage overviewImage;
+	
+	private Graphics2D overviewGraphics;
+	
+	private Rectangle overview;
+	
+	private Random random;
+	
+	@Setup
+	public void setup() {
+		int side = (int) Math.sqrt(this.components);
+		Gate[][] gates = new Gate[side][side];
+		Circuit2D circuit = new Circuit2D();
+		circuit.beginBulkLoad();
+		for (int row = 0; row < side; row++) {
+			for (int column = 0; column < side; column++) {
+				gates[row][column] = new NandGate("nand" + row + "_" + column);
+				if (column > 0) {
+					gates[row][column].getInput("0").connect(gates[row][column - 1].getOutput());
+				}
+				if (row > 0) {
+					gates[row][column].getInput("1").connect(gates[row - 1][column].getOutput());
+				}
+				circuit.addComponent(gates[row][column]);
+				circuit.setComponentLocation(gates[row][column], new Point(column * SPACING_X, row * SPACING_Y));
+			}
+		}
+		circuit.endBulkLoad();
+		this.scene = new CircuitScene();
+		this.scene.load(circuit);
+		this.image = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_ARGB);
+		this.graphics = this.image.createGraphics();
+		this.graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		Rectangle extent = this.scene.getExtent();
+		this.viewport = new Rectangle(extent.width / 2, extent.height / 2, 1920, 1080);
+		this.graphics.translate(-this.viewport.x, -this.viewport.y);
+		this.scene.setViewport(this.viewport);
+		this.overviewImage = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_ARGB);
+		this.overviewGraphics = this.overviewImage.createGraphics();
+		double scale = Math.min(1920.0 / extent.width, 1080.0 / extent.height);
+		this.overviewGraphics.scale(scale, scale);
+		this.overview = new Rectangle(0, 0, (int) Math.ceil(1920 / scale), (int) Math.ceil(1080 / scale));
+		this.random = new Random(42);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		this.graphics.dispose();
+		this.overviewGraphics.dispose();
+	}
+	
+	/**
+	 * Paints every figure in the viewport.
+	 */
+	@Benchmark
+	public BufferedImage paintViewport() {
+		this.graphics.setClip(this.viewport);
+		this.scene.paint(this.graphics, this.viewport, Color.WHITE);
+		return this.image;
+	}
+	
+	/**
+	 * Paints the whole board zoomed out, as boxes and straight segments.
+	 */
+	@Benchmark
+	public BufferedImage paintOverview() {
+		this.overviewGraphics.setClip(this.overview);
+		this.scene.paint(this.overviewGraphics, this.overview, Color.WHITE, false);
+		return this.overviewImage;
+	}
+	
+	/**
+	 * Paints the whole board zoomed out in full detail, for comparison with the overview.
+	 */
+	@Benchmark
+	public BufferedImage paintOverviewDetailed() {
+		this.overviewGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		this.overviewGraphics.setClip(this.overview);
+		this.scene.paint(this.overviewGraphics, this.overview, Color.WHITE, true);
+		return this.overviewImage;
+	}
+	
+	/**
+	 * Finds what is under a random point of the viewport, the way a mouse press does.
+	 */
+	@Benchmark
+	public Object hitTest() {
+		Point point = new Point(
+			this.viewport.x + this.random.nextInt(this.viewport.width), 
+			this.viewport.y + this.random.nextInt(this.viewport.height)
+		);
+		Object hit = this.scene.getPinAt(point);
+		if (hit == null) {
+			hit = this.scene.getGateAt(point);
+		}
+		if (hit == null) {
+			hit = this.scene.getWireAt(point);
+		}
+		return hit;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.gui.swing.components.ComponentFactory;
+import se.openflisp.gui.swing.components.ComponentView;
+import se.openflisp.gui.swing.components.SimulationBoard;
+import se.openflisp.gui.swing.components.WirePanel;
+import se.openflisp.sls.Component;
+import se.openflisp.sls.component.Gate;
+import se.openflisp.sls.component.NandGate;
+
+/**
+ * Measures how long it takes for the WirePanel to remove the wires of deleted gates on a board 
+ * with a large number of wires.
+ * 
+ * The board is a square mesh of NAND gates where every gate is driven by its left and upper 
+ * neighbour, so there are two wires per gate. The gates that are deleted are spread out over the 
+ * mesh. The board is only built once since it is expensive to create, every iteration deletes 
+ * the next gate of every stride of the mesh, so the board keeps most of its wires.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class WireRemovalBenchmark {
+	
+	@Param({"100000"})
+	public int wires;
+	
+	@Param({"1000"})
+	public int deleted;
+	
+	private WirePanel panel;
+	
+	private List<ComponentView> order;
+	
+	private List<ComponentView> removed;
+	
+	private int iteration;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {}
+		}));
+		try {
+			this.build();
+		} finally {
+			System.setOut(out);
+		}
+	}
+	
+	/**
+	 * Helper function to build the mesh and its views.
+	 */
+	private void build() {
+		int side = (int) Math.ceil(Math.sqrt(this.wires / 2.0)) + 1;
+		final Map<Component, ComponentView> views = new HashMap<Component, ComponentView>();
+		SimulationBoard board = new SimulationBoard() {
+			@Override
+			public ComponentView getComponentView(Component component) {
+				return views.get(component);
+			}
+		};
+		board.getCircuit().getSimulation().interrupt();
+		this.panel = new WirePanel(board);
+		this.order = new ArrayList<ComponentView>();
+		Gate[][] gates = new Gate[side][side];
+		for (int row = 0; row < side; row++) {
+			for (int column = 0; column < side; column++) {
+				gates[row][column] = new NandGate("nand" + row + "_" + column);
+				if (column > 0) {
+					gates[row][column].getInput("0").connect(gates[row][column - 1].getOutput());
+				}
+				if (row > 0) {
+					gates[row][column].getInput("1").connect(gates[row - 1][column].getOutput());
+				}
+				ComponentView view = ComponentFactory.createGateFromComponent(gates[row][column]);
+				views.put(gates[row][column], view);
+				this.order.add(view);
+			}
+		}
+		for (ComponentView view : this.order) {
+			this.panel.handleComponentAdded(view);
+		}
+	}
+	
+	@Setup(Level.Iteration)
+	public void pickGates() {
+		this.removed = new ArrayList<ComponentView>();
+		int step = this.order.size() / this.deleted;
+		for (int i = 0; i < this.deleted; i++) {
+			this.removed.add(this.order.get(i * step + this.iteration % step));
+		}
+		this.iteration++;
+	}
+	
+	/**
+	 * Removes the wires of the deleted gates.
+	 */
+	@Benchmark
+	public WirePanel removeGates() {
+		for (ComponentView view : this.removed) {
+			this.panel.handleComponentRemoved(view);
+		}
+		return this.panel;
+	}
+}
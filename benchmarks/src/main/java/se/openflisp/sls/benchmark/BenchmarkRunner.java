@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Entry point of the benchmark jar.
+ * 
+ * Runs JMH with the given command line options and writes the results as JSON to 
+ * jmh-result.json unless another result format is given with -rf, so that the results of two 
+ * builds can be compared.
+ * 
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+	
+	/**
+	 * Runs the benchmarks.
+	 * 
+	 * @param args		JMH command line options
+	 * @throws Exception if the benchmarks could not be run
+	 */
+	public static void main(String[] args) throws Exception {
+		List<String> options = Arrays.asList(args);
+		if (options.contains("-rf")) {
+			Main.main(args);
+		} else {
+			String[] jsonArgs = new String[args.length + 2];
+			jsonArgs[0] = "-rf";
+			jsonArgs[1] = "json";
+			System.arraycopy(args, 0, jsonArgs, 2, args.length);
+			Main.main(jsonArgs);
+		}
+	}
+}
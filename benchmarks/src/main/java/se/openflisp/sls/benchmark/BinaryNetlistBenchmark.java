@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.io.CircuitBinaryReader;
+import se.openflisp.sls.io.CircuitBinaryWriter;
+import se.openflisp.sls.io.LegacyNetlistScanner;
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Compares loading synthetic netlists from the binary netlist format with scanning them from the 
+ * legacy file format.
+ * 
+ * @version 1.0
+ * @see SyntheticNetlist
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryNetlistBenchmark {
+	
+	@Param({"10000", "100000"})
+	public int components;
+	
+	private ByteBuffer legacy;
+	
+	private ByteBuffer binary;
+	
+	@Setup
+	public void setup() throws Exception {
+		this.legacy = ByteBuffer.wrap(SyntheticNetlist.generate(this.components, 4711).getBytes("US-ASCII"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CircuitBinaryWriter writer = new CircuitBinaryWriter(bytes);
+		writer.writeCircuit(new LegacyNetlistScanner(this.legacy.duplicate()).readCircuit());
+		writer.close();
+		this.binary = ByteBuffer.allocateDirect(bytes.size());
+		this.binary.put(bytes.toByteArray()).flip();
+	}
+	
+	/**
+	 * Reads the netlist from the binary format into a new Circuit.
+	 */
+	@Benchmark
+	public Circuit2D readBinary() throws Exception {
+		return new CircuitBinaryReader(this.binary.duplicate()).readCircuit();
+	}
+	
+	/**
+	 * Scans the netlist from the legacy format into a new Circuit.
+	 */
+	@Benchmark
+	public Circuit2D scanLegacy() throws Exception {
+		return new LegacyNetlistScanner(this.legacy.duplicate()).readCircuit();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.component.Gate;
+import se.openflisp.sls.component.NandGate;
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.simulation.Circuit;
+
+/**
+ * Measures how long it takes to add a Component whose connections reach a large netlist, which
+ * makes the Circuit discover and add every connected Component.
+ * 
+ * A chain connects every inverter to the next one, so the netlist is as deep as it is large. A
+ * mesh is a square grid of NAND gates where every gate is driven by its left and upper neighbour.
+ * The netlist is built again before every iteration, since the Components keep their Circuit.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class CircuitDiscoveryBenchmark {
+	
+	@Param({"100000", "1000000"})
+	public int components;
+	
+	@Param({"chain", "mesh"})
+	public String shape;
+	
+	private Gate start;
+	
+	@Setup(Level.Iteration)
+	public void setup() {
+		this.start = "chain".equals(this.shape) ? this.chain() : this.mesh();
+	}
+	
+	/**
+	 * Helper function to build a chain of inverters.
+	 * 
+	 * @return the gate in the middle of the chain
+	 */
+	private Gate chain() {
+		Gate[] gates = new Gate[this.components];
+		for (int i = 0; i < gates.length; i++) {
+			gates[i] = new NotGate("not" + i);
+			if (i > 0) {
+				gates[i].getInput("0").connect(gates[i - 1].getOutput());
+			}
+		}
+		return gates[gates.length / 2];
+	}
+	
+	/**
+	 * Helper function to build a square mesh of NAND gates.
+	 * 
+	 * @return the gate in the middle of the mesh
+	 */
+	private Gate mesh() {
+		int side = (int) Math.sqrt(this.components);
+		Gate[][] gates = new Gate[side][side];
+		for (int row = 0; row < side; row++) {
+			for (int column = 0; column < side; column++) {
+				gates[row][column] = new NandGate("nand" + row + "_" + column);
+				if (column > 0) {
+					gates[row][column].getInput("0").connect(gates[row][column - 1].getOutput());
+				}
+				if (row > 0) {
+					gates[row][column].getInput("1").connect(gates[row - 1][column].getOutput());
+				}
+			}
+		}
+		return gates[side / 2][side / 2];
+	}
+	
+	/**
+	 * Adds a single gate to a new Circuit, which adds the whole netlist.
+	 */
+	@Benchmark
+	public Circuit discover() {
+		Circuit circuit = new Circuit();
+		circuit.addComponent(this.start);
+		return circuit;
+	}
+}
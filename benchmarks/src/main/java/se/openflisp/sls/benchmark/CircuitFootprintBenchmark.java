@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.component.Gate;
+import se.openflisp.sls.component.NandGate;
+import se.openflisp.sls.simulation.Circuit;
+import se.openflisp.sls.simulation.CompiledCircuit;
+
+/**
+ * Measures the footprint of a large random NAND netlist, both as Components in a Circuit and as a 
+ * CompiledCircuit created directly from arrays.
+ * 
+ * Run with -prof gc, the normalized allocation rate (gc.alloc.rate.norm) is the number of bytes 
+ * that one operation allocates, which is close to the heap that the created circuit keeps.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class CircuitFootprintBenchmark {
+	
+	private static final int INPUTS = 64;
+	
+	@Param({"500000"})
+	public int gates;
+	
+	private Circuit circuit;
+	
+	private byte[] opcodes;
+	
+	private int[] inputStart;
+	
+	private int[] inputNets;
+	
+	private CompiledCircuit compiled;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		this.circuit = this.createModel();
+		this.opcodes = new byte[this.gates];
+		this.inputStart = new int[this.gates + 1];
+		this.inputNets = new int[2 * (this.gates - INPUTS)];
+		Random random = new Random(4711);
+		int pin = 0;
+		for (int gate = 0; gate < this.gates; gate++) {
+			this.inputStart[gate] = pin;
+			if (gate < INPUTS) {
+				this.opcodes[gate] = gate % 2 == 0 ? CompiledCircuit.OP_HIGH : CompiledCircuit.OP_LOW;
+			} else {
+				this.opcodes[gate] = CompiledCircuit.OP_NAND;
+				this.inputNets[pin++] = random.nextInt(gate) + 1;
+				this.inputNets[pin++] = random.nextInt(gate) + 1;
+			}
+		}
+		this.inputStart[this.gates] = pin;
+	}
+	
+	@Setup(Level.Iteration)
+	public void compile() {
+		this.compiled = CompiledCircuit.fromArrays(this.opcodes, this.inputStart, this.inputNets);
+	}
+	
+	/**
+	 * Creates the netlist as Components in a Circuit.
+	 */
+	@Benchmark
+	public Circuit buildModel() {
+		return this.createModel();
+	}
+	
+	/**
+	 * Compiles the Circuit of the netlist.
+	 */
+	@Benchmark
+	public CompiledCircuit compileModel() {
+		return new CompiledCircuit(this.circuit);
+	}
+	
+	/**
+	 * Compiles the netlist directly from arrays, without any Components.
+	 */
+	@Benchmark
+	public CompiledCircuit compileArrays() {
+		return CompiledCircuit.fromArrays(this.opcodes, this.inputStart, this.inputNets);
+	}
+	
+	/**
+	 * Evaluates a newly compiled netlist until it is stable.
+	 */
+	@Benchmark
+	public int evaluateArrays() {
+		return this.compiled.evaluate();
+	}
+	
+	/**
+	 * Helper function to create the netlist as Components, every NAND gate is connected to two 
+	 * random gates before it.
+	 * 
+	 * @return the circuit
+	 */
+	private Circuit createModel() {
+		Circuit circuit = new Circuit();
+		Gate[] gates = new Gate[this.gates];
+		Random random = new Random(4711);
+		for (int gate = 0; gate < this.gates; gate++) {
+			if (gate < INPUTS) {
+				gates[gate] = new ConstantGate("input" + gate, gate % 2 == 0 ? Signal.State.HIGH : Signal.State.LOW);
+				circuit.addComponent(gates[gate]);
+			} else {
+				gates[gate] = new NandGate("nand" + gate);
+				circuit.addComponent(gates[gate]);
+				gates[gate].getInput("0").connect(gates[random.nextInt(gate)].getOutput());
+				gates[gate].getInput("1").connect(gates[random.nextInt(gate)].getOutput());
+			}
+		}
+		return circuit;
+	}
+}
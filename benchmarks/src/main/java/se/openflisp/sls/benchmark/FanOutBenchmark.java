@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.simulation.Circuit;
+
+/**
+ * Measures a single net that fans out to a tree of inverters, where the root drives a number 
+ * of branches that each drive the same number of leaves.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+	
+	@Param({"10", "100"})
+	public int branching;
+	
+	@Param({"1", "4"})
+	public int parallelism;
+	
+	private Circuit circuit;
+	
+	private Toggle root;
+	
+	private Toggle unsimulatedRoot;
+	
+	@Setup
+	public void setup() {
+		this.circuit = new Circuit();
+		this.circuit.setParallelism(this.parallelism);
+		this.root = this.createTree("root");
+		this.circuit.addComponent(this.root);
+		this.circuit.runUntilStable();
+		this.unsimulatedRoot = this.createTree("unsimulated");
+	}
+	
+	/**
+	 * Helper function to create a tree of inverters.
+	 * 
+	 * @param identifier	identifier of the root
+	 * @return the root of the tree
+	 */
+	private Toggle createTree(String identifier) {
+		Toggle root = new Toggle(identifier);
+		for (int i = 0; i < this.branching; i++) {
+			NotGate branch = new NotGate(identifier + ".branch" + i);
+			branch.getInput("0").connect(root.getOutput());
+			for (int j = 0; j < this.branching; j++) {
+				NotGate leaf = new NotGate(identifier + ".leaf" + i + "." + j);
+				leaf.getInput("0").connect(branch.getOutput());
+			}
+		}
+		return root;
+	}
+	
+	/**
+	 * Toggles the root and steps the Circuit until every gate in the tree has been evaluated.
+	 */
+	@Benchmark
+	public int simulate() {
+		this.root.toggle();
+		return this.circuit.runUntilStable();
+	}
+	
+	/**
+	 * Toggles the root of a tree that is not in a Circuit, which only changes the inputs of the 
+	 * branches.
+	 */
+	@Benchmark
+	public void propagate() {
+		this.unsimulatedRoot.toggle();
+	}
+}
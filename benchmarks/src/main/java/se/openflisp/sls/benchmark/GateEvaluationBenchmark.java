@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.AndGate;
+
+/**
+ * Measures the evaluation of a single gate outside of any Circuit.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GateEvaluationBenchmark {
+	
+	private Toggle input;
+	
+	private AndGate gate;
+	
+	@Setup
+	public void setup() {
+		this.input = new Toggle("input");
+		Toggle high = new Toggle("high");
+		high.toggle();
+		this.gate = new AndGate("gate");
+		this.gate.initiateInputs(2);
+		this.gate.getInput("0").connect(this.input.getOutput());
+		this.gate.getInput("1").connect(high.getOutput());
+		this.gate.evaluate();
+	}
+	
+	/**
+	 * Evaluates the gate with unchanged inputs.
+	 */
+	@Benchmark
+	public Signal.State evaluateStable() {
+		this.gate.evaluate();
+		return this.gate.getOutput().getState();
+	}
+	
+	/**
+	 * Changes an input and evaluates the gate, so that its output changes every time.
+	 */
+	@Benchmark
+	public Signal.State evaluateChanging() {
+		this.input.toggle();
+		this.gate.evaluate();
+		return this.gate.getOutput().getState();
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.Output;
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.simulation.Circuit;
+
+/**
+ * Measures how long a change takes to propagate through a chain of inverters, where every step
+ * of the simulation evaluates a single gate.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InverterChainBenchmark {
+	
+	@Param({"16", "256", "4096"})
+	public int depth;
+	
+	private Circuit circuit;
+	
+	private Toggle source;
+	
+	@Setup
+	public void setup() {
+		this.circuit = new Circuit();
+		this.source = new Toggle("source");
+		this.circuit.addComponent(this.source);
+		Output previous = this.source.getOutput();
+		for (int i = 0; i < this.depth; i++) {
+			NotGate inverter = new NotGate("not" + i);
+			this.circuit.addComponent(inverter);
+			inverter.getInput("0").connect(previous);
+			previous = inverter.getOutput();
+		}
+		this.circuit.runUntilStable();
+	}
+	
+	/**
+	 * Toggles the start of the chain and steps the Circuit until the change has reached the end.
+	 */
+	@Benchmark
+	public int propagate() {
+		this.source.toggle();
+		return this.circuit.runUntilStable();
+	}
+}
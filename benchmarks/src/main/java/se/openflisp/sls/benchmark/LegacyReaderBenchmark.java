@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.io.CircuitLegacyReader;
+import se.openflisp.sls.io.LegacyNetlist;
+import se.openflisp.sls.io.LegacyNetlistScanner;
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Measures reading of synthetic netlists in the legacy file format, comparing the regular expression
+ * based {@link CircuitLegacyReader} with the {@link LegacyNetlistScanner}.
+ * 
+ * @version 1.0
+ * @see SyntheticNetlist
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LegacyReaderBenchmark {
+	
+	@Param({"1000", "10000", "100000"})
+	public int components;
+	
+	private String netlist;
+	
+	private ByteBuffer bytes;
+	
+	@Setup
+	public void setup() throws Exception {
+		this.netlist = SyntheticNetlist.generate(this.components, 4711);
+		this.bytes = ByteBuffer.wrap(this.netlist.getBytes("US-ASCII"));
+	}
+	
+	/**
+	 * Reads the netlist into a new Circuit.
+	 */
+	@Benchmark
+	public Circuit2D read() throws Exception {
+		return new CircuitLegacyReader(new StringReader(this.netlist)).readCircuit();
+	}
+	
+	/**
+	 * Scans the netlist into primitive arrays without building a Circuit.
+	 */
+	@Benchmark
+	public LegacyNetlist scan() throws Exception {
+		return new LegacyNetlistScanner(this.bytes.duplicate()).scan();
+	}
+	
+	/**
+	 * Scans the netlist and builds a new Circuit from it.
+	 */
+	@Benchmark
+	public Circuit2D scanAndBuild() throws Exception {
+		return new LegacyNetlistScanner(this.bytes.duplicate()).readCircuit();
+	}
+}
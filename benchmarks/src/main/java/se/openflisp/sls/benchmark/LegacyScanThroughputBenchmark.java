@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.io.LegacyNetlist;
+import se.openflisp.sls.io.LegacyNetlistScanner;
+
+/**
+ * Measures the throughput of scanning memory-mapped netlist files with millions of gates.
+ * 
+ * The bytes counter of the results divided by the measured time gives the scanned bytes per second,
+ * the file is scanned with the given number of threads to show how scanning scales with cores.
+ * 
+ * @version 1.0
+ * @see SyntheticNetlist
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class LegacyScanThroughputBenchmark {
+	
+	@Param({"1000000", "4000000"})
+	public int components;
+	
+	@Param({"1", "2", "4"})
+	public int parallelism;
+	
+	private File file;
+	
+	@Setup
+	public void setup() throws Exception {
+		this.file = File.createTempFile("netlist", ".txt");
+		this.file.deleteOnExit();
+		FileOutputStream stream = new FileOutputStream(this.file);
+		try {
+			stream.write(SyntheticNetlist.generate(this.components, 4711).getBytes("US-ASCII"));
+		} finally {
+			stream.close();
+		}
+	}
+	
+	@TearDown
+	public void tearDown() {
+		this.file.delete();
+	}
+	
+	/**
+	 * Counts the bytes that have been scanned in an iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Bytes {
+		
+		public long bytes;
+		
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.bytes = 0;
+		}
+	}
+	
+	/**
+	 * Maps the file and scans it into a netlist.
+	 */
+	@Benchmark
+	public LegacyNetlist scan(Bytes counter) throws Exception {
+		counter.bytes += this.file.length();
+		return LegacyNetlistScanner.open(this.file).scan(this.parallelism);
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.AndGate;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.component.Gate;
+import se.openflisp.sls.component.OrGate;
+import se.openflisp.sls.component.XorGate;
+import se.openflisp.sls.simulation.Circuit;
+import se.openflisp.sls.simulation.SimulationEngine;
+
+/**
+ * Measures how long a carry takes to ripple through an adder built from full adders.
+ * 
+ * One operand is all ones and the other is zero, so toggling the carry in changes every sum and 
+ * carry of the adder.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RippleCarryAdderBenchmark {
+	
+	@Param({"8", "64", "256", "1024"})
+	public int bits;
+	
+	@Param({"EVENT_DRIVEN", "LEVELIZED"})
+	public SimulationEngine engine;
+	
+	private Circuit circuit;
+	
+	private Toggle carryIn;
+	
+	@Setup
+	public void setup() {
+		this.circuit = new Circuit();
+		this.circuit.setSimulationEngine(this.engine);
+		ConstantGate high = new ConstantGate("a", Signal.State.HIGH);
+		ConstantGate low = new ConstantGate("b", Signal.State.LOW);
+		this.carryIn = new Toggle("cin");
+		this.circuit.addComponent(high);
+		this.circuit.addComponent(low);
+		this.circuit.addComponent(this.carryIn);
+		Output carry = this.carryIn.getOutput();
+		for (int bit = 0; bit < this.bits; bit++) {
+			Gate partial = this.addGate(new XorGate("p" + bit), high.getOutput(), low.getOutput());
+			this.addGate(new XorGate("s" + bit), partial.getOutput(), carry);
+			Gate generate = this.addGate(new AndGate("g" + bit), high.getOutput(), low.getOutput());
+			Gate propagate = this.addGate(new AndGate("c" + bit), partial.getOutput(), carry);
+			carry = this.addGate(new OrGate("cout" + bit), generate.getOutput(), propagate.getOutput()).getOutput();
+		}
+		this.circuit.runUntilStable();
+	}
+	
+	/**
+	 * Helper function to add a gate to the Circuit before connecting it, so that large adders
+	 * are not added recursively.
+	 * 
+	 * @param gate		the gate to add
+	 * @param a			output connected to the first input
+	 * @param b			output connected to the second input
+	 * @return the added gate
+	 */
+	private Gate addGate(Gate gate, Output a, Output b) {
+		this.circuit.addComponent(gate);
+		gate.initiateInputs(2);
+		gate.getInput("0").connect(a);
+		gate.getInput("1").connect(b);
+		return gate;
+	}
+	
+	/**
+	 * Toggles the carry in and steps the Circuit until the carry has rippled through.
+	 */
+	@Benchmark
+	public int ripple() {
+		this.carryIn.toggle();
+		return this.circuit.runUntilStable();
+	}
+}
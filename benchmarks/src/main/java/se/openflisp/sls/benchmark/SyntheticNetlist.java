@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.Random;
+
+import se.openflisp.sls.io.LegacyComponent;
+
+/**
+ * Generates synthetic netlists in the legacy file format.
+ * 
+ * The netlists contain two input NAND gates and inverters, where every input is connected to 
+ * a constant or a random earlier component.
+ * 
+ * @version 1.0
+ */
+public final class SyntheticNetlist {
+	
+	private SyntheticNetlist() {}
+	
+	/**
+	 * Generates a netlist.
+	 * 
+	 * @param components	number of components in the netlist
+	 * @param seed			seed for the random positions and connections
+	 * @return the netlist in the legacy file format
+	 */
+	public static String generate(int components, long seed) {
+		Random random = new Random(seed);
+		StringBuilder builder = new StringBuilder(components * 48);
+		for (int i = 0; i < components; i++) {
+			LegacyComponent type = i % 4 == 0 ? LegacyComponent.NOT_GATE : LegacyComponent.NAND_GATE_2;
+			int inputs = type == LegacyComponent.NOT_GATE ? 1 : 2;
+			builder.append(">NUM:").append(i)
+				.append(",TYPE:").append(type.typeIdentifer)
+				.append(",X=").append(random.nextInt(2000))
+				.append(",Y=").append(random.nextInt(2000))
+				.append('\n');
+			for (int input = 0; input < inputs; input++) {
+				builder.append("IV[").append(input).append(']');
+				if (i == 0 || random.nextInt(10) == 0) {
+					builder.append(random.nextBoolean() ? "1" : "0");
+				} else {
+					builder.append(type.identifierPrefix).append(random.nextInt(i));
+				}
+				builder.append('\n');
+			}
+			builder.append("<\n");
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.component.NandGate;
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.simulation.Circuit;
+import se.openflisp.sls.simulation.TimedSimulation;
+
+/**
+ * Measures the timed simulation of a number of ring oscillators that are enabled at the same 
+ * time, with different delays so that their events are spread over the time wheel.
+ * 
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimedSimulationBenchmark {
+	
+	@Param({"1000"})
+	public int oscillators;
+	
+	@Param({"20000"})
+	public long endTime;
+	
+	private Circuit circuit;
+	
+	private ConstantGate enable;
+	
+	private TimedSimulation simulation;
+	
+	@Setup
+	public void setup() {
+		this.circuit = new Circuit();
+		this.enable = new ConstantGate("enable", Signal.State.LOW);
+		for (int i = 0; i < this.oscillators; i++) {
+			NandGate nand = new NandGate("nand" + i);
+			NotGate not1 = new NotGate("not" + i + ".1");
+			NotGate not2 = new NotGate("not" + i + ".2");
+			not1.setDelays(1 + i % 3, 2);
+			not1.getInput("0").connect(nand.getOutput());
+			not2.getInput("0").connect(not1.getOutput());
+			nand.getInput("0").connect(this.enable.getOutput());
+			nand.getInput("1").connect(not2.getOutput());
+		}
+		this.circuit.addComponent(this.enable);
+	}
+	
+	@Setup(Level.Invocation)
+	public void createSimulation() {
+		this.simulation = new TimedSimulation(this.circuit);
+		this.simulation.runUntil(9);
+		this.simulation.force(this.enable.getOutput(), Signal.State.HIGH, 10);
+	}
+	
+	/**
+	 * Runs the oscillators until the end time.
+	 */
+	@Benchmark
+	public long oscillate() {
+		return this.simulation.runUntil(this.endTime);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.benchmark;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+
+/**
+ * Component with a single output that is changed manually, used to drive the benchmarked Circuits.
+ * 
+ * @version 1.0
+ */
+public class Toggle extends Component {
+	
+	/**
+	 * The output identifier of the toggle.
+	 */
+	public static final String OUTPUT = "Q";
+	
+	/**
+	 * Creates a toggle with a low output.
+	 * 
+	 * @param identifier	the component identifier
+	 */
+	public Toggle(String identifier) {
+		super(identifier);
+		this.setOutputState(OUTPUT, Signal.State.LOW);
+	}
+	
+	/**
+	 * Gets the single output of the toggle.
+	 * 
+	 * @return the output
+	 */
+	public Output getOutput() {
+		return this.getOutput(OUTPUT);
+	}
+	
+	/**
+	 * Changes the output between high and low.
+	 */
+	public void toggle() {
+		Output output = this.getOutput();
+		this.setOutputState(output, output.getState() == Signal.State.HIGH ? Signal.State.LOW : Signal.State.HIGH);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluate() {}
+}
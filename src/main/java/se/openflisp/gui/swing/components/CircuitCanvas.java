@@ -0,0 +1,629 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.swing.components;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.GeneralPath;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import javax.swing.JPanel;
+
+import se.openflisp.gui.util.DirtyRegion;
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.event.CircuitAdapter;
+import se.openflisp.sls.event.CircuitListener;
+import se.openflisp.sls.event.ComponentAdapter;
+import se.openflisp.sls.event.ComponentListener;
+import se.openflisp.sls.event.ListenerContext;
+import se.openflisp.sls.event.SignalBatchListener;
+import se.openflisp.sls.simulation.Circuit;
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Panel that paints a whole Circuit2D from a {@link CircuitScene}, used by the SimulationBoard
+ * instead of a ComponentView per Component when a Circuit is too large for Swing components.
+ * 
+ * Only the figures that overlap the clip are painted, and a change of a Signal only repaints the
+ * bounds of its pin and wire. Gates are selected and moved by clicking and dragging them, wires are
+ * created by dragging from one pin to another and selected by clicking them.
+ * 
+ * The canvas shows a viewport of the scene that is zoomed with the mouse wheel and panned by
+ * dragging empty space. The scene only has figures for the Components around the viewport, which 
+ * are created and evicted as the viewport changes. Below {@link #DETAIL_SCALE} gates are painted as 
+ * boxes and wires as straight segments straight from the spatial index of the Circuit, without any 
+ * figures.
+ * 
+ * @version 1.0
+ * @see SimulationBoard
+ */
+@SuppressWarnings("serial")
+public class CircuitCanvas extends JPanel {
+	
+	/**
+	 * Smallest and largest scale that the canvas can be zoomed to.
+	 */
+	public static final double MIN_SCALE = 0.05, MAX_SCALE = 4;
+	
+	/**
+	 * Factor that the scale is changed by for every step of the mouse wheel.
+	 */
+	public static final double ZOOM_STEP = 1.25;
+	
+	/**
+	 * Scale below which figures are painted as boxes and straight segments.
+	 */
+	public static final double DETAIL_SCALE = 0.5;
+	
+	/**
+	 * Distance between the lines of the grid in the scene, the same as on the BackgroundPanel.
+	 */
+	private static final int GRID_SPACING = 10;
+	
+	/**
+	 * Smallest distance between the lines of the grid on the canvas, a denser grid is not painted.
+	 */
+	private static final int MIN_GRID_SPACING = 4;
+	
+	/**
+	 * The Circuit that is being shown, null if none.
+	 */
+	private Circuit2D circuit;
+	
+	/**
+	 * Scene model of the Circuit.
+	 */
+	private final CircuitScene scene = new CircuitScene();
+	
+	/**
+	 * Region that the areas of changed signals are repainted through, null to repaint them directly.
+	 */
+	private final DirtyRegion dirtyRegion;
+	
+	/**
+	 * Number of pixels on the canvas per unit of the scene.
+	 */
+	private double scale = 1;
+	
+	/**
+	 * Point of the scene at the upper left corner of the canvas.
+	 */
+	private double originX, originY;
+	
+	/**
+	 * Creates a CircuitCanvas.
+	 * 
+	 * @param dirtyRegion		region that the areas of changed signals are repainted through, null
+	 * 							to repaint them directly
+	 */
+	public CircuitCanvas(DirtyRegion dirtyRegion) {
+		this.dirtyRegion = dirtyRegion;
+		this.setLayout(null);
+		this.setOpaque(true);
+		this.addMouseListener(this.mouseHandler);
+		this.addMouseMotionListener(this.mouseHandler);
+		this.addMouseWheelListener(this.mouseHandler);
+	}
+	
+	/**
+	 * Shows a Circuit on the canvas, the canvas stops listening to the Circuit it showed before.
+	 * 
+	 * @param circuit		the circuit to show, null to show nothing
+	 */
+	public void setCircuit(Circuit2D circuit) {
+		if (this.circuit != null) {
+			this.circuit.getEventDelegator().removeListener(ListenerContext.SWING, this.circuitHandler);
+			this.circuit.getEventBus().unsubscribe(ListenerContext.SWING, this.signalHandler);
+		}
+		this.circuit = circuit;
+		this.mouseHandler.reset();
+		this.scale = 1;
+		this.originX = 0;
+		this.originY = 0;
+		this.scene.load(circuit);
+		if (circuit != null) {
+			circuit.getEventDelegator().addListener(ListenerContext.SWING, this.circuitHandler);
+			circuit.getEventBus().subscribe(ListenerContext.SWING, this.signalHandler);
+		}
+		this.revalidate();
+		this.repaint();
+	}
+	
+	/**
+	 * Gets the Circuit that is being shown.
+	 * 
+	 * @return the circuit, null if none
+	 */
+	public Circuit2D getCircuit() {
+		return this.circuit;
+	}
+	
+	/**
+	 * Gets the scene model of the Circuit.
+	 * 
+	 * @return the scene
+	 */
+	public CircuitScene getScene() {
+		return this.scene;
+	}
+	
+	/**
+	 * Gets the scale of the canvas.
+	 * 
+	 * @return the number of pixels on the canvas per unit of the scene
+	 */
+	public double getScale() {
+		return this.scale;
+	}
+	
+	/**
+	 * Checks if the figures are painted in full detail at the current scale.
+	 * 
+	 * @return true if the scale is at least {@link #DETAIL_SCALE}, false otherwise
+	 */
+	public boolean isDetailed() {
+		return this.scale >= DETAIL_SCALE;
+	}
+	
+	/**
+	 * Zooms the canvas around a point, which stays at the same place on the canvas. The scale is 
+	 * kept between {@link #MIN_SCALE} and {@link #MAX_SCALE}.
+	 * 
+	 * @param factor		factor to multiply the scale with
+	 * @param anchor		the point on the canvas to zoom around
+	 */
+	public void zoom(double factor, Point anchor) {
+		double scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, this.scale * factor));
+		double x = this.originX + anchor.x / this.scale;
+		double y = this.originY + anchor.y / this.scale;
+		this.originX = x - anchor.x / scale;
+		this.originY = y - anchor.y / scale;
+		this.scale = scale;
+		this.viewChanged();
+	}
+	
+	/**
+	 * Moves the viewport of the canvas.
+	 * 
+	 * @param dx		distance to move the scene to the right, in pixels of the canvas
+	 * @param dy		distance to move the scene down, in pixels of the canvas
+	 */
+	public void pan(int dx, int dy) {
+		this.originX -= dx / this.scale;
+		this.originY -= dy / this.scale;
+		this.viewChanged();
+	}
+	
+	/**
+	 * Gets the area of the scene that is shown on the canvas.
+	 * 
+	 * @return the viewport in the coordinates of the scene
+	 */
+	public Rectangle getViewport() {
+		return this.toScene(new Rectangle(0, 0, this.getWidth(), this.getHeight()));
+	}
+	
+	/**
+	 * Converts a point on the canvas to the coordinates of the scene.
+	 * 
+	 * @param point		a point on the canvas
+	 * @return the point of the scene that is shown at it
+	 */
+	public Point toScene(Point point) {
+		return new Point(
+			(int) Math.floor(this.originX + point.x / this.scale),
+			(int) Math.floor(this.originY + point.y / this.scale)
+		);
+	}
+	
+	/**
+	 * Converts an area of the canvas to the coordinates of the scene.
+	 * 
+	 * @param area		an area of the canvas
+	 * @return the smallest area of the scene that covers it
+	 */
+	public Rectangle toScene(Rectangle area) {
+		int left = (int) Math.floor(this.originX + area.x / this.scale);
+		int top = (int) Math.floor(this.originY + area.y / this.scale);
+		int right = (int) Math.ceil(this.originX + (area.x + area.width) / this.scale);
+		int bottom = (int) Math.ceil(this.originY + (area.y + area.height) / this.scale);
+		return new Rectangle(left, top, right - left, bottom - top);
+	}
+	
+	/**
+	 * Converts an area of the scene to the coordinates of the canvas.
+	 * 
+	 * @param area		an area of the scene
+	 * @return the smallest area of the canvas that covers it
+	 */
+	public Rectangle toView(Rectangle area) {
+		int left = (int) Math.floor((area.x - this.originX) * this.scale);
+		int top = (int) Math.floor((area.y - this.originY) * this.scale);
+		int right = (int) Math.ceil((area.x + area.width - this.originX) * this.scale);
+		int bottom = (int) Math.ceil((area.y + area.height - this.originY) * this.scale);
+		return new Rectangle(left, top, right - left, bottom - top);
+	}
+	
+	/**
+	 * Removes the selected Components from the Circuit and disconnects the selected wires.
+	 */
+	public void deleteSelection() {
+		if (this.circuit == null) {
+			return;
+		}
+		for (Input input : new ArrayList<Input>(this.scene.getSelectedWires())) {
+			Output output = input.getConnection();
+			if (output != null) {
+				input.disconnect(output);
+			}
+		}
+		for (Component component : new ArrayList<Component>(this.scene.getSelectedComponents())) {
+			this.circuit.removeComponent(component);
+		}
+		this.repaintArea(this.scene.clearSelection());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The preferred size covers all figures of the scene at the current scale.
+	 */
+	@Override
+	public Dimension getPreferredSize() {
+		Rectangle extent = this.scene.getExtent();
+		return new Dimension(
+			(int) Math.ceil(Math.max(0, extent.x + extent.width) * this.scale),
+			(int) Math.ceil(Math.max(0, extent.y + extent.height) * this.scale)
+		);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, this.getWidth(), this.getHeight());
+		}
+		this.paintGrid(g, clip);
+		Graphics2D g2 = (Graphics2D) g.create();
+		try {
+			g2.scale(this.scale, this.scale);
+			g2.translate(-this.originX, -this.originY);
+			if (this.isDetailed()) {
+				g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				this.scene.setViewport(this.getViewport());
+			}
+			this.scene.paint(g2, this.toScene(clip), this.getBackground(), this.isDetailed());
+			this.mouseHandler.paintDraggedWire(g2);
+		} finally {
+			g2.dispose();
+		}
+	}
+	
+	/**
+	 * Helper function to paint the grid of the background, the grid is left out when its lines 
+	 * would be too close to each other.
+	 * 
+	 * @param g			graphics to paint with, in the coordinates of the canvas
+	 * @param clip		the area of the canvas to paint
+	 */
+	private void paintGrid(Graphics g, Rectangle clip) {
+		if (GRID_SPACING * this.scale < MIN_GRID_SPACING) {
+			return;
+		}
+		Rectangle area = this.toScene(clip);
+		g.setColor(SimulationBoard.GRID_COLOR);
+		int first = (int) Math.floor((area.x - 1) / (double) GRID_SPACING) * GRID_SPACING + 1;
+		for (int x = first; x <= area.x + area.width; x += GRID_SPACING) {
+			int line = (int) Math.round((x - this.originX) * this.scale);
+			g.drawLine(line, clip.y, line, clip.y + clip.height);
+		}
+		first = (int) Math.floor((area.y - 1) / (double) GRID_SPACING) * GRID_SPACING + 1;
+		for (int y = first; y <= area.y + area.height; y += GRID_SPACING) {
+			int line = (int) Math.round((y - this.originY) * this.scale);
+			g.drawLine(clip.x, line, clip.x + clip.width, line);
+		}
+	}
+	
+	/**
+	 * Helper function to create and evict the figures of the scene for a new viewport and repaint 
+	 * the canvas. The scene has no figures when the canvas is painted with less detail.
+	 */
+	private void viewChanged() {
+		this.scene.setViewport(this.isDetailed() ? this.getViewport() : null);
+		this.repaint();
+	}
+	
+	/**
+	 * Helper function to repaint an area of the scene.
+	 * 
+	 * @param area		the area to repaint, in the coordinates of the scene, nothing is repainted 
+	 * 					if it is null
+	 */
+	private void repaintArea(Rectangle area) {
+		if (area != null) {
+			Rectangle view = this.toView(area);
+			this.repaint(view.x - 1, view.y - 1, view.width + 2, view.height + 2);
+		}
+	}
+	
+	/**
+	 * Helper function to repaint an area that shows the state of signals.
+	 * 
+	 * @param area		the area to repaint, in the coordinates of the scene, nothing is repainted 
+	 * 					if it is null
+	 */
+	private void repaintSignalArea(Rectangle area) {
+		if (this.dirtyRegion == null) {
+			this.repaintArea(area);
+		} else if (area != null) {
+			Rectangle view = this.toView(area);
+			view.grow(1, 1);
+			this.dirtyRegion.add(this, view);
+		}
+	}
+	
+	/**
+	 * Helper function to select or deselect a Component.
+	 * 
+	 * @param component		the component
+	 * @param selected		true to select it
+	 */
+	private void setSelected(Component component, boolean selected) {
+		this.repaintArea(this.scene.setSelected(component, selected));
+	}
+	
+	/**
+	 * Helper function to select or deselect the wire of an Input.
+	 * 
+	 * @param input			the input end of the wire
+	 * @param selected		true to select it
+	 */
+	private void setSelected(Input input, boolean selected) {
+		this.repaintArea(this.scene.setSelected(input, selected));
+	}
+	
+	/**
+	 * Helper function to connect two pins, a new input is added to a gate whose input is already
+	 * connected in the same way as on the WirePanel.
+	 * 
+	 * @param start		the pin that the wire was dragged from
+	 * @param end		the pin that the wire was dropped on
+	 */
+	private void connect(Signal start, Signal end) {
+		if (end instanceof Input && end.isConnected()) {
+			Component component = end.getOwner();
+			if (component instanceof NotGate || component.getInputs().size() >= 4) {
+				return;
+			}
+			end = component.getInput(Integer.toString(component.getInputs().size() + 1));
+		}
+		try {
+			start.connect(end);
+		} catch (IllegalArgumentException e) {
+			// The pins can not be connected, so the wire is dropped
+		}
+	}
+	
+	/**
+	 * Keeps the scene up to date when Components are added, removed or moved in the Circuit.
+	 */
+	private final CircuitListener circuitHandler = new CircuitAdapter() {
+		@Override
+		public void onComponentAdded(Component component) {
+			Point location = CircuitCanvas.this.circuit.getComponentLocation(component);
+			CircuitCanvas.this.repaintArea(
+				CircuitCanvas.this.scene.addComponent(component, location == null ? new Point(0, 0) : location)
+			);
+			CircuitCanvas.this.revalidate();
+		}
+		
+		@Override
+		public void onComponentRemoved(Component component) {
+			CircuitCanvas.this.repaintArea(CircuitCanvas.this.scene.removeComponent(component));
+		}
+		
+		@Override
+		public void onComponentMoved(Component component, Point from, Point to) {
+			CircuitCanvas.this.repaintArea(CircuitCanvas.this.scene.moveComponent(component, to));
+		}
+		
+		@Override
+		public void onCircuitLoaded() {
+			CircuitCanvas.this.scene.load(CircuitCanvas.this.circuit);
+			CircuitCanvas.this.revalidate();
+			CircuitCanvas.this.viewChanged();
+		}
+	};
+	
+	/**
+	 * Repaints the pins and wires of changed Signals and keeps the wires of the scene up to date.
+	 */
+	private final ComponentListener signalHandler = new SignalHandler();
+	
+	/**
+	 * Listener for the Signals of the shown Circuit, changes are normally delivered in batches.
+	 */
+	private class SignalHandler extends ComponentAdapter implements SignalBatchListener {
+		@Override
+		public void onSignalChange(Component component, Signal signal) {
+			CircuitCanvas.this.repaintSignalArea(CircuitCanvas.this.scene.getSignalBounds(signal));
+		}
+		
+		@Override
+		public void onSignalsChanged(Collection<Signal> signals) {
+			for (Signal signal : signals) {
+				CircuitCanvas.this.repaintSignalArea(CircuitCanvas.this.scene.getSignalBounds(signal));
+			}
+		}
+		
+		@Override
+		public void onSignalConnection(Input input, Output output) {
+			CircuitCanvas.this.repaintArea(CircuitCanvas.this.scene.connect(input, output));
+		}
+		
+		@Override
+		public void onSignalDisconnection(Input input, Output output) {
+			CircuitCanvas.this.repaintArea(CircuitCanvas.this.scene.disconnect(input, output));
+		}
+	}
+	
+	/**
+	 * Handles selection and movement of gates, selection of wires, creation of new wires and 
+	 * zooming and panning of the canvas.
+	 */
+	private final MouseHandler mouseHandler = new MouseHandler();
+	
+	/**
+	 * Mouse listener of the canvas.
+	 */
+	private class MouseHandler extends MouseAdapter {
+		private Point point;
+		private Component draggedComponent;
+		private Signal wireStart;
+		private Point wireEnd;
+		private Point panPoint;
+		
+		@Override
+		public void mousePressed(MouseEvent evt) {
+			CircuitCanvas.this.requestFocusInWindow();
+			if (CircuitCanvas.this.circuit == null) {
+				return;
+			}
+			CircuitScene scene = CircuitCanvas.this.scene;
+			Point point = CircuitCanvas.this.toScene(evt.getPoint());
+			Signal pin = scene.getPinAt(point);
+			if (pin != null) {
+				if (pin instanceof Input && pin.isConnected()) {
+					return;
+				}
+				this.wireStart = pin;
+				this.wireEnd = point;
+				return;
+			}
+			GateFigure gate = scene.getGateAt(point);
+			if (gate != null) {
+				this.draggedComponent = gate.getComponent();
+				this.point = point;
+				CircuitCanvas.this.setSelected(this.draggedComponent, !gate.isSelected());
+				return;
+			}
+			WireFigure wire = scene.getWireAt(point);
+			if (wire != null) {
+				CircuitCanvas.this.setSelected(wire.getInput(), !wire.isSelected());
+				return;
+			}
+			CircuitCanvas.this.repaintArea(scene.clearSelection());
+			this.panPoint = evt.getPoint();
+		}
+		
+		@Override
+		public void mouseDragged(MouseEvent evt) {
+			if (this.draggedComponent != null) {
+				Point point = CircuitCanvas.this.toScene(evt.getPoint());
+				Point location = CircuitCanvas.this.circuit.getComponentLocation(this.draggedComponent);
+				CircuitCanvas.this.circuit.setComponentLocation(
+					this.draggedComponent,
+					new Point(location.x + point.x - this.point.x, location.y + point.y - this.point.y)
+				);
+				this.point = point;
+			} else if (this.wireStart != null) {
+				CircuitCanvas.this.repaintArea(this.getDraggedWireBounds());
+				this.wireEnd = CircuitCanvas.this.toScene(evt.getPoint());
+				CircuitCanvas.this.repaintArea(this.getDraggedWireBounds());
+			} else if (this.panPoint != null) {
+				CircuitCanvas.this.pan(evt.getX() - this.panPoint.x, evt.getY() - this.panPoint.y);
+				this.panPoint = evt.getPoint();
+			}
+		}
+		
+		@Override
+		public void mouseReleased(MouseEvent evt) {
+			if (this.wireStart != null) {
+				CircuitCanvas.this.repaintArea(this.getDraggedWireBounds());
+				Signal end = CircuitCanvas.this.scene.getPinAt(CircuitCanvas.this.toScene(evt.getPoint()));
+				if (end != null && (end instanceof Input) != (this.wireStart instanceof Input)) {
+					CircuitCanvas.this.connect(this.wireStart, end);
+				}
+			}
+			this.reset();
+		}
+		
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent evt) {
+			CircuitCanvas.this.zoom(Math.pow(ZOOM_STEP, -evt.getWheelRotation()), evt.getPoint());
+		}
+		
+		/**
+		 * Stops any drag that is in progress.
+		 */
+		void reset() {
+			this.draggedComponent = null;
+			this.point = null;
+			this.wireStart = null;
+			this.wireEnd = null;
+			this.panPoint = null;
+		}
+		
+		/**
+		 * Paints the wire that is being dragged from a pin, if any.
+		 * 
+		 * @param g		graphics to paint with, in the coordinates of the scene
+		 */
+		void paintDraggedWire(Graphics2D g) {
+			Point start = this.wireStart == null ? null : CircuitCanvas.this.scene.getPinPosition(this.wireStart);
+			if (start != null) {
+				GeneralPath path = new GeneralPath();
+				WireFigure.setPath(path, start, this.wireEnd);
+				WireFigure.paint(g, path, false, Color.WHITE);
+			}
+		}
+		
+		/**
+		 * Helper function to get the bounds of the wire that is being dragged.
+		 * 
+		 * @return bounds of the wire in the coordinates of the scene, null if no wire is dragged
+		 */
+		private Rectangle getDraggedWireBounds() {
+			Point start = this.wireStart == null ? null : CircuitCanvas.this.scene.getPinPosition(this.wireStart);
+			if (start == null) {
+				return null;
+			}
+			GeneralPath path = new GeneralPath();
+			WireFigure.setPath(path, start, this.wireEnd);
+			Rectangle bounds = path.getBounds();
+			bounds.grow(WireFigure.MARGIN, WireFigure.MARGIN);
+			return bounds;
+		}
+	}
+}
@@ -0,0 +1,896 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.swing.components;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.GeneralPath;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import se.openflisp.gui.util.SpatialGrid;
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Scene model of a Circuit2D, with a {@link GateFigure} for the Components near the viewport and 
+ * a {@link WireFigure} for their connections.
+ * 
+ * Figures are only created for the live area, which is the viewport set with 
+ * {@link #setViewport(Rectangle)} grown by half its size in every direction. The Components in it 
+ * are found through the spatial index of the Circuit, and figures that leave it are evicted, so the 
+ * memory of the scene follows the viewport and not the size of the Circuit. A wire lives as long as 
+ * one of its gates does and is indexed in a spatial grid of the live wires only. A wire whose gates 
+ * are both outside of the live area is not shown.
+ * 
+ * The overview that is painted with less detail does not use any figures. Its boxes and straight 
+ * segments are painted directly from the Components that the spatial index of the Circuit finds.
+ * 
+ * The selection is kept by the scene, so a figure that is created again keeps being selected.
+ * 
+ * @version 1.0
+ * @see CircuitCanvas
+ */
+public class CircuitScene {
+	
+	/**
+	 * Figures of the Components in the live area.
+	 */
+	private final Map<Component, GateFigure> gates = new HashMap<Component, GateFigure>();
+	
+	/**
+	 * Figures of the connections of the live gates, keyed by their input since an input has one connection.
+	 */
+	private final Map<Input, WireFigure> wires = new HashMap<Input, WireFigure>();
+	
+	/**
+	 * Size of a gate figure, used to find the figures in an area from the locations of the Circuit.
+	 */
+	private static final Dimension GATE_SIZE = new Dimension(GateFigure.WIDTH, GateFigure.HEIGHT);
+	
+	/**
+	 * The Circuit that is shown, its spatial index is used to find the Components in an area.
+	 */
+	private Circuit2D circuit;
+	
+	/**
+	 * Spatial index of the live wire figures.
+	 */
+	private final SpatialGrid<WireFigure> wireIndex = new SpatialGrid<WireFigure>();
+	
+	/**
+	 * Path that wires are indexed by, reused so that indexing does not build the path of a wire.
+	 */
+	private final GeneralPath indexPath = new GeneralPath();
+	
+	/**
+	 * The viewport that the figures were created for, null if there are no figures.
+	 */
+	private Rectangle viewport;
+	
+	/**
+	 * The area whose Components have figures, null if there are no figures.
+	 */
+	private Rectangle liveArea;
+	
+	/**
+	 * Union of the bounds of all Components that have been added.
+	 */
+	private final Rectangle extent = new Rectangle();
+	
+	/**
+	 * Components that are selected.
+	 */
+	private final Set<Component> selectedComponents = new HashSet<Component>();
+	
+	/**
+	 * Inputs whose wires are selected.
+	 */
+	private final Set<Input> selectedWires = new HashSet<Input>();
+	
+	/**
+	 * Shows a Circuit in the scene, all figures and the selection are dropped. Figures are created 
+	 * when a viewport is set or an area is painted in detail.
+	 * 
+	 * @param circuit		the circuit to show, null to clear the scene
+	 */
+	public void load(Circuit2D circuit) {
+		this.setViewport(null);
+		this.selectedComponents.clear();
+		this.selectedWires.clear();
+		this.extent.setBounds(0, 0, 0, 0);
+		this.circuit = circuit;
+		if (circuit == null) {
+			return;
+		}
+		for (Component component : circuit.getComponents()) {
+			Point location = circuit.getComponentLocation(component);
+			this.extent.add(getGateBounds(location == null ? new Point(0, 0) : location));
+		}
+	}
+	
+	/**
+	 * Creates the figures of the live area around a viewport and evicts the figures that are 
+	 * outside of it.
+	 * 
+	 * @param viewport		the area that is shown, null to evict all figures
+	 */
+	public void setViewport(Rectangle viewport) {
+		if (viewport == null) {
+			this.gates.clear();
+			this.wires.clear();
+			this.wireIndex.clear();
+			this.viewport = null;
+			this.liveArea = null;
+			return;
+		}
+		if (viewport.equals(this.viewport)) {
+			return;
+		}
+		this.viewport = new Rectangle(viewport);
+		this.liveArea = new Rectangle(viewport);
+		this.liveArea.grow(viewport.width / 2, viewport.height / 2);
+		if (this.circuit == null) {
+			return;
+		}
+		for (GateFigure gate : new ArrayList<GateFigure>(this.gates.values())) {
+			if (!gate.getBounds().intersects(this.liveArea)) {
+				this.hideGate(gate.getComponent());
+			}
+		}
+		for (Component component : this.circuit.getComponentsInViewport(this.liveArea, GATE_SIZE)) {
+			if (!this.gates.containsKey(component)) {
+				this.showGate(component, this.circuit.getComponentLocation(component));
+			}
+		}
+	}
+	
+	/**
+	 * Gets the figure of a Component.
+	 * 
+	 * @param component		the component
+	 * @return the gate figure, null if the component is not in the live area
+	 */
+	public GateFigure getGate(Component component) {
+		return this.gates.get(component);
+	}
+	
+	/**
+	 * Gets the figure of the connection to an input.
+	 * 
+	 * @param input		the input end of the connection
+	 * @return the wire figure, null if neither end of the connection is in the live area
+	 */
+	public WireFigure getWire(Input input) {
+		return this.wires.get(input);
+	}
+	
+	/**
+	 * Gets the number of gate figures, which are the Components in the live area.
+	 * 
+	 * @return the gate count
+	 */
+	public int getGateCount() {
+		return this.gates.size();
+	}
+	
+	/**
+	 * Gets the number of wire figures, which are the connections of the live gates.
+	 * 
+	 * @return the wire count
+	 */
+	public int getWireCount() {
+		return this.wires.size();
+	}
+	
+	/**
+	 * Gets the union of the bounds of all Components that have been added, used as the size of 
+	 * the scene. The extent does not shrink when Components are removed.
+	 * 
+	 * @return the extent of the scene
+	 */
+	public Rectangle getExtent() {
+		return new Rectangle(this.extent);
+	}
+	
+	/**
+	 * Gets the selected Components.
+	 * 
+	 * @return unmodifiable set of the selected components
+	 */
+	public Set<Component> getSelectedComponents() {
+		return Collections.unmodifiableSet(this.selectedComponents);
+	}
+	
+	/**
+	 * Gets the inputs whose wires are selected.
+	 * 
+	 * @return unmodifiable set of the inputs of the selected wires
+	 */
+	public Set<Input> getSelectedWires() {
+		return Collections.unmodifiableSet(this.selectedWires);
+	}
+	
+	/**
+	 * Selects or deselects a Component.
+	 * 
+	 * @param component		the component
+	 * @param selected		true to select it
+	 * @return the area that has to be repainted, null if the component has no figure
+	 */
+	public Rectangle setSelected(Component component, boolean selected) {
+		if (selected) {
+			this.selectedComponents.add(component);
+		} else {
+			this.selectedComponents.remove(component);
+		}
+		GateFigure gate = this.gates.get(component);
+		if (gate == null) {
+			return null;
+		}
+		gate.setSelected(selected);
+		return new Rectangle(gate.getBounds());
+	}
+	
+	/**
+	 * Selects or deselects the wire of an Input.
+	 * 
+	 * @param input			the input end of the wire
+	 * @param selected		true to select it
+	 * @return the area that has to be repainted, null if the wire has no figure
+	 */
+	public Rectangle setSelected(Input input, boolean selected) {
+		if (selected) {
+			this.selectedWires.add(input);
+		} else {
+			this.selectedWires.remove(input);
+		}
+		WireFigure wire = this.wires.get(input);
+		if (wire == null) {
+			return null;
+		}
+		wire.setSelected(selected);
+		return new Rectangle(wire.getBounds());
+	}
+	
+	/**
+	 * Deselects all Components and wires.
+	 * 
+	 * @return the area that has to be repainted, null if no figure was selected
+	 */
+	public Rectangle clearSelection() {
+		Rectangle damage = null;
+		for (Component component : new ArrayList<Component>(this.selectedComponents)) {
+			damage = union(damage, this.setSelected(component, false));
+		}
+		for (Input input : new ArrayList<Input>(this.selectedWires)) {
+			damage = union(damage, this.setSelected(input, false));
+		}
+		return damage;
+	}
+	
+	/**
+	 * Adds a Component, with a figure if it is in the live area and wires for the connections that 
+	 * have one end in the live area.
+	 * 
+	 * @param component		the component to add
+	 * @param location		the location of the component
+	 * @return the area that has to be repainted, null if the component is not shown
+	 */
+	public Rectangle addComponent(Component component, Point location) {
+		return this.placeComponent(component, location);
+	}
+	
+	/**
+	 * Removes the figure of a Component and all wires of its pins, and deselects them.
+	 * 
+	 * @param component		the component to remove
+	 * @return the area that has to be repainted, null if the component was not shown
+	 */
+	public Rectangle removeComponent(Component component) {
+		this.selectedComponents.remove(component);
+		for (Input input : component.getInputs()) {
+			this.selectedWires.remove(input);
+		}
+		GateFigure gate = this.gates.remove(component);
+		Rectangle damage = gate == null ? null : new Rectangle(gate.getBounds());
+		for (WireFigure wire : this.getWires(component)) {
+			damage = union(damage, this.removeWire(wire));
+		}
+		return damage;
+	}
+	
+	/**
+	 * Moves a Component and its wires, its figure is created or evicted if it enters or leaves 
+	 * the live area.
+	 * 
+	 * @param component		the component that has moved
+	 * @param location		the new location of the component
+	 * @return the area that has to be repainted, null if the component is not shown
+	 */
+	public Rectangle moveComponent(Component component, Point location) {
+		return this.placeComponent(component, location);
+	}
+	
+	/**
+	 * Adds a wire for a connection if one of its ends is in the live area, a figure is created 
+	 * again if it has no pin for the connection.
+	 * 
+	 * @param input		the input end of the connection
+	 * @param output	the output end of the connection
+	 * @return the area that has to be repainted, null if the connection is not shown
+	 */
+	public Rectangle connect(Input input, Output output) {
+		GateFigure inputGate = this.getUpdatedGate(input.getOwner());
+		GateFigure outputGate = this.getUpdatedGate(output.getOwner());
+		if (inputGate == null && outputGate == null) {
+			return null;
+		}
+		WireFigure wire = this.wires.get(input);
+		if (wire != null) {
+			if (wire.getOutput() == output) {
+				return new Rectangle(wire.getBounds());
+			}
+			this.removeWire(wire);
+		}
+		wire = this.showWire(input, output);
+		return wire == null ? null : new Rectangle(wire.getBounds());
+	}
+	
+	/**
+	 * Removes the wire of a connection and deselects it.
+	 * 
+	 * @param input		the input end of the connection
+	 * @param output	the output end of the connection
+	 * @return the area that has to be repainted, null if the connection has no wire
+	 */
+	public Rectangle disconnect(Input input, Output output) {
+		WireFigure wire = this.wires.get(input);
+		if (wire == null || wire.getOutput() != output) {
+			return null;
+		}
+		this.selectedWires.remove(input);
+		return this.removeWire(wire);
+	}
+	
+	/**
+	 * Gets the area that shows the state of a Signal, which is its pin and the wire of an input.
+	 * 
+	 * @param signal		the signal that has changed
+	 * @return the area that has to be repainted, null if the signal is not shown
+	 */
+	public Rectangle getSignalBounds(Signal signal) {
+		GateFigure gate = this.gates.get(signal.getOwner());
+		Rectangle bounds = gate == null ? null : gate.getPinBounds(signal);
+		if (signal instanceof Input) {
+			WireFigure wire = this.wires.get(signal);
+			if (wire != null) {
+				bounds = union(bounds, wire.getBounds());
+			}
+		}
+		return bounds;
+	}
+	
+	/**
+	 * Gets the gate figures that overlap an area of the live area.
+	 * 
+	 * @param area		the area to search
+	 * @return the gates in the area
+	 */
+	public List<GateFigure> getGates(Rectangle area) {
+		List<GateFigure> result = new ArrayList<GateFigure>();
+		for (GateFigure gate : this.queryGates(area)) {
+			if (gate.getBounds().intersects(area)) {
+				result.add(gate);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Gets the wire figures whose bounds overlap an area of the live area.
+	 * 
+	 * @param area		the area to search
+	 * @return the wires in the area
+	 */
+	public List<WireFigure> getWires(Rectangle area) {
+		List<WireFigure> result = this.wireIndex.query(area);
+		for (int index = result.size() - 1; index >= 0; index--) {
+			if (!result.get(index).getBounds().intersects(area)) {
+				result.remove(index);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Gets the gate figure at a point. A Component outside of the live area gets a figure that is 
+	 * not kept by the scene.
+	 * 
+	 * @param point		the point to test
+	 * @return the topmost gate at the point, null if there is none
+	 */
+	public GateFigure getGateAt(Point point) {
+		GateFigure found = null;
+		for (GateFigure gate : this.queryFigures(new Rectangle(point.x, point.y, 0, 0))) {
+			if (gate.getBounds().contains(point)) {
+				found = gate;
+			}
+		}
+		return found;
+	}
+	
+	/**
+	 * Gets the wire figure at a point of the live area.
+	 * 
+	 * @param point		the point to test
+	 * @return a wire at the point, null if there is none
+	 */
+	public WireFigure getWireAt(Point point) {
+		Rectangle area = new Rectangle(point.x - WireFigure.MARGIN, point.y - WireFigure.MARGIN, 0, 0);
+		area.add(point.x + WireFigure.MARGIN, point.y + WireFigure.MARGIN);
+		for (WireFigure wire : this.wireIndex.query(area)) {
+			if (wire.hits(point)) {
+				return wire;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the pin at a point.
+	 * 
+	 * @param point		the point to test
+	 * @return the signal of the pin at the point, null if there is none
+	 */
+	public Signal getPinAt(Point point) {
+		for (GateFigure gate : this.queryFigures(new Rectangle(point.x, point.y, 0, 0))) {
+			Signal signal = gate.getPinAt(point);
+			if (signal != null) {
+				return signal;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the position where wires are attached to a pin.
+	 * 
+	 * @param signal		the signal of the pin
+	 * @return the position of the pin, null if the signal is not in the Circuit
+	 */
+	public Point getPinPosition(Signal signal) {
+		GateFigure gate = this.gates.get(signal.getOwner());
+		if (gate != null) {
+			return gate.getPinPosition(signal);
+		}
+		Point location = this.circuit == null ? null : this.circuit.getComponentLocation(signal.getOwner());
+		return location == null ? null : GateFigure.getPinPosition(signal, location);
+	}
+	
+	/**
+	 * Paints the wires and gates that overlap an area, the wires are painted below the gates.
+	 * 
+	 * @param g				graphics to paint with
+	 * @param area			the area to paint, normally the clip of the graphics
+	 * @param background	colour of unset pins
+	 */
+	public void paint(Graphics2D g, Rectangle area, Color background) {
+		this.paint(g, area, background, true);
+	}
+	
+	/**
+	 * Paints the wires and gates that overlap an area, either in full detail or as boxes and 
+	 * straight segments. 
+	 * 
+	 * Painting in detail uses the figures, and sets the viewport to the area if it is outside of 
+	 * the live area. Painting with less detail does not create any figures.
+	 * 
+	 * @param g				graphics to paint with
+	 * @param area			the area to paint, normally the clip of the graphics
+	 * @param background	colour of unset pins
+	 * @param detailed		true to paint the figures in full detail
+	 */
+	public void paint(Graphics2D g, Rectangle area, Color background, boolean detailed) {
+		if (!detailed) {
+			this.paintOverview(g, area);
+			return;
+		}
+		if (this.liveArea == null || !this.liveArea.contains(area)) {
+			this.setViewport(area);
+		}
+		for (WireFigure wire : this.getWires(area)) {
+			wire.paint(g);
+		}
+		for (GateFigure gate : this.getGates(area)) {
+			gate.paint(g, background);
+		}
+	}
+	
+	/**
+	 * Helper function to paint an area with less detail straight from the spatial index of the 
+	 * Circuit. Every connection of a Component in the area is painted as a straight segment, and 
+	 * every Component as a box. Segments of the same colour are collected into one path so the 
+	 * stroke is only set up once per colour.
+	 * 
+	 * @param g				graphics to paint with
+	 * @param area			the area to paint
+	 */
+	private void paintOverview(Graphics2D g, Rectangle area) {
+		if (this.circuit == null) {
+			return;
+		}
+		List<Component> components = this.circuit.getComponentsInViewport(area, GATE_SIZE);
+		Rectangle found = new Rectangle(area.x - GATE_SIZE.width, area.y - GATE_SIZE.height, 
+				area.width + GATE_SIZE.width, area.height + GATE_SIZE.height);
+		// Connections from outside the area only have to be searched when not everything was found
+		boolean partial = !found.contains(this.extent);
+		Map<Color, GeneralPath> segments = new HashMap<Color, GeneralPath>();
+		for (Component component : components) {
+			Point location = this.circuit.getComponentLocation(component);
+			Collection<Input> inputs = component.getInputs();
+			int count = inputs.size();
+			int index = 0;
+			for (Input input : inputs) {
+				Output output = input.getConnection();
+				Point end = output == null ? null : this.getPinPosition(output);
+				if (end != null) {
+					int y = GateFigure.getPinCenter(location.y, index, count);
+					this.addSegment(segments, input, location.x, y, end.x, end.y);
+				}
+				index++;
+			}
+			if (!partial) {
+				continue;
+			}
+			for (Output output : component.getOutputs()) {
+				for (Input input : output.getConnections()) {
+					Point start = this.circuit.getComponentLocation(input.getOwner());
+					if (start != null && !found.contains(start)) {
+						Point end = GateFigure.getPinPosition(output, location);
+						start = GateFigure.getPinPosition(input, start);
+						this.addSegment(segments, input, start.x, start.y, end.x, end.y);
+					}
+				}
+			}
+		}
+		g.setStroke(WireFigure.STATE_STROKE);
+		for (Map.Entry<Color, GeneralPath> entry : segments.entrySet()) {
+			g.setColor(entry.getKey());
+			g.draw(entry.getValue());
+		}
+		g.setColor(GateFigure.BOX_COLOR);
+		for (Component component : components) {
+			if (!this.selectedComponents.contains(component)) {
+				GateFigure.paintBox(g, this.circuit.getComponentLocation(component));
+			}
+		}
+		g.setColor(GateFigure.SELECTED_COLOR);
+		for (Component component : this.selectedComponents) {
+			Point location = this.circuit.getComponentLocation(component);
+			if (location != null && found.contains(location)) {
+				GateFigure.paintBox(g, location);
+			}
+		}
+	}
+	
+	/**
+	 * Helper function to add a segment of a connection to the path of its colour.
+	 * 
+	 * @param segments		the paths by colour
+	 * @param input			the input end of the connection, whose state is shown
+	 * @param x1			x coordinate of the input pin
+	 * @param y1			y coordinate of the input pin
+	 * @param x2			x coordinate of the output pin
+	 * @param y2			y coordinate of the output pin
+	 */
+	private void addSegment(Map<Color, GeneralPath> segments, Input input, int x1, int y1, int x2, int y2) {
+		Color color = this.selectedWires.contains(input) 
+				? GateFigure.SELECTED_COLOR 
+				: GateFigure.getStateColor(input.getState(), Color.BLACK);
+		GeneralPath path = segments.get(color);
+		if (path == null) {
+			path = new GeneralPath();
+			segments.put(color, path);
+		}
+		path.moveTo(x1, y1);
+		path.lineTo(x2, y2);
+	}
+	
+	/**
+	 * Helper function to get the live gate figures of the Components whose figures may overlap 
+	 * an area, found through the spatial index of the Circuit.
+	 * 
+	 * @param area		the area to search
+	 * @return the candidate figures
+	 */
+	private List<GateFigure> queryGates(Rectangle area) {
+		List<GateFigure> result = new ArrayList<GateFigure>();
+		if (this.circuit == null) {
+			return result;
+		}
+		for (Component component : this.circuit.getComponentsInViewport(area, GATE_SIZE)) {
+			GateFigure gate = this.gates.get(component);
+			if (gate != null) {
+				result.add(gate);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Helper function to get figures for all Components whose figures may overlap an area, 
+	 * Components outside of the live area get figures that are not kept.
+	 * 
+	 * @param area		the area to search
+	 * @return the candidate figures
+	 */
+	private List<GateFigure> queryFigures(Rectangle area) {
+		List<GateFigure> result = new ArrayList<GateFigure>();
+		if (this.circuit == null) {
+			return result;
+		}
+		for (Component component : this.circuit.getComponentsInViewport(area, GATE_SIZE)) {
+			GateFigure gate = this.gates.get(component);
+			if (gate == null) {
+				gate = new GateFigure(component, this.circuit.getComponentLocation(component));
+				gate.setSelected(this.selectedComponents.contains(component));
+			}
+			result.add(gate);
+		}
+		return result;
+	}
+	
+	/**
+	 * Helper function to place a Component at a location, and create or evict its figure depending 
+	 * on if it is in the live area.
+	 * 
+	 * @param component		the component to place
+	 * @param location		the location of the component
+	 * @return the area that has to be repainted, null if the component is not shown
+	 */
+	private Rectangle placeComponent(Component component, Point location) {
+		Rectangle bounds = getGateBounds(location);
+		this.extent.add(bounds);
+		GateFigure gate = this.gates.get(component);
+		Rectangle damage = gate == null ? null : new Rectangle(gate.getBounds());
+		for (WireFigure wire : this.getWires(component)) {
+			damage = union(damage, wire.getBounds());
+		}
+		boolean live = this.liveArea != null && bounds.intersects(this.liveArea);
+		if (gate == null && live) {
+			gate = this.showGate(component, location);
+		} else if (gate != null && !live) {
+			this.hideGate(component);
+			gate = null;
+		} else if (gate != null) {
+			gate.setLocation(location);
+		} else {
+			this.showWires(component, false);
+		}
+		if (gate != null) {
+			damage = union(damage, gate.getBounds());
+		}
+		return union(damage, this.updateWires(component));
+	}
+	
+	/**
+	 * Helper function to create the figure of a Component in the live area, and the wires of its 
+	 * pins that do not have a figure yet.
+	 * 
+	 * @param component		the component of the figure
+	 * @param location		the location of the component
+	 * @return the new figure
+	 */
+	private GateFigure showGate(Component component, Point location) {
+		GateFigure gate = new GateFigure(component, location);
+		gate.setSelected(this.selectedComponents.contains(component));
+		this.gates.put(component, gate);
+		this.showWires(component, true);
+		return gate;
+	}
+	
+	/**
+	 * Helper function to evict the figure of a Component, its wires are evicted unless their other 
+	 * end has a figure.
+	 * 
+	 * @param component		the component whose figure should be evicted
+	 */
+	private void hideGate(Component component) {
+		this.gates.remove(component);
+		for (WireFigure wire : this.getWires(component)) {
+			if (!this.gates.containsKey(wire.getInput().getOwner()) 
+					&& !this.gates.containsKey(wire.getOutput().getOwner())) {
+				this.removeWire(wire);
+			}
+		}
+	}
+	
+	/**
+	 * Helper function to create the missing wires of the pins of a Component.
+	 * 
+	 * @param component		the component
+	 * @param all			true to create all wires, false to only create the wires whose other 
+	 * 						end has a figure
+	 */
+	private void showWires(Component component, boolean all) {
+		for (Input input : component.getInputs()) {
+			Output output = input.getConnection();
+			if (output != null && !this.wires.containsKey(input) 
+					&& (all || this.gates.containsKey(output.getOwner()))) {
+				this.showWire(input, output);
+			}
+		}
+		for (Output output : component.getOutputs()) {
+			for (Input input : output.getConnections()) {
+				if (!this.wires.containsKey(input) && (all || this.gates.containsKey(input.getOwner()))) {
+					this.showWire(input, output);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Helper function to create the figure of a connection.
+	 * 
+	 * @param input		the input end of the connection
+	 * @param output	the output end of the connection
+	 * @return the new figure, null if one of the ends is not in the Circuit
+	 */
+	private WireFigure showWire(Input input, Output output) {
+		WireFigure wire = new WireFigure(input, output);
+		if (!this.updateWire(wire)) {
+			return null;
+		}
+		wire.setSelected(this.selectedWires.contains(input));
+		this.wires.put(input, wire);
+		return wire;
+	}
+	
+	/**
+	 * Helper function to get the wire figures of the pins of a Component.
+	 * 
+	 * @param component		the component
+	 * @return the wires that are connected to the component
+	 */
+	private List<WireFigure> getWires(Component component) {
+		List<WireFigure> result = new ArrayList<WireFigure>();
+		for (Input input : component.getInputs()) {
+			WireFigure wire = this.wires.get(input);
+			if (wire != null) {
+				result.add(wire);
+			}
+		}
+		for (Output output : component.getOutputs()) {
+			for (Input input : output.getConnections()) {
+				WireFigure wire = this.wires.get(input);
+				if (wire != null && wire.getOutput() == output) {
+					result.add(wire);
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Helper function to get the figure of a Component, the figure is created again if pins have
+	 * been added to the Component since it was created.
+	 * 
+	 * @param component		the component
+	 * @return the figure, null if the component is not in the live area
+	 */
+	private GateFigure getUpdatedGate(Component component) {
+		GateFigure gate = this.gates.get(component);
+		if (gate == null || gate.hasAllPins()) {
+			return gate;
+		}
+		GateFigure updated = new GateFigure(component, gate.getBounds().getLocation());
+		updated.setSelected(gate.isSelected());
+		this.gates.put(component, updated);
+		this.updateWires(component);
+		return updated;
+	}
+	
+	/**
+	 * Helper function to remove a wire figure.
+	 * 
+	 * @param wire		the wire to remove
+	 * @return the bounds of the wire
+	 */
+	private Rectangle removeWire(WireFigure wire) {
+		this.wires.remove(wire.getInput());
+		this.wireIndex.remove(wire);
+		return new Rectangle(wire.getBounds());
+	}
+	
+	/**
+	 * Helper function to update the wires of a Component from the positions of their pins.
+	 * 
+	 * @param component		the component whose wires should be updated
+	 * @return the area that has to be repainted, null if the component has no wires
+	 */
+	private Rectangle updateWires(Component component) {
+		Rectangle damage = null;
+		for (WireFigure wire : this.getWires(component)) {
+			damage = union(damage, wire.getBounds());
+			if (this.updateWire(wire)) {
+				damage.add(wire.getBounds());
+			} else {
+				this.removeWire(wire);
+			}
+		}
+		return damage;
+	}
+	
+	/**
+	 * Helper function to update the path of a wire from the positions of its pins.
+	 * 
+	 * @param wire		the wire to update
+	 * @return true if the wire was updated, false if one of its ends is not in the Circuit
+	 */
+	private boolean updateWire(WireFigure wire) {
+		Point start = this.getPinPosition(wire.getInput());
+		Point end = this.getPinPosition(wire.getOutput());
+		if (start == null || end == null) {
+			return false;
+		}
+		wire.update(start, end);
+		WireFigure.setPath(this.indexPath, start, end);
+		this.wireIndex.add(wire, this.indexPath, WireFigure.MARGIN);
+		return true;
+	}
+	
+	/**
+	 * Helper function to get the bounds of a gate figure at a location, without creating it.
+	 * 
+	 * @param location		the location of the gate
+	 * @return the bounds of the gate
+	 */
+	private static Rectangle getGateBounds(Point location) {
+		return new Rectangle(location.x, location.y, GateFigure.WIDTH, GateFigure.HEIGHT);
+	}
+	
+	/**
+	 * Helper function to add an area to a damaged area that may not exist yet.
+	 * 
+	 * @param damage		the damaged area, null if there is none, modified if it exists
+	 * @param area			the area to add, null to add nothing
+	 * @return the union of the areas, null if both are null
+	 */
+	private static Rectangle union(Rectangle damage, Rectangle area) {
+		if (area == null) {
+			return damage;
+		}
+		if (damage == null) {
+			return new Rectangle(area);
+		}
+		damage.add(area);
+		return damage;
+	}
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.swing.components;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Stroke;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.NandGate;
+import se.openflisp.sls.component.NorGate;
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.component.NxorGate;
+
+/**
+ * Figure of a Component in a {@link CircuitScene}, painted the same way as a {@link GateView} but
+ * without any Swing components.
+ * 
+ * The figure has the size of a GateView, a white body in the middle and its input and output pins
+ * spread out along the left and right side. When it is painted with less detail only its body is
+ * drawn, as a filled box.
+ * 
+ * @version 1.0
+ * @see CircuitCanvas
+ */
+public class GateFigure {
+	
+	/**
+	 * Stroke of the pin sticks.
+	 */
+	static final Stroke PIN_STROKE = new BasicStroke(4);
+	
+	/**
+	 * Stroke of outlines.
+	 */
+	static final Stroke OUTLINE_STROKE = new BasicStroke(1);
+	
+	/**
+	 * Colour of the pin sticks.
+	 */
+	static final Color PIN_COLOR = Color.GRAY;
+	
+	/**
+	 * Colour of a selected body.
+	 */
+	static final Color SELECTED_COLOR = Color.ORANGE;
+	
+	/**
+	 * Colour of a body that is painted with less detail.
+	 */
+	static final Color BOX_COLOR = Color.DARK_GRAY;
+	
+	/**
+	 * Width of a figure.
+	 */
+	public static final int WIDTH = ComponentView.componentSize * 2;
+	
+	/**
+	 * Height of a figure.
+	 */
+	public static final int HEIGHT = ComponentView.componentSize;
+	
+	/**
+	 * Diameter of a pin circle.
+	 */
+	static final int PIN_SIZE = SignalView.arcLength;
+	
+	/**
+	 * The Component that the figure shows.
+	 */
+	private final Component component;
+	
+	/**
+	 * Symbol that is shown in the body.
+	 */
+	private final String symbol;
+	
+	/**
+	 * If the outputs are drawn with a negation circle.
+	 */
+	private final boolean inverted;
+	
+	/**
+	 * Inputs in the order they are drawn from the top.
+	 */
+	private final List<Signal> inputs;
+	
+	/**
+	 * Outputs in the order they are drawn from the top.
+	 */
+	private final List<Signal> outputs;
+	
+	/**
+	 * Bounds of the figure.
+	 */
+	private final Rectangle bounds = new Rectangle(0, 0, WIDTH, HEIGHT);
+	
+	/**
+	 * If the figure is selected.
+	 */
+	private boolean selected;
+	
+	/**
+	 * Creates a figure for a Component.
+	 * 
+	 * @param component		the component to show
+	 * @param location		the location of the component
+	 */
+	public GateFigure(Component component, Point location) {
+		this.component = component;
+		this.symbol = GateView.getSymbol(component);
+		this.inverted = component instanceof NandGate || component instanceof NotGate
+				|| component instanceof NxorGate || component instanceof NorGate;
+		this.inputs = new ArrayList<Signal>(component.getInputs());
+		this.outputs = new ArrayList<Signal>(component.getOutputs());
+		this.setLocation(location);
+	}
+	
+	/**
+	 * Gets the Component that the figure shows.
+	 * 
+	 * @return the component
+	 */
+	public Component getComponent() {
+		return this.component;
+	}
+	
+	/**
+	 * Gets the bounds of the figure.
+	 * 
+	 * @return the bounds, which must not be modified
+	 */
+	public Rectangle getBounds() {
+		return this.bounds;
+	}
+	
+	/**
+	 * Moves the figure.
+	 * 
+	 * @param location		the new location of the upper left corner
+	 */
+	public void setLocation(Point location) {
+		this.bounds.setLocation(location);
+	}
+	
+	/**
+	 * Checks if the figure is selected.
+	 * 
+	 * @return true if the figure is selected, false otherwise
+	 */
+	public boolean isSelected() {
+		return this.selected;
+	}
+	
+	/**
+	 * Selects or deselects the figure.
+	 * 
+	 * @param selected		true to select the figure
+	 */
+	public void setSelected(boolean selected) {
+		this.selected = selected;
+	}
+	
+	/**
+	 * Checks if the figure has a pin for every Signal of its Component, new pins can be added to a
+	 * Component after the figure has been created.
+	 * 
+	 * @return true if the pins are up to date, false otherwise
+	 */
+	public boolean hasAllPins() {
+		return this.inputs.size() == this.component.getInputs().size()
+				&& this.outputs.size() == this.component.getOutputs().size();
+	}
+	
+	/**
+	 * Gets the point where wires are attached to a pin.
+	 * 
+	 * @param signal		a signal of the component
+	 * @return the attachment point, null if the figure has no pin for the signal
+	 */
+	public Point getPinPosition(Signal signal) {
+		if (signal instanceof Input) {
+			int index = this.inputs.indexOf(signal);
+			return index < 0 ? null : new Point(this.bounds.x, this.getPinCenter(index, this.inputs.size()));
+		}
+		int index = this.outputs.indexOf(signal);
+		return index < 0 ? null : new Point(this.bounds.x + WIDTH, this.getPinCenter(index, this.outputs.size()));
+	}
+	
+	/**
+	 * Gets the point where wires are attached to a pin of a Component that has no figure, the 
+	 * same point as on a figure of the Component at the location.
+	 * 
+	 * @param signal		a signal of the component
+	 * @param location		the location of the component
+	 * @return the attachment point, null if the component has no such signal
+	 */
+	static Point getPinPosition(Signal signal, Point location) {
+		boolean input = signal instanceof Input;
+		Collection<? extends Signal> pins = input ? signal.getOwner().getInputs() : signal.getOwner().getOutputs();
+		int x = input ? location.x : location.x + WIDTH;
+		int count = pins.size();
+		if (count == 1) {
+			return new Point(x, getPinCenter(location.y, 0, 1));
+		}
+		int index = 0;
+		for (Signal pin : pins) {
+			if (pin == signal) {
+				return new Point(x, getPinCenter(location.y, index, count));
+			}
+			index++;
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the bounds of a pin, including its stick.
+	 * 
+	 * @param signal		a signal of the component
+	 * @return bounds of the pin, null if the figure has no pin for the signal
+	 */
+	public Rectangle getPinBounds(Signal signal) {
+		Point position = this.getPinPosition(signal);
+		if (position == null) {
+			return null;
+		}
+		int x = signal instanceof Input ? position.x : position.x - HEIGHT / 2;
+		return new Rectangle(x - 1, position.y - PIN_SIZE / 2 - 1, HEIGHT / 2 + 2, PIN_SIZE + 2);
+	}
+	
+	/**
+	 * Gets the pin whose circle is at a point.
+	 * 
+	 * @param point		the point to test
+	 * @return the signal of the pin, null if there is no pin at the point
+	 */
+	public Signal getPinAt(Point point) {
+		if (!this.bounds.contains(point)) {
+			return null;
+		}
+		for (int index = 0; index < this.inputs.size(); index++) {
+			int y = this.getPinCenter(index, this.inputs.size());
+			if (this.isInPin(point, this.bounds.x + PIN_SIZE / 2, y)) {
+				return this.inputs.get(index);
+			}
+		}
+		for (int index = 0; index < this.outputs.size(); index++) {
+			int y = this.getPinCenter(index, this.outputs.size());
+			if (this.isInPin(point, this.bounds.x + WIDTH - PIN_SIZE / 2 - 1, y)) {
+				return this.outputs.get(index);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Paints the figure.
+	 * 
+	 * @param g				graphics to paint with
+	 * @param background	colour of unset pins
+	 */
+	public void paint(Graphics2D g, Color background) {
+		int x = this.bounds.x, y = this.bounds.y;
+		for (int index = 0; index < this.inputs.size(); index++) {
+			int center = this.getPinCenter(index, this.inputs.size());
+			g.setStroke(PIN_STROKE);
+			g.setColor(PIN_COLOR);
+			g.drawLine(x + PIN_SIZE, center, x + HEIGHT / 2, center);
+			this.paintPin(g, this.inputs.get(index), x, center - PIN_SIZE / 2, background);
+		}
+		for (int index = 0; index < this.outputs.size(); index++) {
+			int center = this.getPinCenter(index, this.outputs.size());
+			int pin = x + WIDTH - (PIN_SIZE + 1);
+			g.setStroke(PIN_STROKE);
+			g.setColor(PIN_COLOR);
+			g.drawLine(x + WIDTH - HEIGHT / 2, center, pin, center);
+			if (this.inverted) {
+				g.setColor(Color.BLACK);
+				g.fillOval(x + WIDTH - HEIGHT / 2 - 2, center - PIN_SIZE / 2, PIN_SIZE - 1, PIN_SIZE - 1);
+			}
+			this.paintPin(g, this.outputs.get(index), pin, center - PIN_SIZE / 2, background);
+		}
+		g.setStroke(OUTLINE_STROKE);
+		g.setColor(Color.WHITE);
+		g.fillRect(x + HEIGHT / 2, y, HEIGHT, HEIGHT);
+		g.setColor(this.selected ? SELECTED_COLOR : Color.BLACK);
+		g.drawRect(x + HEIGHT / 2, y, HEIGHT - 1, HEIGHT - 1);
+		g.setColor(Color.BLACK);
+		FontMetrics metrics = g.getFontMetrics();
+		g.drawString(
+			this.symbol,
+			x + WIDTH / 2 - metrics.stringWidth(this.symbol) / 2,
+			y + (HEIGHT - metrics.getHeight()) / 2 + metrics.getAscent()
+		);
+	}
+	
+	/**
+	 * Paints the figure with less detail, as a box over its body without pins and symbol.
+	 * 
+	 * @param g				graphics to paint with
+	 */
+	public void paintBox(Graphics2D g) {
+		g.setColor(this.selected ? SELECTED_COLOR : BOX_COLOR);
+		paintBox(g, this.bounds.getLocation());
+	}
+	
+	/**
+	 * Paints a Component with less detail without a figure, the same way as 
+	 * {@link #paintBox(Graphics2D)} but in the current colour of the graphics.
+	 * 
+	 * @param g				graphics to paint with
+	 * @param location		the location of the component
+	 */
+	static void paintBox(Graphics2D g, Point location) {
+		g.fillRect(location.x + HEIGHT / 2, location.y, HEIGHT, HEIGHT);
+	}
+	
+	/**
+	 * Helper function to paint the circle of a pin.
+	 * 
+	 * @param g				graphics to paint with
+	 * @param signal		signal of the pin
+	 * @param x				left side of the circle
+	 * @param y				top of the circle
+	 * @param background	colour of unset pins
+	 */
+	private void paintPin(Graphics2D g, Signal signal, int x, int y, Color background) {
+		g.setColor(getStateColor(signal.getState(), background));
+		g.fillOval(x, y, PIN_SIZE - 1, PIN_SIZE - 1);
+		g.setStroke(OUTLINE_STROKE);
+		g.setColor(Color.BLACK);
+		g.drawOval(x, y, PIN_SIZE - 1, PIN_SIZE - 1);
+	}
+	
+	/**
+	 * Helper function to get the centre of a pin.
+	 * 
+	 * @param index		index of the pin on its side
+	 * @param count		number of pins on the side
+	 * @return y coordinate of the centre
+	 */
+	private int getPinCenter(int index, int count) {
+		return getPinCenter(this.bounds.y, index, count);
+	}
+	
+	/**
+	 * Gets the centre of a pin of a component without a figure.
+	 * 
+	 * @param top		top of the component
+	 * @param index		index of the pin on its side
+	 * @param count		number of pins on the side
+	 * @return y coordinate of the centre
+	 */
+	static int getPinCenter(int top, int index, int count) {
+		return top + HEIGHT * (2 * index + 1) / (2 * count);
+	}
+	
+	/**
+	 * Helper function to check if a point is in a pin circle.
+	 * 
+	 * @param point		the point to test
+	 * @param x			x coordinate of the centre
+	 * @param y			y coordinate of the centre
+	 * @return true if the point is in the circle, false otherwise
+	 */
+	private boolean isInPin(Point point, int x, int y) {
+		int radius = PIN_SIZE / 2 + 1;
+		return point.distanceSq(x, y) <= radius * radius;
+	}
+	
+	/**
+	 * Gets the colour that a signal state is shown with.
+	 * 
+	 * @param state			the state of a signal
+	 * @param background	colour of states that are not shown
+	 * @return the colour of the state
+	 */
+	static Color getStateColor(Signal.State state, Color background) {
+		if (state == Signal.State.HIGH) {
+			return Color.BLUE;
+		} else if (state == Signal.State.FLOATING) {
+			return Color.RED;
+		}
+		return background;
+	}
+}
@@ -85,21 +85,7 @@ public class GateView extends ComponentView {
 		this.identifierPanel = new JPanel(new FlowLayout());
 		this.identifierPanel.add(identifier);
 		
-		if (component instanceof NotGate) {
-			this.identifier.setText("1");
-		} else if (component instanceof ConstantGate) {
-			if (((ConstantGate) this.getComponent()).getConstantState() == Signal.State.HIGH) {
-				this.identifier.setText("1");
-			} else {
-				this.identifier.setText("0");
-			}
-		} else if ((component instanceof OrGate) || (component instanceof NorGate)) {
-			this.identifier.setText("\u22651");
-		} else if ((component instanceof AndGate) || (component instanceof NandGate)) {
-			this.identifier.setText("&");
-		} else if ((component instanceof XorGate) || (component instanceof NxorGate)) {
-			this.identifier.setText("=1");
-		}
+		this.identifier.setText(getSymbol(component));
 		
 		this.identifier.setOpaque(true);
 		this.identifier.setBorder(BorderFactory.createLineBorder(Color.black));
@@ -147,6 +133,31 @@ public class GateView extends ComponentView {
 		}		
 	}
 	
+	/**
+	 * Gets the symbol that is shown in the body of a gate.
+	 * 
+	 * @param component		the gate component
+	 * @return the symbol, an empty string if the component is not a known gate
+	 */
+	public static String getSymbol(Component component) {
+		if (component instanceof NotGate) {
+			return "1";
+		} else if (component instanceof ConstantGate) {
+			if (((ConstantGate) component).getConstantState() == Signal.State.HIGH) {
+				return "1";
+			} else {
+				return "0";
+			}
+		} else if ((component instanceof OrGate) || (component instanceof NorGate)) {
+			return "\u22651";
+		} else if ((component instanceof AndGate) || (component instanceof NandGate)) {
+			return "&";
+		} else if ((component instanceof XorGate) || (component instanceof NxorGate)) {
+			return "=1";
+		}
+		return "";
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
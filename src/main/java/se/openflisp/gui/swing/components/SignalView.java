@@ -16,7 +16,6 @@
  */
 package se.openflisp.gui.swing.components;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
@@ -25,6 +24,7 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D.Float;
+import java.util.Collection;
 
 import javax.swing.JButton;
 import javax.swing.SwingUtilities;
@@ -37,7 +37,9 @@ import se.openflisp.sls.component.NorGate;
 import se.openflisp.sls.component.NotGate;
 import se.openflisp.sls.component.NxorGate;
 import se.openflisp.sls.event.ComponentAdapter;
+import se.openflisp.sls.event.ComponentEventBus;
 import se.openflisp.sls.event.ListenerContext;
+import se.openflisp.sls.event.SignalBatchListener;
 
 /**	
  * A view for the signal on a ComponentView.
@@ -63,6 +65,23 @@ public class SignalView extends JButton {
 	 */
 	private Shape shape;
 	
+	/**
+	 * Listener that repaints the SignalView when its signal changes.
+	 */
+	private final SignalHandler signalHandler = new SignalHandler();
+	
+	/**
+	 * The event bus of the SimulationBoard that the SignalView is subscribed to, null if it listens
+	 * to the Component of the signal directly.
+	 */
+	private ComponentEventBus eventBus;
+	
+	/**
+	 * The SimulationBoard that repaints the SignalView when its signal changes, null if it is not
+	 * placed on one.
+	 */
+	private SimulationBoard board;
+	
 	/**
 	 * Size of the circle used to display Signal states.
 	 */
@@ -86,15 +105,42 @@ public class SignalView extends JButton {
 		this.setPreferredSize(btnSize);
 		this.signal = signal;
 		this.setContentAreaFilled(false);
-		this.signal.getOwner().getEventDelegator().addListener(ListenerContext.SWING, new ComponentAdapter() {
-			@Override
-			public void onSignalChange(se.openflisp.sls.Component component, Signal signal) {
-				if (signal == SignalView.this.signal) {
-					SignalView.this.repaint();
-					SignalView.this.revalidate();
-				}
-			}
-		});
+		this.signal.getOwner().getEventDelegator().addListener(ListenerContext.SWING, this.signalHandler);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Subscribes to the signal on the event bus of the SimulationBoard when the SignalView is placed 
+	 * on one, so only the changes of this signal are delivered to the SignalView.
+	 */
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		SimulationBoard board = (SimulationBoard) SwingUtilities.getAncestorOfClass(SimulationBoard.class, this);
+		if (board != null && this.eventBus == null) {
+			this.board = board;
+			this.eventBus = board.getCircuit().getEventBus();
+			this.signal.getOwner().getEventDelegator().removeListener(ListenerContext.SWING, this.signalHandler);
+			this.eventBus.subscribe(this.signal, ListenerContext.SWING, this.signalHandler);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Unsubscribes from the event bus of the SimulationBoard, since the Circuit of the board may be 
+	 * switched while the SignalView is not shown.
+	 */
+	@Override
+	public void removeNotify() {
+		if (this.eventBus != null) {
+			this.eventBus.unsubscribe(this.signal, ListenerContext.SWING, this.signalHandler);
+			this.signal.getOwner().getEventDelegator().addListener(ListenerContext.SWING, this.signalHandler);
+			this.eventBus = null;
+			this.board = null;
+		}
+		super.removeNotify();
 	}
 
 	/**
@@ -166,12 +212,12 @@ public class SignalView extends JButton {
 		
 		g2.setColor(getForeground());
 		g2.setColor(getForeground());
-		g2.setStroke(new BasicStroke(4));
+		g2.setStroke(GateFigure.PIN_STROKE);
 
 		if (signal instanceof Input) {
 			g2.setColor(Color.GRAY);
 			g2.drawLine(arcLength, btnSize.height/2, btnSize.width, btnSize.height/2);
-			g2.setStroke(new BasicStroke(1));
+			g2.setStroke(GateFigure.OUTLINE_STROKE);
 			g2.setColor(Color.BLACK);
 			g2.drawOval(0,0,arcLength-1,arcLength-1);
 		}	else {
@@ -185,8 +231,40 @@ public class SignalView extends JButton {
 				g2.setColor(Color.GRAY);
 				g2.drawLine(0, btnSize.height/2, btnSize.width - (arcLength+1), btnSize.height/2);
 			}
-			g2.setStroke(new BasicStroke(1));
+			g2.setStroke(GateFigure.OUTLINE_STROKE);
 			g2.drawOval(btnSize.width - (arcLength+1),0,arcLength-1,arcLength-1);
 		}
 	}
+	
+	/**
+	 * Helper function to repaint the SignalView after its signal has changed, the area is added to 
+	 * the dirty region of the SimulationBoard together with the wires of the signal.
+	 */
+	private void repaintSignal() {
+		if (this.board != null) {
+			this.board.repaintSignal(this);
+		} else {
+			this.repaint();
+		}
+	}
+	
+	/**
+	 * Listener that repaints the SignalView when its signal changes, either on its own or in a 
+	 * batch of changes.
+	 */
+	private class SignalHandler extends ComponentAdapter implements SignalBatchListener {
+		@Override
+		public void onSignalChange(se.openflisp.sls.Component component, Signal signal) {
+			if (signal == SignalView.this.signal) {
+				SignalView.this.repaintSignal();
+			}
+		}
+		
+		@Override
+		public void onSignalsChanged(Collection<Signal> signals) {
+			if (signals.contains(SignalView.this.signal)) {
+				SignalView.this.repaintSignal();
+			}
+		}
+	}
 }
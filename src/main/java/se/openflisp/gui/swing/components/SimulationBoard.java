@@ -19,7 +19,9 @@ package se.openflisp.gui.swing.components;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
@@ -34,6 +36,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -46,10 +49,14 @@ import javax.swing.KeyStroke;
 import javax.swing.Timer;
 
 import se.openflisp.sls.event.CircuitListener;
+import se.openflisp.sls.event.CircuitLoadListener;
 import se.openflisp.sls.event.ListenerContext;
+import se.openflisp.sls.event.SignalChangeBatcher;
+import se.openflisp.sls.simulation.Circuit;
 import se.openflisp.sls.simulation.Circuit2D;
 import se.openflisp.sls.Component;
 import	se.openflisp.gui.swing.components.ComponentView;
+import se.openflisp.gui.util.DirtyRegion;
 import se.openflisp.gui.util.KeyEventDelegator;
 
 /**	
@@ -61,6 +68,27 @@ import se.openflisp.gui.util.KeyEventDelegator;
 @SuppressWarnings("serial")
 public class SimulationBoard extends JPanel {
 
+	/**
+	 * Number of Components above which a Circuit is painted on a single CircuitCanvas instead of
+	 * with a ComponentView per Component.
+	 */
+	public static final int CANVAS_THRESHOLD = 1000;
+	
+	/**
+	 * Area of the board where the debug overlay is painted.
+	 */
+	private static final Rectangle OVERLAY_BOUNDS = new Rectangle(8, 8, 300, 58);
+	
+	/**
+	 * Colours of the debug overlay.
+	 */
+	private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 0xA0), OVERLAY_FOREGROUND = Color.WHITE;
+	
+	/**
+	 * Colours of the grid background.
+	 */
+	static final Color GRID_BORDER_COLOR = new Color(0xCC, 0xCC, 0xCC), GRID_COLOR = new Color(0xCD, 0xCD, 0xCD);
+
 	/**
 	 * Model of the current Circuit that is being shown.
 	 */
@@ -81,13 +109,40 @@ public class SimulationBoard extends JPanel {
 	 */
 	private WirePanel wirePanel;
 	
+	/**
+	 * Panel that paints the whole Circuit when it is too large for ComponentViews.
+	 */
+	private CircuitCanvas canvas;
+	
+	/**
+	 * Batches the signal changes of the shown Circuit so that they are repainted once per frame.
+	 */
+	private final SignalChangeBatcher signalChangeBatcher = new SignalChangeBatcher();
+	
+	/**
+	 * Accumulates the areas of changed signals so that they are repainted together.
+	 */
+	private final DirtyRegion dirtyRegion = new DirtyRegion(this);
+	
+	/**
+	 * If the debug overlay with repaint statistics is shown.
+	 */
+	private boolean debugOverlay;
+	
+	/**
+	 * Repaints the debug overlay every second while it is shown.
+	 */
+	private final Timer overlayTimer;
+	
 	/**
 	 * Creates a SimulationBoard.
 	 */
 	public SimulationBoard() {
 		this.setLayout(null);
 
-		this.setDropTarget(new DropTarget(this, DnDConstants.ACTION_COPY_OR_MOVE, this.dropHandler, true, null));
+		if (!GraphicsEnvironment.isHeadless()) {
+			this.setDropTarget(new DropTarget(this, DnDConstants.ACTION_COPY_OR_MOVE, this.dropHandler, true, null));
+		}
 
 		this.componentPanel = new JPanel();
 		this.componentPanel.setLayout(null);
@@ -99,11 +154,15 @@ public class SimulationBoard extends JPanel {
 
 		this.backgroundPanel = new BackgroundPanel();
 		this.backgroundPanel.setOpaque(true);
+		
+		this.canvas = new CircuitCanvas(this.dirtyRegion);
+		this.canvas.setVisible(false);
 
 		this.components = new HashMap<Component, ComponentView>();
 		this.add(this.backgroundPanel, 0, 0);
 		this.add(this.wirePanel, 1, 0);
 		this.add(this.componentPanel, 2, 0);	
+		this.add(this.canvas, 3, 0);
 		
 		this.addMouseListener(this.deselectionHandler);
 		
@@ -112,8 +171,21 @@ public class SimulationBoard extends JPanel {
 			KeyStroke.getKeyStroke(KeyEvent.VK_BACK_SPACE, 0), 
 			this.componentDeletionHandler
 		);
+		KeyEventDelegator.addKeyAction(
+			this, 
+			KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), 
+			this.debugOverlayHandler
+		);
+		
+		this.overlayTimer = new Timer(1000, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				SimulationBoard.this.repaint(OVERLAY_BOUNDS);
+			}
+		});
 		
 		this.circuit = new Circuit2D();
+		this.circuit.setSignalChangeBatcher(this.signalChangeBatcher);
 		this.circuit.getSimulation().start();
 		
 		this.circuit.getEventDelegator().addListener(ListenerContext.SWING, this.circtuitHandler);		
@@ -129,9 +201,21 @@ public class SimulationBoard extends JPanel {
 		
 		this.circuit.getSimulation().interrupt();
 		this.circuit = circuit;
+		this.circuit.setSignalChangeBatcher(this.signalChangeBatcher);
 		this.circuit.getSimulation().start();
 		this.circuit.getEventDelegator().addListener(ListenerContext.SWING, circtuitHandler);
 		
+		if (circuit.getComponents().size() > CANVAS_THRESHOLD) {
+			this.canvas.setCircuit(circuit);
+			this.canvas.setVisible(true);
+			this.backgroundPanel.setVisible(false);
+			this.repaint();
+			return;
+		}
+		this.canvas.setCircuit(null);
+		this.canvas.setVisible(false);
+		this.backgroundPanel.setVisible(true);
+		
 		for (Component component : SimulationBoard.this.circuit.getComponents()) {
 			SimulationBoard.this.addComponent(ComponentFactory.createGateFromComponent(component));
 		}
@@ -163,6 +247,61 @@ public class SimulationBoard extends JPanel {
 		return this.circuit;
 	}
 	
+	/**
+	 * Checks if the current Circuit is painted on a single canvas instead of with ComponentViews.
+	 * 
+	 * @return true if the canvas is used, false otherwise
+	 */
+	public boolean isCanvasMode() {
+		return this.canvas.isVisible();
+	}
+	
+	/**
+	 * Gets the region that the areas of changed signals are repainted through.
+	 * 
+	 * @return the dirty region of the board
+	 */
+	public DirtyRegion getDirtyRegion() {
+		return this.dirtyRegion;
+	}
+	
+	/**
+	 * Repaints a SignalView and its wires after its signal has changed, the areas are repainted 
+	 * together with the other changes of the same batch.
+	 * 
+	 * @param signal		the signal view to repaint
+	 */
+	public void repaintSignal(SignalView signal) {
+		this.dirtyRegion.add(signal);
+		for (WireView wire : this.wirePanel.getWires(signal)) {
+			this.dirtyRegion.add(wire, wire.getWireBounds());
+		}
+	}
+	
+	/**
+	 * Checks if the debug overlay is shown.
+	 * 
+	 * @return true if the overlay is shown, false otherwise
+	 */
+	public boolean isDebugOverlay() {
+		return this.debugOverlay;
+	}
+	
+	/**
+	 * Shows or hides a debug overlay with the frame rate and repainted area of the board.
+	 * 
+	 * @param debugOverlay		true to show the overlay
+	 */
+	public void setDebugOverlay(boolean debugOverlay) {
+		this.debugOverlay = debugOverlay;
+		if (debugOverlay) {
+			this.overlayTimer.start();
+		} else {
+			this.overlayTimer.stop();
+		}
+		this.repaint(OVERLAY_BOUNDS);
+	}
+	
 	/**
 	 * Adds a component to the SimulationBoard.
 	 * 
@@ -199,6 +338,13 @@ public class SimulationBoard extends JPanel {
 	 * Removes all components from the SimulationBoard.
 	 */
 	public void clearBoard() {
+		if (this.isCanvasMode()) {
+			for (Component component : new ArrayList<Component>(this.circuit.getComponents())) {
+				this.circuit.removeComponent(component);
+			}
+			this.repaint();
+			return;
+		}
 		for (Entry<Component, ComponentView> entry : SimulationBoard.this.components.entrySet()) {
 			SimulationBoard.this.circuit.removeComponent(entry.getKey());
 		}
@@ -225,15 +371,58 @@ public class SimulationBoard extends JPanel {
 		this.backgroundPanel.setBounds(0, 0, this.getWidth(), this.getHeight());
 		this.componentPanel.setBounds(0, 0, this.getWidth(), this.getHeight());
 		this.wirePanel.setBounds(0, 0, this.getWidth(), this.getHeight());
+		this.canvas.setBounds(0, 0, this.getWidth(), this.getHeight());
 		super.paintComponent(g2);	
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Counts the frame for the statistics of the dirty region and paints the debug overlay above 
+	 * the children when it is shown.
+	 */
+	@Override
+	public void paint(Graphics g) {
+		super.paint(g);
+		this.dirtyRegion.framePainted();
+		if (this.debugOverlay) {
+			this.paintDebugOverlay((Graphics2D) g);
+		}
+	}
+	
+	/**
+	 * Helper function to paint the debug overlay.
+	 * 
+	 * @param g		graphics to paint with
+	 */
+	private void paintDebugOverlay(Graphics2D g) {
+		DirtyRegion region = this.dirtyRegion;
+		int flushes = region.getFlushesPerSecond();
+		long boardArea = Math.max(1L, (long) this.getWidth() * this.getHeight());
+		long frameArea = flushes == 0 ? 0 : region.getPixelsPerSecond() / flushes;
+		String[] lines = {
+			"FPS: " + region.getFramesPerSecond(),
+			"Repaints: " + flushes + "/s, " + region.getAreasPerSecond() + " areas/s",
+			"Repainted area: " + frameArea + " px (" + (100 * frameArea / boardArea) + "% of board)"
+		};
+		g.setColor(OVERLAY_BACKGROUND);
+		g.fillRect(OVERLAY_BOUNDS.x, OVERLAY_BOUNDS.y, OVERLAY_BOUNDS.width, OVERLAY_BOUNDS.height);
+		g.setColor(OVERLAY_FOREGROUND);
+		int height = g.getFontMetrics().getHeight();
+		for (int i = 0; i < lines.length; i++) {
+			g.drawString(lines[i], OVERLAY_BOUNDS.x + 6, OVERLAY_BOUNDS.y + 4 + height * i + g.getFontMetrics().getAscent());
+		}
+	}
+	
 	/**
 	 * Handles when a Component has been added, removed or moved in the Circuit model.
 	 */
-	private final CircuitListener circtuitHandler = new CircuitListener() {
+	private final CircuitListener circtuitHandler = new CircuitLoadListener() {
 		@Override
 		public void onComponentAdded(Component component) {
+			if (SimulationBoard.this.isCanvasMode()) {
+				return;
+			}
 			SimulationBoard.this.addComponent(ComponentFactory.createGateFromComponent(component));
 			SimulationBoard.this.wirePanel.handleComponentAdded(SimulationBoard.this.components.get(component));
 			SimulationBoard.this.repaint();
@@ -242,6 +431,9 @@ public class SimulationBoard extends JPanel {
 
 		@Override
 		public void onComponentRemoved(Component component) {
+			if (SimulationBoard.this.isCanvasMode()) {
+				return;
+			}
 			
 			SimulationBoard.this.wirePanel.handleComponentRemoved(SimulationBoard.this.components.get(component));
 			SimulationBoard.this.removeComponent(SimulationBoard.this.components.get(component));
@@ -251,9 +443,27 @@ public class SimulationBoard extends JPanel {
 		
 		@Override
 		public void onComponentMoved(Component component, Point from, Point to) {
+			if (SimulationBoard.this.isCanvasMode()) {
+				return;
+			}
 			SimulationBoard.this.components.get(component).setBounds(to.x,to.y,ComponentView.componentSize*2,ComponentView.componentSize);
 			SimulationBoard.this.wirePanel.handleComponentMoved(SimulationBoard.this.components.get(component));
 		}
+		
+		@Override
+		public void onCircuitLoaded() {
+			if (SimulationBoard.this.isCanvasMode()) {
+				return;
+			}
+			for (Component component : SimulationBoard.this.circuit.getComponents()) {
+				if (!SimulationBoard.this.components.containsKey(component)) {
+					SimulationBoard.this.addComponent(ComponentFactory.createGateFromComponent(component));
+					SimulationBoard.this.wirePanel.handleComponentAdded(SimulationBoard.this.components.get(component));
+				}
+			}
+			SimulationBoard.this.repaint();
+			SimulationBoard.this.revalidate();
+		}
 	};
 	
 	/**
@@ -323,6 +533,10 @@ public class SimulationBoard extends JPanel {
 	private final Action componentDeletionHandler = new AbstractAction() {
 		@Override
 		public void actionPerformed(ActionEvent evt) {
+			if (SimulationBoard.this.isCanvasMode()) {
+				SimulationBoard.this.canvas.deleteSelection();
+				return;
+			}
 			for (Entry<Component, ComponentView> entry : SimulationBoard.this.components.entrySet()) {
 				if (entry.getValue().isSelected()) {
 					System.out.println("Removing " + entry.getKey());
@@ -332,6 +546,16 @@ public class SimulationBoard extends JPanel {
 		}
 	};
 	
+	/**
+	 * Shows or hides the debug overlay.
+	 */
+	private final Action debugOverlayHandler = new AbstractAction() {
+		@Override
+		public void actionPerformed(ActionEvent evt) {
+			SimulationBoard.this.setDebugOverlay(!SimulationBoard.this.debugOverlay);
+		}
+	};
+	
 	/**
 	 * Handles the drop event that ComponentPanel generate when a new Component is dropped on the
 	 * SimulationBoard.
@@ -344,12 +568,16 @@ public class SimulationBoard extends JPanel {
 				String identifier = (String) tr.getTransferData(DataFlavor.stringFlavor);
 				GateView view = ComponentFactory.createGateFromIdentifier(identifier);
 				if (view != null) {
+					Point location = dtde.getLocation();
+					if (SimulationBoard.this.isCanvasMode()) {
+						location = SimulationBoard.this.canvas.toScene(location);
+					}
 					SimulationBoard.this.circuit.addComponent(view.getComponent());
 					SimulationBoard.this.circuit.setComponentLocation(
 						view.getComponent(), 
 						new Point(
-							dtde.getLocation().x, 
-							dtde.getLocation().y
+							location.x, 
+							location.y
 						)
 					);
 				}
@@ -368,9 +596,9 @@ public class SimulationBoard extends JPanel {
 		@Override
 		public void paintComponent(Graphics g) {
 			Graphics2D g2 = (Graphics2D) g;
-			g2.setColor(new Color(0xCC, 0xCC, 0xCC));
+			g2.setColor(GRID_BORDER_COLOR);
 			g2.drawRect(0, 0, this.getWidth() - 1, this.getHeight());
-			g2.setColor(new Color(0xCD, 0xCD, 0xCD));
+			g2.setColor(GRID_COLOR);
 			paintGrid(g2, this.getWidth(), this.getHeight());
 		}
 
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.swing.components;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.GeneralPath;
+
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+
+/**
+ * Figure of a connection between an Output and an Input in a {@link CircuitScene}, painted the
+ * same way as a {@link WireView}.
+ * 
+ * The curve of the wire and the area that is hit by the mouse are only built when they are needed
+ * for painting or hit-testing, and can be released again when the wire is out of view. A wire
+ * that is painted with less detail is drawn as a straight segment between its pins.
+ * 
+ * @version 1.0
+ * @see CircuitCanvas
+ */
+public class WireFigure {
+	
+	/**
+	 * Stroke of the outline of a wire.
+	 */
+	static final Stroke OUTLINE_STROKE = new BasicStroke(6);
+	
+	/**
+	 * Stroke of the state of a wire.
+	 */
+	static final Stroke STATE_STROKE = new BasicStroke(4);
+	
+	/**
+	 * Distance from the path of a wire that belongs to the wire.
+	 */
+	static final int MARGIN = 5;
+	
+	/**
+	 * Stroke that covers the area of a wire that is hit by the mouse.
+	 */
+	private static final Stroke HIT_STROKE = new BasicStroke(2 * MARGIN);
+	
+	/**
+	 * The input end of the wire.
+	 */
+	private final Input input;
+	
+	/**
+	 * The output end of the wire.
+	 */
+	private final Output output;
+	
+	/**
+	 * Positions of the input and output pins.
+	 */
+	private final Point start = new Point(), end = new Point();
+	
+	/**
+	 * Path of the wire, created when it is first needed.
+	 */
+	private GeneralPath path;
+	
+	/**
+	 * Bounds of the wire including its stroke.
+	 */
+	private final Rectangle bounds = new Rectangle();
+	
+	/**
+	 * Area of the path that is hit by the mouse, created when it is first needed.
+	 */
+	private Shape outline;
+	
+	/**
+	 * If the wire is selected.
+	 */
+	private boolean selected;
+	
+	/**
+	 * Creates a wire figure.
+	 * 
+	 * @param input		the input end of the wire
+	 * @param output	the output end of the wire
+	 */
+	public WireFigure(Input input, Output output) {
+		this.input = input;
+		this.output = output;
+	}
+	
+	/**
+	 * Gets the input end of the wire.
+	 * 
+	 * @return the input
+	 */
+	public Input getInput() {
+		return this.input;
+	}
+	
+	/**
+	 * Gets the output end of the wire.
+	 * 
+	 * @return the output
+	 */
+	public Output getOutput() {
+		return this.output;
+	}
+	
+	/**
+	 * Gets the path of the wire, the path is built if it has been released.
+	 * 
+	 * @return the path, which must not be modified
+	 */
+	public Shape getPath() {
+		if (this.path == null) {
+			this.path = new GeneralPath();
+			setPath(this.path, this.start, this.end);
+		}
+		return this.path;
+	}
+	
+	/**
+	 * Checks if the path of the wire has been built and not released.
+	 * 
+	 * @return true if the wire holds its path, false otherwise
+	 */
+	public boolean hasPath() {
+		return this.path != null;
+	}
+	
+	/**
+	 * Releases the path of the wire and the area that is hit by the mouse, they are built again
+	 * when they are needed.
+	 */
+	public void release() {
+		this.path = null;
+		this.outline = null;
+	}
+	
+	/**
+	 * Gets the bounds of the wire including its stroke.
+	 * 
+	 * @return the bounds, which must not be modified
+	 */
+	public Rectangle getBounds() {
+		return this.bounds;
+	}
+	
+	/**
+	 * Checks if the wire is selected.
+	 * 
+	 * @return true if the wire is selected, false otherwise
+	 */
+	public boolean isSelected() {
+		return this.selected;
+	}
+	
+	/**
+	 * Selects or deselects the wire.
+	 * 
+	 * @param selected		true to select the wire
+	 */
+	public void setSelected(boolean selected) {
+		this.selected = selected;
+	}
+	
+	/**
+	 * Sets the path of the wire between the positions of its pins.
+	 * 
+	 * @param start		position of the input pin
+	 * @param end		position of the output pin
+	 */
+	public void update(Point start, Point end) {
+		this.start.setLocation(start);
+		this.end.setLocation(end);
+		this.bounds.setBounds(getBounds(start, end));
+		this.release();
+	}
+	
+	/**
+	 * Checks if a point is on the wire.
+	 * 
+	 * @param point		the point to test
+	 * @return true if the point is within the margin of the path, false otherwise
+	 */
+	public boolean hits(Point point) {
+		if (!this.bounds.contains(point)) {
+			return false;
+		}
+		if (this.outline == null) {
+			this.outline = HIT_STROKE.createStrokedShape(this.getPath());
+		}
+		return this.outline.contains(point);
+	}
+	
+	/**
+	 * Paints the wire.
+	 * 
+	 * @param g				graphics to paint with
+	 */
+	public void paint(Graphics2D g) {
+		paint(g, this.getPath(), this.selected, GateFigure.getStateColor(this.input.getState(), Color.WHITE));
+	}
+	
+	/**
+	 * Paints the wire with less detail, as a straight segment in the colour of its state.
+	 * 
+	 * @param g				graphics to paint with
+	 */
+	public void paintSegment(Graphics2D g) {
+		g.setStroke(STATE_STROKE);
+		g.setColor(this.selected ? GateFigure.SELECTED_COLOR : GateFigure.getStateColor(this.input.getState(), Color.BLACK));
+		g.drawLine(this.start.x, this.start.y, this.end.x, this.end.y);
+	}
+	
+	/**
+	 * Gets the bounds of a wire between two pins, including its stroke. The curve of a wire stays
+	 * within the box of its ends, so the path does not have to be built.
+	 * 
+	 * @param start		the start of the wire
+	 * @param end		the end of the wire
+	 * @return the bounds of the wire
+	 */
+	static Rectangle getBounds(Point start, Point end) {
+		Rectangle bounds = new Rectangle(start);
+		bounds.add(end);
+		bounds.grow(MARGIN, MARGIN);
+		return bounds;
+	}
+	
+	/**
+	 * Sets a path to the curve of a wire, the curve is the same as the one of a {@link WireView}.
+	 * 
+	 * @param path		the path to set
+	 * @param start		the start of the wire
+	 * @param end		the end of the wire
+	 */
+	static void setPath(GeneralPath path, Point start, Point end) {
+		path.reset();
+		path.moveTo(start.x, start.y);
+		path.quadTo((start.x + end.x) / 2f, end.y, end.x, end.y);
+	}
+	
+	/**
+	 * Paints the path of a wire.
+	 * 
+	 * @param g				graphics to paint with
+	 * @param path			the path of the wire
+	 * @param selected		if the wire is selected
+	 * @param state			colour of the state of the wire
+	 */
+	static void paint(Graphics2D g, Shape path, boolean selected, Color state) {
+		g.setStroke(OUTLINE_STROKE);
+		g.setColor(selected ? GateFigure.SELECTED_COLOR : Color.BLACK);
+		g.draw(path);
+		g.setStroke(STATE_STROKE);
+		g.setColor(state);
+		g.draw(path);
+	}
+}
@@ -22,13 +22,12 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.swing.AbstractAction;
@@ -59,9 +58,15 @@ public class WirePanel extends JPanel {
 	private final SimulationBoard simulationBoard;
 	
 	/**
-	 * 
+	 * Index from every SignalView to the wires that start or end at it, the endpoints of a wire are
+	 * given by the wire itself. SignalViews without wires are not in the index.
+	 */
+	private Map<SignalView, Set<WireView>> activeWires = new HashMap<SignalView, Set<WireView>>();
+	
+	/**
+	 * Wires that are selected and will be removed by a deletion.
 	 */
-	private Map<SignalView, List<WireView>> activeWires = new HashMap<SignalView, List<WireView>>();
+	private final Set<WireView> selectedWires = new LinkedHashSet<WireView>();
 	
 	/**
 	 * Creates a new WirePanel.
@@ -95,25 +100,44 @@ public class WirePanel extends JPanel {
 	 * @param wire		wire to remove
 	 */
 	protected void removeWire(WireView wire) {
-		if (this.activeWires.containsKey(wire.getStart())) {
-			this.activeWires.get(wire.getStart()).remove(wire);
-		}
-		if (this.activeWires.containsKey(wire.getEnd())) {
-			this.activeWires.get(wire.getEnd()).remove(wire);
-		}
+		this.unindexWire(wire);
 		this.remove(wire);
 		this.repaint();
 		this.revalidate();
 	}
 	
+	/**
+	 * Gets the wires that are attached to a SignalView.
+	 * 
+	 * @param signal		the signal view
+	 * @return the wires that start or end at the signal view, empty if there are none
+	 */
+	protected Set<WireView> getWires(SignalView signal) {
+		Set<WireView> wires = this.activeWires.get(signal);
+		return wires == null ? Collections.<WireView>emptySet() : Collections.unmodifiableSet(wires);
+	}
+	
+	/**
+	 * Keeps track of the wires that are selected, called by a WireView when it is selected or
+	 * deselected.
+	 * 
+	 * @param wire			the wire
+	 * @param selected		true if the wire has been selected
+	 */
+	void handleWireSelected(WireView wire, boolean selected) {
+		if (selected) {
+			this.selectedWires.add(wire);
+		} else {
+			this.selectedWires.remove(wire);
+		}
+	}
+	
 	/**
 	 * Deselects all wires in the WirePanel.
 	 */
 	public void deselectAllWires() {
-		for (List<WireView> wires : WirePanel.this.activeWires.values()) {
-			for (WireView wire: wires) {
-				wire.deselect();
-			}
+		for (WireView wire : new ArrayList<WireView>(this.selectedWires)) {
+			wire.deselect();
 		}
 	}
 	
@@ -134,14 +158,7 @@ public class WirePanel extends JPanel {
 				SignalView end = componentView.getSignalView(output);
 				wire.attatchEnd(end);
 				
-				if (!this.activeWires.containsKey(signal)) {
-					this.activeWires.put(signal, new LinkedList<WireView>());
-				}
-				this.activeWires.get(signal).add(wire);
-				if (!this.activeWires.containsKey(end)) {
-					this.activeWires.put(end, new LinkedList<WireView>());
-				}
-				this.activeWires.get(end).add(wire);
+				this.indexWire(wire);
 				this.addWire(wire);
 			}
 			signal.addMouseListener(this.wireCreationHandler);
@@ -162,29 +179,14 @@ public class WirePanel extends JPanel {
 	public void handleComponentRemoved(ComponentView component) {
 		Set<WireView> wires = new HashSet<WireView>();
 		for (SignalView signal : component.getInputViews()) {
-			if (this.activeWires.containsKey(signal)) {
-				for (WireView wire : this.activeWires.get(signal)) {
-					wires.add(wire);
-				}
-			}
+			wires.addAll(this.getWires(signal));
 		}
 		for (SignalView signal : component.getOutputViews()) {
-			if (this.activeWires.containsKey(signal)) {
-				for (WireView wire : this.activeWires.get(signal)) {
-					wires.add(wire);
-				}
-			}
+			wires.addAll(this.getWires(signal));
 		}
-		for (Entry<SignalView, List<WireView>> entry : this.activeWires.entrySet()) {
-			Iterator<WireView> it = entry.getValue().iterator();
-			while (it.hasNext()) {
-				WireView w = it.next();
-				if (wires.contains(w)) {
-					this.remove(w);
-					it.remove();
-					
-				}
-			}
+		for (WireView wire : wires) {
+			this.unindexWire(wire);
+			this.remove(wire);
 		}
 		this.repaint();
 		this.revalidate();
@@ -197,39 +199,67 @@ public class WirePanel extends JPanel {
 	 */
 	public void handleComponentMoved(ComponentView component) {
 		for (SignalView signal : component.getInputViews()) {
-			if (this.activeWires.containsKey(signal)) {
-				for (WireView wire : this.activeWires.get(signal)) {
-					wire.updatePositions();
-				}
+			for (WireView wire : this.getWires(signal)) {
+				wire.updatePositions();
 			}
 		}
 		for (SignalView signal : component.getOutputViews()) {
-			if (this.activeWires.containsKey(signal)) {
-				for (WireView wire : this.activeWires.get(signal)) {
-					wire.updatePositions();
+			for (WireView wire : this.getWires(signal)) {
+				wire.updatePositions();
+			}
+		}
+	}
+	
+	/**
+	 * Helper function to add a connected wire to the index of both its endpoints.
+	 * 
+	 * @param wire		the wire to add
+	 */
+	private void indexWire(WireView wire) {
+		for (SignalView signal : new SignalView[] {wire.getStart(), wire.getEnd()}) {
+			if (signal != null) {
+				Set<WireView> wires = this.activeWires.get(signal);
+				if (wires == null) {
+					wires = new LinkedHashSet<WireView>();
+					this.activeWires.put(signal, wires);
 				}
+				wires.add(wire);
 			}
 		}
 	}
 	
+	/**
+	 * Helper function to remove a wire from the index and the selection.
+	 * 
+	 * @param wire		the wire to remove
+	 */
+	private void unindexWire(WireView wire) {
+		for (SignalView signal : new SignalView[] {wire.getStart(), wire.getEnd()}) {
+			Set<WireView> wires = signal == null ? null : this.activeWires.get(signal);
+			if (wires != null) {
+				wires.remove(wire);
+				if (wires.isEmpty()) {
+					this.activeWires.remove(signal);
+				}
+			}
+		}
+		this.selectedWires.remove(wire);
+	}
+	
 	/**
 	 * Handler for removing wires that have been selected
 	 */
 	private final Action wireDeletionHandler = new AbstractAction() {
 		@Override
 		public void actionPerformed(ActionEvent evt) {
-			for (Entry<SignalView, List<WireView>> entry : WirePanel.this.activeWires.entrySet()) {
-				Iterator<WireView> it = entry.getValue().iterator();
-				while (it.hasNext()) {
-					WireView wire = it.next();
-					if (wire.getEnd() != null && wire.isSelected()) {
-						try {
-							wire.getStart().signal.disconnect(wire.getEnd().signal);
-							WirePanel.this.remove(wire);
-							it.remove();
-						} catch (IllegalArgumentException e) {
-							System.out.println("Can not disconnect!" + e.getMessage());
-						}
+			for (WireView wire : new ArrayList<WireView>(WirePanel.this.selectedWires)) {
+				if (wire.getEnd() != null) {
+					try {
+						wire.getStart().signal.disconnect(wire.getEnd().signal);
+						WirePanel.this.unindexWire(wire);
+						WirePanel.this.remove(wire);
+					} catch (IllegalArgumentException e) {
+						System.out.println("Can not disconnect!" + e.getMessage());
 					}
 				}
 			}
@@ -324,15 +354,7 @@ public class WirePanel extends JPanel {
 				
 				if (end != null && start.signal.connect(end.signal)) {
 					this.draggedWire.attatchEnd(end);
-					
-					if (!WirePanel.this.activeWires.containsKey(end)) {
-						WirePanel.this.activeWires.put(end, new LinkedList<WireView>());
-					}
-					if (!WirePanel.this.activeWires.containsKey(start)) {
-						WirePanel.this.activeWires.put(start, new LinkedList<WireView>());
-					}
-					WirePanel.this.activeWires.get(start).add(this.draggedWire);
-					WirePanel.this.activeWires.get(end).add(this.draggedWire);
+					WirePanel.this.indexWire(this.draggedWire);
 					
 					final SignalView endFinal = end;
 					
@@ -16,11 +16,11 @@
  */
 package se.openflisp.gui.swing.components;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.GeneralPath;
@@ -106,8 +106,8 @@ public class WireView extends JButton {
 	 */
 	public void select() {
 		this.selected = true;
-		this.repaint();
-		this.revalidate();
+		this.panel.handleWireSelected(this, true);
+		this.repaint(this.getWireBounds());
 	}
 	
 	/**
@@ -115,8 +115,8 @@ public class WireView extends JButton {
 	 */
 	public void deselect() {
 		this.selected = false;
-		this.repaint();
-		this.revalidate();
+		this.panel.handleWireSelected(this, false);
+		this.repaint(this.getWireBounds());
 	}
 	
 	/**
@@ -159,6 +159,7 @@ public class WireView extends JButton {
 	protected void moveEndPoint(Point end) {
 		Point start = this.start.getPosition(this.panel);
 		System.out.println("WireView.redrawWire(" + start + "," + end + ")");
+		Rectangle damage = this.getWireBounds();
 		this.wire.reset();
 		this.wire.moveTo(start.x, start.y);
 		this.wire.quadTo(
@@ -167,36 +168,39 @@ public class WireView extends JButton {
 			end.x,
 			end.y
 		);
-		this.repaint();
-		this.revalidate();
+		damage.add(this.getWireBounds());
+		this.repaint(damage);
+	}
+	
+	/**
+	 * Gets the area that the wire is painted in, in the coordinates of the WireView.
+	 * 
+	 * @return bounds of the wire including its outline
+	 */
+	public Rectangle getWireBounds() {
+		Rectangle bounds = this.wire.getBounds();
+		bounds.grow(WireFigure.MARGIN, WireFigure.MARGIN);
+		return bounds;
 	}
 	
 	/**
 	 * {@inheritDoc}
+	 * 
+	 * Nothing is painted when the wire is outside of the clip, since every WireView covers the 
+	 * whole WirePanel.
 	 */
 	@Override
 	protected void paintComponent(Graphics g) {
-		Graphics2D g2 = (Graphics2D) g;
-		g2.setStroke(new BasicStroke(6));
-		if (this.isSelected()) {
-			g2.setColor(Color.orange);
-		} else {
-			g2.setColor(Color.black);
+		Rectangle clip = g.getClipBounds();
+		if (clip != null && !clip.intersects(this.getWireBounds())) {
+			return;
 		}
-		g2.draw(this.wire);
-		switch (this.start.signal.getState()) {
-			case HIGH:
-				g2.setColor(Color.blue);
-			break;
-			case LOW:
-				g2.setColor(Color.white);
-			break;
-			case FLOATING:
-				g2.setColor(Color.red);
-			break;
-		}
-		g2.setStroke(new BasicStroke(4));
-		g2.draw(this.wire);
+		WireFigure.paint(
+			(Graphics2D) g, 
+			this.wire, 
+			this.isSelected(), 
+			GateFigure.getStateColor(this.start.signal.getState(), Color.white)
+		);
 	}
 	
 	/**
@@ -204,7 +208,7 @@ public class WireView extends JButton {
 	 */
 	@Override
 	public boolean contains(int x, int y) {
-		return this.wire.intersects(x - 5, y - 5, 10, 10);
+		return this.getWireBounds().contains(x, y) && this.wire.intersects(x - 5, y - 5, 10, 10);
 	}
 	
 	/**
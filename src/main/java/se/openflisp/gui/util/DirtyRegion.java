@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.util;
+
+import java.awt.Component;
+import java.awt.Rectangle;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Accumulates the damaged areas of a Swing component and repaints their union once, instead of
+ * repainting every changed view on its own.
+ * 
+ * Areas that are added while the Swing event thread handles an event, such as a batch of signal
+ * changes, are repainted together when the thread is done with the event. The region also keeps
+ * statistics of the repaints and of the frames that the component paints, which can be shown in a
+ * debug overlay. A region must only be used on the Swing event thread.
+ * 
+ * @version 1.0
+ */
+public class DirtyRegion {
+	
+	/**
+	 * Length of the period that the statistics are measured over, in nanoseconds.
+	 */
+	private static final long PERIOD = 1000000000L;
+	
+	/**
+	 * The component that is repainted.
+	 */
+	private final JComponent target;
+	
+	/**
+	 * Union of the areas that have been added since the last flush, null if none.
+	 */
+	private Rectangle pending;
+	
+	/**
+	 * Number of areas that have been added since the last flush.
+	 */
+	private int pendingCount;
+	
+	/**
+	 * Start of the current statistics period.
+	 */
+	private long periodStart = System.nanoTime();
+	
+	/**
+	 * Frames, flushes, added areas and repainted pixels of the current period.
+	 */
+	private int frames, flushes, areas;
+	private long pixels;
+	
+	/**
+	 * Statistics of the last complete period.
+	 */
+	private int framesPerSecond, flushesPerSecond, areasPerSecond;
+	private long pixelsPerSecond;
+	
+	/**
+	 * Creates a region for a component.
+	 * 
+	 * @param target		the component to repaint
+	 * @throws IllegalArgumentException if the component is null
+	 */
+	public DirtyRegion(JComponent target) {
+		if (target == null) {
+			throw new IllegalArgumentException("Target must not be null.");
+		}
+		this.target = target;
+	}
+	
+	/**
+	 * Adds a damaged area, given in the coordinates of the target.
+	 * 
+	 * @param area		the area that has to be repainted, ignored if it is null or empty
+	 */
+	public void add(Rectangle area) {
+		if (area == null || area.isEmpty()) {
+			return;
+		}
+		if (this.pending == null) {
+			this.pending = new Rectangle(area);
+			SwingUtilities.invokeLater(this.flushHandler);
+		} else {
+			this.pending.add(area);
+		}
+		this.pendingCount++;
+	}
+	
+	/**
+	 * Adds a damaged area, given in the coordinates of a descendant of the target.
+	 * 
+	 * @param source		the component that the area belongs to
+	 * @param area			the area in the coordinates of the source
+	 */
+	public void add(Component source, Rectangle area) {
+		if (area != null && source != this.target) {
+			area = SwingUtilities.convertRectangle(source, area, this.target);
+		}
+		this.add(area);
+	}
+	
+	/**
+	 * Adds the whole area of a descendant of the target.
+	 * 
+	 * @param source		the component that has to be repainted
+	 */
+	public void add(Component source) {
+		this.add(source, new Rectangle(0, 0, source.getWidth(), source.getHeight()));
+	}
+	
+	/**
+	 * Gets the union of the areas that are waiting to be repainted.
+	 * 
+	 * @return the pending area, null if nothing is pending
+	 */
+	public Rectangle getPending() {
+		return this.pending == null ? null : new Rectangle(this.pending);
+	}
+	
+	/**
+	 * Repaints the union of the added areas.
+	 * 
+	 * Is called on the Swing event thread after the areas have been added, but can be called
+	 * directly to repaint immediately.
+	 */
+	public void flush() {
+		if (this.pending == null) {
+			return;
+		}
+		Rectangle area = this.pending.intersection(new Rectangle(0, 0, this.target.getWidth(), this.target.getHeight()));
+		this.update(System.nanoTime());
+		this.flushes++;
+		this.areas += this.pendingCount;
+		if (!area.isEmpty()) {
+			this.pixels += (long) area.width * area.height;
+			this.target.repaint(area);
+		}
+		this.pending = null;
+		this.pendingCount = 0;
+	}
+	
+	/**
+	 * Records that the target has painted a frame, should be called from its paint method.
+	 */
+	public void framePainted() {
+		this.update(System.nanoTime());
+		this.frames++;
+	}
+	
+	/**
+	 * Gets the number of frames that the target painted during the last second.
+	 * 
+	 * @return frames per second
+	 */
+	public int getFramesPerSecond() {
+		this.update(System.nanoTime());
+		return this.framesPerSecond;
+	}
+	
+	/**
+	 * Gets the number of flushes that repainted an area during the last second.
+	 * 
+	 * @return flushes per second
+	 */
+	public int getFlushesPerSecond() {
+		this.update(System.nanoTime());
+		return this.flushesPerSecond;
+	}
+	
+	/**
+	 * Gets the number of areas that were added during the last second.
+	 * 
+	 * @return added areas per second
+	 */
+	public int getAreasPerSecond() {
+		this.update(System.nanoTime());
+		return this.areasPerSecond;
+	}
+	
+	/**
+	 * Gets the number of pixels that were repainted by flushes during the last second.
+	 * 
+	 * @return repainted pixels per second
+	 */
+	public long getPixelsPerSecond() {
+		this.update(System.nanoTime());
+		return this.pixelsPerSecond;
+	}
+	
+	/**
+	 * Helper function to start a new statistics period when the current one has ended.
+	 * 
+	 * @param now		the current time in nanoseconds
+	 */
+	private void update(long now) {
+		long elapsed = now - this.periodStart;
+		if (elapsed < PERIOD) {
+			return;
+		}
+		boolean consecutive = elapsed < 2 * PERIOD;
+		this.framesPerSecond = consecutive ? this.frames : 0;
+		this.flushesPerSecond = consecutive ? this.flushes : 0;
+		this.areasPerSecond = consecutive ? this.areas : 0;
+		this.pixelsPerSecond = consecutive ? this.pixels : 0;
+		this.frames = 0;
+		this.flushes = 0;
+		this.areas = 0;
+		this.pixels = 0;
+		this.periodStart = now;
+	}
+	
+	/**
+	 * Flushes the region when the Swing event thread is done with the current event.
+	 */
+	private final Runnable flushHandler = new Runnable() {
+		@Override
+		public void run() {
+			DirtyRegion.this.flush();
+		}
+	};
+}
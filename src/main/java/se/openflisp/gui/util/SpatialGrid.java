@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.util;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uniform grid that indexes items by the cells that they cover, used to find the items in an area
+ * without looking at every item.
+ * 
+ * Boxes are added to every cell that they overlap, while shapes such as wires are only added to the
+ * cells along their path, so a long diagonal wire does not fill the cells of its whole bounding box.
+ * Queries return the candidates in the cells of an area, which should be tested exactly by the caller.
+ * 
+ * @version 1.0
+ * @param <T>	type of the indexed items
+ */
+public class SpatialGrid<T> {
+	
+	/**
+	 * Default width and height of a cell in pixels.
+	 */
+	public static final int DEFAULT_CELL_SIZE = 128;
+	
+	/**
+	 * Width and height of a cell.
+	 */
+	private final int cellSize;
+	
+	/**
+	 * Items in every cell that has items, keyed by the packed cell coordinates.
+	 */
+	private final Map<Long, List<T>> cells = new HashMap<Long, List<T>>();
+	
+	/**
+	 * Cells that every item has been added to.
+	 */
+	private final Map<T, long[]> itemCells = new HashMap<T, long[]>();
+	
+	/**
+	 * Creates a grid with the default cell size.
+	 */
+	public SpatialGrid() {
+		this(DEFAULT_CELL_SIZE);
+	}
+	
+	/**
+	 * Creates a grid.
+	 * 
+	 * @param cellSize		width and height of a cell in pixels
+	 * @throws IllegalArgumentException if the cell size is not positive
+	 */
+	public SpatialGrid(int cellSize) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("Cell size must be positive.");
+		}
+		this.cellSize = cellSize;
+	}
+	
+	/**
+	 * Adds an item to the cells that a box overlaps, replacing its earlier cells.
+	 * 
+	 * @param item		the item to add
+	 * @param area		the bounds of the item
+	 */
+	public void add(T item, Rectangle area) {
+		this.remove(item);
+		long[] keys = new long[16];
+		int count = 0;
+		int minX = this.cell(area.x), maxX = this.cell(area.x + area.width);
+		int minY = this.cell(area.y), maxY = this.cell(area.y + area.height);
+		for (int x = minX; x <= maxX; x++) {
+			for (int y = minY; y <= maxY; y++) {
+				if (count == keys.length) {
+					keys = Arrays.copyOf(keys, count * 2);
+				}
+				keys[count++] = key(x, y);
+			}
+		}
+		this.insert(item, Arrays.copyOf(keys, count));
+	}
+	
+	/**
+	 * Adds an item to the cells along the path of a shape, replacing its earlier cells.
+	 * 
+	 * @param item		the item to add
+	 * @param shape		the shape of the item, curves are flattened
+	 * @param margin	distance from the path that belongs to the item, such as half a stroke width
+	 */
+	public void add(T item, Shape shape, int margin) {
+		this.remove(item);
+		Set<Long> keys = new HashSet<Long>();
+		double[] coordinates = new double[6];
+		double lastX = 0, lastY = 0;
+		double step = this.cellSize / 2.0;
+		for (PathIterator path = shape.getPathIterator(null, 1); !path.isDone(); path.next()) {
+			int type = path.currentSegment(coordinates);
+			double x = coordinates[0], y = coordinates[1];
+			if (type == PathIterator.SEG_LINETO) {
+				double length = Math.hypot(x - lastX, y - lastY);
+				int samples = (int) Math.ceil(length / step);
+				for (int sample = 1; sample < samples; sample++) {
+					double fraction = (double) sample / samples;
+					this.addCells(keys, lastX + (x - lastX) * fraction, lastY + (y - lastY) * fraction, margin);
+				}
+			}
+			if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+				this.addCells(keys, x, y, margin);
+				lastX = x;
+				lastY = y;
+			}
+		}
+		long[] array = new long[keys.size()];
+		int index = 0;
+		for (Long key : keys) {
+			array[index++] = key;
+		}
+		this.insert(item, array);
+	}
+	
+	/**
+	 * Removes an item from all its cells.
+	 * 
+	 * @param item		the item to remove
+	 * @return true if the item was in the grid, false otherwise
+	 */
+	public boolean remove(T item) {
+		long[] keys = this.itemCells.remove(item);
+		if (keys == null) {
+			return false;
+		}
+		for (long key : keys) {
+			List<T> items = this.cells.get(key);
+			items.remove(item);
+			if (items.isEmpty()) {
+				this.cells.remove(key);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Checks if an item is in the grid.
+	 * 
+	 * @param item		the item to check
+	 * @return true if the item has been added, false otherwise
+	 */
+	public boolean contains(T item) {
+		return this.itemCells.containsKey(item);
+	}
+	
+	/**
+	 * Gets the number of items in the grid.
+	 * 
+	 * @return the item count
+	 */
+	public int size() {
+		return this.itemCells.size();
+	}
+	
+	/**
+	 * Removes all items from the grid.
+	 */
+	public void clear() {
+		this.cells.clear();
+		this.itemCells.clear();
+	}
+	
+	/**
+	 * Gets the items in the cells that an area overlaps, every item is only returned once.
+	 * 
+	 * @param area		the area to search
+	 * @return the candidate items in the area
+	 */
+	public List<T> query(Rectangle area) {
+		List<T> result = new ArrayList<T>();
+		Set<T> seen = new HashSet<T>();
+		int minX = this.cell(area.x), maxX = this.cell(area.x + area.width);
+		int minY = this.cell(area.y), maxY = this.cell(area.y + area.height);
+		for (int x = minX; x <= maxX; x++) {
+			for (int y = minY; y <= maxY; y++) {
+				List<T> items = this.cells.get(key(x, y));
+				if (items != null) {
+					for (T item : items) {
+						if (seen.add(item)) {
+							result.add(item);
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Helper function to add an item to its cells.
+	 * 
+	 * @param item		the item
+	 * @param keys		the keys of its cells
+	 */
+	private void insert(T item, long[] keys) {
+		this.itemCells.put(item, keys);
+		for (long key : keys) {
+			List<T> items = this.cells.get(key);
+			if (items == null) {
+				items = new ArrayList<T>(4);
+				this.cells.put(key, items);
+			}
+			items.add(item);
+		}
+	}
+	
+	/**
+	 * Helper function to add the cells around a point on a path.
+	 * 
+	 * @param keys		the keys to add to
+	 * @param x			x coordinate of the point
+	 * @param y			y coordinate of the point
+	 * @param margin	distance around the point that should be covered
+	 */
+	private void addCells(Set<Long> keys, double x, double y, int margin) {
+		int minX = this.cell((int) Math.floor(x) - margin), maxX = this.cell((int) Math.ceil(x) + margin);
+		int minY = this.cell((int) Math.floor(y) - margin), maxY = this.cell((int) Math.ceil(y) + margin);
+		for (int cellX = minX; cellX <= maxX; cellX++) {
+			for (int cellY = minY; cellY <= maxY; cellY++) {
+				keys.add(key(cellX, cellY));
+			}
+		}
+	}
+	
+	/**
+	 * Helper function to get the cell of a coordinate.
+	 * 
+	 * @param coordinate	x or y coordinate in pixels
+	 * @return the cell coordinate
+	 */
+	private int cell(int coordinate) {
+		return coordinate >= 0 ? coordinate / this.cellSize : -1 - (-1 - coordinate) / this.cellSize;
+	}
+	
+	/**
+	 * Helper function to pack cell coordinates into a key.
+	 * 
+	 * @param x		x coordinate of the cell
+	 * @param y		y coordinate of the cell
+	 * @return the key of the cell
+	 */
+	private static long key(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+}
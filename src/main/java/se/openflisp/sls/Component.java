@@ -46,11 +46,26 @@ public abstract class Component {
 	 */
 	private Map<String, Input> inputs = new ConcurrentHashMap<String, Input>();
 	
+	/**
+	 * Array of the components inputs, created when needed and cleared when an input is added.
+	 */
+	private volatile Input[] inputArray;
+	
 	/**
 	 * Map of the components outputs mapped to its pin identifiers.
 	 */
 	private Map<String, Output> outputs = new ConcurrentHashMap<String, Output>();
 	
+	/**
+	 * Time it takes for an output to change to {@link Signal.State#HIGH}, in simulation time units.
+	 */
+	private volatile int riseDelay = 1;
+	
+	/**
+	 * Time it takes for an output to change to {@link Signal.State#LOW}, in simulation time units.
+	 */
+	private volatile int fallDelay = 1;
+	
 	/**
 	 * Constructs a new Component with a identifier.
 	 * 
@@ -104,10 +119,18 @@ public abstract class Component {
 	 * @return the input which the identifier corresponds to
 	 */
 	public Input getInput(String identifier) {
-		if (!this.inputs.containsKey(identifier)) {
-			this.inputs.put(identifier, new Input(identifier, this));
+		Input input = this.inputs.get(identifier);
+		if (input == null) {
+			synchronized (this) {
+				input = this.inputs.get(identifier);
+				if (input == null) {
+					input = new Input(identifier, this);
+					this.inputs.put(identifier, input);
+					this.inputArray = null;
+				}
+			}
 		}
-		return this.inputs.get(identifier);
+		return input;
 	}
 	
 	/**
@@ -134,6 +157,28 @@ public abstract class Component {
 		return Collections.unmodifiableCollection(this.inputs.values());
 	}
 	
+	/**
+	 * Gets all inputs in the component as an array, in no particular order.
+	 * 
+	 * The array is cached until a new input is added, so it can be iterated every time the 
+	 * component is evaluated without creating any objects. It must not be modified.
+	 * 
+	 * @return array of all inputs
+	 */
+	protected Input[] getInputArray() {
+		Input[] array = this.inputArray;
+		if (array == null) {
+			synchronized (this) {
+				array = this.inputArray;
+				if (array == null) {
+					array = this.inputs.values().toArray(new Input[this.inputs.size()]);
+					this.inputArray = array;
+				}
+			}
+		}
+		return array;
+	}
+	
 	/**
 	 * Gets an unmodifiable collection of all outputs in the component.
 	 * 
@@ -143,6 +188,39 @@ public abstract class Component {
 		return Collections.unmodifiableCollection(this.outputs.values());
 	}
 	
+	/**
+	 * Gets the time it takes for an output to change to {@link Signal.State#HIGH}.
+	 * 
+	 * @return the rise delay, in simulation time units
+	 */
+	public int getRiseDelay() {
+		return this.riseDelay;
+	}
+	
+	/**
+	 * Gets the time it takes for an output to change to {@link Signal.State#LOW}.
+	 * 
+	 * @return the fall delay, in simulation time units
+	 */
+	public int getFallDelay() {
+		return this.fallDelay;
+	}
+	
+	/**
+	 * Sets the propagation delays of the component, used by timing accurate simulations.
+	 * 
+	 * @param riseDelay		time it takes for an output to change to high
+	 * @param fallDelay		time it takes for an output to change to low
+	 * @throws IllegalArgumentException if a delay is not positive
+	 */
+	public void setDelays(int riseDelay, int fallDelay) {
+		if (riseDelay < 1 || fallDelay < 1) {
+			throw new IllegalArgumentException("Delays must be positive.");
+		}
+		this.riseDelay = riseDelay;
+		this.fallDelay = fallDelay;
+	}
+	
 	/**
 	 * Sets one of the components output to a certain state.
 	 * 
@@ -156,6 +234,17 @@ public abstract class Component {
 		this.getOutput(identifier).setState(state);
 	}
 	
+	/**
+	 * Sets one of the components outputs to a certain state, without looking up the output.
+	 * 
+	 * @param output		an output of the component
+	 * @param state 		which state the output should be set to
+	 * @see #setOutputState(String, Signal.State)
+	 */
+	protected void setOutputState(Output output, Signal.State state) {
+		output.setState(state);
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -168,4 +257,23 @@ public abstract class Component {
 	 * Evaluates the components inputs and produces changes on its outputs.
 	 */
 	public abstract void evaluate();
+	
+	/**
+	 * Evaluates the components inputs without changing its outputs, the result is applied by 
+	 * {@link #commitEvaluation()}.
+	 * 
+	 * Used to evaluate several components in parallel. Components that override this method must 
+	 * only read their inputs, since other components may be prepared at the same time. The default 
+	 * implementation does nothing and leaves the evaluation to {@link #commitEvaluation()}.
+	 */
+	public void prepareEvaluation() {}
+	
+	/**
+	 * Applies the result of the last {@link #prepareEvaluation()} to the components outputs.
+	 * 
+	 * The default implementation calls {@link #evaluate()}.
+	 */
+	public void commitEvaluation() {
+		this.evaluate();
+	}
 }
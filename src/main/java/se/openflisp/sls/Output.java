@@ -57,9 +57,11 @@ public class Output extends Signal {
 	 */
 	@Override
 	protected void setState(Signal.State state) {
-		super.setState(state);
-		for (Input input : this.getConnections()) {
-			input.setState(state);
+		if (this.getState() != state) {
+			super.setState(state);
+			for (Input input : this.connections) {
+				input.setState(state);
+			}
 		}
 	}
 	
@@ -18,7 +18,6 @@ package se.openflisp.sls.component;
 
 import se.openflisp.sls.*;
 import se.openflisp.sls.event.ComponentEventDelegator;
-import se.openflisp.sls.util.SignalCollection;
 
 /**
  * Class representing a logical AND-gate.
@@ -52,15 +51,14 @@ public class AndGate extends Gate {
 	 */
 	@Override
 	public Signal.State evaluateOutput() {
-		if (this.getInputs().size() < 2) {
-				return Signal.State.FLOATING;
-		}
-		if (SignalCollection.containsState(this.getInputs(), Signal.State.LOW)) {
-			return Signal.State.LOW;
-		}
-		if (SignalCollection.containsState(this.getInputs(), Signal.State.FLOATING)) {
-			return Signal.State.FLOATING;
-		}
-		return Signal.State.HIGH;
+		return GateFunction.AND.evaluate(this.getInputArray());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluateWords(long[] high, long[] low, int[] inputNets, int from, int to, int output) {
+		GateFunction.AND.evaluateWords(high, low, inputNets, from, to, output);
 	}
 }
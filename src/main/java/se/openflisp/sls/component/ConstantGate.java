@@ -80,4 +80,13 @@ public class ConstantGate extends Gate {
 	protected Signal.State evaluateOutput() {
 		return this.state;
 	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluateWords(long[] high, long[] low, int[] inputNets, int from, int to, int output) {
+		high[output] = this.state == Signal.State.HIGH ? -1L : 0;
+		low[output] = this.state == Signal.State.LOW ? -1L : 0;
+	}
 }
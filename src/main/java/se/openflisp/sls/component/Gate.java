@@ -17,6 +17,7 @@
 package se.openflisp.sls.component;
 
 import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
 import se.openflisp.sls.Output;
 import se.openflisp.sls.Signal;
 import se.openflisp.sls.event.ComponentEventDelegator;
@@ -38,6 +39,22 @@ public abstract class Gate extends Component {
 	 */
 	public static final String OUTPUT = "Q";
 	
+	/**
+	 * The single output of the gate.
+	 */
+	private final Output output;
+	
+	/**
+	 * Output state computed by {@link #prepareEvaluation()} that has not been committed yet.
+	 */
+	private Signal.State preparedState;
+	
+	/**
+	 * Inputs in the states of a single vector while the default 
+	 * {@link #evaluateWords(long[], long[], int[], int, int, int)} is running, null otherwise.
+	 */
+	private Input[] vectorInputs;
+	
 	/**
 	 * Creates a logical Gate and initiates its only Output.
      * 
@@ -45,7 +62,7 @@ public abstract class Gate extends Component {
 	 */
 	public Gate(String identifier) {
 		super(identifier);
-		this.getOutput();
+		this.output = this.getOutput(Gate.OUTPUT);
 	}
 
 	/**
@@ -56,28 +73,90 @@ public abstract class Gate extends Component {
 	 */
 	public Gate(String identifier, ComponentEventDelegator delegator) {
 		super(identifier, delegator);
-		this.getOutput();
+		this.output = this.getOutput(Gate.OUTPUT);
 	}
 	
 	/**
 	 * Gets the single output of the gate.
 	 * 
-	 * @return the gate's output via its superclass' method
+	 * @return the gate's output
 	 */
 	public Output getOutput() {
-		return this.getOutput(Gate.OUTPUT);
+		return this.output;
 	}
 	
 	/**
 	 * Evaluate the gate's different inputs and provide a output signal.
 	 * 
 	 * If it is unable to decide a signal for the given inputs the method
-	 * must provide {@link se.openflisp.sls.Signal.State#FLOATING}.
+	 * must provide {@link se.openflisp.sls.Signal.State#FLOATING}. Implementations should read 
+	 * their inputs through {@link #getInputArray()} so that evaluating does not create any objects.
 	 * 
 	 * @return the evaluated signal for the given inputs
 	 */
 	protected abstract Signal.State evaluateOutput();
 	
+	/**
+	 * Evaluate the gate for 64 input vectors at once.
+	 * 
+	 * Every net has a pair of words where bit n of the high word is set if the net is 
+	 * {@link Signal.State#HIGH} in vector n, and bit n of the low word is set if it is 
+	 * {@link Signal.State#LOW}. A net with neither bit set is {@link Signal.State#FLOATING}. 
+	 * The gate must give the same result for each vector as {@link #evaluateOutput()}.
+	 * 
+	 * The default implementation calls {@link #evaluateOutput()} once for every vector, with 
+	 * {@link #getInputArray()} returning inputs in the states of that vector, so it only works for 
+	 * gates that read their inputs through {@link #getInputArray()}. Gates should override it with 
+	 * an evaluation of all vectors at once, such as the ones of {@link GateFunction}.
+	 * 
+	 * @param high			high words indexed by net
+	 * @param low			low words indexed by net
+	 * @param inputNets		net indices of the gate's inputs
+	 * @param from			index of the first input in inputNets
+	 * @param to			index after the last input in inputNets
+	 * @param output		net index where the result should be written
+	 */
+	public void evaluateWords(long[] high, long[] low, int[] inputNets, int from, int to, int output) {
+		VectorInput[] inputs = new VectorInput[to - from];
+		for (int pin = 0; pin < inputs.length; pin++) {
+			inputs[pin] = new VectorInput(Integer.toString(pin), this);
+		}
+		long outputHigh = 0, outputLow = 0;
+		this.vectorInputs = inputs;
+		try {
+			for (int vector = 0; vector < Long.SIZE; vector++) {
+				long bit = 1L << vector;
+				for (int pin = 0; pin < inputs.length; pin++) {
+					int net = inputNets[from + pin];
+					inputs[pin].state = (high[net] & bit) != 0 ? Signal.State.HIGH 
+						: (low[net] & bit) != 0 ? Signal.State.LOW : Signal.State.FLOATING;
+				}
+				Signal.State state = this.evaluateOutput();
+				if (state == Signal.State.HIGH) {
+					outputHigh |= bit;
+				} else if (state == Signal.State.LOW) {
+					outputLow |= bit;
+				}
+			}
+		} finally {
+			this.vectorInputs = null;
+		}
+		high[output] = outputHigh;
+		low[output] = outputLow;
+	}
+	
+	/**
+	 * Gets the inputs of the gate, or the inputs of the vector that is being evaluated by the 
+	 * default {@link #evaluateWords(long[], long[], int[], int, int, int)}.
+	 * 
+	 * @return array of all inputs
+	 */
+	@Override
+	protected Input[] getInputArray() {
+		Input[] inputs = this.vectorInputs;
+		return inputs != null ? inputs : super.getInputArray();
+	}
+	
 	/**
 	 * Initiate a number minimum number of inputs.
 	 * 
@@ -97,6 +176,55 @@ public abstract class Gate extends Component {
 	 */
 	@Override
 	public void evaluate() {
-		this.setOutputState(Gate.OUTPUT, this.evaluateOutput());
+		this.setOutputState(this.output, this.evaluateOutput());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void prepareEvaluation() {
+		this.preparedState = this.evaluateOutput();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void commitEvaluation() {
+		if (this.preparedState == null) {
+			throw new IllegalStateException("The gate has not been prepared.");
+		}
+		this.setOutputState(this.output, this.preparedState);
+		this.preparedState = null;
+	}
+	
+	/**
+	 * Input that is not connected to anything and has the state of one input vector.
+	 */
+	private static class VectorInput extends Input {
+		
+		/**
+		 * The state of the input in the evaluated vector.
+		 */
+		private Signal.State state = Signal.State.FLOATING;
+		
+		/**
+		 * Creates an input for a vector.
+		 * 
+		 * @param identifier	identifier of the input
+		 * @param owner			the gate that is evaluated
+		 */
+		public VectorInput(String identifier, Component owner) {
+			super(identifier, owner);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Signal.State getState() {
+			return this.state;
+		}
 	}
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.component;
+
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Signal;
+
+/**
+ * The truth rules of the logical gates.
+ * 
+ * Every rule is described once, and evaluated from input states, from counted input states or 
+ * for 64 input vectors at once, so that the gate classes, the compiled simulation and the batch 
+ * evaluation always agree. A gate is either controlled by a state, where any input in that state 
+ * decides the output, or outputs the parity of its high inputs. The output can be inverted, and it 
+ * is {@link Signal.State#FLOATING} when the gate has too few or too many inputs, or when a 
+ * floating input could change the output.
+ * 
+ * @version 1.0
+ * @see Gate#evaluateWords(long[], long[], int[], int, int, int)
+ */
+public enum GateFunction {
+	
+	/**
+	 * Low if any input is low, high if all inputs are high.
+	 */
+	AND(Signal.State.LOW, false, 2, Integer.MAX_VALUE),
+	
+	/**
+	 * High if any input is high, low if all inputs are low.
+	 */
+	OR(Signal.State.HIGH, false, 2, Integer.MAX_VALUE),
+	
+	/**
+	 * High if any input is low, low if all inputs are high.
+	 */
+	NAND(Signal.State.LOW, true, 2, Integer.MAX_VALUE),
+	
+	/**
+	 * Low if any input is high, high if all inputs are low.
+	 */
+	NOR(Signal.State.HIGH, true, 2, Integer.MAX_VALUE),
+	
+	/**
+	 * High if an odd number of inputs are high.
+	 */
+	XOR(null, false, 2, Integer.MAX_VALUE),
+	
+	/**
+	 * High if an even number of inputs are high.
+	 */
+	NXOR(null, true, 2, Integer.MAX_VALUE),
+	
+	/**
+	 * The inverted state of the only input.
+	 */
+	NOT(null, true, 1, 1);
+	
+	/**
+	 * The input state that decides the output on its own, null if the parity is used.
+	 */
+	private final Signal.State controlling;
+	
+	/**
+	 * If the output is inverted.
+	 */
+	private final boolean inverted;
+	
+	/**
+	 * The minimum number of inputs.
+	 */
+	private final int minInputs;
+	
+	/**
+	 * The maximum number of inputs.
+	 */
+	private final int maxInputs;
+	
+	/**
+	 * Creates a truth rule.
+	 * 
+	 * @param controlling	the input state that decides the output, null to use the parity
+	 * @param inverted		if the output is inverted
+	 * @param minInputs		the minimum number of inputs
+	 * @param maxInputs		the maximum number of inputs
+	 */
+	private GateFunction(Signal.State controlling, boolean inverted, int minInputs, int maxInputs) {
+		this.controlling = controlling;
+		this.inverted = inverted;
+		this.minInputs = minInputs;
+		this.maxInputs = maxInputs;
+	}
+	
+	/**
+	 * Evaluates the output for the current states of some inputs.
+	 * 
+	 * @param inputs		the inputs of the gate
+	 * @return the output state
+	 */
+	public Signal.State evaluate(Input[] inputs) {
+		int low = 0, high = 0, floating = 0;
+		for (Input input : inputs) {
+			switch (input.getState()) {
+				case LOW:
+					low++;
+				break;
+				case HIGH:
+					high++;
+				break;
+				default:
+					floating++;
+				break;
+			}
+		}
+		return this.evaluate(low, high, floating);
+	}
+	
+	/**
+	 * Evaluates the output from the number of inputs in each state.
+	 * 
+	 * @param low			the number of low inputs
+	 * @param high			the number of high inputs
+	 * @param floating		the number of floating inputs
+	 * @return the output state
+	 */
+	public Signal.State evaluate(int low, int high, int floating) {
+		int inputs = low + high + floating;
+		if (inputs < this.minInputs || inputs > this.maxInputs) {
+			return Signal.State.FLOATING;
+		}
+		boolean result;
+		if (this.controlling == Signal.State.LOW && low > 0) {
+			result = false;
+		} else if (this.controlling == Signal.State.HIGH && high > 0) {
+			result = true;
+		} else if (floating > 0) {
+			return Signal.State.FLOATING;
+		} else if (this.controlling != null) {
+			result = this.controlling == Signal.State.LOW;
+		} else {
+			result = high % 2 == 1;
+		}
+		return result != this.inverted ? Signal.State.HIGH : Signal.State.LOW;
+	}
+	
+	/**
+	 * Evaluates the output for 64 input vectors at once.
+	 * 
+	 * @param high			high words indexed by net
+	 * @param low			low words indexed by net
+	 * @param inputNets		net indices of the gate's inputs
+	 * @param from			index of the first input in inputNets
+	 * @param to			index after the last input in inputNets
+	 * @param output		net index where the result should be written
+	 * @see Gate#evaluateWords(long[], long[], int[], int, int, int)
+	 */
+	public void evaluateWords(long[] high, long[] low, int[] inputNets, int from, int to, int output) {
+		int inputs = to - from;
+		if (inputs < this.minInputs || inputs > this.maxInputs) {
+			high[output] = 0;
+			low[output] = 0;
+			return;
+		}
+		long allHigh = -1L, allLow = -1L, anyHigh = 0, anyLow = 0, defined = -1L, parity = 0;
+		for (int pin = from; pin < to; pin++) {
+			long inputHigh = high[inputNets[pin]], inputLow = low[inputNets[pin]];
+			allHigh &= inputHigh;
+			allLow &= inputLow;
+			anyHigh |= inputHigh;
+			anyLow |= inputLow;
+			defined &= inputHigh | inputLow;
+			parity ^= inputHigh;
+		}
+		long resultTrue, resultFalse;
+		if (this.controlling == Signal.State.LOW) {
+			resultTrue = allHigh;
+			resultFalse = anyLow;
+		} else if (this.controlling == Signal.State.HIGH) {
+			resultTrue = anyHigh;
+			resultFalse = allLow;
+		} else {
+			resultTrue = defined & parity;
+			resultFalse = defined & ~parity;
+		}
+		high[output] = this.inverted ? resultFalse : resultTrue;
+		low[output] = this.inverted ? resultTrue : resultFalse;
+	}
+}
@@ -18,7 +18,6 @@ package se.openflisp.sls.component;
 
 import se.openflisp.sls.*;
 import se.openflisp.sls.event.ComponentEventDelegator;
-import se.openflisp.sls.util.SignalCollection;
 
 /**
  * Class representing a logical NAND-gate.
@@ -52,16 +51,14 @@ public class NandGate extends Gate {
 	 */
 	@Override
 	protected Signal.State evaluateOutput() {
-		if(this.getInputs().size() < 2) {
-			return Signal.State.FLOATING;
-		}
-		if(SignalCollection.containsState(this.getInputs(), Signal.State.LOW)) {
-			return Signal.State.HIGH;
-		}
-		if(SignalCollection.containsState(this.getInputs(), Signal.State.FLOATING)) {
-			return Signal.State.FLOATING;
-		}
-		return Signal.State.LOW;
+		return GateFunction.NAND.evaluate(this.getInputArray());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluateWords(long[] high, long[] low, int[] inputNets, int from, int to, int output) {
+		GateFunction.NAND.evaluateWords(high, low, inputNets, from, to, output);
 	}
-
 }
@@ -18,7 +18,6 @@ package se.openflisp.sls.component;
 
 import se.openflisp.sls.*;
 import se.openflisp.sls.event.ComponentEventDelegator;
-import se.openflisp.sls.util.SignalCollection;
 
 /**
  * Class representing a logical NOT-gate.
@@ -52,15 +51,14 @@ public class NotGate extends Gate {
 	 */
 	@Override
 	public Signal.State evaluateOutput() {
-		if (this.getInputs().size() > 1) {
-			return Signal.State.FLOATING;
-		}
-		if (SignalCollection.containsState(this.getInputs(), Signal.State.LOW)) {
-			return Signal.State.HIGH;
-		}
-		if (SignalCollection.containsState(this.getInputs(), Signal.State.HIGH)) {
-			return Signal.State.LOW;
-		}
-		return Signal.State.FLOATING;
+		return GateFunction.NOT.evaluate(this.getInputArray());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluateWords(long[] high, long[] low, int[] inputNets, int from, int to, int output) {
+		GateFunction.NOT.evaluateWords(high, low, inputNets, from, to, output);
 	}
 }
@@ -18,7 +18,6 @@ package se.openflisp.sls.component;
 
 import se.openflisp.sls.*;
 import se.openflisp.sls.event.ComponentEventDelegator;
-import se.openflisp.sls.util.SignalCollection;
 
 /**
  * Class representing a logical OR-gate.
@@ -52,15 +51,14 @@ public class OrGate extends Gate {
 	 */
 	@Override
 	public Signal.State evaluateOutput() {
-		if (this.getInputs().size() < 2) {
-			return Signal.State.FLOATING;
-		}
-		if (SignalCollection.containsState(this.getInputs(), Signal.State.HIGH)) {
-			return Signal.State.HIGH;
-		}
-		if (SignalCollection.containsState(this.getInputs(), Signal.State.FLOATING)) {
-			return Signal.State.FLOATING;
-		}
-		return Signal.State.LOW;
+		return GateFunction.OR.evaluate(this.getInputArray());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluateWords(long[] high, long[] low, int[] inputNets, int from, int to, int output) {
+		GateFunction.OR.evaluateWords(high, low, inputNets, from, to, output);
 	}
 }
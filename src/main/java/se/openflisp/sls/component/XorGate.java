@@ -18,7 +18,6 @@ package se.openflisp.sls.component;
 
 import se.openflisp.sls.*;
 import se.openflisp.sls.event.ComponentEventDelegator;
-import se.openflisp.sls.util.SignalCollection;
 
 /**
  * Class representing a logical XOR-gate.
@@ -52,12 +51,14 @@ public class XorGate extends Gate {
 	 */
 	@Override
 	protected Signal.State evaluateOutput() {
-		if (this.getInputs().size() < 2 || SignalCollection.containsState(this.getInputs(), Signal.State.FLOATING)) {
-			return Signal.State.FLOATING;
-		}
-		if (SignalCollection.countState(this.getInputs(), Signal.State.HIGH) % 2 == 0) {
-			return Signal.State.LOW;
-		}
-		return Signal.State.HIGH;
+		return GateFunction.XOR.evaluate(this.getInputArray());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluateWords(long[] high, long[] low, int[] inputNets, int from, int to, int output) {
+		GateFunction.XOR.evaluateWords(high, low, inputNets, from, to, output);
 	}
 }
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs events for {@link ListenerContext#ASYNC} listeners on a worker thread.
+ * 
+ * Events are kept in a bounded ring buffer and run in the order they were dispatched. When the 
+ * buffer is full the {@link BackpressurePolicy} decides if the dispatching thread should wait or 
+ * if the oldest event should be dropped. With {@link BackpressurePolicy#COALESCE} a new event 
+ * always replaces a queued event with an equal key, also when the buffer has room, and a 
+ * replaced event keeps its place in the queue. Delegators key their events by both themselves 
+ * and the signal, so they never replace each other's events. All delegators use the shared dispatcher unless 
+ * another one is set, and the worker thread is started by the first event.
+ * 
+ * @version 1.0
+ * @see EventDelegator#setAsyncDispatcher(AsyncEventDispatcher)
+ */
+public class AsyncEventDispatcher {
+	
+	/**
+	 * Default number of events that can be queued.
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+	
+	/**
+	 * Dispatcher used by delegators that have not been given another one.
+	 */
+	private static final AsyncEventDispatcher SHARED_DISPATCHER = new AsyncEventDispatcher();
+	
+	/**
+	 * Queued events in a ring buffer.
+	 */
+	private final Runnable[] events;
+	
+	/**
+	 * The coalescing key of every queued event, null for events that can not be coalesced.
+	 */
+	private final Object[] keys;
+	
+	/**
+	 * Buffer index of the last queued event for every coalescing key.
+	 */
+	private final Map<Object, Integer> queuedKeys = new HashMap<Object, Integer>();
+	
+	/**
+	 * Buffer index of the oldest queued event.
+	 */
+	private int head = 0;
+	
+	/**
+	 * Number of queued events.
+	 */
+	private int count = 0;
+	
+	/**
+	 * Number of events that have been dropped.
+	 */
+	private long droppedCount = 0;
+	
+	/**
+	 * Number of events that have replaced a queued event.
+	 */
+	private long coalescedCount = 0;
+	
+	/**
+	 * What to do with new events when the queue is full.
+	 */
+	private volatile BackpressurePolicy policy;
+	
+	/**
+	 * Lock that guards the queue and the counters.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/**
+	 * Signalled when an event has been queued.
+	 */
+	private final Condition notEmpty = this.lock.newCondition();
+	
+	/**
+	 * Signalled when an event has been taken from the queue.
+	 */
+	private final Condition notFull = this.lock.newCondition();
+	
+	/**
+	 * Thread that runs the events, null until the first event is dispatched.
+	 */
+	private volatile Thread worker;
+	
+	/**
+	 * Creates a dispatcher with the default capacity that blocks when it is full.
+	 */
+	public AsyncEventDispatcher() {
+		this(DEFAULT_CAPACITY, BackpressurePolicy.BLOCK);
+	}
+	
+	/**
+	 * Creates a dispatcher.
+	 * 
+	 * @param capacity		maximum number of queued events
+	 * @param policy		what to do with new events when the queue is full
+	 * @throws IllegalArgumentException if the capacity is not positive or the policy is null
+	 */
+	public AsyncEventDispatcher(int capacity, BackpressurePolicy policy) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive.");
+		}
+		if (policy == null) {
+			throw new IllegalArgumentException("Policy can not be null.");
+		}
+		this.events = new Runnable[capacity];
+		this.keys = new Object[capacity];
+		this.policy = policy;
+	}
+	
+	/**
+	 * Gets the dispatcher that is used by delegators that have not been given another one.
+	 * 
+	 * @return the shared dispatcher
+	 */
+	public static AsyncEventDispatcher getSharedDispatcher() {
+		return SHARED_DISPATCHER;
+	}
+	
+	/**
+	 * Gets the maximum number of queued events.
+	 * 
+	 * @return the capacity of the queue
+	 */
+	public int getCapacity() {
+		return this.events.length;
+	}
+	
+	/**
+	 * Gets what the dispatcher does with new events when the queue is full.
+	 * 
+	 * @return the backpressure policy
+	 */
+	public BackpressurePolicy getPolicy() {
+		return this.policy;
+	}
+	
+	/**
+	 * Sets what the dispatcher should do with new events when the queue is full.
+	 * 
+	 * @param policy		the backpressure policy
+	 * @throws IllegalArgumentException if the policy is null
+	 */
+	public void setPolicy(BackpressurePolicy policy) {
+		if (policy == null) {
+			throw new IllegalArgumentException("Policy can not be null.");
+		}
+		this.policy = policy;
+	}
+	
+	/**
+	 * Gets the number of events that are waiting to be run.
+	 * 
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		this.lock.lock();
+		try {
+			return this.count;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Gets the number of events that have been dropped by {@link BackpressurePolicy#DROP_OLDEST}, 
+	 * or because the dispatching thread was interrupted while it waited for room.
+	 * 
+	 * @return the number of dropped events
+	 */
+	public long getDroppedCount() {
+		this.lock.lock();
+		try {
+			return this.droppedCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Gets the number of events that have replaced a queued event by {@link BackpressurePolicy#COALESCE}.
+	 * 
+	 * @return the number of coalesced events
+	 */
+	public long getCoalescedCount() {
+		this.lock.lock();
+		try {
+			return this.coalescedCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Queues an event that should be run on the worker thread.
+	 * 
+	 * Events dispatched by the worker thread itself are run directly, since the worker can not 
+	 * wait for room in its own queue. If the dispatching thread is interrupted while it waits for 
+	 * room, the event is dropped and the thread keeps its interrupted status.
+	 * 
+	 * @param key			what the event is about, events with equal keys are coalesced, or null if 
+	 * 						the event should never be coalesced
+	 * @param event			the event to run
+	 * @throws IllegalArgumentException if the event is null
+	 */
+	public void dispatch(Object key, Runnable event) {
+		if (event == null) {
+			throw new IllegalArgumentException("Event can not be null.");
+		}
+		if (Thread.currentThread() == this.worker) {
+			event.run();
+			return;
+		}
+		this.lock.lock();
+		try {
+			if (this.worker == null) {
+				this.startWorker();
+			}
+			BackpressurePolicy policy = this.policy;
+			if (policy == BackpressurePolicy.COALESCE && key != null) {
+				Integer index = this.queuedKeys.get(key);
+				if (index != null) {
+					this.events[index] = event;
+					this.coalescedCount++;
+					return;
+				}
+			}
+			while (this.count == this.events.length) {
+				if (policy == BackpressurePolicy.DROP_OLDEST) {
+					this.take();
+					this.droppedCount++;
+				} else {
+					try {
+						this.notFull.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						this.droppedCount++;
+						return;
+					}
+				}
+			}
+			int index = (this.head + this.count) % this.events.length;
+			this.events[index] = event;
+			this.keys[index] = key;
+			if (key != null) {
+				this.queuedKeys.put(key, index);
+			}
+			this.count++;
+			this.notEmpty.signal();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Helper function to take the oldest event from the queue, must be called while holding the lock.
+	 * 
+	 * @return the oldest event
+	 */
+	private Runnable take() {
+		Runnable event = this.events[this.head];
+		Object key = this.keys[this.head];
+		if (key != null) {
+			Integer index = this.queuedKeys.get(key);
+			if (index != null && index == this.head) {
+				this.queuedKeys.remove(key);
+			}
+		}
+		this.events[this.head] = null;
+		this.keys[this.head] = null;
+		this.head = (this.head + 1) % this.events.length;
+		this.count--;
+		this.notFull.signal();
+		return event;
+	}
+	
+	/**
+	 * Helper function to start the worker thread, must be called while holding the lock.
+	 */
+	private void startWorker() {
+		this.worker = new Thread(this.eventRunner, "AsyncEventDispatcher");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+	
+	/**
+	 * Runs the queued events on the worker thread. An event that throws anything is handed to the 
+	 * uncaught exception handler of the worker, which then continues with the next event. If the 
+	 * worker dies anyway, for example because the handler throws, a new worker is started for the 
+	 * events that are left.
+	 */
+	private final Runnable eventRunner = new Runnable() {
+		@Override
+		public void run() {
+			AsyncEventDispatcher dispatcher = AsyncEventDispatcher.this;
+			try {
+				while (true) {
+					Runnable event;
+					dispatcher.lock.lock();
+					try {
+						while (dispatcher.count == 0) {
+							dispatcher.notEmpty.awaitUninterruptibly();
+						}
+						event = dispatcher.take();
+					} finally {
+						dispatcher.lock.unlock();
+					}
+					try {
+						event.run();
+					} catch (Throwable e) {
+						Thread worker = Thread.currentThread();
+						worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+					}
+				}
+			} finally {
+				dispatcher.lock.lock();
+				try {
+					if (dispatcher.worker == Thread.currentThread()) {
+						dispatcher.worker = null;
+						if (dispatcher.count > 0) {
+							dispatcher.startWorker();
+						}
+					}
+				} finally {
+					dispatcher.lock.unlock();
+				}
+			}
+		}
+	};
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+/**
+ * What an {@link AsyncEventDispatcher} should do with new events, mainly when its queue is full.
+ * 
+ * @version 1.0
+ * @see AsyncEventDispatcher
+ */
+public enum BackpressurePolicy {
+	/**
+	 * Wait until the worker thread has made room for the event, no events are lost.
+	 */
+	BLOCK,
+	
+	/**
+	 * Drop the oldest queued event to make room for the new event.
+	 */
+	DROP_OLDEST,
+	
+	/**
+	 * Replace a queued event for the same signal with the new event, also when the queue has 
+	 * room, and wait like {@link #BLOCK} if there is no such event and the queue is full.
+	 */
+	COALESCE
+}
@@ -27,7 +27,7 @@ import se.openflisp.sls.Component;
  * @version 1.0
  * @see CircuitEventDelegator
  */
-public abstract class CircuitAdapter implements CircuitListener {
+public abstract class CircuitAdapter implements CircuitLoadListener {
 
 	/**
 	 * {@inheritDoc}
@@ -46,4 +46,10 @@ public abstract class CircuitAdapter implements CircuitListener {
 	 */
 	@Override
 	public void onComponentMoved(Component component, Point from, Point to) {}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onCircuitLoaded() {}
 }
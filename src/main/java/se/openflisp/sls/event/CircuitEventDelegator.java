@@ -27,30 +27,42 @@ import se.openflisp.sls.Component;
  * 
  * Prioritizes {@link ListenerContext#MODEL} listeners before {@link ListenerContext#SWING} 
  * and {@link ListenerContext#DEFAULT} listeners. Will run the {@link ListenerContext#SWING} in 
- * the Swing event thread.
+ * the Swing event thread and the {@link ListenerContext#ASYNC} listeners on the worker thread of 
+ * the {@link AsyncEventDispatcher}.
  * 
  * @author Anton Ekberg <anton.ekberg@gmail.com>
  * @version 1.0
  */
-public class CircuitEventDelegator extends EventDelegator<CircuitListener> implements CircuitListener {
+public class CircuitEventDelegator extends EventDelegator<CircuitListener> implements CircuitLoadListener {
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public void onComponentAdded(final Component component) {
-		for (CircuitListener listener : this.getModelListeners()) {
-			listener.onComponentAdded(component);
+		for (Object listener : this.getListenerArray(ListenerContext.MODEL)) {
+			((CircuitListener) listener).onComponentAdded(component);
 		}
-		for (final CircuitListener listener : this.getSwingListeners()) {
+		for (Object element : this.getListenerArray(ListenerContext.SWING)) {
+			final CircuitListener listener = (CircuitListener) element;
 			SwingUtilities.invokeLater(new Runnable() {
 				public void run() {
 					listener.onComponentAdded(component);
 				}
 			});
 		}
-		for (CircuitListener listener : this.getNormalListeners()) {
-			listener.onComponentAdded(component);
+		for (Object listener : this.getListenerArray(ListenerContext.DEFAULT)) {
+			((CircuitListener) listener).onComponentAdded(component);
+		}
+		final Object[] asyncListeners = this.getListenerArray(ListenerContext.ASYNC);
+		if (asyncListeners.length > 0) {
+			this.dispatchAsync(null, new Runnable() {
+				public void run() {
+					for (Object listener : asyncListeners) {
+						((CircuitListener) listener).onComponentAdded(component);
+					}
+				}
+			});
 		}
 	}
 
@@ -59,18 +71,29 @@ public class CircuitEventDelegator extends EventDelegator<CircuitListener> imple
 	 */
 	@Override
 	public void onComponentRemoved(final Component component) {
-		for (CircuitListener listener : this.getModelListeners()) {
-			listener.onComponentRemoved(component);
+		for (Object listener : this.getListenerArray(ListenerContext.MODEL)) {
+			((CircuitListener) listener).onComponentRemoved(component);
 		}
-		for (final CircuitListener listener : this.getSwingListeners()) {
+		for (Object element : this.getListenerArray(ListenerContext.SWING)) {
+			final CircuitListener listener = (CircuitListener) element;
 			SwingUtilities.invokeLater(new Runnable() {
 				public void run() {
 					listener.onComponentRemoved(component);
 				}
 			});
 		}
-		for (CircuitListener listener : this.getNormalListeners()) {
-			listener.onComponentRemoved(component);
+		for (Object listener : this.getListenerArray(ListenerContext.DEFAULT)) {
+			((CircuitListener) listener).onComponentRemoved(component);
+		}
+		final Object[] asyncListeners = this.getListenerArray(ListenerContext.ASYNC);
+		if (asyncListeners.length > 0) {
+			this.dispatchAsync(null, new Runnable() {
+				public void run() {
+					for (Object listener : asyncListeners) {
+						((CircuitListener) listener).onComponentRemoved(component);
+					}
+				}
+			});
 		}
 	}
 
@@ -79,19 +102,70 @@ public class CircuitEventDelegator extends EventDelegator<CircuitListener> imple
 	 */
 	@Override
 	public void onComponentMoved(final Component component, final Point from, final Point to) {
-		for (CircuitListener listener : this.getModelListeners()) {
-			listener.onComponentMoved(component, from, to);
+		for (Object listener : this.getListenerArray(ListenerContext.MODEL)) {
+			((CircuitListener) listener).onComponentMoved(component, from, to);
 		}
-		for (final CircuitListener listener : this.getSwingListeners()) {
+		for (Object element : this.getListenerArray(ListenerContext.SWING)) {
+			final CircuitListener listener = (CircuitListener) element;
 			SwingUtilities.invokeLater(new Runnable() {
 				public void run() {
 					listener.onComponentMoved(component, from, to);
 				}
 			});
 		}
-		for (CircuitListener listener : this.getNormalListeners()) {
-			listener.onComponentMoved(component, from, to);
+		for (Object listener : this.getListenerArray(ListenerContext.DEFAULT)) {
+			((CircuitListener) listener).onComponentMoved(component, from, to);
+		}
+		final Object[] asyncListeners = this.getListenerArray(ListenerContext.ASYNC);
+		if (asyncListeners.length > 0) {
+			this.dispatchAsync(null, new Runnable() {
+				public void run() {
+					for (Object listener : asyncListeners) {
+						((CircuitListener) listener).onComponentMoved(component, from, to);
+					}
+				}
+			});
 		}
 
 	}
+
+	/**
+	 * Notifies the listeners that implement {@link CircuitLoadListener} that the Circuit has been 
+	 * loaded in bulk, other listeners are skipped.
+	 */
+	@Override
+	public void onCircuitLoaded() {
+		for (Object listener : this.getListenerArray(ListenerContext.MODEL)) {
+			if (listener instanceof CircuitLoadListener) {
+				((CircuitLoadListener) listener).onCircuitLoaded();
+			}
+		}
+		for (Object element : this.getListenerArray(ListenerContext.SWING)) {
+			if (element instanceof CircuitLoadListener) {
+				final CircuitLoadListener listener = (CircuitLoadListener) element;
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						listener.onCircuitLoaded();
+					}
+				});
+			}
+		}
+		for (Object listener : this.getListenerArray(ListenerContext.DEFAULT)) {
+			if (listener instanceof CircuitLoadListener) {
+				((CircuitLoadListener) listener).onCircuitLoaded();
+			}
+		}
+		final Object[] asyncListeners = this.getListenerArray(ListenerContext.ASYNC);
+		if (asyncListeners.length > 0) {
+			this.dispatchAsync(null, new Runnable() {
+				public void run() {
+					for (Object listener : asyncListeners) {
+						if (listener instanceof CircuitLoadListener) {
+							((CircuitLoadListener) listener).onCircuitLoaded();
+						}
+					}
+				}
+			});
+		}
+	}
 }
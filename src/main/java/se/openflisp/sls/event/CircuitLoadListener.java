@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+import java.awt.Point;
+
+import se.openflisp.sls.Component;
+
+/**
+ * Listener interface for Circuit listeners that also want to know when a Circuit has been loaded 
+ * in bulk. A Circuit that is loaded in bulk does not fire a 
+ * {@link #onComponentAdded(Component)} and {@link #onComponentMoved(Component, Point, Point)} for 
+ * every loaded Component, so listeners that only implement {@link CircuitListener} are not told 
+ * about the loaded Components.
+ * 
+ * @version 1.0
+ * @see CircuitEventDelegator
+ */
+public interface CircuitLoadListener extends CircuitListener {
+	
+	/**
+	 * Called when the Circuit that the listener was added to has ended loading in bulk.
+	 */
+	public void onCircuitLoaded();
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+
+/**
+ * Bus for the component events of all Components in a Circuit.
+ * 
+ * The Components publish their events into the bus through their {@link ComponentEventDelegator},
+ * instead of having the same listeners added to every delegator. Listeners can subscribe to all
+ * events or only to the events of a specific Component or Signal, the filtered subscriptions are
+ * kept in an index so an event is only delivered to the listeners that are interested in it.
+ * Every subscription is handled by a {@link ComponentEventDelegator}, so listeners are called in
+ * the same threads as listeners added to a Component directly. Events are delivered one context
+ * at a time, the subscribers of a context are notified after the listeners of the Component with
+ * that context and before the listeners of the next context.
+ * 
+ * @version 1.0
+ * @see ComponentEventDelegator#addEventBus(ComponentEventBus, Component)
+ */
+public class ComponentEventBus {
+	
+	/**
+	 * Delegator for the listeners that subscribe to all events.
+	 */
+	private final ComponentEventDelegator global = new ComponentEventDelegator();
+	
+	/**
+	 * Delegators for the listeners that subscribe to a specific Component or Signal, only contains
+	 * the Components and Signals that have listeners.
+	 */
+	private final Map<Object, ComponentEventDelegator> index = new ConcurrentHashMap<Object, ComponentEventDelegator>();
+	
+	/**
+	 * Batcher for the signal changes of {@link ListenerContext#SWING} listeners, null if every
+	 * change should be delivered on its own.
+	 */
+	private volatile SignalChangeBatcher signalChangeBatcher;
+	
+	/**
+	 * If published events are dropped instead of delivered.
+	 */
+	private volatile boolean suspended;
+	
+	/**
+	 * The listener contexts in the order that they are notified.
+	 */
+	private static final ListenerContext[] CONTEXTS = ListenerContext.values();
+	
+	/**
+	 * Gets the batcher that signal changes for {@link ListenerContext#SWING} listeners are delivered by.
+	 * 
+	 * @return the signal change batcher, null if signal changes are not batched
+	 */
+	public SignalChangeBatcher getSignalChangeBatcher() {
+		return this.signalChangeBatcher;
+	}
+	
+	/**
+	 * Sets a batcher that signal changes for {@link ListenerContext#SWING} subscribers should be
+	 * delivered by.
+	 * 
+	 * @param batcher		the signal change batcher, null to deliver every change on its own
+	 * @see ComponentEventDelegator#setSignalChangeBatcher(SignalChangeBatcher)
+	 */
+	public synchronized void setSignalChangeBatcher(SignalChangeBatcher batcher) {
+		this.signalChangeBatcher = batcher;
+		this.global.setSignalChangeBatcher(batcher);
+		for (ComponentEventDelegator delegator : this.index.values()) {
+			delegator.setSignalChangeBatcher(batcher);
+		}
+	}
+	
+	/**
+	 * Checks if published events are dropped instead of delivered to the subscribers.
+	 * 
+	 * @return true if the bus is suspended, false otherwise
+	 */
+	public boolean isSuspended() {
+		return this.suspended;
+	}
+	
+	/**
+	 * Suspends or resumes the delivery of events. Events that are published while the bus is 
+	 * suspended are dropped, used while loading a Circuit that announces itself when it is loaded.
+	 * 
+	 * @param suspended		true to drop published events, false to deliver them
+	 */
+	public void setSuspended(boolean suspended) {
+		this.suspended = suspended;
+	}
+	
+	/**
+	 * Subscribes a listener to the events of all Components.
+	 * 
+	 * @param context		in which context the listener should be called in
+	 * @param listener		listener that should be notified when a event happens
+	 * @return true if the listener was subscribed, false otherwise
+	 */
+	public boolean subscribe(ListenerContext context, ComponentListener listener) {
+		return this.global.addListener(context, listener);
+	}
+	
+	/**
+	 * Subscribes a listener to the events of a Component.
+	 * 
+	 * @param component		the component whose events the listener should be notified about
+	 * @param context		in which context the listener should be called in
+	 * @param listener		listener that should be notified when a event happens
+	 * @return true if the listener was subscribed, false otherwise
+	 */
+	public boolean subscribe(Component component, ListenerContext context, ComponentListener listener) {
+		return this.subscribeKey(component, context, listener);
+	}
+	
+	/**
+	 * Subscribes a listener to the events of a Signal, which are its changes and its connections.
+	 * 
+	 * @param signal		the signal whose events the listener should be notified about
+	 * @param context		in which context the listener should be called in
+	 * @param listener		listener that should be notified when a event happens
+	 * @return true if the listener was subscribed, false otherwise
+	 */
+	public boolean subscribe(Signal signal, ListenerContext context, ComponentListener listener) {
+		return this.subscribeKey(signal, context, listener);
+	}
+	
+	/**
+	 * Unsubscribes a listener from the events of all Components.
+	 * 
+	 * @param context		which context to unsubscribe the listener from
+	 * @param listener		listener to be unsubscribed
+	 * @return true if the listener was unsubscribed, false otherwise
+	 */
+	public boolean unsubscribe(ListenerContext context, ComponentListener listener) {
+		return this.global.removeListener(context, listener);
+	}
+	
+	/**
+	 * Unsubscribes a listener from the events of a Component.
+	 * 
+	 * @param component		the component that the listener was subscribed to
+	 * @param context		which context to unsubscribe the listener from
+	 * @param listener		listener to be unsubscribed
+	 * @return true if the listener was unsubscribed, false otherwise
+	 */
+	public boolean unsubscribe(Component component, ListenerContext context, ComponentListener listener) {
+		return this.unsubscribeKey(component, context, listener);
+	}
+	
+	/**
+	 * Unsubscribes a listener from the events of a Signal.
+	 * 
+	 * @param signal		the signal that the listener was subscribed to
+	 * @param context		which context to unsubscribe the listener from
+	 * @param listener		listener to be unsubscribed
+	 * @return true if the listener was unsubscribed, false otherwise
+	 */
+	public boolean unsubscribe(Signal signal, ListenerContext context, ComponentListener listener) {
+		return this.unsubscribeKey(signal, context, listener);
+	}
+	
+	/**
+	 * Gets the number of Components and Signals that have subscribed listeners.
+	 * 
+	 * @return the size of the subscription index
+	 */
+	public int getIndexedCount() {
+		return this.index.size();
+	}
+	
+	/**
+	 * Publishes that a Signal on a Component has changed its state.
+	 * 
+	 * @param component		the component that owns the signal
+	 * @param signal		the signal that has changed
+	 */
+	public void publishSignalChange(Component component, Signal signal) {
+		for (ListenerContext context : CONTEXTS) {
+			this.publishSignalChange(context, component, signal);
+		}
+	}
+	
+	/**
+	 * Publishes that a Component has had one of its signals connected.
+	 * 
+	 * @param source		the component that the event was fired on, owner of either the input or the output
+	 * @param input			the input that was connected
+	 * @param output		the output that was connected
+	 */
+	public void publishSignalConnection(Component source, Input input, Output output) {
+		for (ListenerContext context : CONTEXTS) {
+			this.publishSignalConnection(context, source, input, output);
+		}
+	}
+	
+	/**
+	 * Publishes that a Component has had one of its signals disconnected.
+	 * 
+	 * @param source		the component that the event was fired on, owner of either the input or the output
+	 * @param input			the input that was disconnected
+	 * @param output		the output that was disconnected
+	 */
+	public void publishSignalDisconnection(Component source, Input input, Output output) {
+		for (ListenerContext context : CONTEXTS) {
+			this.publishSignalDisconnection(context, source, input, output);
+		}
+	}
+	
+	/**
+	 * Publishes a signal change to the subscribers of a single context.
+	 * 
+	 * @param context		the context of the subscribers that should be notified
+	 * @param component		the component that owns the signal
+	 * @param signal		the signal that has changed
+	 */
+	void publishSignalChange(ListenerContext context, Component component, Signal signal) {
+		if (this.suspended) {
+			return;
+		}
+		this.global.fireSignalChange(context, component, signal);
+		if (this.index.isEmpty()) {
+			return;
+		}
+		ComponentEventDelegator delegator = this.index.get(component);
+		if (delegator != null) {
+			delegator.fireSignalChange(context, component, signal);
+		}
+		delegator = this.index.get(signal);
+		if (delegator != null) {
+			delegator.fireSignalChange(context, component, signal);
+		}
+	}
+	
+	/**
+	 * Publishes a signal connection to the subscribers of a single context.
+	 * 
+	 * @param context		the context of the subscribers that should be notified
+	 * @param source		the component that the event was fired on, owner of either the input or the output
+	 * @param input			the input that was connected
+	 * @param output		the output that was connected
+	 */
+	void publishSignalConnection(ListenerContext context, Component source, Input input, Output output) {
+		if (this.suspended) {
+			return;
+		}
+		this.global.fireSignalConnection(context, input, output);
+		if (this.index.isEmpty()) {
+			return;
+		}
+		for (Object key : this.keys(source, input, output)) {
+			ComponentEventDelegator delegator = this.index.get(key);
+			if (delegator != null) {
+				delegator.fireSignalConnection(context, input, output);
+			}
+		}
+	}
+	
+	/**
+	 * Publishes a signal disconnection to the subscribers of a single context.
+	 * 
+	 * @param context		the context of the subscribers that should be notified
+	 * @param source		the component that the event was fired on, owner of either the input or the output
+	 * @param input			the input that was disconnected
+	 * @param output		the output that was disconnected
+	 */
+	void publishSignalDisconnection(ListenerContext context, Component source, Input input, Output output) {
+		if (this.suspended) {
+			return;
+		}
+		this.global.fireSignalDisconnection(context, input, output);
+		if (this.index.isEmpty()) {
+			return;
+		}
+		for (Object key : this.keys(source, input, output)) {
+			ComponentEventDelegator delegator = this.index.get(key);
+			if (delegator != null) {
+				delegator.fireSignalDisconnection(context, input, output);
+			}
+		}
+	}
+	
+	/**
+	 * Helper function to get the index keys that a connection event fired on a Component should be
+	 * delivered to. Connection events are fired on both Components, so only the signals that the
+	 * source owns are included to deliver every event once.
+	 * 
+	 * @param source		the component that the event was fired on
+	 * @param input			the input of the connection
+	 * @param output		the output of the connection
+	 * @return the index keys of the event
+	 */
+	private Object[] keys(Component source, Input input, Output output) {
+		if (input.getOwner() == source && output.getOwner() == source) {
+			return new Object[] {source, input, output};
+		} else if (input.getOwner() == source) {
+			return new Object[] {source, input};
+		}
+		return new Object[] {source, output};
+	}
+	
+	/**
+	 * Helper function to subscribe a listener to a key in the index.
+	 * 
+	 * @param key			the component or signal to subscribe to
+	 * @param context		in which context the listener should be called in
+	 * @param listener		listener that should be notified when a event happens
+	 * @return true if the listener was subscribed, false otherwise
+	 */
+	private synchronized boolean subscribeKey(Object key, ListenerContext context, ComponentListener listener) {
+		if (key == null || context == null || listener == null) {
+			return false;
+		}
+		ComponentEventDelegator delegator = this.index.get(key);
+		if (delegator == null) {
+			delegator = new ComponentEventDelegator();
+			delegator.setSignalChangeBatcher(this.signalChangeBatcher);
+			delegator.setAsyncDispatcher(this.global.getAsyncDispatcher());
+			this.index.put(key, delegator);
+		}
+		return delegator.addListener(context, listener);
+	}
+	
+	/**
+	 * Helper function to unsubscribe a listener from a key in the index, the key is removed from
+	 * the index when it has no listeners left.
+	 * 
+	 * @param key			the component or signal to unsubscribe from
+	 * @param context		which context to unsubscribe the listener from
+	 * @param listener		listener to be unsubscribed
+	 * @return true if the listener was unsubscribed, false otherwise
+	 */
+	private synchronized boolean unsubscribeKey(Object key, ListenerContext context, ComponentListener listener) {
+		if (key == null) {
+			return false;
+		}
+		ComponentEventDelegator delegator = this.index.get(key);
+		if (delegator == null || !delegator.removeListener(context, listener)) {
+			return false;
+		}
+		if (!delegator.hasListeners()) {
+			this.index.remove(key);
+		}
+		return true;
+	}
+}
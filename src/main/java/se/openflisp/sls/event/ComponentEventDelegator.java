@@ -16,6 +16,11 @@
  */
 package se.openflisp.sls.event;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import javax.swing.SwingUtilities;
 
 import se.openflisp.sls.Component;
@@ -28,7 +33,12 @@ import se.openflisp.sls.Signal;
  * 
  * Prioritizes {@link ListenerContext#MODEL} listeners before {@link ListenerContext#SWING} 
  * and {@link ListenerContext#DEFAULT} listeners. Will run the {@link ListenerContext#SWING} in 
- * the Swing event thread.
+ * the Swing event thread and the {@link ListenerContext#ASYNC} listeners on the worker thread of 
+ * the {@link AsyncEventDispatcher}, either one event at a time or with signal changes batched by a 
+ * {@link SignalChangeBatcher}. When the Component is part of a Circuit its events are also
+ * published to the {@link ComponentEventBus} of the Circuit, one context at a time: the 
+ * subscribers of a context are notified right after the listeners of the delegator with the 
+ * same context, so every {@link ListenerContext#MODEL} listener runs before any other.
  * 
  * @author Anton Ekberg <anton.ekberg@gmail.com>
  * @version 1.0
@@ -36,42 +46,133 @@ import se.openflisp.sls.Signal;
 public class ComponentEventDelegator extends EventDelegator<ComponentListener> implements ComponentListener {
 
 	/**
-	 * {@inheritDoc}
+	 * Batcher for the signal changes of {@link ListenerContext#SWING} listeners, null if every
+	 * change should be delivered on its own.
+	 */
+	private volatile SignalChangeBatcher signalChangeBatcher;
+	
+	/**
+	 * Snapshot of the buses that the events are published to, replaced when a bus is added or removed.
+	 */
+	private volatile ComponentEventBus[] eventBuses = NO_BUSES;
+	
+	/**
+	 * The Component that owns the delegator, used as source when events are published to the buses.
+	 */
+	private volatile Component component;
+	
+	/**
+	 * Snapshot used when the events are not published to any bus.
+	 */
+	private static final ComponentEventBus[] NO_BUSES = new ComponentEventBus[0];
+	
+	/**
+	 * The listener contexts in the order that they are notified.
+	 */
+	private static final ListenerContext[] CONTEXTS = ListenerContext.values();
+	
+	/**
+	 * Gets the batcher that signal changes for {@link ListenerContext#SWING} listeners are delivered by.
+	 * 
+	 * @return the signal change batcher, null if signal changes are not batched
+	 */
+	public SignalChangeBatcher getSignalChangeBatcher() {
+		return this.signalChangeBatcher;
+	}
+	
+	/**
+	 * Sets a batcher that signal changes for {@link ListenerContext#SWING} listeners should be 
+	 * delivered by. Connection events are always delivered on their own.
+	 * 
+	 * @param batcher		the signal change batcher, null to deliver every change on its own
 	 */
-  	@Override
-	public void onSignalChange(final Component component, final Signal signal) {
-		for (ComponentListener listener : this.getModelListeners()) {
-			listener.onSignalChange(component, signal);
+	public void setSignalChangeBatcher(SignalChangeBatcher batcher) {
+		this.signalChangeBatcher = batcher;
+	}
+	
+	/**
+	 * Gets the buses that the events of the delegator are published to.
+	 * 
+	 * @return unmodifiable set of the event buses
+	 */
+	public Set<ComponentEventBus> getEventBuses() {
+		return Collections.unmodifiableSet(new LinkedHashSet<ComponentEventBus>(Arrays.asList(this.eventBuses)));
+	}
+	
+	/**
+	 * Adds a bus that the events of the delegator should be published to, a Component is published 
+	 * to the bus of every Circuit that it is part of.
+	 * 
+	 * @param bus			the event bus
+	 * @param component		the component that owns the delegator
+	 * @return true if the bus was added, false if the events are already published to it
+	 * @throws IllegalArgumentException if the bus or the component is null
+	 */
+	public synchronized boolean addEventBus(ComponentEventBus bus, Component component) {
+		if (bus == null || component == null) {
+			throw new IllegalArgumentException("Bus and component can not be null.");
+		}
+		ComponentEventBus[] buses = this.eventBuses;
+		for (ComponentEventBus existing : buses) {
+			if (existing == bus) {
+				return false;
+			}
 		}
-		for (final ComponentListener listener : this.getSwingListeners()) {
-			SwingUtilities.invokeLater(new Runnable() {
-				public void run() {
-					listener.onSignalChange(component, signal);
+		this.component = component;
+		ComponentEventBus[] updated = Arrays.copyOf(buses, buses.length + 1);
+		updated[buses.length] = bus;
+		this.eventBuses = updated;
+		return true;
+	}
+	
+	/**
+	 * Stops publishing the events of the delegator to a bus.
+	 * 
+	 * @param bus			the event bus
+	 * @return true if the bus was removed, false otherwise
+	 */
+	public synchronized boolean removeEventBus(ComponentEventBus bus) {
+		ComponentEventBus[] buses = this.eventBuses;
+		for (int index = 0; index < buses.length; index++) {
+			if (buses[index] == bus) {
+				ComponentEventBus[] updated = NO_BUSES;
+				if (buses.length > 1) {
+					updated = new ComponentEventBus[buses.length - 1];
+					System.arraycopy(buses, 0, updated, 0, index);
+					System.arraycopy(buses, index + 1, updated, index, updated.length - index);
 				}
-			});
+				this.eventBuses = updated;
+				return true;
+			}
 		}
-		for (ComponentListener listener : this.getNormalListeners()) {
-			listener.onSignalChange(component, signal);
+		return false;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onSignalChange(Component component, Signal signal) {
+		ComponentEventBus[] buses = this.eventBuses;
+		for (ListenerContext context : CONTEXTS) {
+			this.fireSignalChange(context, component, signal);
+			for (ComponentEventBus bus : buses) {
+				bus.publishSignalChange(context, component, signal);
+			}
 		}
 	}
 
-  	/**
+	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void onSignalConnection(final Input input, final Output output) {
-		for (ComponentListener listener : this.getModelListeners()) {
-			listener.onSignalConnection(input, output);
-		}
-		for (final ComponentListener listener : this.getSwingListeners()) {
-			SwingUtilities.invokeLater(new Runnable() {
-				public void run() {
-					listener.onSignalConnection(input, output);
-				}
-			});
-		}
-		for (ComponentListener listener : this.getNormalListeners()) {
-			listener.onSignalConnection(input, output);
+	public void onSignalConnection(Input input, Output output) {
+		ComponentEventBus[] buses = this.eventBuses;
+		for (ListenerContext context : CONTEXTS) {
+			this.fireSignalConnection(context, input, output);
+			for (ComponentEventBus bus : buses) {
+				bus.publishSignalConnection(context, this.component, input, output);
+			}
 		}
 	}
 
@@ -79,19 +180,135 @@ public class ComponentEventDelegator extends EventDelegator<ComponentListener> i
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void onSignalDisconnection(final Input input, final Output output) {
-		for (ComponentListener listener : this.getModelListeners()) {
-			listener.onSignalDisconnection(input, output);
+	public void onSignalDisconnection(Input input, Output output) {
+		ComponentEventBus[] buses = this.eventBuses;
+		for (ListenerContext context : CONTEXTS) {
+			this.fireSignalDisconnection(context, input, output);
+			for (ComponentEventBus bus : buses) {
+				bus.publishSignalDisconnection(context, this.component, input, output);
+			}
+		}
+	}
+	
+	/**
+	 * Notifies the listeners of a single context that a Signal on a Component has changed its state.
+	 * 
+	 * @param context		the context of the listeners that should be notified
+	 * @param component		the component that owns the signal
+	 * @param signal		the signal that has changed
+	 */
+	void fireSignalChange(ListenerContext context, final Component component, final Signal signal) {
+		final Object[] listeners = this.getListenerArray(context);
+		if (listeners.length == 0) {
+			return;
+		}
+		switch (context) {
+			case SWING:
+				SignalChangeBatcher batcher = this.signalChangeBatcher;
+				for (Object element : listeners) {
+					final ComponentListener listener = (ComponentListener) element;
+					if (batcher != null) {
+						batcher.signalChanged(listener, signal);
+					} else {
+						SwingUtilities.invokeLater(new Runnable() {
+							public void run() {
+								listener.onSignalChange(component, signal);
+							}
+						});
+					}
+				}
+				break;
+			case ASYNC:
+				this.dispatchAsync(signal, new Runnable() {
+					public void run() {
+						for (Object listener : listeners) {
+							((ComponentListener) listener).onSignalChange(component, signal);
+						}
+					}
+				});
+				break;
+			default:
+				for (Object listener : listeners) {
+					((ComponentListener) listener).onSignalChange(component, signal);
+				}
 		}
-		for (final ComponentListener listener : this.getSwingListeners()) {
-			SwingUtilities.invokeLater(new Runnable() {
-				public void run() {
-					listener.onSignalDisconnection(input, output);
+	}
+	
+	/**
+	 * Notifies the listeners of a single context that a Signal has been connected.
+	 * 
+	 * @param context		the context of the listeners that should be notified
+	 * @param input			the input that was connected
+	 * @param output		the output that was connected
+	 */
+	void fireSignalConnection(ListenerContext context, final Input input, final Output output) {
+		final Object[] listeners = this.getListenerArray(context);
+		if (listeners.length == 0) {
+			return;
+		}
+		switch (context) {
+			case SWING:
+				for (Object element : listeners) {
+					final ComponentListener listener = (ComponentListener) element;
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							listener.onSignalConnection(input, output);
+						}
+					});
+				}
+				break;
+			case ASYNC:
+				this.dispatchAsync(null, new Runnable() {
+					public void run() {
+						for (Object listener : listeners) {
+							((ComponentListener) listener).onSignalConnection(input, output);
+						}
+					}
+				});
+				break;
+			default:
+				for (Object listener : listeners) {
+					((ComponentListener) listener).onSignalConnection(input, output);
 				}
-			});
 		}
-		for (ComponentListener listener : this.getNormalListeners()) {
-			listener.onSignalDisconnection(input, output);
+	}
+	
+	/**
+	 * Notifies the listeners of a single context that a Signal has been disconnected.
+	 * 
+	 * @param context		the context of the listeners that should be notified
+	 * @param input			the input that was disconnected
+	 * @param output		the output that was disconnected
+	 */
+	void fireSignalDisconnection(ListenerContext context, final Input input, final Output output) {
+		final Object[] listeners = this.getListenerArray(context);
+		if (listeners.length == 0) {
+			return;
+		}
+		switch (context) {
+			case SWING:
+				for (Object element : listeners) {
+					final ComponentListener listener = (ComponentListener) element;
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							listener.onSignalDisconnection(input, output);
+						}
+					});
+				}
+				break;
+			case ASYNC:
+				this.dispatchAsync(null, new Runnable() {
+					public void run() {
+						for (Object listener : listeners) {
+							((ComponentListener) listener).onSignalDisconnection(input, output);
+						}
+					}
+				});
+				break;
+			default:
+				for (Object listener : listeners) {
+					((ComponentListener) listener).onSignalDisconnection(input, output);
+				}
 		}
 	}
 }
@@ -16,11 +16,10 @@
  */
 package se.openflisp.sls.event;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Delegator for events in the simulation.
@@ -39,9 +38,63 @@ import java.util.concurrent.ConcurrentHashMap;
 public abstract class EventDelegator<T> {
 
 	/**
-	 * Map over all listeners arranged after their ListenerContext.
+	 * Snapshot used for contexts without listeners.
 	 */
-	private Map<ListenerContext, Set<T>> listeners = new ConcurrentHashMap<ListenerContext, Set<T>>();
+	private static final Object[] NO_LISTENERS = new Object[0];
+	
+	/**
+	 * Snapshots of a delegator without any listeners, shared by all such delegators until their first 
+	 * listener is added.
+	 */
+	private static final Object[][] NO_SNAPSHOTS = new Object[ListenerContext.values().length][];
+	
+	static {
+		Arrays.fill(NO_SNAPSHOTS, NO_LISTENERS);
+	}
+	
+	/**
+	 * Snapshots of the listeners in every ListenerContext, indexed by the ordinal of the context.
+	 * 
+	 * A snapshot is never modified after it has been published. Adding or removing a listener 
+	 * replaces it with a new array, so events can be dispatched by looping over the current 
+	 * snapshot without locking or creating any objects.
+	 */
+	private volatile Object[][] listeners;
+	
+	/**
+	 * Dispatcher that runs the events of {@link ListenerContext#ASYNC} listeners.
+	 */
+	private volatile AsyncEventDispatcher asyncDispatcher = AsyncEventDispatcher.getSharedDispatcher();
+	
+	/**
+	 * Creates a delegator without listeners.
+	 */
+	public EventDelegator() {
+		this.listeners = NO_SNAPSHOTS;
+	}
+	
+	/**
+	 * Gets the dispatcher that runs the events of {@link ListenerContext#ASYNC} listeners.
+	 * 
+	 * @return the asynchronous event dispatcher
+	 */
+	public AsyncEventDispatcher getAsyncDispatcher() {
+		return this.asyncDispatcher;
+	}
+	
+	/**
+	 * Sets the dispatcher that should run the events of {@link ListenerContext#ASYNC} listeners,
+	 * the shared dispatcher is used by default.
+	 * 
+	 * @param dispatcher		the asynchronous event dispatcher
+	 * @throws IllegalArgumentException if the dispatcher is null
+	 */
+	public void setAsyncDispatcher(AsyncEventDispatcher dispatcher) {
+		if (dispatcher == null) {
+			throw new IllegalArgumentException("Dispatcher can not be null.");
+		}
+		this.asyncDispatcher = dispatcher;
+	}
 	
 	/**
 	 * Adds a listener that should be notified when a event happens.
@@ -65,14 +118,18 @@ public abstract class EventDelegator<T> {
 	 * @param listener		listener that should be notified when a event happens	
 	 * @return true if the listener was added, false otherwise
 	 */
-	public boolean addListener(ListenerContext context, T listener) {
+	public synchronized boolean addListener(ListenerContext context, T listener) {
 		if (listener == null || context == null) {
 			return false;
 		}
-		if (!this.listeners.containsKey(context)) {
-			this.listeners.put(context, Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>()));
+		Object[] snapshot = this.listeners[context.ordinal()];
+		if (indexOf(snapshot, listener) >= 0) {
+			return false;
 		}
-		return this.listeners.get(context).add(listener);
+		Object[] updated = Arrays.copyOf(snapshot, snapshot.length + 1);
+		updated[snapshot.length] = listener;
+		this.publish(context, updated);
+		return true;
 	}
 	
 	/**
@@ -81,10 +138,10 @@ public abstract class EventDelegator<T> {
 	 * @param listener		listener to be removed
 	 * @return true if the listener was removed at any context, otherwise false
 	 */
-	public boolean removeListener(T listener) {
+	public synchronized boolean removeListener(T listener) {
 		boolean changed = false;
-		for (Entry<ListenerContext, Set<T>> entry : this.listeners.entrySet()) {
-			if (entry.getValue().remove(listener)) {
+		for (ListenerContext context : ListenerContext.values()) {
+			if (this.removeListener(context, listener)) {
 				changed = true;
 			}
 		}
@@ -98,10 +155,89 @@ public abstract class EventDelegator<T> {
 	 * @param listener		listener to be removed
 	 * @return true if the listener was removed, otherwise false
 	 */
-	public boolean removeListener(ListenerContext context, T listener) {
-		Set<T> listeners = this.listeners.get(context);
-		if (listeners != null) {
-			return listeners.remove(listener);
+	public synchronized boolean removeListener(ListenerContext context, T listener) {
+		if (context == null) {
+			return false;
+		}
+		Object[] snapshot = this.listeners[context.ordinal()];
+		int index = indexOf(snapshot, listener);
+		if (index < 0) {
+			return false;
+		}
+		Object[] updated = NO_LISTENERS;
+		if (snapshot.length > 1) {
+			updated = new Object[snapshot.length - 1];
+			System.arraycopy(snapshot, 0, updated, 0, index);
+			System.arraycopy(snapshot, index + 1, updated, index, updated.length - index);
+		}
+		this.publish(context, updated);
+		return true;
+	}
+	
+	/**
+	 * Helper function to replace the snapshot of a context, must be called while holding the lock
+	 * of the delegator.
+	 * 
+	 * @param context		the context to replace the snapshot of
+	 * @param snapshot		the new snapshot
+	 */
+	private void publish(ListenerContext context, Object[] snapshot) {
+		Object[][] listeners = this.listeners.clone();
+		listeners[context.ordinal()] = snapshot;
+		this.listeners = listeners;
+	}
+	
+	/**
+	 * Helper function to find a listener in a snapshot.
+	 * 
+	 * @param snapshot		the snapshot to search
+	 * @param listener		the listener to find
+	 * @return index of the listener, -1 if it was not found
+	 */
+	private static int indexOf(Object[] snapshot, Object listener) {
+		for (int index = 0; index < snapshot.length; index++) {
+			if (snapshot[index].equals(listener)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Gets the current listeners of a context as an array, used when dispatching events.
+	 * 
+	 * The array is a snapshot that is not changed by later calls to add or remove listeners, and 
+	 * must not be modified.
+	 * 
+	 * @param context		which context the listeners should have
+	 * @return snapshot of the listeners with the specified context
+	 */
+	protected Object[] getListenerArray(ListenerContext context) {
+		return this.listeners[context.ordinal()];
+	}
+	
+	/**
+	 * Hands an event for the {@link ListenerContext#ASYNC} listeners to the asynchronous dispatcher.
+	 * The event is coalesced together with the delegator, so it only replaces queued events of the 
+	 * same delegator and never the events of other delegators that share the dispatcher.
+	 * 
+	 * @param key			the signal that the event is about, or null if it should never be coalesced
+	 * @param event			runs the event on the listeners
+	 */
+	protected void dispatchAsync(Object key, Runnable event) {
+		this.asyncDispatcher.dispatch(key == null ? null : new CoalescingKey(this, key), event);
+	}
+	
+	/**
+	 * Checks if any listener has been added in any context.
+	 * 
+	 * @return true if the delegator has listeners, false otherwise
+	 */
+	public boolean hasListeners() {
+		for (Object[] snapshot : this.listeners) {
+			if (snapshot.length > 0) {
+				return true;
+			}
 		}
 		return false;
 	}
@@ -110,13 +246,15 @@ public abstract class EventDelegator<T> {
 	 * Gets all listeners that has the specified context.
 	 * 
 	 * @param context		which context the listeners should have
-	 * @return unmodifiable list of listeners with the specified context
+	 * @return unmodifiable set of the listeners with the specified context when the method was called
 	 */
+	@SuppressWarnings("unchecked")
 	public Set<T> getListeners(ListenerContext context) {
-		if (!this.listeners.containsKey(context)) {
-			this.listeners.put(context, Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>()));
+		Set<T> listeners = new LinkedHashSet<T>();
+		for (Object listener : this.getListenerArray(context)) {
+			listeners.add((T) listener);
 		}
-		return Collections.unmodifiableSet(this.listeners.get(context));
+		return Collections.unmodifiableSet(listeners);
 	}
 	
 	/**
@@ -138,12 +276,67 @@ public abstract class EventDelegator<T> {
 	}
 	
 	/**
-	 * Gets all listeners that don't have the {@link ListenerContext#MODEL} or {@link ListenerContext#SWING} context.
+	 * Gets all listeners that has {@link ListenerContext#DEFAULT} context.
 	 * 
-	 * @return list of listeners that don't have the {@link ListenerContext#MODEL}
-	 * 		    or {@link ListenerContext#SWING} context.
+	 * @return list of all {@link ListenerContext#DEFAULT} context listeners
 	 */
 	public Set<T> getNormalListeners() {
 		return this.getListeners(ListenerContext.DEFAULT);
 	}
+	
+	/**
+	 * Gets all listeners that has {@link ListenerContext#ASYNC} context.
+	 * 
+	 * @return list of all {@link ListenerContext#ASYNC} context listeners
+	 */
+	public Set<T> getAsyncListeners() {
+		return this.getListeners(ListenerContext.ASYNC);
+	}
+	
+	/**
+	 * Coalescing key of an asynchronous event, made of the delegator and the signal of the event.
+	 */
+	private static final class CoalescingKey {
+		
+		/**
+		 * The delegator that dispatched the event.
+		 */
+		private final EventDelegator<?> delegator;
+		
+		/**
+		 * The signal that the event is about.
+		 */
+		private final Object key;
+		
+		/**
+		 * Creates a coalescing key.
+		 * 
+		 * @param delegator		the delegator that dispatched the event
+		 * @param key			the signal that the event is about
+		 */
+		public CoalescingKey(EventDelegator<?> delegator, Object key) {
+			this.delegator = delegator;
+			this.key = key;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof CoalescingKey)) {
+				return false;
+			}
+			CoalescingKey coalescingKey = (CoalescingKey) other;
+			return this.delegator == coalescingKey.delegator && this.key.equals(coalescingKey.key);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(this.delegator) + this.key.hashCode();
+		}
+	}
 }
@@ -40,5 +40,11 @@ public enum ListenerContext {
 	/**
 	 * Lowest priority and run in the same thread that triggered the model change.
 	 */
-	DEFAULT
+	DEFAULT,
+	
+	/**
+	 * The listener is run on the worker thread of an {@link AsyncEventDispatcher}, so that slow 
+	 * listeners do not delay the thread that triggered the model change.
+	 */
+	ASYNC
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+import java.util.Collection;
+
+import se.openflisp.sls.Signal;
+
+/**
+ * Listener interface for receiving many signal changes in one call.
+ * 
+ * A {@link ComponentListener} that also implements this interface is called with all its changed 
+ * signals at once when its changes are batched by a {@link SignalChangeBatcher}, instead of once 
+ * per changed signal.
+ * 
+ * @version 1.0
+ * @see SignalChangeBatcher
+ */
+public interface SignalBatchListener {
+	
+	/**
+	 * Called with the signals that have changed since the last call. Every signal is only given
+	 * once, even if it changed several times, and should be read for its current state.
+	 * 
+	 * @param signals		unmodifiable collection of the changed signals
+	 */
+	public void onSignalsChanged(Collection<Signal> signals);
+}
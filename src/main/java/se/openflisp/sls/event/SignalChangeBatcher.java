@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.swing.Timer;
+
+import se.openflisp.sls.Signal;
+
+/**
+ * Collects signal changes for {@link ListenerContext#SWING} listeners and delivers them in batches.
+ * 
+ * Without a batcher every signal change is posted to the Swing event thread on its own, which 
+ * floods the event queue when a large Circuit is simulated. The batcher instead keeps a set of 
+ * changed signals for every listener and flushes them on the Swing event thread once every flush 
+ * interval. A signal that changes several times between two flushes is only delivered once, so 
+ * states that would never have been seen are skipped.
+ * 
+ * Listeners that implement {@link SignalBatchListener} get all their changed signals in one call, 
+ * other listeners get one {@link ComponentListener#onSignalChange(se.openflisp.sls.Component, Signal)} 
+ * call per changed signal.
+ * 
+ * @version 1.0
+ * @see ComponentEventDelegator#setSignalChangeBatcher(SignalChangeBatcher)
+ */
+public class SignalChangeBatcher {
+	
+	/**
+	 * Default time between two flushes in milliseconds, about one frame.
+	 */
+	public static final int DEFAULT_FLUSH_INTERVAL = 16;
+	
+	/**
+	 * Changed signals for every listener since the last flush.
+	 */
+	private Map<ComponentListener, Set<Signal>> pending = new LinkedHashMap<ComponentListener, Set<Signal>>();
+	
+	/**
+	 * If a flush has been scheduled for the pending signals.
+	 */
+	private boolean scheduled = false;
+	
+	/**
+	 * Timer that flushes the pending signals on the Swing event thread.
+	 */
+	private final Timer timer;
+	
+	/**
+	 * Creates a batcher with the default flush interval.
+	 */
+	public SignalChangeBatcher() {
+		this(DEFAULT_FLUSH_INTERVAL);
+	}
+	
+	/**
+	 * Creates a batcher.
+	 * 
+	 * @param flushInterval		time between two flushes in milliseconds
+	 * @throws IllegalArgumentException if the flush interval is not positive
+	 */
+	public SignalChangeBatcher(int flushInterval) {
+		if (flushInterval < 1) {
+			throw new IllegalArgumentException("Flush interval must be positive.");
+		}
+		this.timer = new Timer(flushInterval, this.flushHandler);
+		this.timer.setRepeats(false);
+	}
+	
+	/**
+	 * Gets the time between two flushes.
+	 * 
+	 * @return the flush interval in milliseconds
+	 */
+	public int getFlushInterval() {
+		return this.timer.getInitialDelay();
+	}
+	
+	/**
+	 * Sets the time between two flushes, used from the next scheduled flush.
+	 * 
+	 * @param flushInterval		time between two flushes in milliseconds
+	 * @throws IllegalArgumentException if the flush interval is not positive
+	 */
+	public void setFlushInterval(int flushInterval) {
+		if (flushInterval < 1) {
+			throw new IllegalArgumentException("Flush interval must be positive.");
+		}
+		this.timer.setInitialDelay(flushInterval);
+		this.timer.setDelay(flushInterval);
+	}
+	
+	/**
+	 * Adds a changed signal for a listener, it will be delivered by the next flush.
+	 * 
+	 * @param listener		the listener that should be notified
+	 * @param signal		the signal that changed
+	 */
+	public synchronized void signalChanged(ComponentListener listener, Signal signal) {
+		Set<Signal> signals = this.pending.get(listener);
+		if (signals == null) {
+			signals = new LinkedHashSet<Signal>();
+			this.pending.put(listener, signals);
+		}
+		signals.add(signal);
+		if (!this.scheduled) {
+			this.scheduled = true;
+			this.timer.restart();
+		}
+	}
+	
+	/**
+	 * Gets the number of signal changes that are waiting to be delivered, counting each listener 
+	 * and signal pair once.
+	 * 
+	 * @return the number of pending signal changes
+	 */
+	public synchronized int getPendingCount() {
+		int count = 0;
+		for (Set<Signal> signals : this.pending.values()) {
+			count += signals.size();
+		}
+		return count;
+	}
+	
+	/**
+	 * Delivers all pending signal changes on the calling thread.
+	 * 
+	 * Is called on the Swing event thread by the batcher itself, but can be called directly to 
+	 * deliver the changes immediately.
+	 */
+	public void flush() {
+		Map<ComponentListener, Set<Signal>> batch;
+		synchronized (this) {
+			batch = this.pending;
+			this.pending = new LinkedHashMap<ComponentListener, Set<Signal>>();
+			this.scheduled = false;
+		}
+		for (Entry<ComponentListener, Set<Signal>> entry : batch.entrySet()) {
+			ComponentListener listener = entry.getKey();
+			if (listener instanceof SignalBatchListener) {
+				((SignalBatchListener) listener).onSignalsChanged(Collections.unmodifiableSet(entry.getValue()));
+			} else {
+				for (Signal signal : entry.getValue()) {
+					listener.onSignalChange(signal.getOwner(), signal);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Listener that flushes the pending signals when the timer fires.
+	 */
+	private final ActionListener flushHandler = new ActionListener() {
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			SignalChangeBatcher.this.flush();
+		}
+	};
+}
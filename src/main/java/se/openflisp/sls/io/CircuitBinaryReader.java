@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.io;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Reader for the compact binary netlist format written by {@link CircuitBinaryWriter}.
+ * 
+ * The blocks of the netlist are read in place from the buffer, which normally is a memory-mapped
+ * file from {@link #open(File)}, so reading a netlist only consists of creating and connecting
+ * the components.
+ * 
+ * @version 1.0
+ * @see CircuitBinaryWriter
+ */
+public class CircuitBinaryReader {
+	
+	/**
+	 * The buffer that the netlist is read from.
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * Position of the next block in the buffer.
+	 */
+	private long position;
+	
+	/**
+	 * Creates a reader for a netlist that starts at the position of a buffer.
+	 * 
+	 * @param buffer		the buffer to read from
+	 */
+	public CircuitBinaryReader(ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("Buffer can not be null.");
+		}
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * Creates a reader for a file, the file is memory-mapped and not read into the heap.
+	 * 
+	 * @param file		the file to read
+	 * @return a reader for the file
+	 * @throws IOException if the file could not be mapped
+	 */
+	public static CircuitBinaryReader open(File file) throws IOException {
+		RandomAccessFile stream = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = stream.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File is too large to be mapped: " + file);
+			}
+			return new CircuitBinaryReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			stream.close();
+		}
+	}
+	
+	/**
+	 * Reads a Circuit2D from the buffer.
+	 * 
+	 * All components are created and added at their positions before they are connected, components
+	 * are placed at the origin if the netlist has no positions. The Circuit is loaded in bulk.
+	 * 
+	 * @return a new Circuit2D containing the components of the netlist
+	 * @throws IOException if the buffer does not contain a valid netlist
+	 */
+	public Circuit2D readCircuit() throws IOException {
+		try {
+			return this.read();
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("Corrupt binary netlist", e);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Corrupt binary netlist", e);
+		} catch (IllegalStateException e) {
+			throw new IOException("Corrupt binary netlist", e);
+		}
+	}
+	
+	/**
+	 * Helper function to read the netlist.
+	 * 
+	 * @return a new Circuit2D containing the components of the netlist
+	 * @throws IOException if the netlist is not valid
+	 */
+	private Circuit2D read() throws IOException {
+		this.position = this.buffer.position();
+		int[] header = new int[CircuitBinaryWriter.HEADER_SIZE];
+		int headerBlock = this.block(header.length);
+		for (int index = 0; index < header.length; index++) {
+			header[index] = this.getInt(headerBlock, index);
+		}
+		if (header[0] != CircuitBinaryWriter.MAGIC) {
+			throw new IOException("Not a binary netlist");
+		}
+		if (header[1] != CircuitBinaryWriter.VERSION) {
+			throw new IOException("Unsupported binary netlist version " + header[1]);
+		}
+		for (int index = 3; index < header.length; index++) {
+			if (header[index] < 0) {
+				throw new IOException("Corrupt binary netlist");
+			}
+		}
+		boolean positions = (header[2] & CircuitBinaryWriter.FLAG_POSITIONS) != 0;
+		int stringCount = header[3], stringBytes = header[4], typeCount = header[5];
+		int componentCount = header[6], inputCount = header[7], outputCount = header[8];
+		int connectionCount = header[9];
+		
+		int stringOffsets = this.block(stringCount + 1);
+		int stringBlock = this.block((stringBytes + 3) / 4);
+		String[] strings = new String[stringCount];
+		for (int index = 0; index < stringCount; index++) {
+			int start = this.getInt(stringOffsets, index);
+			int end = this.getInt(stringOffsets, index + 1);
+			if (start < 0 || start > end || end > stringBytes) {
+				throw new IOException("Corrupt binary netlist string " + index);
+			}
+			byte[] bytes = new byte[end - start];
+			for (int offset = 0; offset < bytes.length; offset++) {
+				bytes[offset] = this.buffer.get(stringBlock + start + offset);
+			}
+			strings[index] = new String(bytes, CircuitBinaryWriter.UTF8);
+		}
+		
+		int typeNames = this.block(typeCount);
+		int typeParameters = this.block(typeCount);
+		Constructor<?>[] constructors = new Constructor<?>[typeCount];
+		Signal.State[] states = Signal.State.values();
+		for (int type = 0; type < typeCount; type++) {
+			constructors[type] = this.getConstructor(
+				strings[this.getInt(typeNames, type)],
+				this.getInt(typeParameters, type) >= 0
+			);
+		}
+		
+		int componentTypes = this.block(componentCount);
+		int componentNames = this.block(componentCount);
+		int riseDelays = this.block(componentCount);
+		int fallDelays = this.block(componentCount);
+		int inputComponents = this.block(inputCount);
+		int inputNames = this.block(inputCount);
+		int outputComponents = this.block(outputCount);
+		int outputNames = this.block(outputCount);
+		int offsets = this.block(outputCount + 1);
+		int targets = this.block(connectionCount);
+		int xs = positions ? this.block(componentCount) : -1;
+		int ys = positions ? this.block(componentCount) : -1;
+		
+		Circuit2D circuit = new Circuit2D();
+		circuit.beginBulkLoad();
+		try {
+			Component[] components = new Component[componentCount];
+			for (int index = 0; index < componentCount; index++) {
+				int type = this.getInt(componentTypes, index);
+				int parameter = this.getInt(typeParameters, type);
+				String identifier = strings[this.getInt(componentNames, index)];
+				components[index] = parameter >= 0
+					? this.create(constructors[type], identifier, states[parameter])
+					: this.create(constructors[type], identifier);
+				components[index].setDelays(this.getInt(riseDelays, index), this.getInt(fallDelays, index));
+				circuit.addComponent(components[index], positions
+					? new Point(this.getInt(xs, index), this.getInt(ys, index))
+					: new Point(0, 0)
+				);
+			}
+			Input[] inputs = new Input[inputCount];
+			for (int index = 0; index < inputCount; index++) {
+				inputs[index] = components[this.getInt(inputComponents, index)].getInput(
+					strings[this.getInt(inputNames, index)]
+				);
+			}
+			for (int index = 0; index < outputCount; index++) {
+				Output output = components[this.getInt(outputComponents, index)].getOutput(
+					strings[this.getInt(outputNames, index)]
+				);
+				int end = this.getInt(offsets, index + 1);
+				for (int connection = this.getInt(offsets, index); connection < end; connection++) {
+					output.connect(inputs[this.getInt(targets, connection)]);
+				}
+			}
+		} finally {
+			circuit.endBulkLoad();
+		}
+		return circuit;
+	}
+	
+	/**
+	 * Helper function to get the next block of ints and move past it.
+	 * 
+	 * @param length		number of ints in the block
+	 * @return position of the block in the buffer
+	 * @throws IOException if the block does not fit in the buffer
+	 */
+	private int block(int length) throws IOException {
+		long start = this.position;
+		if (length < 0 || start + 4L * length > this.buffer.limit()) {
+			throw new IOException("Binary netlist is truncated");
+		}
+		this.position = start + 4L * length;
+		return (int) start;
+	}
+	
+	/**
+	 * Helper function to get an int in a block.
+	 * 
+	 * @param block		position of the block
+	 * @param index		index of the int in the block
+	 * @return the int
+	 */
+	private int getInt(int block, int index) {
+		return this.buffer.getInt(block + 4 * index);
+	}
+	
+	/**
+	 * Helper function to find the constructor of a component type.
+	 * 
+	 * @param name			the class name of the type
+	 * @param constant		if the type is a ConstantGate which also takes a state
+	 * @return the constructor
+	 * @throws IOException if the type is not a Component or has no such constructor
+	 */
+	private Constructor<?> getConstructor(String name, boolean constant) throws IOException {
+		try {
+			Class<? extends Component> type = Class.forName(
+				name,
+				false,
+				CircuitBinaryReader.class.getClassLoader()
+			).asSubclass(Component.class);
+			if (constant) {
+				return type.asSubclass(ConstantGate.class).getConstructor(String.class, Signal.State.class);
+			}
+			return type.getConstructor(String.class);
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Unknown component type " + name, e);
+		} catch (ClassCastException e) {
+			throw new IOException("Unknown component type " + name, e);
+		} catch (NoSuchMethodException e) {
+			throw new IOException("Component type " + name + " can not be created", e);
+		}
+	}
+	
+	/**
+	 * Helper function to create a component.
+	 * 
+	 * @param constructor		the constructor of the component type
+	 * @param arguments			arguments for the constructor
+	 * @return the new component
+	 * @throws IOException if the component could not be created
+	 */
+	private Component create(Constructor<?> constructor, Object... arguments) throws IOException {
+		try {
+			return (Component) constructor.newInstance(arguments);
+		} catch (Exception e) {
+			throw new IOException("Component " + arguments[0] + " could not be created", e);
+		}
+	}
+}
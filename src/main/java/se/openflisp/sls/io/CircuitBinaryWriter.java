@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.io;
+
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.simulation.Circuit;
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Writer for the compact binary netlist format.
+ * 
+ * The format is made to be memory-mapped and read by {@link CircuitBinaryReader} without parsing.
+ * All numbers are big-endian ints and the file consists of the following blocks:
+ * 
+ * <ol>
+ * <li>Header: {@link #MAGIC}, {@link #VERSION}, flags, and the number of strings, string bytes,
+ * types, components, inputs, outputs and connections.</li>
+ * <li>Strings: offsets of every string into the string bytes, followed by the UTF-8 string bytes
+ * which are padded to a multiple of four bytes.</li>
+ * <li>Types: the string with the class name of every type and a parameter, which is the ordinal of
+ * the constant state for ConstantGates and -1 for other types.</li>
+ * <li>Components: the type, identifier string, rise delay and fall delay of every component.</li>
+ * <li>Inputs and outputs: the component and identifier string of every input and output.</li>
+ * <li>Connectivity: for every output, the offset of its first connection, followed by the connected
+ * input of every connection. The connections of an output are the entries from its offset up to the
+ * offset of the next output.</li>
+ * <li>Positions: the x and y position of every component, only if {@link #FLAG_POSITIONS} is set.</li>
+ * </ol>
+ * 
+ * @version 1.0
+ * @see CircuitBinaryReader
+ */
+public class CircuitBinaryWriter extends DataOutputStream {
+	
+	/**
+	 * Magic number that a binary netlist starts with, "OFNL" in ASCII.
+	 */
+	public static final int MAGIC = 0x4F464E4C;
+	
+	/**
+	 * Version of the format that is written.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * Flag that is set if the netlist contains the positions of the components.
+	 */
+	public static final int FLAG_POSITIONS = 1;
+	
+	/**
+	 * Number of ints in the header.
+	 */
+	public static final int HEADER_SIZE = 10;
+	
+	/**
+	 * Character set of the strings.
+	 */
+	static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	/**
+	 * Strings that have been added to the string table.
+	 */
+	private List<byte[]> strings;
+	
+	/**
+	 * Index of every string in the string table.
+	 */
+	private Map<String, Integer> stringIndex;
+	
+	/**
+	 * Creates a new writer for exporting Circuits in the binary netlist format.
+	 * 
+	 * @param out		stream where the netlist should be written
+	 */
+	public CircuitBinaryWriter(OutputStream out) {
+		super(new BufferedOutputStream(out));
+	}
+	
+	/**
+	 * Writes a Circuit to the stream, with the positions of its components if it is a Circuit2D.
+	 * 
+	 * @param circuit		the circuit to write
+	 * @throws IOException if the netlist could not be written
+	 * @throws IllegalArgumentException if a component can not be created from its class and identifier
+	 */
+	public void writeCircuit(Circuit circuit) throws IOException {
+		if (circuit == null) {
+			throw new IllegalArgumentException("Circuit can not be null.");
+		}
+		this.strings = new ArrayList<byte[]>();
+		this.stringIndex = new HashMap<String, Integer>();
+		Component[] components = circuit.getComponents().toArray(new Component[0]);
+		Map<String, Integer> typeIndex = new HashMap<String, Integer>();
+		List<int[]> types = new ArrayList<int[]>();
+		int[] componentTypes = new int[components.length];
+		int[] componentNames = new int[components.length];
+		int inputCount = 0, outputCount = 0;
+		for (int index = 0; index < components.length; index++) {
+			Component component = components[index];
+			componentNames[index] = this.addString(component.getIdentifier());
+			String typeName = this.getTypeName(component);
+			int parameter = component instanceof ConstantGate
+				? ((ConstantGate) component).getConstantState().ordinal()
+				: -1;
+			String key = typeName + ":" + parameter;
+			Integer type = typeIndex.get(key);
+			if (type == null) {
+				type = types.size();
+				typeIndex.put(key, type);
+				types.add(new int[] {this.addString(typeName), parameter});
+			}
+			componentTypes[index] = type;
+			inputCount += component.getInputs().size();
+			outputCount += component.getOutputs().size();
+		}
+		
+		int[] inputComponents = new int[inputCount], inputNames = new int[inputCount];
+		int[] outputComponents = new int[outputCount], outputNames = new int[outputCount];
+		Map<Input, Integer> inputIndex = new HashMap<Input, Integer>();
+		Output[] outputs = new Output[outputCount];
+		int input = 0, output = 0;
+		for (int index = 0; index < components.length; index++) {
+			for (Input pin : components[index].getInputs()) {
+				inputComponents[input] = index;
+				inputNames[input] = this.addString(pin.getIdentifier());
+				inputIndex.put(pin, input++);
+			}
+			for (Output pin : components[index].getOutputs()) {
+				outputComponents[output] = index;
+				outputNames[output] = this.addString(pin.getIdentifier());
+				outputs[output++] = pin;
+			}
+		}
+		int[] offsets = new int[outputCount + 1];
+		int[] targets = new int[inputCount];
+		int connection = 0;
+		for (output = 0; output < outputCount; output++) {
+			offsets[output] = connection;
+			for (Input target : outputs[output].getConnections()) {
+				Integer index = inputIndex.get(target);
+				if (index != null) {
+					if (connection == targets.length) {
+						targets = Arrays.copyOf(targets, connection * 2 + 1);
+					}
+					targets[connection++] = index;
+				}
+			}
+		}
+		offsets[outputCount] = connection;
+		
+		int stringBytes = 0;
+		for (byte[] string : this.strings) {
+			stringBytes += string.length;
+		}
+		boolean positions = circuit instanceof Circuit2D;
+		
+		this.writeInt(MAGIC);
+		this.writeInt(VERSION);
+		this.writeInt(positions ? FLAG_POSITIONS : 0);
+		this.writeInt(this.strings.size());
+		this.writeInt(stringBytes);
+		this.writeInt(types.size());
+		this.writeInt(components.length);
+		this.writeInt(inputCount);
+		this.writeInt(outputCount);
+		this.writeInt(connection);
+		
+		int offset = 0;
+		for (byte[] string : this.strings) {
+			this.writeInt(offset);
+			offset += string.length;
+		}
+		this.writeInt(offset);
+		for (byte[] string : this.strings) {
+			this.write(string);
+		}
+		for (; offset % 4 != 0; offset++) {
+			this.write(0);
+		}
+		for (int[] type : types) {
+			this.writeInt(type[0]);
+		}
+		for (int[] type : types) {
+			this.writeInt(type[1]);
+		}
+		this.writeInts(componentTypes, components.length);
+		this.writeInts(componentNames, components.length);
+		for (Component component : components) {
+			this.writeInt(component.getRiseDelay());
+		}
+		for (Component component : components) {
+			this.writeInt(component.getFallDelay());
+		}
+		this.writeInts(inputComponents, inputCount);
+		this.writeInts(inputNames, inputCount);
+		this.writeInts(outputComponents, outputCount);
+		this.writeInts(outputNames, outputCount);
+		this.writeInts(offsets, outputCount + 1);
+		this.writeInts(targets, connection);
+		if (positions) {
+			Circuit2D circuit2D = (Circuit2D) circuit;
+			Point[] locations = new Point[components.length];
+			for (int index = 0; index < components.length; index++) {
+				locations[index] = circuit2D.getComponentLocation(components[index]);
+				this.writeInt(locations[index] == null ? 0 : locations[index].x);
+			}
+			for (Point location : locations) {
+				this.writeInt(location == null ? 0 : location.y);
+			}
+		}
+		this.flush();
+		this.strings = null;
+		this.stringIndex = null;
+	}
+	
+	/**
+	 * Helper function to write the first values of an int array.
+	 * 
+	 * @param values		the array to write from
+	 * @param count			number of values to write
+	 * @throws IOException if the values could not be written
+	 */
+	private void writeInts(int[] values, int count) throws IOException {
+		for (int index = 0; index < count; index++) {
+			this.writeInt(values[index]);
+		}
+	}
+	
+	/**
+	 * Helper function to add a string to the string table, unless it already is in the table.
+	 * 
+	 * @param string		the string to add
+	 * @return index of the string
+	 */
+	private int addString(String string) {
+		Integer index = this.stringIndex.get(string);
+		if (index == null) {
+			index = this.strings.size();
+			this.stringIndex.put(string, index);
+			this.strings.add(string.getBytes(UTF8));
+		}
+		return index;
+	}
+	
+	/**
+	 * Helper function to get the type name of a Component, and to check that the reader will be
+	 * able to create it again.
+	 * 
+	 * @param component		the component
+	 * @return the class name of the component
+	 * @throws IllegalArgumentException if the component can not be created from its class
+	 */
+	private String getTypeName(Component component) {
+		Class<? extends Component> type = component.getClass();
+		if (!(component instanceof ConstantGate)) {
+			try {
+				type.getConstructor(String.class);
+			} catch (NoSuchMethodException e) {
+				throw new IllegalArgumentException(
+					"Component " + component.getIdentifier() + " has no public constructor taking an identifier."
+				);
+			}
+		}
+		return type.getName();
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Command line tool that converts circuit files from the legacy file format to the binary netlist format.
+ * 
+ * Usage: <code>java se.openflisp.sls.io.CircuitConverter legacy-file binary-file</code>
+ * 
+ * @version 1.0
+ * @see LegacyNetlistScanner
+ * @see CircuitBinaryWriter
+ */
+public class CircuitConverter {
+	
+	/**
+	 * Converts a legacy circuit file to a binary netlist.
+	 * 
+	 * @param legacyFile		the file in the legacy file format
+	 * @param binaryFile		the file where the binary netlist should be written
+	 * @return the converted circuit
+	 * @throws IOException if a file could not be read or written
+	 * @throws ParseException if the legacy file could not be parsed
+	 */
+	public static Circuit2D convert(File legacyFile, File binaryFile) throws IOException, ParseException {
+		Circuit2D circuit = LegacyNetlistScanner.open(legacyFile).readCircuit();
+		CircuitBinaryWriter writer = new CircuitBinaryWriter(new FileOutputStream(binaryFile));
+		try {
+			writer.writeCircuit(circuit);
+		} finally {
+			writer.close();
+		}
+		return circuit;
+	}
+	
+	/**
+	 * Converts the legacy file given as first argument to a binary netlist in the file given as second argument.
+	 * 
+	 * @param args		the legacy file and the binary file
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.err.println("Usage: CircuitConverter <legacy file> <binary file>");
+			System.exit(2);
+		}
+		try {
+			Circuit2D circuit = convert(new File(args[0]), new File(args[1]));
+			System.out.println("Converted " + circuit.getComponents().size() + " components to " + args[1]);
+		} catch (ParseException e) {
+			System.err.println(args[0] + ":" + e.getErrorOffset() + ": " + e.getMessage());
+			System.exit(1);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
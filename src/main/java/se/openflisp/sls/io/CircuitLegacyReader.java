@@ -35,6 +35,7 @@ import se.openflisp.sls.simulation.Circuit2DBuilder;
  * 
  * @author Anton Ekberg <anton.ekberg@gmail.com>
  * @version 1.0
+ * @see LegacyNetlistScanner
  */
 public class CircuitLegacyReader extends BufferedReader {
 
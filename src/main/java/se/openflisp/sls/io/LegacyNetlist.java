@@ -0,0 +1,721 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.io;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.component.Gate;
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Netlist read from the legacy file format, stored in primitive arrays.
+ * 
+ * Components are stored by index in the order they were defined, with their legacy number, type and
+ * position. Every input vector is stored as a connection from the index of the component that owns
+ * the input to a reference to the output. A reference is either the number of a component, one of
+ * {@link #CONSTANT_HIGH} and {@link #CONSTANT_LOW}, or a named reference for identifiers that do
+ * not follow the usual format, see {@link #getOutputName(int)}.
+ * 
+ * @version 1.0
+ * @see LegacyNetlistScanner
+ */
+public class LegacyNetlist {
+	
+	/**
+	 * Output reference to a constant high signal.
+	 */
+	public static final int CONSTANT_HIGH = -1;
+	
+	/**
+	 * Output reference to a constant low signal.
+	 */
+	public static final int CONSTANT_LOW = -2;
+	
+	/**
+	 * Output reference of the first named output, the following names count downwards.
+	 */
+	private static final int FIRST_NAME = -3;
+	
+	/**
+	 * Initial capacity of the arrays.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+	
+	/**
+	 * Smallest number of components that are created by their own thread.
+	 */
+	public static final int MIN_CHUNK_COMPONENTS = 8192;
+	
+	/**
+	 * The legacy component types indexed by ordinal.
+	 */
+	private static final LegacyComponent[] TYPES = LegacyComponent.values();
+	
+	/**
+	 * Identifiers of input pins, cached for the pin numbers that gates normally have.
+	 */
+	private static final String[] PINS = new String[16];
+	
+	static {
+		for (int pin = 0; pin < PINS.length; pin++) {
+			PINS[pin] = Integer.toString(pin);
+		}
+	}
+	
+	/**
+	 * Number of components in the netlist.
+	 */
+	private int componentCount;
+	
+	/**
+	 * Legacy numbers of the components.
+	 */
+	private int[] numbers = new int[INITIAL_CAPACITY];
+	
+	/**
+	 * Ordinals of the component types.
+	 */
+	private byte[] types = new byte[INITIAL_CAPACITY];
+	
+	/**
+	 * X positions of the components.
+	 */
+	private int[] xs = new int[INITIAL_CAPACITY];
+	
+	/**
+	 * Y positions of the components.
+	 */
+	private int[] ys = new int[INITIAL_CAPACITY];
+	
+	/**
+	 * Number of connections in the netlist.
+	 */
+	private int connectionCount;
+	
+	/**
+	 * Index of the component that owns the input of every connection.
+	 */
+	private int[] connectionComponents = new int[INITIAL_CAPACITY];
+	
+	/**
+	 * Input pin number of every connection.
+	 */
+	private int[] connectionInputs = new int[INITIAL_CAPACITY];
+	
+	/**
+	 * Output reference of every connection.
+	 */
+	private int[] connectionOutputs = new int[INITIAL_CAPACITY];
+	
+	/**
+	 * Identifiers of the named output references.
+	 */
+	private final List<String> names = new ArrayList<String>();
+	
+	/**
+	 * Adds a component to the netlist.
+	 * 
+	 * @param number		legacy number of the component
+	 * @param type			type of the component
+	 * @param x				x position of the component
+	 * @param y				y position of the component
+	 * @return index of the component
+	 * @throws IllegalArgumentException if the number is negative or the type is null
+	 */
+	public int addComponent(int number, LegacyComponent type, int x, int y) {
+		if (number < 0 || type == null) {
+			throw new IllegalArgumentException("Number can not be negative and type can not be null.");
+		}
+		int index = this.componentCount;
+		if (index == this.numbers.length) {
+			int capacity = index * 2;
+			this.numbers = Arrays.copyOf(this.numbers, capacity);
+			this.types = Arrays.copyOf(this.types, capacity);
+			this.xs = Arrays.copyOf(this.xs, capacity);
+			this.ys = Arrays.copyOf(this.ys, capacity);
+		}
+		this.numbers[index] = number;
+		this.types[index] = (byte) type.ordinal();
+		this.xs[index] = x;
+		this.ys[index] = y;
+		this.componentCount++;
+		return index;
+	}
+	
+	/**
+	 * Adds a connection to the netlist.
+	 * 
+	 * @param component		index of the component that owns the input
+	 * @param input			number of the input pin
+	 * @param output		reference to the output
+	 * @return index of the connection
+	 * @throws IndexOutOfBoundsException if the component is not in the netlist
+	 */
+	public int addConnection(int component, int input, int output) {
+		if (component < 0 || component >= this.componentCount) {
+			throw new IndexOutOfBoundsException("Component " + component + " is not in the netlist.");
+		}
+		int index = this.connectionCount;
+		if (index == this.connectionComponents.length) {
+			int capacity = index * 2;
+			this.connectionComponents = Arrays.copyOf(this.connectionComponents, capacity);
+			this.connectionInputs = Arrays.copyOf(this.connectionInputs, capacity);
+			this.connectionOutputs = Arrays.copyOf(this.connectionOutputs, capacity);
+		}
+		this.connectionComponents[index] = component;
+		this.connectionInputs[index] = input;
+		this.connectionOutputs[index] = output;
+		this.connectionCount++;
+		return index;
+	}
+	
+	/**
+	 * Creates a named output reference, used for output identifiers that are neither a constant
+	 * nor the identifier of a component.
+	 * 
+	 * @param identifier		identifier of the output, with an optional pin separated by a :
+	 * @return reference to the output
+	 */
+	public int addOutputName(String identifier) {
+		if (identifier == null) {
+			throw new IllegalArgumentException("Identifier can not be null.");
+		}
+		this.names.add(identifier);
+		return FIRST_NAME - (this.names.size() - 1);
+	}
+	
+	/**
+	 * Appends the components and connections of another netlist, as if they had been added to this
+	 * netlist after its own. Used to merge the netlists of chunks that were scanned separately.
+	 * 
+	 * @param netlist		the netlist to append
+	 * @throws IllegalArgumentException if the netlist is null
+	 */
+	public void append(LegacyNetlist netlist) {
+		if (netlist == null) {
+			throw new IllegalArgumentException("Netlist can not be null.");
+		}
+		int componentOffset = this.componentCount;
+		int nameOffset = this.names.size();
+		for (int index = 0; index < netlist.componentCount; index++) {
+			this.addComponent(
+				netlist.numbers[index],
+				TYPES[netlist.types[index]],
+				netlist.xs[index],
+				netlist.ys[index]
+			);
+		}
+		this.names.addAll(netlist.names);
+		for (int index = 0; index < netlist.connectionCount; index++) {
+			int output = netlist.connectionOutputs[index];
+			this.addConnection(
+				componentOffset + netlist.connectionComponents[index],
+				netlist.connectionInputs[index],
+				output <= FIRST_NAME ? output - nameOffset : output
+			);
+		}
+	}
+	
+	/**
+	 * Gets the number of components in the netlist.
+	 * 
+	 * @return the component count
+	 */
+	public int getComponentCount() {
+		return this.componentCount;
+	}
+	
+	/**
+	 * Gets the legacy number of a component.
+	 * 
+	 * @param index		index of the component
+	 * @return the legacy number
+	 */
+	public int getNumber(int index) {
+		this.checkComponent(index);
+		return this.numbers[index];
+	}
+	
+	/**
+	 * Gets the type of a component.
+	 * 
+	 * @param index		index of the component
+	 * @return the legacy component type
+	 */
+	public LegacyComponent getType(int index) {
+		this.checkComponent(index);
+		return TYPES[this.types[index]];
+	}
+	
+	/**
+	 * Gets the identifier that a component will have when it is created.
+	 * 
+	 * @param index		index of the component
+	 * @return the component identifier
+	 */
+	public String getIdentifier(int index) {
+		return this.getType(index).identifierPrefix + this.numbers[index];
+	}
+	
+	/**
+	 * Gets the position of a component.
+	 * 
+	 * @param index		index of the component
+	 * @return a new point with the position
+	 */
+	public Point getPosition(int index) {
+		this.checkComponent(index);
+		return new Point(this.xs[index], this.ys[index]);
+	}
+	
+	/**
+	 * Gets the number of connections in the netlist.
+	 * 
+	 * @return the connection count
+	 */
+	public int getConnectionCount() {
+		return this.connectionCount;
+	}
+	
+	/**
+	 * Gets the index of the component that owns the input of a connection.
+	 * 
+	 * @param connection		index of the connection
+	 * @return index of the component
+	 */
+	public int getConnectionComponent(int connection) {
+		this.checkConnection(connection);
+		return this.connectionComponents[connection];
+	}
+	
+	/**
+	 * Gets the input pin number of a connection.
+	 * 
+	 * @param connection		index of the connection
+	 * @return number of the input pin
+	 */
+	public int getConnectionInput(int connection) {
+		this.checkConnection(connection);
+		return this.connectionInputs[connection];
+	}
+	
+	/**
+	 * Gets the output reference of a connection.
+	 * 
+	 * @param connection		index of the connection
+	 * @return the number of a component, {@link #CONSTANT_HIGH}, {@link #CONSTANT_LOW} or a named reference
+	 */
+	public int getConnectionOutput(int connection) {
+		this.checkConnection(connection);
+		return this.connectionOutputs[connection];
+	}
+	
+	/**
+	 * Gets the identifier of a named output reference.
+	 * 
+	 * @param reference		the output reference
+	 * @return the identifier of the output, null if the reference is not named
+	 */
+	public String getOutputName(int reference) {
+		if (reference > FIRST_NAME) {
+			return null;
+		}
+		return this.names.get(FIRST_NAME - reference);
+	}
+	
+	/**
+	 * Builds a Circuit from the netlist.
+	 * 
+	 * All components are created and added at their positions before they are connected. Constants are
+	 * created the first time they are referenced and placed at the origin. The Circuit is loaded in bulk.
+	 * 
+	 * @return a 2D-aware Circuit
+	 * @throws IllegalStateException if a component number is duplicated or an output can not be found
+	 */
+	public Circuit2D toCircuit() {
+		return this.toCircuit(1);
+	}
+	
+	/**
+	 * Builds a Circuit from the netlist, creating and connecting the components with several threads.
+	 * 
+	 * The components are created in chunks of at least {@link #MIN_CHUNK_COMPONENTS} on their own
+	 * threads. They are then added to the Circuit on the calling thread, and connected in the same 
+	 * chunks while the Circuit is loaded in bulk, so no events are delivered. Each chunk connects the 
+	 * inputs of its own components, so every input is only changed by one thread, while the connections 
+	 * of an output are kept in a concurrent set. Adding the components to the Circuit and ending the 
+	 * bulk load still run on the calling thread.
+	 * 
+	 * @param parallelism		the number of threads, one to build the Circuit on the calling thread
+	 * @return a 2D-aware Circuit
+	 * @throws IllegalStateException if a component number is duplicated or an output can not be found
+	 * @throws IllegalArgumentException if the parallelism is below one
+	 */
+	public Circuit2D toCircuit(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least one.");
+		}
+		Component[] components = this.createComponents(parallelism);
+		Circuit2D circuit = new Circuit2D();
+		circuit.beginBulkLoad();
+		try {
+			for (int index = 0; index < this.componentCount; index++) {
+				circuit.addComponent(components[index], new Point(this.xs[index], this.ys[index]));
+			}
+			ComponentIndex lookup = new ComponentIndex(components);
+			Component[] constants = this.createConstants(circuit);
+			this.connectComponents(components, lookup, constants, parallelism);
+		} finally {
+			circuit.endBulkLoad();
+		}
+		return circuit;
+	}
+	
+	/**
+	 * Helper function to create the components of the netlist, in chunks on several threads.
+	 * 
+	 * @param parallelism		the largest number of threads to use
+	 * @return the created components by index
+	 */
+	private Component[] createComponents(int parallelism) {
+		final Component[] components = new Component[this.componentCount];
+		int chunks = this.getChunkCount(parallelism);
+		if (chunks == 1) {
+			this.createComponents(components, 0, this.componentCount);
+			return components;
+		}
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			final int start = (int) ((long) this.componentCount * chunk / chunks);
+			final int end = (int) ((long) this.componentCount * (chunk + 1) / chunks);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					LegacyNetlist.this.createComponents(components, start, end);
+					return null;
+				}
+			});
+		}
+		runChunks(tasks, "create components");
+		return components;
+	}
+	
+	/**
+	 * Helper function to connect the components of the netlist, in chunks on several threads.
+	 * 
+	 * The connections are sorted by the component that owns the input, so that every chunk connects 
+	 * the inputs of a range of components in the order the connections were added.
+	 * 
+	 * @param components		the created components by index
+	 * @param lookup			the components by number
+	 * @param constants			the constants that are referenced, high first
+	 * @param parallelism		the largest number of threads to use
+	 */
+	private void connectComponents(final Component[] components, final ComponentIndex lookup, 
+			final Component[] constants, int parallelism) {
+		int chunks = this.getChunkCount(parallelism);
+		if (chunks == 1) {
+			for (int connection = 0; connection < this.connectionCount; connection++) {
+				this.connect(components, lookup, constants, connection);
+			}
+			return;
+		}
+		final int[] connectionStart = new int[this.componentCount + 1];
+		for (int connection = 0; connection < this.connectionCount; connection++) {
+			connectionStart[this.connectionComponents[connection] + 1]++;
+		}
+		for (int index = 0; index < this.componentCount; index++) {
+			connectionStart[index + 1] += connectionStart[index];
+		}
+		final int[] connections = new int[this.connectionCount];
+		int[] connectionEnd = Arrays.copyOf(connectionStart, this.componentCount);
+		for (int connection = 0; connection < this.connectionCount; connection++) {
+			connections[connectionEnd[this.connectionComponents[connection]]++] = connection;
+		}
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			final int start = connectionStart[(int) ((long) this.componentCount * chunk / chunks)];
+			final int end = connectionStart[(int) ((long) this.componentCount * (chunk + 1) / chunks)];
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int position = start; position < end; position++) {
+						LegacyNetlist.this.connect(components, lookup, constants, connections[position]);
+					}
+					return null;
+				}
+			});
+		}
+		runChunks(tasks, "connect components");
+	}
+	
+	/**
+	 * Helper function to get the number of chunks that the components are divided into.
+	 * 
+	 * @param parallelism		the largest number of threads to use
+	 * @return the number of chunks, at least one
+	 */
+	private int getChunkCount(int parallelism) {
+		return Math.min(parallelism, this.componentCount / MIN_CHUNK_COMPONENTS + 1);
+	}
+	
+	/**
+	 * Helper function to run one task per chunk on their own threads and wait for all of them.
+	 * 
+	 * @param tasks			the tasks to run
+	 * @param action		what the tasks do, used in error messages
+	 * @throws RuntimeException the exception that a task failed with
+	 * @throws IllegalStateException if a task failed with a checked exception or the calling thread 
+	 * 								 was interrupted
+	 */
+	private static void runChunks(List<Callable<Void>> tasks, String action) {
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), LegacyNetlistScanner.SCANNER_THREADS);
+		try {
+			for (Future<Void> result : executor.invokeAll(tasks)) {
+				result.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Could not " + action, e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while trying to " + action, e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Helper function to create a range of the components.
+	 * 
+	 * @param components	the array to store the components in, by index
+	 * @param start			index of the first component
+	 * @param end			index after the last component
+	 */
+	private void createComponents(Component[] components, int start, int end) {
+		for (int index = start; index < end; index++) {
+			components[index] = TYPES[this.types[index]].toComponent(this.getIdentifier(index));
+		}
+	}
+	
+	/**
+	 * Helper function to make a single connection.
+	 * 
+	 * @param components		the created components by index
+	 * @param lookup			the components by number
+	 * @param constants			the constants that are referenced, high first
+	 * @param connection		index of the connection
+	 */
+	private void connect(Component[] components, ComponentIndex lookup, Component[] constants, int connection) {
+		int pin = this.connectionInputs[connection];
+		Output output = this.resolveOutput(lookup, constants, this.connectionOutputs[connection]);
+		output.connect(components[this.connectionComponents[connection]].getInput(
+			pin >= 0 && pin < PINS.length ? PINS[pin] : Integer.toString(pin)
+		));
+	}
+	
+	/**
+	 * Helper function to create the constants that are referenced by the connections and add them 
+	 * to the Circuit at the origin, in the order they are first referenced.
+	 * 
+	 * @param circuit		the circuit that the constants should be added to
+	 * @return the referenced constants, high first, and null for a constant that is not referenced
+	 */
+	private Component[] createConstants(Circuit2D circuit) {
+		Component[] constants = new Component[2];
+		for (int connection = 0; connection < this.connectionCount; connection++) {
+			int reference = this.connectionOutputs[connection];
+			if (reference <= FIRST_NAME) {
+				String identifier = this.getOutputName(reference);
+				int separator = identifier.indexOf(':');
+				reference = this.parseReference(separator >= 0 ? identifier.substring(0, separator) : identifier);
+			}
+			if (reference == CONSTANT_HIGH || reference == CONSTANT_LOW) {
+				int constant = CONSTANT_HIGH - reference;
+				if (constants[constant] == null) {
+					constants[constant] = reference == CONSTANT_HIGH
+						? new ConstantGate("1", Signal.State.HIGH)
+						: new ConstantGate("0", Signal.State.LOW);
+					circuit.addComponent(constants[constant], new Point(0, 0));
+				}
+			}
+		}
+		return constants;
+	}
+	
+	/**
+	 * Helper function to find the Output that a reference points to.
+	 * 
+	 * @param lookup		the components by number
+	 * @param constants		the constants that are referenced, high first
+	 * @param reference		the output reference
+	 * @return the referenced output
+	 */
+	private Output resolveOutput(ComponentIndex lookup, Component[] constants, int reference) {
+		String pin = Gate.OUTPUT;
+		if (reference <= FIRST_NAME) {
+			String identifier = this.getOutputName(reference);
+			int separator = identifier.indexOf(':');
+			if (separator >= 0) {
+				pin = identifier.substring(separator + 1);
+				identifier = identifier.substring(0, separator);
+			}
+			reference = this.parseReference(identifier);
+			if (reference <= FIRST_NAME) {
+				throw new IllegalStateException("Unknown component " + identifier);
+			}
+		}
+		Component component;
+		if (reference == CONSTANT_HIGH || reference == CONSTANT_LOW) {
+			component = constants[CONSTANT_HIGH - reference];
+		} else {
+			component = lookup.get(reference);
+			if (component == null) {
+				throw new IllegalStateException("Unknown component " + LegacyNetlistScanner.COMPONENT_PREFIX + reference);
+			}
+		}
+		return component.getOutput(pin);
+	}
+	
+	/**
+	 * Helper function to turn the component part of a named reference into a component number
+	 * or constant reference.
+	 * 
+	 * @param identifier		the component identifier
+	 * @return the reference, or a value below {@link #CONSTANT_LOW} if the identifier is unknown
+	 */
+	private int parseReference(String identifier) {
+		if (identifier.equals("1")) {
+			return CONSTANT_HIGH;
+		} else if (identifier.equals("0")) {
+			return CONSTANT_LOW;
+		} else if (identifier.length() > 1 && identifier.charAt(0) == LegacyNetlistScanner.COMPONENT_PREFIX) {
+			try {
+				int number = Integer.parseInt(identifier.substring(1));
+				if (number >= 0 && identifier.charAt(1) != '+' && identifier.charAt(1) != '-') {
+					return number;
+				}
+			} catch (NumberFormatException e) {}
+		}
+		return FIRST_NAME;
+	}
+	
+	/**
+	 * Helper function to check a component index.
+	 * 
+	 * @param index		index to check
+	 * @throws IndexOutOfBoundsException if the index is outside the netlist
+	 */
+	private void checkComponent(int index) {
+		if (index < 0 || index >= this.componentCount) {
+			throw new IndexOutOfBoundsException("Component " + index + " is not in the netlist.");
+		}
+	}
+	
+	/**
+	 * Helper function to check a connection index.
+	 * 
+	 * @param index		index to check
+	 * @throws IndexOutOfBoundsException if the index is outside the netlist
+	 */
+	private void checkConnection(int index) {
+		if (index < 0 || index >= this.connectionCount) {
+			throw new IndexOutOfBoundsException("Connection " + index + " is not in the netlist.");
+		}
+	}
+	
+	/**
+	 * Lookup of the created components by their legacy number.
+	 * 
+	 * Uses an array indexed by number when the numbers are dense, which they are in files written by
+	 * the legacy application, and a map otherwise.
+	 * 
+	 * @version 1.0
+	 */
+	private class ComponentIndex {
+		
+		/**
+		 * Components indexed by number, null if the numbers are sparse.
+		 */
+		private Component[] dense;
+		
+		/**
+		 * Components by number, null if the numbers are dense.
+		 */
+		private Map<Integer, Component> sparse;
+		
+		/**
+		 * Creates the lookup for the components of the netlist.
+		 * 
+		 * @param components		the created components by index
+		 * @throws IllegalStateException if a number is duplicated
+		 */
+		private ComponentIndex(Component[] components) {
+			int max = -1;
+			for (int index = 0; index < components.length; index++) {
+				max = Math.max(max, LegacyNetlist.this.numbers[index]);
+			}
+			if (max < 2 * components.length + INITIAL_CAPACITY) {
+				this.dense = new Component[max + 1];
+			} else {
+				this.sparse = new HashMap<Integer, Component>();
+			}
+			for (int index = 0; index < components.length; index++) {
+				int number = LegacyNetlist.this.numbers[index];
+				if (this.get(number) != null) {
+					throw new IllegalStateException(
+						"Found duplicated component identifier " + components[index].getIdentifier()
+					);
+				}
+				if (this.dense != null) {
+					this.dense[number] = components[index];
+				} else {
+					this.sparse.put(number, components[index]);
+				}
+			}
+		}
+		
+		/**
+		 * Gets a component by number.
+		 * 
+		 * @param number		the legacy number
+		 * @return the component, null if there is no component with the number
+		 */
+		private Component get(int number) {
+			if (this.dense != null) {
+				return number < this.dense.length ? this.dense[number] : null;
+			}
+			return this.sparse.get(number);
+		}
+	}
+}
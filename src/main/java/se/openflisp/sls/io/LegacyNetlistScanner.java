@@ -0,0 +1,564 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import se.openflisp.sls.simulation.Circuit2D;
+
+/**
+ * Scanner for the legacy file format that reads directly into a {@link LegacyNetlist}.
+ * 
+ * Accepts the same lines as {@link CircuitLegacyReader}, but scans the bytes of a buffer by hand
+ * instead of reading every line into a String and matching it with regular expressions. Components
+ * and connections are stored in the primitive arrays of the netlist, so scanning does not create
+ * any objects except for output identifiers in an unusual format. Large files should be opened
+ * with {@link #open(File)}, which memory-maps the file instead of reading it, and can be scanned on
+ * several threads with {@link #scan(int)}.
+ * 
+ * @version 1.0
+ * @see CircuitLegacyReader
+ */
+public class LegacyNetlistScanner {
+	
+	/**
+	 * Prefix that the identifiers of all legacy components start with.
+	 */
+	public static final char COMPONENT_PREFIX = 'u';
+	
+	/**
+	 * Character set of the legacy file format.
+	 */
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+	
+	/**
+	 * Smallest number of bytes that is scanned by its own thread.
+	 */
+	public static final int MIN_CHUNK_SIZE = 1 << 20;
+	
+	/**
+	 * The legacy component types indexed by their type identifier.
+	 */
+	private static final LegacyComponent[] TYPES;
+	
+	static {
+		int max = 0;
+		for (LegacyComponent component : LegacyComponent.values()) {
+			max = Math.max(max, component.typeIdentifer);
+		}
+		TYPES = new LegacyComponent[max + 1];
+		for (LegacyComponent component : LegacyComponent.values()) {
+			TYPES[component.typeIdentifer] = component;
+		}
+	}
+	
+	/**
+	 * Creates the daemon threads that chunks are scanned and built on.
+	 */
+	static final ThreadFactory SCANNER_THREADS = new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "LegacyNetlistScanner");
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+	
+	/**
+	 * The buffer that is scanned.
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * Position of the next byte in the current line.
+	 */
+	private int cursor;
+	
+	/**
+	 * Position after the last byte of the current line.
+	 */
+	private int lineEnd;
+	
+	/**
+	 * Current line number that is being parsed.
+	 */
+	private int currentLineNumber;
+	
+	/**
+	 * Open addressing hash set of the component numbers that have been scanned, stored as number + 1
+	 * so that zero marks an empty slot.
+	 */
+	private int[] scannedNumbers;
+	
+	/**
+	 * Number of component numbers in the hash set.
+	 */
+	private int scannedCount;
+	
+	/**
+	 * Line numbers of the scanned components, only recorded when the scanner scans a chunk of a 
+	 * parallel scan, in which case duplicated components are found when the chunks are merged.
+	 */
+	private int[] componentLines;
+	
+	/**
+	 * Creates a scanner for the remaining bytes of a buffer, which should contain ASCII text.
+	 * 
+	 * @param buffer		the buffer to scan
+	 */
+	public LegacyNetlistScanner(ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("Buffer can not be null.");
+		}
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * Creates a scanner for a file, the file is memory-mapped and not read into the heap.
+	 * 
+	 * @param file		the file to scan
+	 * @return a scanner for the file
+	 * @throws IOException if the file could not be mapped
+	 */
+	public static LegacyNetlistScanner open(File file) throws IOException {
+		RandomAccessFile stream = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = stream.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File is too large to be mapped: " + file);
+			}
+			return new LegacyNetlistScanner(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			stream.close();
+		}
+	}
+	
+	/**
+	 * Reads a Circuit2D from the buffer.
+	 * 
+	 * @return a new Circuit2D containing the components of the buffer
+	 * @throws ParseException if a line could not be parsed
+	 * @throws IllegalStateException if a component is duplicated or an output can not be found
+	 * @see LegacyNetlist#toCircuit()
+	 */
+	public Circuit2D readCircuit() throws ParseException {
+		return this.scan().toCircuit();
+	}
+	
+	/**
+	 * Scans the buffer into a netlist.
+	 * 
+	 * A line that starts with ">" is a component definition, a line that starts with "<" ends the
+	 * current component definition and a line that starts with "IV" is an input vector of the current
+	 * component. All other lines are ignored.
+	 * 
+	 * @return a netlist with the components and connections of the buffer
+	 * @throws ParseException if a line could not be parsed
+	 */
+	public LegacyNetlist scan() throws ParseException {
+		ByteBuffer buffer = this.buffer;
+		LegacyNetlist netlist = new LegacyNetlist();
+		int currentComponent = -1;
+		int limit = buffer.limit();
+		int position = buffer.position();
+		this.currentLineNumber = 0;
+		this.scannedNumbers = new int[64];
+		this.scannedCount = 0;
+		while (position < limit) {
+			int end = position;
+			byte character = 0;
+			while (end < limit) {
+				character = buffer.get(end);
+				if (character == '\n' || character == '\r') {
+					break;
+				}
+				end++;
+			}
+			this.cursor = position;
+			this.lineEnd = end;
+			this.currentLineNumber++;
+			if (position < end) {
+				byte first = buffer.get(position);
+				if (first == '>') {
+					currentComponent = this.scanComponentDefinition(netlist);
+				} else if (first == '<') {
+					currentComponent = -1;
+				} else if (first == 'I' && position + 1 < end && buffer.get(position + 1) == 'V') {
+					this.scanConnectionDefinition(netlist, currentComponent);
+				}
+			}
+			position = end + 1;
+			if (character == '\r' && position < limit && buffer.get(position) == '\n') {
+				position++;
+			}
+		}
+		return netlist;
+	}
+	
+	/**
+	 * Scans the buffer into a netlist using several threads.
+	 * 
+	 * The buffer is split into chunks right after lines that end a component definition, so every
+	 * chunk can be scanned on its own into a partial netlist. The partial netlists are appended in 
+	 * order, which gives the same netlist and the same errors as {@link #scan()}. Outputs are 
+	 * referenced by component number, so references to components in later chunks are resolved 
+	 * when the Circuit is built.
+	 * 
+	 * @param parallelism		the number of threads, one to scan on the calling thread
+	 * @return a netlist with the components and connections of the buffer
+	 * @throws ParseException if a line could not be parsed
+	 * @throws IllegalArgumentException if the parallelism is below one
+	 */
+	public LegacyNetlist scan(int parallelism) throws ParseException {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least one.");
+		}
+		int start = this.buffer.position();
+		int limit = this.buffer.limit();
+		int chunks = (int) Math.min(parallelism, (limit - start) / (long) MIN_CHUNK_SIZE + 1);
+		if (chunks == 1) {
+			return this.scan();
+		}
+		
+		final LegacyNetlistScanner[] scanners = new LegacyNetlistScanner[chunks];
+		List<Callable<LegacyNetlist>> tasks = new ArrayList<Callable<LegacyNetlist>>();
+		int chunkStart = start;
+		for (int chunk = 0; chunk < chunks && chunkStart < limit; chunk++) {
+			int chunkEnd = chunk == chunks - 1 
+				? limit 
+				: this.findChunkEnd(start + (int) ((limit - start) * (long) (chunk + 1) / chunks), limit);
+			if (chunkEnd <= chunkStart) {
+				continue;
+			}
+			ByteBuffer slice = this.buffer.duplicate();
+			slice.limit(chunkEnd);
+			slice.position(chunkStart);
+			final LegacyNetlistScanner scanner = new LegacyNetlistScanner(slice);
+			scanner.componentLines = new int[64];
+			scanners[tasks.size()] = scanner;
+			tasks.add(new Callable<LegacyNetlist>() {
+				@Override
+				public LegacyNetlist call() throws ParseException {
+					return scanner.scan();
+				}
+			});
+			chunkStart = chunkEnd;
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), SCANNER_THREADS);
+		try {
+			List<Future<LegacyNetlist>> results = executor.invokeAll(tasks);
+			LegacyNetlist netlist = new LegacyNetlist();
+			this.scannedNumbers = new int[64];
+			this.scannedCount = 0;
+			int lines = 0;
+			for (int chunk = 0; chunk < results.size(); chunk++) {
+				LegacyNetlist partial;
+				try {
+					partial = results.get(chunk).get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof ParseException) {
+						ParseException cause = (ParseException) e.getCause();
+						throw new ParseException(cause.getMessage(), lines + cause.getErrorOffset());
+					}
+					throw new IllegalStateException("Could not scan chunk " + chunk, e.getCause());
+				}
+				for (int index = 0; index < partial.getComponentCount(); index++) {
+					if (!this.addScannedNumber(partial.getNumber(index))) {
+						throw new ParseException(
+							"Found duplicated component identifier " + partial.getIdentifier(index),
+							lines + scanners[chunk].componentLines[index]
+						);
+					}
+				}
+				netlist.append(partial);
+				lines += scanners[chunk].currentLineNumber;
+			}
+			this.currentLineNumber = lines;
+			return netlist;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while scanning", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Helper function to find where a chunk should end, which is right after the first line that 
+	 * starts with "<" at or after a position.
+	 * 
+	 * @param position		the position to search from
+	 * @param limit			the end of the buffer
+	 * @return position after the line, or the limit if there is no such line
+	 */
+	private int findChunkEnd(int position, int limit) {
+		int line = this.nextLine(position - 1, limit);
+		while (line < limit) {
+			int next = this.nextLine(line, limit);
+			if (this.buffer.get(line) == '<') {
+				return next;
+			}
+			line = next;
+		}
+		return limit;
+	}
+	
+	/**
+	 * Helper function to find the start of the line after the line that contains a position.
+	 * 
+	 * @param position		a position in a line
+	 * @param limit			the end of the buffer
+	 * @return start of the next line, or the limit if there is no next line
+	 */
+	private int nextLine(int position, int limit) {
+		while (position < limit) {
+			byte character = this.buffer.get(position++);
+			if (character == '\n') {
+				return position;
+			} else if (character == '\r') {
+				if (position < limit && this.buffer.get(position) == '\n') {
+					position++;
+				}
+				return position;
+			}
+		}
+		return limit;
+	}
+	
+	/**
+	 * Reads a Circuit2D from the buffer, scanning it and creating and connecting its components 
+	 * with several threads, see {@link LegacyNetlist#toCircuit(int)}.
+	 * 
+	 * @param parallelism		the number of threads used to scan the buffer and build the Circuit
+	 * @return a new Circuit2D containing the components of the buffer
+	 * @throws ParseException if a line could not be parsed
+	 * @throws IllegalStateException if an output can not be found
+	 * @see #scan(int)
+	 */
+	public Circuit2D readCircuit(int parallelism) throws ParseException {
+		return this.scan(parallelism).toCircuit(parallelism);
+	}
+	
+	/**
+	 * Helper function to scan a component definition and add it to the netlist.
+	 * 
+	 * @param netlist		netlist where the component should be added
+	 * @return index of the component
+	 * @throws ParseException if the line doesn't contain valid information or unknown parts
+	 */
+	private int scanComponentDefinition(LegacyNetlist netlist) throws ParseException {
+		this.expect(">NUM:", "Illegal component definition");
+		int number = this.scanNumber(false, "Illegal component definition");
+		this.expect(",TYPE:", "Illegal component definition");
+		int type = this.scanNumber(false, "Illegal component definition");
+		this.expect(",X=", "Illegal component definition");
+		int x = this.scanNumber(true, "Illegal component definition");
+		this.expect(",Y=", "Illegal component definition");
+		int y = this.scanNumber(true, "Illegal component definition");
+		if (this.cursor != this.lineEnd) {
+			throw new ParseException("Illegal component definition", this.currentLineNumber);
+		}
+		if (type >= TYPES.length || TYPES[type] == null) {
+			throw new ParseException("Unknown component type", this.currentLineNumber);
+		}
+		if (this.componentLines != null) {
+			int index = netlist.getComponentCount();
+			if (index == this.componentLines.length) {
+				this.componentLines = Arrays.copyOf(this.componentLines, index * 2);
+			}
+			this.componentLines[index] = this.currentLineNumber;
+		} else if (!this.addScannedNumber(number)) {
+			throw new ParseException(
+				"Found duplicated component identifier " + TYPES[type].identifierPrefix + number,
+				this.currentLineNumber
+			);
+		}
+		return netlist.addComponent(number, TYPES[type], x, y);
+	}
+	
+	/**
+	 * Helper function to add a component number to the set of scanned numbers.
+	 * 
+	 * @param number		the component number
+	 * @return true if the number was added, false if it already has been scanned
+	 */
+	private boolean addScannedNumber(int number) {
+		if (2 * (this.scannedCount + 1) > this.scannedNumbers.length) {
+			int[] old = this.scannedNumbers;
+			this.scannedNumbers = new int[old.length * 2];
+			for (int value : old) {
+				if (value != 0) {
+					this.insertScannedNumber(value);
+				}
+			}
+		}
+		if (!this.insertScannedNumber(number + 1)) {
+			return false;
+		}
+		this.scannedCount++;
+		return true;
+	}
+	
+	/**
+	 * Helper function to insert a value into the hash set of scanned numbers, which must have a free slot.
+	 * 
+	 * @param value		the component number + 1
+	 * @return true if the value was inserted, false if it was already in the set
+	 */
+	private boolean insertScannedNumber(int value) {
+		int mask = this.scannedNumbers.length - 1;
+		int hash = value * 0x9E3779B9;
+		int slot = (hash ^ hash >>> 16) & mask;
+		while (this.scannedNumbers[slot] != 0) {
+			if (this.scannedNumbers[slot] == value) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		this.scannedNumbers[slot] = value;
+		return true;
+	}
+	
+	/**
+	 * Helper function to scan an input vector and add it to the netlist as a connection.
+	 * 
+	 * @param netlist			netlist where the connection should be added
+	 * @param currentComponent	index of the component that is being defined, -1 if none
+	 * @throws ParseException if the line doesn't contain valid information or is outside a component definition
+	 */
+	private void scanConnectionDefinition(LegacyNetlist netlist, int currentComponent) throws ParseException {
+		this.expect("IV[", "Illegal input vector definition");
+		int input = this.scanNumber(false, "Illegal input vector definition");
+		this.expect("]", "Illegal input vector definition");
+		int start = this.cursor;
+		if (start == this.lineEnd) {
+			throw new ParseException("Illegal input vector definition", this.currentLineNumber);
+		}
+		ByteBuffer buffer = this.buffer;
+		int number = 0;
+		boolean numbered = buffer.get(start) == COMPONENT_PREFIX && start + 1 < this.lineEnd;
+		for (int position = start; position < this.lineEnd; position++) {
+			byte character = buffer.get(position);
+			boolean digit = character >= '0' && character <= '9';
+			if (!digit && character != ':'
+					&& !(character >= 'A' && character <= 'Z')
+					&& !(character >= 'a' && character <= 'z')) {
+				throw new ParseException("Illegal input vector definition", this.currentLineNumber);
+			}
+			if (position > start && numbered) {
+				if (digit && number <= (Integer.MAX_VALUE - (character - '0')) / 10) {
+					number = number * 10 + (character - '0');
+				} else {
+					numbered = false;
+				}
+			}
+		}
+		if (currentComponent < 0) {
+			throw new ParseException("Input vector outside component definition", this.currentLineNumber);
+		}
+		int output;
+		if (numbered) {
+			output = number;
+		} else if (this.lineEnd - start == 1 && buffer.get(start) == '1') {
+			output = LegacyNetlist.CONSTANT_HIGH;
+		} else if (this.lineEnd - start == 1 && buffer.get(start) == '0') {
+			output = LegacyNetlist.CONSTANT_LOW;
+		} else {
+			byte[] identifier = new byte[this.lineEnd - start];
+			for (int position = start; position < this.lineEnd; position++) {
+				identifier[position - start] = buffer.get(position);
+			}
+			output = netlist.addOutputName(new String(identifier, ASCII));
+		}
+		netlist.addConnection(currentComponent, input, output);
+	}
+	
+	/**
+	 * Helper function to skip a literal at the cursor.
+	 * 
+	 * @param literal		the literal that should be at the cursor
+	 * @param message		error message if the literal is not found
+	 * @throws ParseException if the literal is not at the cursor
+	 */
+	private void expect(String literal, String message) throws ParseException {
+		int length = literal.length();
+		if (this.lineEnd - this.cursor < length) {
+			throw new ParseException(message, this.currentLineNumber);
+		}
+		for (int index = 0; index < length; index++) {
+			if (this.buffer.get(this.cursor + index) != literal.charAt(index)) {
+				throw new ParseException(message, this.currentLineNumber);
+			}
+		}
+		this.cursor += length;
+	}
+	
+	/**
+	 * Helper function to scan a decimal number at the cursor.
+	 * 
+	 * @param signed		if the number may start with a minus sign
+	 * @param message		error message if there is no number at the cursor
+	 * @return the scanned number
+	 * @throws ParseException if there is no number at the cursor or it is too large
+	 */
+	private int scanNumber(boolean signed, String message) throws ParseException {
+		boolean negative = false;
+		if (signed && this.cursor < this.lineEnd && this.buffer.get(this.cursor) == '-') {
+			negative = true;
+			this.cursor++;
+		}
+		int start = this.cursor;
+		long value = 0;
+		while (this.cursor < this.lineEnd) {
+			byte character = this.buffer.get(this.cursor);
+			if (character < '0' || character > '9') {
+				break;
+			}
+			value = value * 10 + (character - '0');
+			if (value > Integer.MAX_VALUE + 1L) {
+				throw new ParseException(message, this.currentLineNumber);
+			}
+			this.cursor++;
+		}
+		if (this.cursor == start) {
+			throw new ParseException(message, this.currentLineNumber);
+		}
+		if (negative) {
+			value = -value;
+		}
+		if (value > Integer.MAX_VALUE) {
+			throw new ParseException(message, this.currentLineNumber);
+		}
+		return (int) value;
+	}
+}
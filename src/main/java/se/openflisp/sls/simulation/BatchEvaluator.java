@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import java.util.List;
+
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.Gate;
+
+/**
+ * Evaluates a compiled Circuit for 64 input vectors at once.
+ * 
+ * Every net is stored as a pair of words, where bit n of the high word is set if the net is
+ * {@link Signal.State#HIGH} in vector n and bit n of the low word is set if it is
+ * {@link Signal.State#LOW}. Gates can be used as inputs by overriding their output words, which
+ * is typically done on the ConstantGates of a Circuit to run exhaustive truth table checks
+ * without simulating one vector at a time.
+ * 
+ * @version 1.0
+ * @see Gate#evaluateWords(long[], long[], int[], int, int, int)
+ */
+public class BatchEvaluator {
+	
+	/**
+	 * Number of vectors that are evaluated in one pass.
+	 */
+	public static final int VECTORS = 64;
+	
+	/**
+	 * The compiled Circuit that is evaluated.
+	 */
+	private final CompiledCircuit compiled;
+	
+	/**
+	 * High words indexed by net.
+	 */
+	private final long[] high;
+	
+	/**
+	 * Low words indexed by net.
+	 */
+	private final long[] low;
+	
+	/**
+	 * Which gates that have their output words set as inputs, indexed by evaluation order.
+	 */
+	private final boolean[] inputs;
+	
+	/**
+	 * Creates a batch evaluator for the current structure of a Circuit.
+	 * 
+	 * @param circuit		the circuit to evaluate
+	 */
+	public BatchEvaluator(Circuit circuit) {
+		this(new CompiledCircuit(circuit));
+	}
+	
+	/**
+	 * Creates a batch evaluator for a compiled Circuit.
+	 * 
+	 * @param compiled		the compiled circuit to evaluate
+	 * @throws IllegalArgumentException if the compiled circuit was created without Gates
+	 */
+	public BatchEvaluator(CompiledCircuit compiled) {
+		if (compiled == null) {
+			throw new IllegalArgumentException("Compiled circuit can not be null.");
+		}
+		for (Gate gate : compiled.gates) {
+			if (gate == null) {
+				throw new IllegalArgumentException("Compiled circuit must have Gates to evaluate.");
+			}
+		}
+		this.compiled = compiled;
+		this.high = new long[compiled.states.size()];
+		this.low = new long[compiled.states.size()];
+		this.inputs = new boolean[compiled.gates.length];
+	}
+	
+	/**
+	 * Sets the output words of a gate and uses it as an input, it will not be evaluated until
+	 * {@link #clearInput(Gate)} is called.
+	 * 
+	 * @param gate		a compiled gate
+	 * @param high		bits for the vectors where the gate should be high
+	 * @param low		bits for the vectors where the gate should be low
+	 * @throws IllegalArgumentException if the gate is not compiled or a vector is both high and low
+	 */
+	public void setInput(Gate gate, long high, long low) {
+		if ((high & low) != 0) {
+			throw new IllegalArgumentException("A vector can not be both high and low.");
+		}
+		int index = this.compiled.indexOf(gate);
+		int net = this.compiled.outputNets[index];
+		this.inputs[index] = true;
+		this.high[net] = high;
+		this.low[net] = low;
+	}
+	
+	/**
+	 * Sets the output words of a gate to the same state in all vectors and uses it as an input.
+	 * 
+	 * @param gate		a compiled gate
+	 * @param state		the state for all vectors
+	 * @throws IllegalArgumentException if the gate is not compiled
+	 */
+	public void setInput(Gate gate, Signal.State state) {
+		this.setInput(
+			gate,
+			state == Signal.State.HIGH ? -1L : 0,
+			state == Signal.State.LOW ? -1L : 0
+		);
+	}
+	
+	/**
+	 * Stops using a gate as an input, it will be evaluated as normal again.
+	 * 
+	 * @param gate		a compiled gate
+	 * @throws IllegalArgumentException if the gate is not compiled
+	 */
+	public void clearInput(Gate gate) {
+		this.inputs[this.compiled.indexOf(gate)] = false;
+	}
+	
+	/**
+	 * Sets a list of gates as inputs for 64 consecutive vectors of a truth table.
+	 * 
+	 * Vector number v has gate i high if bit i of v is set and low otherwise, and the words
+	 * will hold the vectors from firstVector to firstVector + 63.
+	 * 
+	 * @param gates			the gates to use as inputs, at most 63
+	 * @param firstVector	number of the first vector
+	 * @throws IllegalArgumentException if there are too many gates or a gate is not compiled
+	 */
+	public void setInputVectors(List<? extends Gate> gates, long firstVector) {
+		if (gates.size() >= VECTORS) {
+			throw new IllegalArgumentException("Can not use more than " + (VECTORS - 1) + " inputs.");
+		}
+		for (int input = 0; input < gates.size(); input++) {
+			long word = 0;
+			for (int vector = 0; vector < VECTORS; vector++) {
+				if (((firstVector + vector) >>> input & 1) != 0) {
+					word |= 1L << vector;
+				}
+			}
+			this.setInput(gates.get(input), word, ~word);
+		}
+	}
+	
+	/**
+	 * Evaluates all compiled gates for all 64 vectors.
+	 * 
+	 * The outputs of external Components are read from the model and used in every vector. Gates in
+	 * feedback loops are evaluated repeatedly until they are stable in all vectors, or until they have
+	 * been evaluated as many times as there are gates in the loops.
+	 */
+	public void evaluate() {
+		CompiledCircuit compiled = this.compiled;
+		for (int external = 0; external < compiled.externalNets.length; external++) {
+			Signal.State state = compiled.externalOutputs[external].getState();
+			this.high[compiled.externalNets[external]] = state == Signal.State.HIGH ? -1L : 0;
+			this.low[compiled.externalNets[external]] = state == Signal.State.LOW ? -1L : 0;
+		}
+		for (int gate = 0; gate < compiled.feedbackStart; gate++) {
+			this.evaluateGate(gate);
+		}
+		int feedbackCount = compiled.gates.length - compiled.feedbackStart;
+		for (int pass = 0; pass <= feedbackCount; pass++) {
+			boolean changed = false;
+			for (int gate = compiled.feedbackStart; gate < compiled.gates.length; gate++) {
+				if (this.evaluateGate(gate)) {
+					changed = true;
+				}
+			}
+			if (!changed) {
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Helper function to evaluate the words of a single gate.
+	 * 
+	 * @param gate		index of the gate to evaluate
+	 * @return true if the words of the gate changed, false otherwise
+	 */
+	private boolean evaluateGate(int gate) {
+		if (this.inputs[gate]) {
+			return false;
+		}
+		CompiledCircuit compiled = this.compiled;
+		int net = compiled.outputNets[gate];
+		long oldHigh = this.high[net], oldLow = this.low[net];
+		compiled.gates[gate].evaluateWords(
+			this.high,
+			this.low,
+			compiled.inputNets,
+			compiled.inputStart[gate],
+			compiled.inputStart[gate + 1],
+			net
+		);
+		return this.high[net] != oldHigh || this.low[net] != oldLow;
+	}
+	
+	/**
+	 * Gets the high word of an Output.
+	 * 
+	 * @param output		a compiled output
+	 * @return bits for the vectors where the output is high
+	 * @throws IllegalArgumentException if the output is not compiled
+	 */
+	public long getHighWord(Output output) {
+		return this.high[this.compiled.netOf(output)];
+	}
+	
+	/**
+	 * Gets the low word of an Output.
+	 * 
+	 * @param output		a compiled output
+	 * @return bits for the vectors where the output is low
+	 * @throws IllegalArgumentException if the output is not compiled
+	 */
+	public long getLowWord(Output output) {
+		return this.low[this.compiled.netOf(output)];
+	}
+	
+	/**
+	 * Gets the state of an Output in one of the vectors.
+	 * 
+	 * @param output		a compiled output
+	 * @param vector		the vector, between 0 and 63
+	 * @return the state of the output in the vector
+	 * @throws IllegalArgumentException if the output is not compiled
+	 */
+	public Signal.State getState(Output output, int vector) {
+		int net = this.compiled.netOf(output);
+		if ((this.high[net] >>> vector & 1) != 0) {
+			return Signal.State.HIGH;
+		} else if ((this.low[net] >>> vector & 1) != 0) {
+			return Signal.State.LOW;
+		}
+		return Signal.State.FLOATING;
+	}
+}
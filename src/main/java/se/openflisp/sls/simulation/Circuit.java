@@ -16,10 +16,16 @@
  */
 package se.openflisp.sls.simulation;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import se.openflisp.sls.Component;
 import se.openflisp.sls.Input;
@@ -27,8 +33,10 @@ import se.openflisp.sls.Output;
 import se.openflisp.sls.annotation.SourceComponent;
 import se.openflisp.sls.event.CircuitEventDelegator;
 import se.openflisp.sls.event.ComponentAdapter;
+import se.openflisp.sls.event.ComponentEventBus;
 import se.openflisp.sls.event.ComponentListener;
 import se.openflisp.sls.event.ListenerContext;
+import se.openflisp.sls.event.SignalChangeBatcher;
 
 /**
  * Circuit, a container of logical Components.
@@ -43,11 +51,36 @@ import se.openflisp.sls.event.ListenerContext;
  */
 public class Circuit {
 
+	/**
+	 * Default maximum number of evaluations for {@link #runUntilStable()}.
+	 */
+	public static final int DEFAULT_MAX_EVALUATIONS = 1000000;
+	
+	/**
+	 * Default number of Components evaluated by each parallel task.
+	 */
+	public static final int DEFAULT_PARTITION_SIZE = 256;
+	
+	/**
+	 * If the Component classes that have been checked are annotated with {@link SourceComponent}.
+	 */
+	private static final ConcurrentMap<Class<?>, Boolean> SOURCE_TYPES = new ConcurrentHashMap<Class<?>, Boolean>();
+	
 	/**
 	 * Set of components that the circuit contains.
 	 */
 	private Set<Component> components = Collections.newSetFromMap(new ConcurrentHashMap<Component, Boolean>());
 	
+	/**
+	 * Set of the source components that the circuit contains, guarded by itself.
+	 */
+	private final Set<Component> sources = new HashSet<Component>();
+	
+	/**
+	 * Immutable snapshot of the source components, null if it has to be created again.
+	 */
+	private volatile Set<Component> sourceSnapshot;
+	
 	/**
 	 * Thread that will evaluate the components if needed.
 	 */
@@ -58,6 +91,42 @@ public class Circuit {
 	 */
 	private final CircuitEventDelegator delegator;
 	
+	/**
+	 * Which engine the simulation thread should evaluate the Circuit with.
+	 */
+	private volatile SimulationEngine simulationEngine = SimulationEngine.EVENT_DRIVEN;
+	
+	/**
+	 * Number of threads that the simulation may evaluate Components with.
+	 */
+	private volatile int parallelism = 1;
+	
+	/**
+	 * Minimum number of Components evaluated by each parallel task.
+	 */
+	private volatile int partitionSize = DEFAULT_PARTITION_SIZE;
+	
+	/**
+	 * Batcher that the Components deliver their signal changes to Swing listeners with, null if
+	 * signal changes are not batched.
+	 */
+	private volatile SignalChangeBatcher signalChangeBatcher;
+	
+	/**
+	 * Bus that all Components in the Circuit publish their events to.
+	 */
+	private final ComponentEventBus eventBus = new ComponentEventBus();
+	
+	/**
+	 * Counter that is increased every time a Component or connection is added or removed.
+	 */
+	private final AtomicInteger modificationCount = new AtomicInteger();
+	
+	/**
+	 * If the Circuit is being loaded in bulk.
+	 */
+	private volatile boolean bulkLoading;
+	
 	/**
 	 * Constructs a new Circuit.
 	 */
@@ -75,6 +144,8 @@ public class Circuit {
 			throw new IllegalArgumentException("Delegator can not be null.");
 		}
 		this.delegator = delegator;
+		this.eventBus.subscribe(ListenerContext.MODEL, this.connectionHandler);
+		this.eventBus.subscribe(ListenerContext.MODEL, this.simulationThread.signalHandler);
 	}
 	
 	/**
@@ -86,6 +157,16 @@ public class Circuit {
 		return this.delegator;
 	}
 	
+	/**
+	 * Gets the bus that all Components in the Circuit publish their events to, used to listen to
+	 * the events of the whole Circuit or of specific Components and Signals.
+	 * 
+	 * @return the component event bus of the Circuit
+	 */
+	public ComponentEventBus getEventBus() {
+		return this.eventBus;
+	}
+	
 	/**
 	 * Gets the Circuit simulation handler thread.
 	 * 
@@ -96,31 +177,363 @@ public class Circuit {
 	}
 	
 	/**
-	 * Recursively adds a Component and its connected components to the Circuit.
+	 * Gets which engine the Circuit is simulated with.
+	 * 
+	 * @return the simulation engine
+	 */
+	public SimulationEngine getSimulationEngine() {
+		return this.simulationEngine;
+	}
+	
+	/**
+	 * Sets which engine the Circuit should be simulated with. Can be changed while the 
+	 * simulation is running and will be used from the next evaluation.
+	 * 
+	 * @param engine		the simulation engine
+	 */
+	public void setSimulationEngine(SimulationEngine engine) {
+		if (engine == null) {
+			throw new IllegalArgumentException("Simulation engine can not be null");
+		}
+		this.simulationEngine = engine;
+	}
+	
+	/**
+	 * Gets the number of threads that the simulation may evaluate Components with.
+	 * 
+	 * @return the parallelism, one if the Circuit is evaluated sequentially
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+	
+	/**
+	 * Sets the number of threads that the simulation may evaluate Components with.
+	 * 
+	 * With a parallelism above one the {@link SimulationEngine#EVENT_DRIVEN} engine evaluates all 
+	 * Components whose inputs changed in the same step in parallel, and changes their outputs
+	 * when all of them have been evaluated. Can be changed while the simulation is running.
+	 * 
+	 * @param parallelism		the number of threads, one to evaluate sequentially
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least one.");
+		}
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Gets the number of Components evaluated by each parallel task.
+	 * 
+	 * @return the partition size
+	 */
+	public int getPartitionSize() {
+		return this.partitionSize;
+	}
+	
+	/**
+	 * Sets the number of Components evaluated by each parallel task, the last task of a step gets 
+	 * the remaining Components. Steps with fewer than twice this many Components are evaluated on 
+	 * the simulation thread alone.
+	 * 
+	 * @param partitionSize		the partition size
+	 */
+	public void setPartitionSize(int partitionSize) {
+		if (partitionSize < 1) {
+			throw new IllegalArgumentException("Partition size must be at least one.");
+		}
+		this.partitionSize = partitionSize;
+	}
+	
+	/**
+	 * Gets the batcher that the Components deliver their signal changes to Swing listeners with.
+	 * 
+	 * @return the signal change batcher, null if signal changes are not batched
+	 */
+	public SignalChangeBatcher getSignalChangeBatcher() {
+		return this.signalChangeBatcher;
+	}
+	
+	/**
+	 * Sets a batcher that all Components in the Circuit, and Components that are added later, 
+	 * should deliver their signal changes to Swing listeners with.
+	 * 
+	 * @param batcher		the signal change batcher, null to deliver every change on its own
+	 * @see se.openflisp.sls.event.ComponentEventDelegator#setSignalChangeBatcher(SignalChangeBatcher)
+	 */
+	public void setSignalChangeBatcher(SignalChangeBatcher batcher) {
+		this.signalChangeBatcher = batcher;
+		this.eventBus.setSignalChangeBatcher(batcher);
+		for (Component component : this.components) {
+			component.getEventDelegator().setSignalChangeBatcher(batcher);
+		}
+	}
+	
+	/**
+	 * Gets a counter that changes every time a Component or connection is added or removed,
+	 * used to detect when compiled images of the Circuit are outdated.
+	 * 
+	 * @return the current modification count
+	 */
+	public int getModificationCount() {
+		return this.modificationCount.get();
+	}
+	
+	/**
+	 * Checks if the Circuit is being loaded in bulk.
+	 * 
+	 * @return true between {@link #beginBulkLoad()} and {@link #endBulkLoad()}, false otherwise
+	 */
+	public boolean isBulkLoading() {
+		return this.bulkLoading;
+	}
+	
+	/**
+	 * Starts loading Components and connections in bulk.
+	 * 
+	 * Until {@link #endBulkLoad()} the Components are added without recursively adding their 
+	 * connected Components, the events of the Components are not delivered through the event bus 
+	 * and no circuit events are fired. This keeps loading a large netlist linear in its size.
+	 * 
+	 * @throws IllegalStateException if the Circuit already is being loaded in bulk
+	 */
+	public void beginBulkLoad() {
+		if (this.bulkLoading) {
+			throw new IllegalStateException("Circuit is already being loaded in bulk.");
+		}
+		this.bulkLoading = true;
+		this.eventBus.setSuspended(true);
+	}
+	
+	/**
+	 * Ends loading in bulk.
+	 * 
+	 * Components that are connected to the Circuit but were not added are added, all Components 
+	 * with connected inputs are scheduled for evaluation and a single 
+	 * {@link se.openflisp.sls.event.CircuitLoadListener#onCircuitLoaded()} is fired.
+	 * 
+	 * @throws IllegalStateException if the Circuit is not being loaded in bulk
+	 */
+	public void endBulkLoad() {
+		if (!this.bulkLoading) {
+			throw new IllegalStateException("Circuit is not being loaded in bulk.");
+		}
+		List<Component> pending = new ArrayList<Component>(this.components);
+		List<Component> connected = new ArrayList<Component>();
+		while (!pending.isEmpty()) {
+			Component component = pending.remove(pending.size() - 1);
+			boolean hasConnectedInput = false;
+			for (Input input : component.getInputs()) {
+				if (input.isConnected()) {
+					hasConnectedInput = true;
+					this.addLoadedComponent(input.getConnection().getOwner(), pending);
+				}
+			}
+			for (Output output : component.getOutputs()) {
+				for (Input input : output.getConnections()) {
+					this.addLoadedComponent(input.getOwner(), pending);
+				}
+			}
+			if (hasConnectedInput) {
+				connected.add(component);
+			}
+		}
+		this.eventBus.setSuspended(false);
+		this.bulkLoading = false;
+		this.modificationCount.incrementAndGet();
+		for (Component component : connected) {
+			this.simulationThread.schedule(component);
+		}
+		this.getEventDelegator().onCircuitLoaded();
+	}
+	
+	/**
+	 * Helper function to add a Component that is connected to a loaded Component, unless it 
+	 * already is in the Circuit.
+	 * 
+	 * @param component		the connected component
+	 * @param pending		components whose connections have not been followed yet
+	 */
+	private void addLoadedComponent(Component component, List<Component> pending) {
+		if (!this.components.contains(component)) {
+			this.addComponent(component);
+			pending.add(component);
+		}
+	}
+	
+	/**
+	 * Evaluates all Components with changed inputs once on the calling thread, without the
+	 * simulation thread. Components whose inputs are changed by this step are evaluated by the
+	 * next step.
+	 * 
+	 * @return the number of evaluated Components, zero if the Circuit is stable
+	 * @throws IllegalStateException if the simulation thread is running
+	 */
+	public int step() {
+		this.checkSimulationStopped();
+		return this.simulationThread.step();
+	}
+	
+	/**
+	 * Steps the Circuit on the calling thread until it is stable. Source Components are evaluated
+	 * by the first step after they have been added.
+	 * 
+	 * @return the number of evaluated Components
+	 * @throws IllegalStateException if the simulation thread is running or the Circuit does not
+	 * 								 become stable within {@link #DEFAULT_MAX_EVALUATIONS} evaluations
+	 * @see #step()
+	 */
+	public int runUntilStable() {
+		return this.runUntilStable(DEFAULT_MAX_EVALUATIONS);
+	}
+	
+	/**
+	 * Steps the Circuit on the calling thread until it is stable. Source Components are evaluated
+	 * by the first step after they have been added.
+	 * 
+	 * @param maxEvaluations		the maximum number of evaluations, used to detect oscillating Circuits
+	 * @return the number of evaluated Components
+	 * @throws IllegalArgumentException if maxEvaluations is not positive
+	 * @throws IllegalStateException if the simulation thread is running or the Circuit does not
+	 * 								 become stable within maxEvaluations evaluations
+	 * @see #step()
+	 */
+	public int runUntilStable(int maxEvaluations) {
+		if (maxEvaluations <= 0) {
+			throw new IllegalArgumentException("Max evaluations must be positive.");
+		}
+		this.checkSimulationStopped();
+		int evaluations = 0;
+		int stepEvaluations;
+		while ((stepEvaluations = this.simulationThread.step()) > 0) {
+			evaluations += stepEvaluations;
+			if (evaluations > maxEvaluations) {
+				throw new IllegalStateException("Circuit is not stable after " + maxEvaluations + " evaluations.");
+			}
+		}
+		return evaluations;
+	}
+	
+	/**
+	 * Helper function to make sure that the simulation thread is not running.
+	 * 
+	 * @throws IllegalStateException if the simulation thread is running
+	 */
+	private void checkSimulationStopped() {
+		if (this.simulationThread.isAlive()) {
+			throw new IllegalStateException("Circuit can not be stepped while the simulation thread is running.");
+		}
+	}
+	
+	/**
+	 * Adds a Component and all Components that are connected to it, directly or through other 
+	 * Components, to the Circuit. While the Circuit is being loaded in bulk only the Component 
+	 * itself is added and no event is fired.
+	 * 
+	 * The connected Components are found iteratively with a work list, so adding a Component of 
+	 * a deep netlist does not recurse to its depth. Connected Components are announced before the
+	 * Component that they were found through.
 	 * 
 	 * @param component		base component that should be added
+	 * @see #beginBulkLoad()
 	 */
 	public void addComponent(Component component) {
 		if (component == null) {
 			throw new IllegalArgumentException("Component can not be null");
 		}
-		if (this.components.add(component)) {
-			component.getEventDelegator().addListener(ListenerContext.MODEL, this.connectionHandler);
-			component.getEventDelegator().addListener(ListenerContext.MODEL, this.simulationThread.signalHandler);
-			for (Input input : component.getInputs()) {
-				if (input.isConnected()) {
-					this.addComponent(input.getConnection().getOwner());
+		if (!this.register(component)) {
+			return;
+		}
+		if (this.bulkLoading) {
+			if (isSource(component)) {
+				this.simulationThread.schedule(component);
+			}
+			return;
+		}
+		List<Component> added = new ArrayList<Component>();
+		Deque<Component> pending = new ArrayDeque<Component>();
+		added.add(component);
+		pending.push(component);
+		while (!pending.isEmpty()) {
+			Component current = pending.pop();
+			for (Input input : current.getInputs()) {
+				if (input.isConnected() && this.register(input.getConnection().getOwner())) {
+					added.add(input.getConnection().getOwner());
+					pending.push(input.getConnection().getOwner());
 				}
 			}
-			for (Output output : component.getOutputs()) {
+			for (Output output : current.getOutputs()) {
 				for (Input input : output.getConnections()) {
-					this.addComponent(input.getOwner());
+					if (this.register(input.getOwner())) {
+						added.add(input.getOwner());
+						pending.push(input.getOwner());
+					}
 				}
 			}
-			this.getEventDelegator().onComponentAdded(component);
 		}
+		for (int index = added.size() - 1; index >= 0; index--) {
+			Component current = added.get(index);
+			if (isSource(current)) {
+				this.simulationThread.schedule(current);
+			}
+			this.getEventDelegator().onComponentAdded(current);
+			if (index > 0) {
+				this.placeConnectedComponent(current);
+			}
+		}
+	}
+	
+	/**
+	 * Helper function to add a Component to the set of components and to attach it to the Circuit,
+	 * without adding its connected Components.
+	 * 
+	 * @param component		component that should be added
+	 * @return true if the Component was added, false if it already was in the Circuit
+	 */
+	private boolean register(Component component) {
+		if (!this.components.add(component)) {
+			return false;
+		}
+		this.modificationCount.incrementAndGet();
+		component.getEventDelegator().addEventBus(this.eventBus, component);
+		if (this.signalChangeBatcher != null) {
+			component.getEventDelegator().setSignalChangeBatcher(this.signalChangeBatcher);
+		}
+		if (isSource(component)) {
+			synchronized (this.sources) {
+				this.sources.add(component);
+				this.sourceSnapshot = null;
+			}
+		}
+		return true;
 	}
 	
+	/**
+	 * Helper function to check if a Component is a source, the annotation is only looked up once
+	 * for every Component class.
+	 * 
+	 * @param component		the component to check
+	 * @return true if the class of the Component is annotated with {@link SourceComponent}
+	 */
+	private static boolean isSource(Component component) {
+		Boolean source = SOURCE_TYPES.get(component.getClass());
+		if (source == null) {
+			source = component.getClass().isAnnotationPresent(SourceComponent.class);
+			SOURCE_TYPES.put(component.getClass(), source);
+		}
+		return source;
+	}
+	
+	/**
+	 * Called when a Component has been added because it is connected to another Component that
+	 * was added, after the {@link se.openflisp.sls.event.CircuitListener#onComponentAdded(Component)}
+	 * of the Component. Used by subclasses that need to place the Components.
+	 * 
+	 * @param component		component that has been added
+	 */
+	protected void placeConnectedComponent(Component component) {}
+	
 	/**
 	 * Removes a component from a Circuit and disconnects all current active connections.
 	 * 
@@ -131,8 +544,13 @@ public class Circuit {
 			throw new IllegalArgumentException("Component can not be null");
 		}
 		if (this.components.remove(component)) {
-			component.getEventDelegator().removeListener(ListenerContext.MODEL, this.connectionHandler);
-			component.getEventDelegator().removeListener(ListenerContext.MODEL, this.simulationThread.signalHandler);
+			this.modificationCount.incrementAndGet();
+			component.getEventDelegator().removeEventBus(this.eventBus);
+			synchronized (this.sources) {
+				if (this.sources.remove(component)) {
+					this.sourceSnapshot = null;
+				}
+			}
 			for (Input input : component.getInputs()) {
 				if (input.isConnected()) {
 					input.disconnect(input.getConnection());
@@ -169,29 +587,40 @@ public class Circuit {
 	}
 	
 	/**
-	 * Gets all the source Components in the Circuit.
+	 * Gets all the source Components in the Circuit. The sources are kept up to date when 
+	 * Components are added and removed, so the snapshot is only created again after a change.
 	 * 
-	 * @return set of all the source Components
+	 * @return unmodifiable snapshot of all the source Components
 	 */
 	public Set<Component> getSourceComponents() {
-		Set<Component> components = new HashSet<Component>();
-		for (Component component : this.getComponents()) {
-			if (component.getClass().isAnnotationPresent(SourceComponent.class)) {
-				components.add(component);
+		Set<Component> snapshot = this.sourceSnapshot;
+		if (snapshot == null) {
+			synchronized (this.sources) {
+				snapshot = this.sourceSnapshot;
+				if (snapshot == null) {
+					snapshot = Collections.unmodifiableSet(new HashSet<Component>(this.sources));
+					this.sourceSnapshot = snapshot;
+				}
 			}
 		}
-		return components;
+		return snapshot;
 	}
 	
 	/**
 	 * Listener that will add components that have been connected to one of 
-	 * the Circuits already existing components.
+	 * the Circuits already existing components and keep track of changed connections.
 	 */
 	private final ComponentListener connectionHandler = new ComponentAdapter() {
 		@Override
 		public void onSignalConnection(Input input, Output output) {
+			Circuit.this.modificationCount.incrementAndGet();
 			Circuit.this.addComponent(input.getOwner());
 			Circuit.this.addComponent(output.getOwner());
 		}
+		
+		@Override
+		public void onSignalDisconnection(Input input, Output output) {
+			Circuit.this.modificationCount.incrementAndGet();
+		}
 	};
 }
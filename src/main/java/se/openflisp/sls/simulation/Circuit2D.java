@@ -16,16 +16,23 @@
  */
 package se.openflisp.sls.simulation;
 
+import java.awt.Dimension;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import se.openflisp.sls.Component;
 import se.openflisp.sls.event.CircuitEventDelegator;
+import se.openflisp.sls.util.QuadTree;
 
 /**
  * An extension of a logical Circuit which maps Components to certain positions in a 2D-grid.
  * 
+ * The locations are also kept in a spatial index, so the Components in an area, in a viewport or 
+ * closest to a point can be found without looking at every Component.
+ * 
  * @author Anton Ekberg <anton.ekberg@gmail.com>
  * @version 1.0
  * @see Circuit2DBuilder
@@ -37,6 +44,11 @@ public class Circuit2D extends Circuit {
 	 */
 	private Map<Component, Point> locations = new HashMap<Component, Point>();
 	
+	/**
+	 * Spatial index of the locations.
+	 */
+	private final QuadTree<Component> index = new QuadTree<Component>();
+	
 	/**
 	 * Creates a Circuit with knowledge of its components locations.
 	 */
@@ -62,9 +74,9 @@ public class Circuit2D extends Circuit {
 	}
 	
 	/**
-	 * Adds a Component at a specific point in a 2D-grid. Will also recursively
-	 * add the components connections. If the connections don't have a location in
-	 * this Circuit a random location will be selected.
+	 * Adds a Component at a specific point in a 2D-grid. Will also add the components 
+	 * connections. If the connections don't have a location in this Circuit they will 
+	 * be placed at the origin.
 	 * 
 	 * @param component		base component that should be added
 	 * @param location		point where the component should be placed
@@ -76,6 +88,18 @@ public class Circuit2D extends Circuit {
 		}
 	}
 	
+	/**
+	 * Places a Component that was added through its connections at the origin.
+	 * 
+	 * @param component		component that has been added
+	 */
+	@Override
+	protected void placeConnectedComponent(Component component) {
+		if (this.getComponentLocation(component) == null) {
+			this.setComponentLocation(component, new Point(0, 0));
+		}
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -83,10 +107,12 @@ public class Circuit2D extends Circuit {
 	public void removeComponent(Component component) {
 		super.removeComponent(component);
 		this.locations.remove(component);
+		this.index.remove(component);
 	}
 	
 	/**
-	 * Sets the location for a specific Component that exists in the Circuit.
+	 * Sets the location for a specific Component that exists in the Circuit, no event is fired
+	 * while the Circuit is being loaded in bulk.
 	 * 
 	 * @param component		component to change location of
 	 * @param location		location to move the component to
@@ -98,6 +124,10 @@ public class Circuit2D extends Circuit {
 			throw new IllegalArgumentException("Can't set position to null");
 		}
 		Point oldLocation = this.locations.put(component, location);
+		this.index.put(component, location);
+		if (this.isBulkLoading()) {
+			return;
+		}
 		this.getEventDelegator().onComponentMoved(component, oldLocation, location);
 	}
 	
@@ -110,4 +140,47 @@ public class Circuit2D extends Circuit {
 	public Point getComponentLocation(Component component) {
 		return this.locations.get(component);
 	}
+	
+	/**
+	 * Gets the Components whose locations are within an area, the edges of the area are included.
+	 * 
+	 * @param area		area to search
+	 * @return the components in the area
+	 * @throws IllegalArgumentException if the area is null
+	 */
+	public List<Component> getComponentsIn(Rectangle area) {
+		return this.index.query(area);
+	}
+	
+	/**
+	 * Gets the Components that are at least partly visible in a viewport, assuming that every 
+	 * Component is drawn with its location as the upper left corner.
+	 * 
+	 * @param viewport		area that is visible
+	 * @param size			size that every component is drawn with
+	 * @return the components that overlap the viewport
+	 * @throws IllegalArgumentException if the viewport or size is null
+	 */
+	public List<Component> getComponentsInViewport(Rectangle viewport, Dimension size) {
+		if (viewport == null || size == null) {
+			throw new IllegalArgumentException("Requires a non-null viewport and size.");
+		}
+		return this.index.query(new Rectangle(
+			viewport.x - size.width, 
+			viewport.y - size.height, 
+			viewport.width + size.width, 
+			viewport.height + size.height
+		));
+	}
+	
+	/**
+	 * Gets the Component whose location is closest to a point.
+	 * 
+	 * @param point		point to search from
+	 * @return the closest component, null if the circuit has no components
+	 * @throws IllegalArgumentException if the point is null
+	 */
+	public Component getNearestComponent(Point point) {
+		return this.index.nearest(point);
+	}
 }
@@ -128,18 +128,27 @@ public class Circuit2DBuilder {
 	 * Builds a circuit given the components and connections defined with
 	 * {@link #addComponent(Component, Point)} and {@link #addConnection(String, String, String)}.
 	 * 
+	 * The Circuit is loaded in bulk, so listeners are notified once with 
+	 * {@link se.openflisp.sls.event.CircuitLoadListener#onCircuitLoaded()} when it is built.
+	 * 
 	 * @return a 2D-aware Circuit.
+	 * @see Circuit#beginBulkLoad()
 	 */
 	public Circuit2D build() {
 		Circuit2D circuit = new Circuit2D();
-		for (Component component : this.components.values()) {
-			circuit.addComponent(component, this.positions.get(component.getIdentifier()));
-		}
-		for (PinIdentifier outputPin : this.connections.keySet()) {
-			Output output = this.lookupComponent(outputPin).getOutput(outputPin.signalIdentifier);
-			for (PinIdentifier inputPin : this.connections.get(outputPin)) {
-				output.connect(this.lookupComponent(inputPin).getInput(inputPin.signalIdentifier));
+		circuit.beginBulkLoad();
+		try {
+			for (Component component : this.components.values()) {
+				circuit.addComponent(component, this.positions.get(component.getIdentifier()));
+			}
+			for (PinIdentifier outputPin : this.connections.keySet()) {
+				Output output = this.lookupComponent(outputPin).getOutput(outputPin.signalIdentifier);
+				for (PinIdentifier inputPin : this.connections.get(outputPin)) {
+					output.connect(this.lookupComponent(inputPin).getInput(inputPin.signalIdentifier));
+				}
 			}
+		} finally {
+			circuit.endBulkLoad();
 		}
 		return circuit;
 	}
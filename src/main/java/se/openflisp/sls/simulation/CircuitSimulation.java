@@ -16,11 +16,22 @@
  */
 package se.openflisp.sls.simulation;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import se.openflisp.sls.Component;
 import se.openflisp.sls.Input;
@@ -44,7 +55,7 @@ public class CircuitSimulation extends Thread {
 	/**
 	 * Queue for all changed inputs in the Circuit.
 	 */
-	private BlockingQueue<Input> inputQueue = new LinkedBlockingQueue<Input>();
+	private Queue<Input> inputQueue = new ConcurrentLinkedQueue<Input>();
 	
 	/**
 	 * Queue for all components that needs to be evaluated.
@@ -52,9 +63,49 @@ public class CircuitSimulation extends Thread {
 	private Queue<Component> componentQueue = new ConcurrentLinkedQueue<Component>();
 	
 	/**
-	 * Time to wait before simulating source components, expressed in milliseconds.
+	 * Set of the components in the component queue, used to avoid scanning the queue for duplicates.
 	 */
-	private long pollTime = 1000;
+	private Set<Component> queuedComponents = Collections.newSetFromMap(new ConcurrentHashMap<Component, Boolean>());
+	
+	/**
+	 * If the thread is about to park or is parked, waiting for work.
+	 */
+	private volatile boolean waiting;
+	
+	/**
+	 * Total time the thread has been parked, expressed in nanoseconds.
+	 */
+	private volatile long idleTime;
+	
+	/**
+	 * Number of times the thread has woken up to do work.
+	 */
+	private volatile long wakeupCount;
+	
+	/**
+	 * Number of Components evaluated by the simulation.
+	 */
+	private volatile long evaluationCount;
+	
+	/**
+	 * Compiled image of the Circuit used by the {@link SimulationEngine#LEVELIZED} engine.
+	 */
+	private CompiledCircuit compiledCircuit;
+	
+	/**
+	 * Modification count of the Circuit when the compiled image was created.
+	 */
+	private int compiledModificationCount;
+	
+	/**
+	 * Executor used for parallel evaluation, created when it is first needed.
+	 */
+	private ExecutorService executor;
+	
+	/**
+	 * Number of threads in the executor.
+	 */
+	private int executorParallelism;
 	
 	/**
 	 * Creates a new Circuit simulation daemon thread.
@@ -67,32 +118,294 @@ public class CircuitSimulation extends Thread {
 	}
 	
 	/**
-	 * Runs the simulation until interrupted. Will sleep if the input queue is 
-	 * empty. Will wake up, with every {@link #pollTime} millisecond, and simulate 
-	 * all sources.
+	 * Runs the simulation until interrupted. Parks the thread while there is no work and is woken up
+	 * when an input changes or a Component is scheduled.
 	 */
 	@Override
 	public void run() {
-		do {
-			try {
-				for (Component component : this.circuit.getSourceComponents()) {
-					component.evaluate();
+		while (!Thread.currentThread().isInterrupted()) {
+			if (!this.hasWork()) {
+				this.waiting = true;
+				if (!this.hasWork()) {
+					long parkTime = System.nanoTime();
+					LockSupport.park(this);
+					this.idleTime += System.nanoTime() - parkTime;
 				}
-				Input input = null;
-				while ((input = this.inputQueue.poll(this.pollTime, TimeUnit.MILLISECONDS)) != null) {
-					this.processInput(input);
-					while (!this.inputQueue.isEmpty()) {
-						this.processInput(this.inputQueue.poll());
-					}
-					while (!this.componentQueue.isEmpty()) {
-						this.componentQueue.poll().evaluate();
+				this.waiting = false;
+				continue;
+			}
+			this.wakeupCount++;
+			this.step();
+		}
+	}
+	
+	/**
+	 * Schedules a Component to be evaluated by the next step and wakes up the thread if it is waiting.
+	 * 
+	 * @param component		component to evaluate
+	 */
+	protected void schedule(Component component) {
+		this.queueComponent(component);
+		this.wakeup();
+	}
+	
+	/**
+	 * Helper function to wake up the thread if it is waiting for work.
+	 */
+	private void wakeup() {
+		if (this.waiting) {
+			LockSupport.unpark(this);
+		}
+	}
+	
+	/**
+	 * Checks if there are changed inputs or scheduled Components.
+	 * 
+	 * @return true if there is work to do, false otherwise
+	 */
+	private boolean hasWork() {
+		return !this.inputQueue.isEmpty() || !this.componentQueue.isEmpty();
+	}
+	
+	/**
+	 * Gets the total time the thread has been parked waiting for work.
+	 * 
+	 * @return the idle time, expressed in nanoseconds
+	 */
+	public long getIdleTime() {
+		return this.idleTime;
+	}
+	
+	/**
+	 * Gets the number of times the thread has woken up to do work.
+	 * 
+	 * @return the number of wakeups
+	 */
+	public long getWakeupCount() {
+		return this.wakeupCount;
+	}
+	
+	/**
+	 * Gets the number of Components that have been evaluated by the simulation.
+	 * 
+	 * @return the number of evaluations
+	 */
+	public long getEvaluationCount() {
+		return this.evaluationCount;
+	}
+	
+	/**
+	 * Gets the average number of Components evaluated every time the thread has woken up.
+	 * 
+	 * @return the average number of evaluations per wakeup, zero if the thread has not woken up
+	 */
+	public double getEvaluationsPerWakeup() {
+		long wakeups = this.wakeupCount;
+		return wakeups == 0 ? 0 : (double) this.evaluationCount / wakeups;
+	}
+	
+	/**
+	 * Processes all changed inputs and evaluates the affected and scheduled Components once on the
+	 * calling thread. Inputs that are changed by the evaluation will be processed by the next step.
+	 * 
+	 * @return the number of evaluated Components
+	 */
+	protected int step() {
+		Input input;
+		while ((input = this.inputQueue.poll()) != null) {
+			this.processInput(input);
+		}
+		int evaluations = 0;
+		if (this.circuit.getSimulationEngine() == SimulationEngine.LEVELIZED) {
+			evaluations = this.evaluateLevelized();
+		} else if (this.circuit.getParallelism() > 1) {
+			evaluations = this.evaluateParallel();
+		} else {
+			Component component;
+			while ((component = this.pollComponent()) != null) {
+				component.evaluate();
+				evaluations++;
+			}
+		}
+		this.evaluationCount += evaluations;
+		return evaluations;
+	}
+	
+	/**
+	 * Evaluates all queued Components as one wave. The wave is split into partitions that are prepared 
+	 * in parallel, and the outputs are changed when all Components have been prepared.
+	 * 
+	 * @return the number of evaluated Components
+	 */
+	protected int evaluateParallel() {
+		List<Component> wave = new ArrayList<Component>();
+		Component component;
+		while ((component = this.pollComponent()) != null) {
+			wave.add(component);
+		}
+		int partitionSize = this.circuit.getPartitionSize();
+		if (wave.size() < 2 * partitionSize) {
+			for (Component waveComponent : wave) {
+				waveComponent.prepareEvaluation();
+			}
+		} else {
+			ExecutorService executor = this.getExecutor();
+			List<Future<Void>> partitions = new ArrayList<Future<Void>>();
+			for (int from = 0; from < wave.size(); from += partitionSize) {
+				partitions.add(executor.submit(new PreparePartition(wave.subList(from, Math.min(from + partitionSize, wave.size())))));
+			}
+			awaitPartitions(partitions);
+		}
+		for (Component waveComponent : wave) {
+			waveComponent.commitEvaluation();
+		}
+		return wave.size();
+	}
+	
+	/**
+	 * Helper function to wait until every partition of a wave has been prepared. The partitions are
+	 * always allowed to finish, so no worker is still preparing a Component when the wave is committed.
+	 * An interrupt is restored when all partitions are done.
+	 * 
+	 * @param partitions		the results of the partitions
+	 * @throws IllegalStateException if a partition failed with a checked exception, runtime 
+	 * 								 exceptions and errors of the first failed partition are rethrown
+	 */
+	private static void awaitPartitions(List<Future<Void>> partitions) {
+		boolean interrupted = false;
+		Throwable failure = null;
+		for (Future<Void> partition : partitions) {
+			while (true) {
+				try {
+					partition.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
 					}
+					break;
 				}
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				break;
 			}
-		} while (!Thread.currentThread().isInterrupted());
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		} else if (failure != null) {
+			throw new IllegalStateException(failure);
+		}
+	}
+	
+	/**
+	 * Gets the executor for parallel evaluation, creating a new one if the parallelism of the 
+	 * Circuit has changed. Idle worker threads are stopped after a while.
+	 * 
+	 * @return an executor with as many threads as the parallelism of the Circuit
+	 */
+	protected ExecutorService getExecutor() {
+		int parallelism = this.circuit.getParallelism();
+		if (this.executor == null || this.executorParallelism != parallelism) {
+			if (this.executor != null) {
+				this.executor.shutdown();
+			}
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				parallelism, 
+				parallelism, 
+				1, 
+				TimeUnit.SECONDS, 
+				new LinkedBlockingQueue<Runnable>(), 
+				this.workerFactory
+			);
+			executor.allowCoreThreadTimeOut(true);
+			this.executor = executor;
+			this.executorParallelism = parallelism;
+		}
+		return this.executor;
+	}
+	
+	/**
+	 * Task that prepares the evaluation of a partition of a wave.
+	 */
+	private static class PreparePartition implements Callable<Void> {
+		
+		/**
+		 * The Components in the partition.
+		 */
+		private final List<Component> components;
+		
+		/**
+		 * Creates a task for a partition.
+		 * 
+		 * @param components		the components to prepare
+		 */
+		public PreparePartition(List<Component> components) {
+			this.components = components;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Void call() {
+			for (Component component : this.components) {
+				component.prepareEvaluation();
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * Creates daemon worker threads for parallel evaluation.
+	 */
+	private final ThreadFactory workerFactory = new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, CircuitSimulation.this.getName() + "-worker");
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+	
+	/**
+	 * Evaluates the Circuit with its compiled image and commits the result to the model. Components
+	 * that could not be compiled are evaluated directly if they are queued. The compiled image only 
+	 * evaluates the gates downstream of nets that changed, and only commits the gates whose compiled 
+	 * state changed, so a step without any changes does not visit the gates at all.
+	 * 
+	 * @return the number of Components that were evaluated in the model
+	 */
+	protected int evaluateLevelized() {
+		CompiledCircuit compiled = this.getCompiledCircuit();
+		int evaluations = 0;
+		Component component;
+		while ((component = this.pollComponent()) != null) {
+			if (!compiled.contains(component)) {
+				component.evaluate();
+				evaluations++;
+			}
+		}
+		compiled.evaluate();
+		return evaluations + compiled.commit();
+	}
+	
+	/**
+	 * Gets a compiled image of the Circuit, compiling it again if the Circuit has been modified
+	 * since the last time.
+	 * 
+	 * @return an up to date compiled image of the Circuit
+	 */
+	protected CompiledCircuit getCompiledCircuit() {
+		int modificationCount = this.circuit.getModificationCount();
+		if (this.compiledCircuit == null || this.compiledModificationCount != modificationCount) {
+			this.compiledCircuit = new CompiledCircuit(this.circuit);
+			this.compiledModificationCount = modificationCount;
+		}
+		return this.compiledCircuit;
 	}
 	
 	/**
@@ -101,20 +414,43 @@ public class CircuitSimulation extends Thread {
 	 * @param input		input to be processed
 	 */
 	protected void processInput(Input input) {
-		Component component = input.getOwner();
-		if (!this.componentQueue.contains(component)) {
+		this.queueComponent(input.getOwner());
+	}
+	
+	/**
+	 * Helper function to add a Component to the component queue unless it is already queued.
+	 * 
+	 * @param component		component to be queued
+	 */
+	private void queueComponent(Component component) {
+		if (this.queuedComponents.add(component)) {
 			this.componentQueue.add(component);
 		}
 	}
 	
 	/**
-	 * Listener that will put changed inputs into the input working queue.
+	 * Helper function to remove the next Component from the component queue. The Component can be 
+	 * queued again as soon as it has been removed, so changes during its evaluation are not lost.
+	 * 
+	 * @return the next queued component, or null if the queue is empty
+	 */
+	private Component pollComponent() {
+		Component component = this.componentQueue.poll();
+		if (component != null) {
+			this.queuedComponents.remove(component);
+		}
+		return component;
+	}
+	
+	/**
+	 * Listener that will put changed inputs into the input working queue and wake up the thread.
 	 */
 	protected final ComponentListener signalHandler = new ComponentAdapter() {
 		@Override
 		public void onSignalChange(Component component, Signal signal) {
 			if (signal instanceof Input) {
 				CircuitSimulation.this.inputQueue.add((Input) signal);
+				CircuitSimulation.this.wakeup();
 			}
 		}
 	};
@@ -0,0 +1,792 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.AndGate;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.component.Gate;
+import se.openflisp.sls.component.GateFunction;
+import se.openflisp.sls.component.NandGate;
+import se.openflisp.sls.component.NorGate;
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.component.NxorGate;
+import se.openflisp.sls.component.OrGate;
+import se.openflisp.sls.component.XorGate;
+
+/**
+ * A Circuit compiled into flat arrays for fast evaluation.
+ * 
+ * All known Gates are levelized so that every Gate comes after the Gates that drive its inputs.
+ * Each Gate is then described by an opcode, a range of input net indices and an output net index,
+ * which lets {@link #evaluate()} run as a single loop over primitive arrays. Only the Gates whose 
+ * input nets have changed since they were last evaluated are visited, in level order, so a change 
+ * only costs as much as the part of the Circuit that it reaches. Gates that are part of, or driven 
+ * by, a feedback loop are placed last and iterated until they are stable. Components that can not 
+ * be compiled are treated as external and their outputs are read from the model.
+ * 
+ * The compiled image is a snapshot of the Circuit's structure and has to be recompiled when
+ * Components or connections change.
+ * 
+ * @version 1.0
+ * @see SimulationEngine#LEVELIZED
+ */
+public class CompiledCircuit {
+	
+	/**
+	 * Opcodes for the constant gates, equal to the ordinal of the state they output.
+	 */
+	public static final byte OP_LOW = 0, OP_HIGH = 1, OP_FLOATING = 2;
+	
+	/**
+	 * Opcodes for the logical gates.
+	 */
+	public static final byte OP_AND = 3, OP_OR = 4, OP_NAND = 5, OP_NOR = 6, OP_XOR = 7, OP_NXOR = 8, OP_NOT = 9;
+	
+	/**
+	 * The truth rule of every opcode, null for the constant opcodes.
+	 */
+	private static final GateFunction[] FUNCTIONS = {
+		null, null, null,
+		GateFunction.AND, GateFunction.OR, GateFunction.NAND, GateFunction.NOR,
+		GateFunction.XOR, GateFunction.NXOR, GateFunction.NOT
+	};
+	
+	/**
+	 * Net that is used for unconnected inputs, always floating.
+	 */
+	static final int FLOATING_NET = 0;
+	
+	/**
+	 * Signal states indexed by their ordinal.
+	 */
+	static final Signal.State[] STATES = Signal.State.values();
+	
+	/**
+	 * The compiled gates in evaluation order.
+	 */
+	final Gate[] gates;
+	
+	/**
+	 * Opcode for each gate.
+	 */
+	final byte[] opcodes;
+	
+	/**
+	 * Start index into {@link #inputNets} for each gate, with one extra element marking the end.
+	 */
+	final int[] inputStart;
+	
+	/**
+	 * Net index for each input pin of every gate.
+	 */
+	final int[] inputNets;
+	
+	/**
+	 * Net index of each gate's output.
+	 */
+	final int[] outputNets;
+	
+	/**
+	 * Start index into {@link #gates} for each level, with one extra element marking the end.
+	 */
+	final int[] levelStart;
+	
+	/**
+	 * Index of the first gate that is part of or driven by a feedback loop.
+	 */
+	final int feedbackStart;
+	
+	/**
+	 * Start index into {@link #fanoutGates} for each net, with one extra element marking the end.
+	 */
+	final int[] fanoutStart;
+	
+	/**
+	 * Gates that read each net, in evaluation order.
+	 */
+	final int[] fanoutGates;
+	
+	/**
+	 * Current state of each net, stored as the ordinal of the Signal state.
+	 */
+	final PackedStateArray states;
+	
+	/**
+	 * Bit set of the gates that have an input net which changed since they were last evaluated.
+	 */
+	private final long[] dirtyGates;
+	
+	/**
+	 * Number of gates in {@link #dirtyGates}.
+	 */
+	private int dirtyCount;
+	
+	/**
+	 * Lowest gate that can be in {@link #dirtyGates}.
+	 */
+	private int firstDirty;
+	
+	/**
+	 * Bit set of the gates whose compiled state changed since the last commit.
+	 */
+	private final long[] changedGates;
+	
+	/**
+	 * The gates in {@link #changedGates}, in the order they first changed.
+	 */
+	private final int[] changedList;
+	
+	/**
+	 * Number of gates in {@link #changedList}.
+	 */
+	private int changedCount;
+	
+	/**
+	 * Nets driven by Components that could not be compiled.
+	 */
+	final int[] externalNets;
+	
+	/**
+	 * Outputs of Components that could not be compiled, parallel to {@link #externalNets}.
+	 */
+	final Output[] externalOutputs;
+	
+	/**
+	 * Lookup table from outputs to their net index.
+	 */
+	private final Map<Output, Integer> netIndex = new IdentityHashMap<Output, Integer>();
+	
+	/**
+	 * Lookup table from compiled gates to their index in {@link #gates}.
+	 */
+	private final Map<Component, Integer> gateIndex = new IdentityHashMap<Component, Integer>();
+	
+	/**
+	 * Compiles the current structure of a Circuit.
+	 * 
+	 * @param circuit		the circuit to compile
+	 * @throws IllegalArgumentException if the circuit is null
+	 */
+	public CompiledCircuit(Circuit circuit) {
+		this(Structure.of(circuit));
+	}
+	
+	/**
+	 * Compiles a collected structure, which is levelized and laid out in evaluation order.
+	 * 
+	 * @param structure		the structure to compile
+	 */
+	private CompiledCircuit(Structure structure) {
+		int gateCount = structure.opcodes.length;
+		int[] unorderedStart = structure.inputStart;
+		int[] unorderedNets = structure.inputNets;
+		List<Output> external = structure.external;
+		this.netIndex.putAll(structure.netIndex);
+		
+		// Build the fan-out edges and levelize the gates with Kahn's algorithm.
+		int[] fanout = new int[gateCount];
+		for (int pin = 0; pin < unorderedNets.length; pin++) {
+			if (unorderedNets[pin] != FLOATING_NET && unorderedNets[pin] <= gateCount) {
+				fanout[unorderedNets[pin] - 1]++;
+			}
+		}
+		int[] fanoutStart = new int[gateCount + 1];
+		for (int gate = 0; gate < gateCount; gate++) {
+			fanoutStart[gate + 1] = fanoutStart[gate] + fanout[gate];
+		}
+		int[] fanoutGates = new int[fanoutStart[gateCount]];
+		int[] fanoutFill = new int[gateCount];
+		int[] pending = new int[gateCount];
+		for (int gate = 0; gate < gateCount; gate++) {
+			for (int pin = unorderedStart[gate]; pin < unorderedStart[gate + 1]; pin++) {
+				int net = unorderedNets[pin];
+				if (net != FLOATING_NET && net <= gateCount) {
+					int driver = net - 1;
+					fanoutGates[fanoutStart[driver] + fanoutFill[driver]++] = gate;
+					pending[gate]++;
+				}
+			}
+		}
+		int[] levels = new int[gateCount];
+		int[] queue = new int[gateCount];
+		int head = 0, tail = 0, levelCount = 0;
+		for (int gate = 0; gate < gateCount; gate++) {
+			if (pending[gate] == 0) {
+				queue[tail++] = gate;
+			}
+		}
+		while (head < tail) {
+			int driver = queue[head++];
+			levelCount = Math.max(levelCount, levels[driver] + 1);
+			for (int edge = fanoutStart[driver]; edge < fanoutStart[driver + 1]; edge++) {
+				int gate = fanoutGates[edge];
+				levels[gate] = Math.max(levels[gate], levels[driver] + 1);
+				if (--pending[gate] == 0) {
+					queue[tail++] = gate;
+				}
+			}
+		}
+		
+		// Order the gates by level with a counting sort, followed by all gates in feedback loops.
+		this.feedbackStart = tail;
+		this.levelStart = new int[levelCount + 1];
+		for (int position = 0; position < tail; position++) {
+			this.levelStart[levels[queue[position]] + 1]++;
+		}
+		for (int level = 0; level < levelCount; level++) {
+			this.levelStart[level + 1] += this.levelStart[level];
+		}
+		int[] order = new int[gateCount];
+		int[] levelFill = new int[levelCount];
+		for (int position = 0; position < tail; position++) {
+			int gate = queue[position];
+			order[this.levelStart[levels[gate]] + levelFill[levels[gate]]++] = gate;
+		}
+		int feedbackPosition = tail;
+		for (int gate = 0; gate < gateCount; gate++) {
+			if (pending[gate] > 0) {
+				order[feedbackPosition++] = gate;
+			}
+		}
+		
+		// Lay out the final arrays in evaluation order.
+		this.gates = new Gate[gateCount];
+		this.opcodes = new byte[gateCount];
+		this.outputNets = new int[gateCount];
+		this.inputStart = new int[gateCount + 1];
+		this.inputNets = new int[unorderedNets.length];
+		int pin = 0;
+		for (int position = 0; position < gateCount; position++) {
+			int gate = order[position];
+			this.gates[position] = structure.gates[gate];
+			this.opcodes[position] = structure.opcodes[gate];
+			this.outputNets[position] = gate + 1;
+			if (structure.gates[gate] != null) {
+				this.gateIndex.put(structure.gates[gate], position);
+			}
+			this.inputStart[position] = pin;
+			for (int unordered = unorderedStart[gate]; unordered < unorderedStart[gate + 1]; unordered++) {
+				this.inputNets[pin++] = unorderedNets[unordered];
+			}
+		}
+		this.inputStart[gateCount] = pin;
+		
+		this.externalNets = new int[external.size()];
+		this.externalOutputs = external.toArray(new Output[external.size()]);
+		for (int output = 0; output < external.size(); output++) {
+			this.externalNets[output] = this.netIndex.get(this.externalOutputs[output]);
+		}
+		
+		// Start from the states that the model currently has, which keeps the state of any latches.
+		this.states = new PackedStateArray(1 + gateCount + external.size());
+		for (int net = 0; net < this.states.size(); net++) {
+			this.states.set(net, OP_FLOATING);
+		}
+		for (Map.Entry<Output, Integer> entry : this.netIndex.entrySet()) {
+			this.states.set(entry.getValue(), (byte) entry.getKey().getState().ordinal());
+		}
+		
+		// Index the gates that read each net, and mark every gate for the first evaluation.
+		int netCount = this.states.size();
+		this.fanoutStart = new int[netCount + 1];
+		for (pin = 0; pin < this.inputNets.length; pin++) {
+			this.fanoutStart[this.inputNets[pin] + 1]++;
+		}
+		for (int net = 0; net < netCount; net++) {
+			this.fanoutStart[net + 1] += this.fanoutStart[net];
+		}
+		this.fanoutGates = new int[this.inputNets.length];
+		int[] fanoutEnd = Arrays.copyOf(this.fanoutStart, netCount);
+		for (int gate = 0; gate < gateCount; gate++) {
+			for (pin = this.inputStart[gate]; pin < this.inputStart[gate + 1]; pin++) {
+				this.fanoutGates[fanoutEnd[this.inputNets[pin]]++] = gate;
+			}
+		}
+		int words = (gateCount + Long.SIZE - 1) / Long.SIZE;
+		this.dirtyGates = new long[words];
+		this.changedGates = new long[words];
+		this.changedList = new int[gateCount];
+		for (int gate = 0; gate < gateCount; gate++) {
+			this.dirtyGates[gate >>> 6] |= 1L << gate;
+		}
+		this.dirtyCount = gateCount;
+		this.firstDirty = 0;
+	}
+	
+	/**
+	 * Compiles a circuit that is described directly by arrays, without any Components.
+	 * 
+	 * Net 0 is always floating and is used for unconnected inputs, and net n + 1 is the output of 
+	 * gate n. The gates are described by opcodes and their inputs by ranges of net indices, and all
+	 * nets start as floating. This keeps very large circuits compact since no model objects are 
+	 * created, and the nets are accessed by index with {@link #getNetState(int)}.
+	 * 
+	 * @param opcodes		opcode of each gate
+	 * @param inputStart	start index into inputNets for each gate, with one extra element marking the end
+	 * @param inputNets		net index for each input pin of every gate
+	 * @return the compiled circuit
+	 * @throws IllegalArgumentException if the arrays do not describe a valid circuit
+	 */
+	public static CompiledCircuit fromArrays(byte[] opcodes, int[] inputStart, int[] inputNets) {
+		if (opcodes == null || inputStart == null || inputNets == null) {
+			throw new IllegalArgumentException("Arrays can not be null.");
+		}
+		if (inputStart.length != opcodes.length + 1 || inputStart[0] != 0 
+				|| inputStart[opcodes.length] != inputNets.length) {
+			throw new IllegalArgumentException("Input start does not match the number of gates and inputs.");
+		}
+		for (int gate = 0; gate < opcodes.length; gate++) {
+			if (opcodes[gate] < OP_LOW || opcodes[gate] > OP_NOT) {
+				throw new IllegalArgumentException("Unknown opcode " + opcodes[gate] + " for gate " + gate);
+			}
+			if (inputStart[gate] > inputStart[gate + 1]) {
+				throw new IllegalArgumentException("Input start is decreasing at gate " + gate);
+			}
+		}
+		for (int pin = 0; pin < inputNets.length; pin++) {
+			if (inputNets[pin] < 0 || inputNets[pin] > opcodes.length) {
+				throw new IllegalArgumentException("Unknown net " + inputNets[pin] + " at input " + pin);
+			}
+		}
+		Structure structure = new Structure();
+		structure.gates = new Gate[opcodes.length];
+		structure.opcodes = opcodes.clone();
+		structure.inputStart = inputStart.clone();
+		structure.inputNets = inputNets.clone();
+		return new CompiledCircuit(structure);
+	}
+	
+	/**
+	 * The gates and connections of a Circuit in the order they were found, before levelization.
+	 */
+	private static class Structure {
+		
+		/**
+		 * The gates, or null elements if the structure has no model.
+		 */
+		Gate[] gates;
+		
+		/**
+		 * Opcode for each gate.
+		 */
+		byte[] opcodes;
+		
+		/**
+		 * Start index into {@link #inputNets} for each gate, with one extra element marking the end.
+		 */
+		int[] inputStart;
+		
+		/**
+		 * Net index for each input pin of every gate.
+		 */
+		int[] inputNets;
+		
+		/**
+		 * Outputs of Components that could not be compiled.
+		 */
+		List<Output> external = new ArrayList<Output>();
+		
+		/**
+		 * Lookup table from outputs to their net index.
+		 */
+		Map<Output, Integer> netIndex = new IdentityHashMap<Output, Integer>();
+		
+		/**
+		 * Collects the structure of a Circuit.
+		 * 
+		 * @param circuit		the circuit to collect
+		 * @return the structure of the circuit
+		 * @throws IllegalArgumentException if the circuit is null
+		 */
+		static Structure of(Circuit circuit) {
+			if (circuit == null) {
+				throw new IllegalArgumentException("Circuit can not be null.");
+			}
+			Structure structure = new Structure();
+			List<Gate> compiled = new ArrayList<Gate>();
+			List<Byte> opcodes = new ArrayList<Byte>();
+			for (Component component : circuit.getComponents()) {
+				byte opcode = CompiledCircuit.opcodeOf(component);
+				if (opcode < 0) {
+					structure.external.addAll(component.getOutputs());
+				} else {
+					compiled.add((Gate) component);
+					opcodes.add(opcode);
+				}
+			}
+			
+			// Net 0 is reserved for unconnected inputs, then one net per gate and one per external output.
+			int gateCount = compiled.size();
+			structure.gates = compiled.toArray(new Gate[gateCount]);
+			structure.opcodes = new byte[gateCount];
+			for (int gate = 0; gate < gateCount; gate++) {
+				structure.opcodes[gate] = opcodes.get(gate);
+				structure.netIndex.put(structure.gates[gate].getOutput(), 1 + gate);
+			}
+			for (int output = 0; output < structure.external.size(); output++) {
+				structure.netIndex.put(structure.external.get(output), 1 + gateCount + output);
+			}
+			
+			// Collect the input nets of every gate, in the order they were found.
+			structure.inputStart = new int[gateCount + 1];
+			List<Integer> inputNets = new ArrayList<Integer>();
+			for (int gate = 0; gate < gateCount; gate++) {
+				structure.inputStart[gate] = inputNets.size();
+				for (Input input : structure.gates[gate].getInputs()) {
+					int net = FLOATING_NET;
+					if (input.isConnected()) {
+						Integer index = structure.netIndex.get(input.getConnection());
+						if (index == null) {
+							structure.external.add(input.getConnection());
+							index = gateCount + structure.external.size();
+							structure.netIndex.put(input.getConnection(), index);
+						}
+						net = index;
+					}
+					inputNets.add(net);
+				}
+			}
+			structure.inputStart[gateCount] = inputNets.size();
+			structure.inputNets = new int[inputNets.size()];
+			for (int pin = 0; pin < structure.inputNets.length; pin++) {
+				structure.inputNets[pin] = inputNets.get(pin);
+			}
+			return structure;
+		}
+	}
+	
+	/**
+	 * Gets the opcode for a Component.
+	 * 
+	 * Only the exact gate classes are compiled since subclasses may change how they are evaluated.
+	 * 
+	 * @param component		the component to get the opcode for
+	 * @return the opcode for the component, or -1 if it can not be compiled
+	 */
+	static byte opcodeOf(Component component) {
+		Class<?> type = component.getClass();
+		if (type == ConstantGate.class) {
+			return (byte) ((ConstantGate) component).getConstantState().ordinal();
+		} else if (type == AndGate.class) {
+			return OP_AND;
+		} else if (type == OrGate.class) {
+			return OP_OR;
+		} else if (type == NandGate.class) {
+			return OP_NAND;
+		} else if (type == NorGate.class) {
+			return OP_NOR;
+		} else if (type == XorGate.class) {
+			return OP_XOR;
+		} else if (type == NxorGate.class) {
+			return OP_NXOR;
+		} else if (type == NotGate.class) {
+			return OP_NOT;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Evaluates the compiled gates that are affected by changes since the last evaluation, in level 
+	 * order.
+	 * 
+	 * The outputs of external Components are read from the model before evaluating, and every gate 
+	 * that reads a net that changed is evaluated. All gates are evaluated the first time. If any gate 
+	 * in the feedback loops is affected, the gates in the loops are evaluated repeatedly until they 
+	 * are stable, or until they have been evaluated as many times as there are gates in the loops if 
+	 * they oscillate.
+	 * 
+	 * @return the number of gate outputs that changed
+	 */
+	public int evaluate() {
+		for (int external = 0; external < this.externalNets.length; external++) {
+			int net = this.externalNets[external];
+			byte state = (byte) this.externalOutputs[external].getState().ordinal();
+			if (this.states.get(net) != state) {
+				this.states.set(net, state);
+				this.markFanout(net);
+			}
+		}
+		int changes = 0;
+		int word = this.firstDirty >>> 6;
+		while (this.dirtyCount > 0 && word < this.dirtyGates.length) {
+			long bits = this.dirtyGates[word];
+			if (bits == 0) {
+				word++;
+				continue;
+			}
+			int gate = (word << 6) + Long.numberOfTrailingZeros(bits);
+			if (gate >= this.feedbackStart) {
+				break;
+			}
+			this.dirtyGates[word] = bits & (bits - 1);
+			this.dirtyCount--;
+			if (this.evaluateGate(gate)) {
+				this.markFanout(this.outputNets[gate]);
+				changes++;
+			}
+		}
+		this.firstDirty = this.gates.length;
+		if (this.dirtyCount == 0) {
+			return changes;
+		}
+		
+		// Only gates in the feedback loops are left, which are iterated as a whole.
+		Arrays.fill(this.dirtyGates, this.feedbackStart >>> 6, this.dirtyGates.length, 0);
+		this.dirtyCount = 0;
+		int feedbackCount = this.gates.length - this.feedbackStart;
+		for (int pass = 0; pass <= feedbackCount; pass++) {
+			int passChanges = 0;
+			for (int gate = this.feedbackStart; gate < this.gates.length; gate++) {
+				if (this.evaluateGate(gate)) {
+					passChanges++;
+				}
+			}
+			if (passChanges == 0) {
+				break;
+			}
+			changes += passChanges;
+		}
+		return changes;
+	}
+	
+	/**
+	 * Writes the compiled states back to the model.
+	 * 
+	 * Every gate whose compiled state changed since the last commit, and whose model output differs 
+	 * from it, is evaluated in level order. This makes the model reach the same states while still 
+	 * notifying all listeners of the changes.
+	 * 
+	 * @return the number of gates that were evaluated in the model
+	 */
+	public int commit() {
+		Arrays.sort(this.changedList, 0, this.changedCount);
+		int commits = 0;
+		for (int index = 0; index < this.changedCount; index++) {
+			int gate = this.changedList[index];
+			this.changedGates[gate >>> 6] &= ~(1L << gate);
+			if (this.gates[gate] == null) {
+				continue;
+			}
+			if (this.gates[gate].getOutput().getState().ordinal() != this.states.get(this.outputNets[gate])) {
+				this.gates[gate].evaluate();
+				commits++;
+			}
+		}
+		this.changedCount = 0;
+		return commits;
+	}
+	
+	/**
+	 * Helper function to evaluate a single gate and store its output state.
+	 * 
+	 * @param gate		index of the gate to evaluate
+	 * @return true if the output state changed, false otherwise
+	 */
+	private boolean evaluateGate(int gate) {
+		byte state = this.evaluateOpcode(gate);
+		int net = this.outputNets[gate];
+		if (this.states.get(net) != state) {
+			this.states.set(net, state);
+			long bit = 1L << gate;
+			if ((this.changedGates[gate >>> 6] & bit) == 0) {
+				this.changedGates[gate >>> 6] |= bit;
+				this.changedList[this.changedCount++] = gate;
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Helper function to mark every gate that reads a net for evaluation.
+	 * 
+	 * @param net		the net that changed
+	 */
+	private void markFanout(int net) {
+		for (int edge = this.fanoutStart[net]; edge < this.fanoutStart[net + 1]; edge++) {
+			int gate = this.fanoutGates[edge];
+			long bit = 1L << gate;
+			if ((this.dirtyGates[gate >>> 6] & bit) == 0) {
+				this.dirtyGates[gate >>> 6] |= bit;
+				this.dirtyCount++;
+				this.firstDirty = Math.min(this.firstDirty, gate);
+			}
+		}
+	}
+	
+	/**
+	 * Evaluates the output of a gate from the current net states, using the {@link GateFunction} 
+	 * of its opcode like the gate classes.
+	 * 
+	 * @param gate		index of the gate to evaluate
+	 * @return the ordinal of the evaluated state
+	 */
+	byte evaluateOpcode(int gate) {
+		return this.evaluateOpcode(gate, this.states);
+	}
+	
+	/**
+	 * Evaluates the output of a gate from a separate array of net states, using the 
+	 * {@link GateFunction} of its opcode like the gate classes.
+	 * 
+	 * @param gate		index of the gate to evaluate
+	 * @param states	state ordinal of each net
+	 * @return the ordinal of the evaluated state
+	 */
+	byte evaluateOpcode(int gate, PackedStateArray states) {
+		byte opcode = this.opcodes[gate];
+		if (opcode <= OP_FLOATING) {
+			return opcode;
+		}
+		int from = this.inputStart[gate];
+		int to = this.inputStart[gate + 1];
+		int low = 0, high = 0, floating = 0;
+		for (int pin = from; pin < to; pin++) {
+			switch (states.get(this.inputNets[pin])) {
+				case OP_LOW:
+					low++;
+				break;
+				case OP_HIGH:
+					high++;
+				break;
+				default:
+					floating++;
+				break;
+			}
+		}
+		return (byte) FUNCTIONS[opcode].evaluate(low, high, floating).ordinal();
+	}
+	
+	/**
+	 * Gets the compiled state of an Output.
+	 * 
+	 * @param output		the output to get the state for
+	 * @return the compiled state of the output
+	 * @throws IllegalArgumentException if the output is not part of the compiled Circuit
+	 */
+	public Signal.State getState(Output output) {
+		return STATES[this.states.get(this.netOf(output))];
+	}
+	
+	/**
+	 * Gets the number of nets, including the always floating net 0.
+	 * 
+	 * @return the number of nets
+	 */
+	public int getNetCount() {
+		return this.states.size();
+	}
+	
+	/**
+	 * Gets the compiled state of a net.
+	 * 
+	 * @param net		index of the net
+	 * @return the compiled state of the net
+	 * @throws IndexOutOfBoundsException if there is no such net
+	 * @see #fromArrays(byte[], int[], int[])
+	 */
+	public Signal.State getNetState(int net) {
+		return this.states.getState(net);
+	}
+	
+	/**
+	 * Gets the net index of an Output.
+	 * 
+	 * @param output		the output to get the net for
+	 * @return the net index of the output
+	 * @throws IllegalArgumentException if the output is not part of the compiled Circuit
+	 */
+	int netOf(Output output) {
+		Integer net = this.netIndex.get(output);
+		if (net == null) {
+			throw new IllegalArgumentException("Output is not part of the compiled circuit: " + output);
+		}
+		return net;
+	}
+	
+	/**
+	 * Gets the position of a compiled gate in evaluation order.
+	 * 
+	 * @param component		a compiled component
+	 * @return the position of the component in {@link #gates}
+	 * @throws IllegalArgumentException if the component is not compiled
+	 */
+	int indexOf(Component component) {
+		Integer gate = this.gateIndex.get(component);
+		if (gate == null) {
+			throw new IllegalArgumentException("Component is not part of the compiled circuit: " + component);
+		}
+		return gate;
+	}
+	
+	/**
+	 * Checks if a Component has been compiled, and therefore is evaluated by this image.
+	 * 
+	 * @param component		component to check
+	 * @return true if the component is compiled, false if it is external or unknown
+	 */
+	public boolean contains(Component component) {
+		return this.gateIndex.containsKey(component);
+	}
+	
+	/**
+	 * Gets the number of compiled gates.
+	 * 
+	 * @return the number of compiled gates
+	 */
+	public int getGateCount() {
+		return this.gates.length;
+	}
+	
+	/**
+	 * Gets the number of levels the gates outside of feedback loops were divided into.
+	 * 
+	 * @return the number of levels
+	 */
+	public int getLevelCount() {
+		return this.levelStart.length - 1;
+	}
+	
+	/**
+	 * Gets the level of a compiled gate.
+	 * 
+	 * @param component		a compiled component
+	 * @return the level of the component, or -1 if it is part of or driven by a feedback loop
+	 * @throws IllegalArgumentException if the component is not compiled
+	 */
+	public int getLevel(Component component) {
+		int gate = this.indexOf(component);
+		if (gate >= this.feedbackStart) {
+			return -1;
+		}
+		int level = 0;
+		while (this.levelStart[level + 1] <= gate) {
+			level++;
+		}
+		return level;
+	}
+}
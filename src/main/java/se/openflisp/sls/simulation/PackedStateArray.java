@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import se.openflisp.sls.Signal;
+
+/**
+ * Fixed size array of Signal states packed with two bits per element.
+ * 
+ * The states are stored as their ordinals, so 32 states fit in every long. Used by compiled
+ * Circuits to keep the state of every net without an object or byte per net.
+ * 
+ * @version 1.0
+ */
+public class PackedStateArray {
+	
+	/**
+	 * Number of states in each word.
+	 */
+	private static final int STATES_PER_WORD = 32;
+	
+	/**
+	 * Signal states indexed by their ordinal.
+	 */
+	private static final Signal.State[] STATES = Signal.State.values();
+	
+	/**
+	 * The packed states.
+	 */
+	private final long[] words;
+	
+	/**
+	 * Number of states in the array.
+	 */
+	private final int size;
+	
+	/**
+	 * Creates an array where every state is {@link Signal.State#LOW}.
+	 * 
+	 * @param size		number of states in the array
+	 * @throws IllegalArgumentException if the size is negative
+	 */
+	public PackedStateArray(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Size can not be negative.");
+		}
+		this.size = size;
+		this.words = new long[(size + STATES_PER_WORD - 1) / STATES_PER_WORD];
+	}
+	
+	/**
+	 * Creates a copy of another array.
+	 * 
+	 * @param array		the array to copy
+	 */
+	public PackedStateArray(PackedStateArray array) {
+		this.size = array.size;
+		this.words = array.words.clone();
+	}
+	
+	/**
+	 * Gets the number of states in the array.
+	 * 
+	 * @return the size of the array
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Gets the ordinal of a state without checking the index.
+	 * 
+	 * @param index		index of the state
+	 * @return the ordinal of the state
+	 */
+	byte get(int index) {
+		return (byte) (this.words[index >>> 5] >>> ((index & 31) << 1) & 3);
+	}
+	
+	/**
+	 * Sets the ordinal of a state without checking the index.
+	 * 
+	 * @param index		index of the state
+	 * @param ordinal	the ordinal of the new state
+	 */
+	void set(int index, byte ordinal) {
+		int shift = (index & 31) << 1;
+		long word = this.words[index >>> 5];
+		this.words[index >>> 5] = (word & ~(3L << shift)) | ((long) ordinal << shift);
+	}
+	
+	/**
+	 * Gets a state.
+	 * 
+	 * @param index		index of the state
+	 * @return the state at the index
+	 * @throws IndexOutOfBoundsException if the index is outside the array
+	 */
+	public Signal.State getState(int index) {
+		this.checkIndex(index);
+		return STATES[this.get(index)];
+	}
+	
+	/**
+	 * Sets a state.
+	 * 
+	 * @param index		index of the state
+	 * @param state		the new state
+	 * @throws IndexOutOfBoundsException if the index is outside the array
+	 * @throws IllegalArgumentException if the state is null
+	 */
+	public void setState(int index, Signal.State state) {
+		this.checkIndex(index);
+		if (state == null) {
+			throw new IllegalArgumentException("State can not be null.");
+		}
+		this.set(index, (byte) state.ordinal());
+	}
+	
+	/**
+	 * Helper function to check that an index is inside the array.
+	 * 
+	 * @param index		index to check
+	 * @throws IndexOutOfBoundsException if the index is outside the array
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is outside the array of size " + this.size);
+		}
+	}
+}
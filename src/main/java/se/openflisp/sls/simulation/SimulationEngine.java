@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+/**
+ * Identifier for which engine a Circuit should be simulated with.
+ * 
+ * @version 1.0
+ * @see Circuit#setSimulationEngine(SimulationEngine)
+ */
+public enum SimulationEngine {
+	/**
+	 * Evaluates one Component at a time as their inputs change.
+	 */
+	EVENT_DRIVEN,
+	
+	/**
+	 * Compiles the Circuit into a levelized {@link CompiledCircuit} and evaluates all
+	 * Components in topological order whenever something changes.
+	 */
+	LEVELIZED
+}
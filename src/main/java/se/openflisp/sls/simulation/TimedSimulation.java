@@ -0,0 +1,503 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import java.util.Arrays;
+
+import se.openflisp.sls.Output;
+import se.openflisp.sls.Signal;
+
+/**
+ * Timing accurate discrete event simulation of a compiled Circuit.
+ * 
+ * Every gate changes its output after its {@link se.openflisp.sls.Component#getRiseDelay() rise}
+ * or {@link se.openflisp.sls.Component#getFallDelay() fall} delay, which makes glitches and races
+ * visible. Delays are inertial: if a gate is evaluated again before a scheduled change has happened
+ * and the new result differs, the scheduled change is cancelled, so pulses shorter than the delay
+ * of a gate are filtered out.
+ * 
+ * Events are kept in a timing wheel with one slot per time unit, and a cancelled event is detected
+ * by comparing its sequence number with the current sequence number of its net. Event data is
+ * stored in parallel arrays so that no objects are created while the simulation runs.
+ * 
+ * The simulation works on its own copy of the net states and does not change the model. At time
+ * zero every gate is evaluated once, and the outputs of external Components keep the state they
+ * had when the Circuit was compiled. Gates of a circuit compiled from arrays have a delay of one.
+ * 
+ * @version 1.0
+ */
+public class TimedSimulation {
+	
+	/**
+	 * Number of slots in the timing wheel, must be a power of two.
+	 */
+	private static final int WHEEL_SIZE = 1024;
+	
+	/**
+	 * Marks the end of an event list.
+	 */
+	private static final int NO_EVENT = -1;
+	
+	/**
+	 * The compiled Circuit that is simulated.
+	 */
+	private final CompiledCircuit compiled;
+	
+	/**
+	 * Current state of each net.
+	 */
+	private final PackedStateArray states;
+	
+	/**
+	 * Start index into {@link #fanoutGates} for each net, with one extra element marking the end.
+	 */
+	private final int[] fanoutStart;
+	
+	/**
+	 * Gates that read each net.
+	 */
+	private final int[] fanoutGates;
+	
+	/**
+	 * Rise delay of each gate.
+	 */
+	private final int[] riseDelays;
+	
+	/**
+	 * Fall delay of each gate.
+	 */
+	private final int[] fallDelays;
+	
+	/**
+	 * Current sequence number of each net, events with another sequence number are cancelled.
+	 */
+	private final int[] netSequence;
+	
+	/**
+	 * If each net has a scheduled change that has not been cancelled.
+	 */
+	private final boolean[] netScheduled;
+	
+	/**
+	 * The state each net is scheduled to change to, valid if {@link #netScheduled} is set.
+	 */
+	private final byte[] netScheduledState;
+	
+	/**
+	 * Number of times each net has changed state.
+	 */
+	private final int[] transitions;
+	
+	/**
+	 * First event of each slot in the timing wheel.
+	 */
+	private final int[] wheel = new int[WHEEL_SIZE];
+	
+	/**
+	 * Time of each event.
+	 */
+	private long[] eventTime;
+	
+	/**
+	 * Net of each event.
+	 */
+	private int[] eventNet;
+	
+	/**
+	 * State each event changes its net to.
+	 */
+	private byte[] eventState;
+	
+	/**
+	 * Sequence number of the net when each event was scheduled.
+	 */
+	private int[] eventSequence;
+	
+	/**
+	 * Next event in the same slot or in the free list.
+	 */
+	private int[] eventNext;
+	
+	/**
+	 * First unused event.
+	 */
+	private int freeEvent = NO_EVENT;
+	
+	/**
+	 * Number of events in the timing wheel, including cancelled ones.
+	 */
+	private int pendingEvents;
+	
+	/**
+	 * Gates that are evaluated at the current time.
+	 */
+	private final int[] affectedGates;
+	
+	/**
+	 * The time step each gate was last added to {@link #affectedGates}.
+	 */
+	private final long[] affectedStep;
+	
+	/**
+	 * Counter used to mark affected gates.
+	 */
+	private long step;
+	
+	/**
+	 * Current simulation time.
+	 */
+	private long time;
+	
+	/**
+	 * Number of applied state changes.
+	 */
+	private long eventCount;
+	
+	/**
+	 * Creates a timed simulation of the current structure of a Circuit.
+	 * 
+	 * @param circuit		the circuit to simulate
+	 */
+	public TimedSimulation(Circuit circuit) {
+		this(new CompiledCircuit(circuit));
+	}
+	
+	/**
+	 * Creates a timed simulation of a compiled Circuit.
+	 * 
+	 * @param compiled		the compiled circuit to simulate
+	 */
+	public TimedSimulation(CompiledCircuit compiled) {
+		if (compiled == null) {
+			throw new IllegalArgumentException("Compiled circuit can not be null.");
+		}
+		this.compiled = compiled;
+		int gateCount = compiled.gates.length;
+		int netCount = compiled.states.size();
+		this.states = new PackedStateArray(compiled.states);
+		this.netSequence = new int[netCount];
+		this.netScheduled = new boolean[netCount];
+		this.netScheduledState = new byte[netCount];
+		this.transitions = new int[netCount];
+		this.riseDelays = new int[gateCount];
+		this.fallDelays = new int[gateCount];
+		this.affectedGates = new int[gateCount];
+		this.affectedStep = new long[gateCount];
+		
+		this.fanoutStart = new int[netCount + 1];
+		for (int pin = 0; pin < compiled.inputNets.length; pin++) {
+			this.fanoutStart[compiled.inputNets[pin] + 1]++;
+		}
+		for (int net = 0; net < netCount; net++) {
+			this.fanoutStart[net + 1] += this.fanoutStart[net];
+		}
+		this.fanoutGates = new int[compiled.inputNets.length];
+		int[] fanoutEnd = Arrays.copyOf(this.fanoutStart, netCount);
+		for (int gate = 0; gate < gateCount; gate++) {
+			if (compiled.gates[gate] == null) {
+				this.riseDelays[gate] = 1;
+				this.fallDelays[gate] = 1;
+			} else {
+				this.riseDelays[gate] = compiled.gates[gate].getRiseDelay();
+				this.fallDelays[gate] = compiled.gates[gate].getFallDelay();
+			}
+			for (int pin = compiled.inputStart[gate]; pin < compiled.inputStart[gate + 1]; pin++) {
+				this.fanoutGates[fanoutEnd[compiled.inputNets[pin]]++] = gate;
+			}
+		}
+		
+		Arrays.fill(this.wheel, NO_EVENT);
+		this.growEvents(Math.max(16, gateCount));
+		for (int gate = 0; gate < gateCount; gate++) {
+			this.evaluateGate(gate);
+		}
+	}
+	
+	/**
+	 * Gets the current simulation time.
+	 * 
+	 * @return the time of the last processed events
+	 */
+	public long getTime() {
+		return this.time;
+	}
+	
+	/**
+	 * Gets the number of state changes that have been applied.
+	 * 
+	 * @return the number of applied events
+	 */
+	public long getEventCount() {
+		return this.eventCount;
+	}
+	
+	/**
+	 * Checks if there are no scheduled state changes.
+	 * 
+	 * @return true if the Circuit is stable, false otherwise
+	 */
+	public boolean isStable() {
+		for (int net = 0; net < this.netScheduled.length; net++) {
+			if (this.netScheduled[net]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the simulated state of an Output at the current time.
+	 * 
+	 * @param output		a compiled output
+	 * @return the state of the output
+	 * @throws IllegalArgumentException if the output is not compiled
+	 */
+	public Signal.State getState(Output output) {
+		return CompiledCircuit.STATES[this.states.get(this.compiled.netOf(output))];
+	}
+	
+	/**
+	 * Gets the number of times an Output has changed state, used to detect glitches.
+	 * 
+	 * @param output		a compiled output
+	 * @return the number of state changes
+	 * @throws IllegalArgumentException if the output is not compiled
+	 */
+	public int getTransitionCount(Output output) {
+		return this.transitions[this.compiled.netOf(output)];
+	}
+	
+	/**
+	 * Forces an Output to a state at a certain time, typically used on the ConstantGates of a Circuit
+	 * to apply stimuli. Cancels any change that is scheduled for the output by its gate.
+	 * 
+	 * @param output		a compiled output
+	 * @param state			the state to change to
+	 * @param time			when the output should change, after the current time
+	 * @throws IllegalArgumentException if the output is not compiled or the time is not after the current time
+	 */
+	public void force(Output output, Signal.State state, long time) {
+		if (state == null) {
+			throw new IllegalArgumentException("State can not be null.");
+		}
+		if (time <= this.time) {
+			throw new IllegalArgumentException("Can not force an output at or before the current time.");
+		}
+		int net = this.compiled.netOf(output);
+		this.netSequence[net]++;
+		this.netScheduled[net] = true;
+		this.netScheduledState[net] = (byte) state.ordinal();
+		this.schedule(net, (byte) state.ordinal(), time);
+	}
+	
+	/**
+	 * Processes all events up to and including a certain time.
+	 * 
+	 * @param endTime		the time to simulate to
+	 * @return the number of applied state changes
+	 */
+	public long runUntil(long endTime) {
+		long startCount = this.eventCount;
+		long next;
+		while ((next = this.nextEventTime()) != NO_EVENT && next <= endTime) {
+			this.processTime(next);
+		}
+		if (endTime > this.time) {
+			this.time = endTime;
+		}
+		return this.eventCount - startCount;
+	}
+	
+	/**
+	 * Processes the events of the next time that has any.
+	 * 
+	 * @return true if events were processed, false if there were none
+	 */
+	public boolean advance() {
+		long next = this.nextEventTime();
+		if (next == NO_EVENT) {
+			return false;
+		}
+		this.processTime(next);
+		return true;
+	}
+	
+	/**
+	 * Helper function to apply all events at a time and evaluate the gates they affect.
+	 * 
+	 * @param now		the time to process
+	 */
+	private void processTime(long now) {
+		this.time = now;
+		this.step++;
+		int affectedCount = 0;
+		int slot = (int) (now & (WHEEL_SIZE - 1));
+		int previous = NO_EVENT;
+		int event = this.wheel[slot];
+		while (event != NO_EVENT) {
+			int next = this.eventNext[event];
+			if (this.eventTime[event] != now) {
+				previous = event;
+				event = next;
+				continue;
+			}
+			if (previous == NO_EVENT) {
+				this.wheel[slot] = next;
+			} else {
+				this.eventNext[previous] = next;
+			}
+			int net = this.eventNet[event];
+			if (this.eventSequence[event] == this.netSequence[net]) {
+				this.netScheduled[net] = false;
+				if (this.states.get(net) != this.eventState[event]) {
+					this.states.set(net, this.eventState[event]);
+					this.transitions[net]++;
+					this.eventCount++;
+					for (int fanout = this.fanoutStart[net]; fanout < this.fanoutStart[net + 1]; fanout++) {
+						int gate = this.fanoutGates[fanout];
+						if (this.affectedStep[gate] != this.step) {
+							this.affectedStep[gate] = this.step;
+							this.affectedGates[affectedCount++] = gate;
+						}
+					}
+				}
+			}
+			this.freeEvent(event);
+			event = next;
+		}
+		for (int affected = 0; affected < affectedCount; affected++) {
+			this.evaluateGate(this.affectedGates[affected]);
+		}
+	}
+	
+	/**
+	 * Helper function to evaluate a gate and schedule or cancel a change of its output.
+	 * 
+	 * @param gate		index of the gate to evaluate
+	 */
+	private void evaluateGate(int gate) {
+		byte state = this.compiled.evaluateOpcode(gate, this.states);
+		int net = this.compiled.outputNets[gate];
+		if (this.netScheduled[net]) {
+			if (this.netScheduledState[net] == state) {
+				return;
+			}
+			this.netSequence[net]++;
+			this.netScheduled[net] = false;
+		}
+		if (this.states.get(net) != state) {
+			int delay;
+			if (state == CompiledCircuit.OP_HIGH) {
+				delay = this.riseDelays[gate];
+			} else if (state == CompiledCircuit.OP_LOW) {
+				delay = this.fallDelays[gate];
+			} else {
+				delay = Math.max(this.riseDelays[gate], this.fallDelays[gate]);
+			}
+			this.netScheduled[net] = true;
+			this.netScheduledState[net] = state;
+			this.schedule(net, state, this.time + delay);
+		}
+	}
+	
+	/**
+	 * Helper function to put an event in the timing wheel.
+	 * 
+	 * @param net		the net to change
+	 * @param state		the state to change to
+	 * @param when		the time of the change
+	 */
+	private void schedule(int net, byte state, long when) {
+		if (this.freeEvent == NO_EVENT) {
+			this.growEvents(this.eventTime.length * 2);
+		}
+		int event = this.freeEvent;
+		this.freeEvent = this.eventNext[event];
+		int slot = (int) (when & (WHEEL_SIZE - 1));
+		this.eventTime[event] = when;
+		this.eventNet[event] = net;
+		this.eventState[event] = state;
+		this.eventSequence[event] = this.netSequence[net];
+		this.eventNext[event] = this.wheel[slot];
+		this.wheel[slot] = event;
+		this.pendingEvents++;
+	}
+	
+	/**
+	 * Helper function to return an event to the free list.
+	 * 
+	 * @param event		the event to free
+	 */
+	private void freeEvent(int event) {
+		this.eventNext[event] = this.freeEvent;
+		this.freeEvent = event;
+		this.pendingEvents--;
+	}
+	
+	/**
+	 * Helper function to find the time of the next event in the timing wheel.
+	 * 
+	 * @return the time of the next event, or {@link #NO_EVENT} if there are no events
+	 */
+	private long nextEventTime() {
+		if (this.pendingEvents == 0) {
+			return NO_EVENT;
+		}
+		for (long candidate = this.time + 1; candidate <= this.time + WHEEL_SIZE; candidate++) {
+			int event = this.wheel[(int) (candidate & (WHEEL_SIZE - 1))];
+			while (event != NO_EVENT) {
+				if (this.eventTime[event] == candidate) {
+					return candidate;
+				}
+				event = this.eventNext[event];
+			}
+		}
+		long next = Long.MAX_VALUE;
+		for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+			for (int event = this.wheel[slot]; event != NO_EVENT; event = this.eventNext[event]) {
+				next = Math.min(next, this.eventTime[event]);
+			}
+		}
+		return next;
+	}
+	
+	/**
+	 * Helper function to increase the number of events that can be scheduled.
+	 * 
+	 * @param capacity		the new capacity
+	 */
+	private void growEvents(int capacity) {
+		int oldCapacity = this.eventTime == null ? 0 : this.eventTime.length;
+		if (oldCapacity == 0) {
+			this.eventTime = new long[capacity];
+			this.eventNet = new int[capacity];
+			this.eventState = new byte[capacity];
+			this.eventSequence = new int[capacity];
+			this.eventNext = new int[capacity];
+		} else {
+			this.eventTime = Arrays.copyOf(this.eventTime, capacity);
+			this.eventNet = Arrays.copyOf(this.eventNet, capacity);
+			this.eventState = Arrays.copyOf(this.eventState, capacity);
+			this.eventSequence = Arrays.copyOf(this.eventSequence, capacity);
+			this.eventNext = Arrays.copyOf(this.eventNext, capacity);
+		}
+		for (int event = capacity - 1; event >= oldCapacity; event--) {
+			this.eventNext[event] = this.freeEvent;
+			this.freeEvent = event;
+		}
+	}
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.util;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Quadtree that indexes items by a point each, used to find the items in an area or the item
+ * closest to a point without looking at every item.
+ * 
+ * The tree covers a square that grows when an item is put outside of it, so points can be
+ * anywhere. A leaf is split into four quadrants when it holds more than {@link #LEAF_CAPACITY}
+ * items, unless it only covers a single point, and quadrants are merged again when items are
+ * removed. The points are copied when they are put, so later changes of a Point do not affect the
+ * tree.
+ * 
+ * @version 1.0
+ * @param <T>	type of the indexed items
+ */
+public class QuadTree<T> {
+	
+	/**
+	 * Number of items a leaf holds before it is split.
+	 */
+	public static final int LEAF_CAPACITY = 16;
+	
+	/**
+	 * Side of the square that the tree covers when its first item is put.
+	 */
+	private static final long INITIAL_SIZE = 1024;
+	
+	/**
+	 * Positions of all items in the tree.
+	 */
+	private final Map<T, Entry<T>> entries = new HashMap<T, Entry<T>>();
+	
+	/**
+	 * Root of the tree, null if the tree is empty.
+	 */
+	private Node<T> root;
+	
+	/**
+	 * Puts an item at a point, an item that already is in the tree is moved.
+	 * 
+	 * @param item		the item to put
+	 * @param point		the position of the item
+	 * @throws IllegalArgumentException if the item or point is null
+	 */
+	public void put(T item, Point point) {
+		if (item == null || point == null) {
+			throw new IllegalArgumentException("Requires a non-null item and point.");
+		}
+		Entry<T> entry = this.entries.get(item);
+		if (entry != null) {
+			if (entry.x == point.x && entry.y == point.y) {
+				return;
+			}
+			this.root.remove(entry);
+		} else {
+			entry = new Entry<T>(item);
+			this.entries.put(item, entry);
+		}
+		entry.x = point.x;
+		entry.y = point.y;
+		if (this.root == null) {
+			this.root = new Node<T>(Math.floor((double) entry.x / INITIAL_SIZE) * INITIAL_SIZE,
+					Math.floor((double) entry.y / INITIAL_SIZE) * INITIAL_SIZE, INITIAL_SIZE);
+		}
+		while (!this.root.contains(entry.x, entry.y)) {
+			this.grow(entry.x, entry.y);
+		}
+		this.root.add(entry);
+	}
+	
+	/**
+	 * Removes an item from the tree.
+	 * 
+	 * @param item		the item to remove
+	 * @return true if the item was in the tree, false otherwise
+	 */
+	public boolean remove(T item) {
+		Entry<T> entry = this.entries.remove(item);
+		if (entry == null) {
+			return false;
+		}
+		this.root.remove(entry);
+		if (this.entries.isEmpty()) {
+			this.root = null;
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the position of an item.
+	 * 
+	 * @param item		the item
+	 * @return a copy of the position, null if the item is not in the tree
+	 */
+	public Point get(T item) {
+		Entry<T> entry = this.entries.get(item);
+		return entry == null ? null : new Point(entry.x, entry.y);
+	}
+	
+	/**
+	 * Checks if an item is in the tree.
+	 * 
+	 * @param item		the item to check
+	 * @return true if the item has been put, false otherwise
+	 */
+	public boolean contains(T item) {
+		return this.entries.containsKey(item);
+	}
+	
+	/**
+	 * Gets the number of items in the tree.
+	 * 
+	 * @return the item count
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+	
+	/**
+	 * Removes all items from the tree.
+	 */
+	public void clear() {
+		this.entries.clear();
+		this.root = null;
+	}
+	
+	/**
+	 * Gets the items whose points are in an area, the edges of the area are included.
+	 * 
+	 * @param area		the area to search
+	 * @return the items in the area
+	 * @throws IllegalArgumentException if the area is null
+	 */
+	public List<T> query(Rectangle area) {
+		if (area == null) {
+			throw new IllegalArgumentException("Requires a non-null area.");
+		}
+		List<T> result = new ArrayList<T>();
+		if (this.root != null) {
+			this.root.query((long) area.x, (long) area.y, (long) area.x + area.width, (long) area.y + area.height, result);
+		}
+		return result;
+	}
+	
+	/**
+	 * Gets the item closest to a point, ties are broken arbitrarily.
+	 * 
+	 * @param point		the point to search from
+	 * @return the closest item, null if the tree is empty
+	 * @throws IllegalArgumentException if the point is null
+	 */
+	public T nearest(Point point) {
+		if (point == null) {
+			throw new IllegalArgumentException("Requires a non-null point.");
+		}
+		if (this.root == null) {
+			return null;
+		}
+		Entry<T> best = null;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		PriorityQueue<Candidate<T>> queue = new PriorityQueue<Candidate<T>>();
+		queue.add(new Candidate<T>(this.root, this.root.distanceSq(point.x, point.y)));
+		while (!queue.isEmpty()) {
+			Candidate<T> candidate = queue.poll();
+			if (candidate.distance >= bestDistance) {
+				break;
+			}
+			Node<T> node = candidate.node;
+			if (node.children == null) {
+				for (Entry<T> entry : node.entries) {
+					double distance = entry.distanceSq(point.x, point.y);
+					if (distance < bestDistance) {
+						best = entry;
+						bestDistance = distance;
+					}
+				}
+			} else {
+				for (Node<T> child : node.children) {
+					if (child.count > 0) {
+						queue.add(new Candidate<T>(child, child.distanceSq(point.x, point.y)));
+					}
+				}
+			}
+		}
+		return best == null ? null : best.item;
+	}
+	
+	/**
+	 * Helper function to double the size of the tree towards a point outside of it.
+	 * 
+	 * @param x		x coordinate of the point
+	 * @param y		y coordinate of the point
+	 */
+	private void grow(int x, int y) {
+		Node<T> old = this.root;
+		double size = old.size * 2;
+		double left = x < old.x ? old.x - old.size : old.x;
+		double top = y < old.y ? old.y - old.size : old.y;
+		Node<T> grown = new Node<T>(left, top, size);
+		grown.split();
+		int quadrant = grown.quadrant(old.x, old.y);
+		grown.children[quadrant] = old;
+		grown.count = old.count;
+		this.root = grown;
+	}
+	
+	/**
+	 * An item and its position.
+	 */
+	private static class Entry<T> {
+		private final T item;
+		private int x, y;
+		private int index;
+		
+		private Entry(T item) {
+			this.item = item;
+		}
+		
+		private double distanceSq(int x, int y) {
+			double dx = (double) this.x - x, dy = (double) this.y - y;
+			return dx * dx + dy * dy;
+		}
+	}
+	
+	/**
+	 * A node that is either a leaf with entries or has four quadrants.
+	 * 
+	 * Coordinates are doubles so that a tree that has grown past the int range does not overflow.
+	 */
+	private static class Node<T> {
+		private final double x, y, size;
+		private List<Entry<T>> entries = new ArrayList<Entry<T>>();
+		private Node<T>[] children;
+		private int count;
+		
+		private Node(double x, double y, double size) {
+			this.x = x;
+			this.y = y;
+			this.size = size;
+		}
+		
+		private boolean contains(int x, int y) {
+			return x >= this.x && y >= this.y && x < this.x + this.size && y < this.y + this.size;
+		}
+		
+		private double distanceSq(int x, int y) {
+			double dx = Math.max(0, Math.max(this.x - x, x - (this.x + this.size)));
+			double dy = Math.max(0, Math.max(this.y - y, y - (this.y + this.size)));
+			return dx * dx + dy * dy;
+		}
+		
+		private int quadrant(double x, double y) {
+			double half = this.size / 2;
+			return (x < this.x + half ? 0 : 1) + (y < this.y + half ? 0 : 2);
+		}
+		
+		@SuppressWarnings("unchecked")
+		private void split() {
+			double half = this.size / 2;
+			this.children = (Node<T>[]) new Node<?>[] {
+				new Node<T>(this.x, this.y, half),
+				new Node<T>(this.x + half, this.y, half),
+				new Node<T>(this.x, this.y + half, half),
+				new Node<T>(this.x + half, this.y + half, half)
+			};
+			List<Entry<T>> entries = this.entries;
+			this.entries = null;
+			for (Entry<T> entry : entries) {
+				this.children[this.quadrant(entry.x, entry.y)].add(entry);
+			}
+		}
+		
+		private void add(Entry<T> entry) {
+			this.count++;
+			if (this.children != null) {
+				this.children[this.quadrant(entry.x, entry.y)].add(entry);
+				return;
+			}
+			entry.index = this.entries.size();
+			this.entries.add(entry);
+			if (this.entries.size() > LEAF_CAPACITY && this.size > 1) {
+				this.split();
+			}
+		}
+		
+		private void remove(Entry<T> entry) {
+			this.count--;
+			if (this.children == null) {
+				Entry<T> last = this.entries.remove(this.entries.size() - 1);
+				if (last != entry) {
+					this.entries.set(entry.index, last);
+					last.index = entry.index;
+				}
+				return;
+			}
+			this.children[this.quadrant(entry.x, entry.y)].remove(entry);
+			if (this.count <= LEAF_CAPACITY / 2) {
+				List<Entry<T>> entries = new ArrayList<Entry<T>>(LEAF_CAPACITY);
+				this.collect(entries);
+				for (int index = 0; index < entries.size(); index++) {
+					entries.get(index).index = index;
+				}
+				this.children = null;
+				this.entries = entries;
+			}
+		}
+		
+		private void collect(List<Entry<T>> result) {
+			if (this.children == null) {
+				result.addAll(this.entries);
+				return;
+			}
+			for (Node<T> child : this.children) {
+				child.collect(result);
+			}
+		}
+		
+		private void query(long left, long top, long right, long bottom, List<T> result) {
+			if (this.count == 0 || right < this.x || bottom < this.y
+					|| left >= this.x + this.size || top >= this.y + this.size) {
+				return;
+			}
+			if (this.children == null) {
+				for (Entry<T> entry : this.entries) {
+					if (entry.x >= left && entry.x <= right && entry.y >= top && entry.y <= bottom) {
+						result.add(entry.item);
+					}
+				}
+				return;
+			}
+			for (Node<T> child : this.children) {
+				child.query(left, top, right, bottom, result);
+			}
+		}
+	}
+	
+	/**
+	 * A node to visit in a nearest neighbour search, ordered by its distance to the point.
+	 */
+	private static class Candidate<T> implements Comparable<Candidate<T>> {
+		private final Node<T> node;
+		private final double distance;
+		
+		private Candidate(Node<T> node, double distance) {
+			this.node = node;
+			this.distance = distance;
+		}
+		
+		@Override
+		public int compareTo(Candidate<T> other) {
+			return Double.compare(this.distance, other.distance);
+		}
+	}
+}
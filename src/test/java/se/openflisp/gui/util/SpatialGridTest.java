@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.gui.util;
+
+import static org.junit.Assert.*;
+
+import java.awt.Rectangle;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpatialGridTest {
+	
+	private SpatialGrid<String> grid;
+	
+	@Before
+	public void setup() {
+		grid = new SpatialGrid<String>(10);
+	}
+	
+	@Test
+	public void testGridIsEmptyAtInit() {
+		assertEquals(0, grid.size());
+		assertFalse(grid.contains("a"));
+		assertTrue(grid.query(new Rectangle(-100, -100, 200, 200)).isEmpty());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCreatingWithoutCellSize() {
+		new SpatialGrid<String>(0);
+	}
+	
+	@Test
+	public void testAddingBox() {
+		grid.add("a", new Rectangle(5, 5, 20, 20));
+		assertTrue(grid.contains("a"));
+		assertEquals(1, grid.size());
+		assertEquals(Arrays.asList("a"), grid.query(new Rectangle(0, 0, 1, 1)));
+		assertEquals(Arrays.asList("a"), grid.query(new Rectangle(22, 22, 1, 1)));
+		assertTrue(grid.query(new Rectangle(35, 35, 1, 1)).isEmpty());
+	}
+	
+	@Test
+	public void testAddingBoxWithNegativeCoordinates() {
+		grid.add("a", new Rectangle(-15, -15, 4, 4));
+		assertEquals(Arrays.asList("a"), grid.query(new Rectangle(-20, -20, 1, 1)));
+		assertTrue(grid.query(new Rectangle(0, 0, 1, 1)).isEmpty());
+	}
+	
+	@Test
+	public void testAddingReplacesCells() {
+		grid.add("a", new Rectangle(0, 0, 5, 5));
+		grid.add("a", new Rectangle(100, 100, 5, 5));
+		assertEquals(1, grid.size());
+		assertTrue(grid.query(new Rectangle(0, 0, 5, 5)).isEmpty());
+		assertEquals(Arrays.asList("a"), grid.query(new Rectangle(100, 100, 5, 5)));
+	}
+	
+	@Test
+	public void testAddingDiagonalWireOnlyCoversPath() {
+		grid.add("wire", new Line2D.Double(0, 0, 95, 95), 1);
+		for (int position = 0; position < 95; position += 5) {
+			assertEquals(Arrays.asList("wire"), grid.query(new Rectangle(position, position, 0, 0)));
+		}
+		assertTrue(grid.query(new Rectangle(85, 5, 0, 0)).isEmpty());
+		assertTrue(grid.query(new Rectangle(5, 85, 0, 0)).isEmpty());
+	}
+	
+	@Test
+	public void testAddingWireWithMargin() {
+		grid.add("wire", new Line2D.Double(0, 15, 95, 15), 8);
+		assertEquals(Arrays.asList("wire"), grid.query(new Rectangle(50, 5, 0, 0)));
+		assertEquals(Arrays.asList("wire"), grid.query(new Rectangle(50, 25, 0, 0)));
+		assertTrue(grid.query(new Rectangle(50, 35, 0, 0)).isEmpty());
+	}
+	
+	@Test
+	public void testAddingPathWithSeveralSegments() {
+		Path2D.Double path = new Path2D.Double();
+		path.moveTo(5, 5);
+		path.lineTo(95, 5);
+		path.lineTo(95, 95);
+		grid.add("wire", path, 0);
+		assertEquals(Arrays.asList("wire"), grid.query(new Rectangle(45, 5, 0, 0)));
+		assertEquals(Arrays.asList("wire"), grid.query(new Rectangle(95, 45, 0, 0)));
+		assertTrue(grid.query(new Rectangle(45, 45, 0, 0)).isEmpty());
+	}
+	
+	@Test
+	public void testRemoving() {
+		grid.add("a", new Rectangle(0, 0, 30, 30));
+		grid.add("b", new Line2D.Double(0, 0, 30, 0), 0);
+		assertTrue(grid.remove("a"));
+		assertFalse(grid.remove("a"));
+		assertFalse(grid.contains("a"));
+		assertEquals(1, grid.size());
+		assertEquals(Arrays.asList("b"), grid.query(new Rectangle(0, 0, 30, 30)));
+		assertTrue(grid.remove("b"));
+		assertTrue(grid.query(new Rectangle(0, 0, 30, 30)).isEmpty());
+	}
+	
+	@Test
+	public void testQueryReturnsEveryItemOnce() {
+		grid.add("a", new Rectangle(0, 0, 50, 50));
+		grid.add("b", new Line2D.Double(0, 0, 50, 50), 2);
+		List<String> items = grid.query(new Rectangle(0, 0, 50, 50));
+		assertEquals(2, items.size());
+		assertTrue(items.containsAll(Arrays.asList("a", "b")));
+	}
+	
+	@Test
+	public void testClearing() {
+		grid.add("a", new Rectangle(0, 0, 5, 5));
+		grid.add("b", new Line2D.Double(0, 0, 50, 50), 0);
+		grid.clear();
+		assertEquals(0, grid.size());
+		assertFalse(grid.contains("b"));
+		assertTrue(grid.query(new Rectangle(0, 0, 50, 50)).isEmpty());
+	}
+}
@@ -143,6 +143,24 @@ public abstract class ComponentTest {
 		assertEquals(Signal.State.HIGH, component.getOutput(id).getState());
 	}
 
+	@Test
+	public void testDefaultDelays() {
+		assertEquals(1, component.getRiseDelay());
+		assertEquals(1, component.getFallDelay());
+	}
+
+	@Test
+	public void testSettingDelays() {
+		component.setDelays(3, 5);
+		assertEquals(3, component.getRiseDelay());
+		assertEquals(5, component.getFallDelay());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testSettingZeroDelay() {
+		component.setDelays(0, 1);
+	}
+
 	protected abstract Component getInstance(String identifier);
 
 	protected abstract Component getInstance(String identifier, ComponentEventDelegator delegator);
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.component;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import se.openflisp.sls.Signal;
+
+public class GateFunctionTest {
+	
+	private static final Signal.State[] STATES = Signal.State.values();
+	
+	/**
+	 * A gate that only knows how to evaluate one input vector.
+	 */
+	private static class SingleVectorGate extends Gate {
+		
+		private final GateFunction function;
+		
+		public SingleVectorGate(String identifier, GateFunction function) {
+			super(identifier);
+			this.function = function;
+		}
+		
+		@Override
+		protected Signal.State evaluateOutput() {
+			return this.function.evaluate(this.getInputArray());
+		}
+	}
+	
+	@Test
+	public void testWordsMatchSingleEvaluation() {
+		for (GateFunction function : GateFunction.values()) {
+			for (int inputs = 0; inputs <= 3; inputs++) {
+				long[] high = new long[inputs + 1];
+				long[] low = new long[inputs + 1];
+				int[] inputNets = this.fillVectors(high, low, inputs);
+				function.evaluateWords(high, low, inputNets, 0, inputs, inputs);
+				this.assertVectors(function, high, low, inputs);
+			}
+		}
+	}
+	
+	@Test
+	public void testDefaultWordEvaluation() {
+		for (GateFunction function : GateFunction.values()) {
+			for (int inputs = 0; inputs <= 3; inputs++) {
+				long[] high = new long[inputs + 1];
+				long[] low = new long[inputs + 1];
+				int[] inputNets = this.fillVectors(high, low, inputs);
+				Gate gate = new SingleVectorGate("gate", function);
+				gate.evaluateWords(high, low, inputNets, 0, inputs, inputs);
+				this.assertVectors(function, high, low, inputs);
+				assertEquals(0, gate.getInputs().size());
+			}
+		}
+	}
+	
+	@Test
+	public void testCountEvaluation() {
+		assertEquals(Signal.State.LOW, GateFunction.AND.evaluate(1, 1, 1));
+		assertEquals(Signal.State.FLOATING, GateFunction.AND.evaluate(0, 1, 1));
+		assertEquals(Signal.State.HIGH, GateFunction.NOR.evaluate(2, 0, 0));
+		assertEquals(Signal.State.HIGH, GateFunction.XOR.evaluate(2, 1, 0));
+		assertEquals(Signal.State.FLOATING, GateFunction.XOR.evaluate(1, 0, 0));
+		assertEquals(Signal.State.FLOATING, GateFunction.NOT.evaluate(1, 1, 0));
+		assertEquals(Signal.State.HIGH, GateFunction.NOT.evaluate(1, 0, 0));
+	}
+	
+	/**
+	 * Fills net 0 to inputs - 1 so that every combination of input states is one vector.
+	 */
+	private int[] fillVectors(long[] high, long[] low, int inputs) {
+		int[] inputNets = new int[inputs];
+		for (int vector = 0; vector < Long.SIZE; vector++) {
+			int combination = vector;
+			for (int net = 0; net < inputs; net++) {
+				Signal.State state = STATES[combination % STATES.length];
+				combination /= STATES.length;
+				if (state == Signal.State.HIGH) {
+					high[net] |= 1L << vector;
+				} else if (state == Signal.State.LOW) {
+					low[net] |= 1L << vector;
+				}
+			}
+		}
+		for (int net = 0; net < inputs; net++) {
+			inputNets[net] = net;
+		}
+		return inputNets;
+	}
+	
+	private void assertVectors(GateFunction function, long[] high, long[] low, int output) {
+		for (int vector = 0; vector < Long.SIZE; vector++) {
+			int lows = 0, highs = 0, floating = 0;
+			for (int net = 0; net < output; net++) {
+				if ((high[net] & (1L << vector)) != 0) {
+					highs++;
+				} else if ((low[net] & (1L << vector)) != 0) {
+					lows++;
+				} else {
+					floating++;
+				}
+			}
+			Signal.State expected = function.evaluate(lows, highs, floating);
+			String message = function + " with " + output + " inputs in vector " + vector;
+			assertEquals(message, expected == Signal.State.HIGH, (high[output] & (1L << vector)) != 0);
+			assertEquals(message, expected == Signal.State.LOW, (low[output] & (1L << vector)) != 0);
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package se.openflisp.sls.component;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.*;
 import static org.mockito.Mockito.*;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -67,6 +70,71 @@ public abstract class GateTest extends ComponentTest {
 		}
 	}
 	
+	@Test
+	public void testPreparedEvaluation() {
+		TruthTable table = this.generateTruthTable();
+		for (TruthTableCase ttCase : table.getCases()) {
+			Gate gate = (Gate) this.getInstance("gate");
+			ttCase.addConnectInputs(gate);
+			gate.prepareEvaluation();
+			assertEquals(ttCase.debugMessage, Signal.State.FLOATING, gate.getOutput().getState());
+			gate.commitEvaluation();
+			assertEquals(ttCase.debugMessage, ttCase.output, gate.getOutput().getState());
+		}
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testCommittingUnpreparedEvaluation() {
+		Gate gate = (Gate) this.getInstance("gate");
+		gate.commitEvaluation();
+	}
+	
+	@Test
+	public void testEvaluatingWithoutAllocating() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		
+		Gate gate = (Gate) this.getInstance("gate");
+		gate.initiateInputs(2);
+		new ConstantGate("high", Signal.State.HIGH).getOutput().connect(gate.getInput("0"));
+		new ConstantGate("low", Signal.State.LOW).getOutput().connect(gate.getInput("1"));
+		for (int i = 0; i < 100000; i++) {
+			gate.evaluate();
+		}
+		long threadID = Thread.currentThread().getId();
+		long allocated = Long.MAX_VALUE;
+		for (int round = 0; round < 5 && allocated > 0; round++) {
+			long before = threads.getThreadAllocatedBytes(threadID);
+			for (int i = 0; i < 100000; i++) {
+				gate.evaluate();
+			}
+			allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadID) - before);
+		}
+		assertEquals(0, allocated);
+	}
+	
+	@Test
+	public void testTruthTableWords() {
+		TruthTable table = this.generateTruthTable();
+		for (TruthTableCase ttCase : table.getCases()) {
+			Gate gate = (Gate) this.getInstance("gate");
+			int output = ttCase.signals.length + 1;
+			long[] high = new long[output + 1];
+			long[] low = new long[output + 1];
+			int[] inputNets = new int[ttCase.signals.length];
+			for (int inputID = 0; inputID < ttCase.signals.length; inputID++) {
+				inputNets[inputID] = inputID + 1;
+				high[inputID + 1] = ttCase.signals[inputID] == Signal.State.HIGH ? -1L : 0;
+				low[inputID + 1] = ttCase.signals[inputID] == Signal.State.LOW ? -1L : 0;
+			}
+			gate.evaluateWords(high, low, inputNets, 0, inputNets.length, output);
+			assertEquals(ttCase.debugMessage, ttCase.output == Signal.State.HIGH ? -1L : 0, high[output]);
+			assertEquals(ttCase.debugMessage, ttCase.output == Signal.State.LOW ? -1L : 0, low[output]);
+		}
+	}
+	
 	public class TruthTableCase {
 		
 		private Map<String, Input> inputs = new HashMap<String, Input>();
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncEventDispatcherTest {
+	
+	private final CountDownLatch release = new CountDownLatch(1);
+	
+	private final List<Integer> runEvents = Collections.synchronizedList(new ArrayList<Integer>());
+	
+	@After
+	public void tearDown() {
+		release.countDown();
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCreatingWithInvalidCapacity() {
+		new AsyncEventDispatcher(0, BackpressurePolicy.BLOCK);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCreatingWithNullPolicy() {
+		new AsyncEventDispatcher(16, null);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testDispatchingNullEvent() {
+		new AsyncEventDispatcher().dispatch(null, null);
+	}
+	
+	@Test
+	public void testRunningEventsInOrderOnWorkerThread() throws InterruptedException {
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, BackpressurePolicy.BLOCK);
+		final Thread caller = Thread.currentThread();
+		final boolean[] onCaller = new boolean[1];
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				onCaller[0] = Thread.currentThread() == caller;
+			}
+		});
+		for (int i = 0; i < 20; i++) {
+			dispatcher.dispatch(null, new RecordingEvent(i));
+		}
+		CountDownLatch done = new CountDownLatch(1);
+		dispatcher.dispatch(null, new LatchEvent(done));
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertFalse(onCaller[0]);
+		assertEquals(20, runEvents.size());
+		for (int i = 0; i < 20; i++) {
+			assertEquals(Integer.valueOf(i), runEvents.get(i));
+		}
+		assertEquals(0, dispatcher.getQueueDepth());
+	}
+	
+	@Test
+	public void testBlockingWhenFull() throws InterruptedException {
+		final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(2, BackpressurePolicy.BLOCK);
+		this.blockWorker(dispatcher);
+		dispatcher.dispatch(null, new RecordingEvent(1));
+		dispatcher.dispatch(null, new RecordingEvent(2));
+		assertEquals(2, dispatcher.getQueueDepth());
+		
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				dispatcher.dispatch(null, new RecordingEvent(3));
+			}
+		};
+		producer.start();
+		producer.join(200);
+		assertTrue(producer.isAlive());
+		
+		release.countDown();
+		producer.join(5000);
+		assertFalse(producer.isAlive());
+		this.awaitIdle(dispatcher);
+		assertEquals(Arrays.asList(1, 2, 3), runEvents);
+		assertEquals(0, dispatcher.getDroppedCount());
+	}
+	
+	@Test
+	public void testInterruptingBlockedDispatch() throws InterruptedException {
+		final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(1, BackpressurePolicy.BLOCK);
+		this.blockWorker(dispatcher);
+		dispatcher.dispatch(null, new RecordingEvent(1));
+		final boolean[] interrupted = new boolean[1];
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				dispatcher.dispatch(null, new RecordingEvent(2));
+				interrupted[0] = Thread.currentThread().isInterrupted();
+			}
+		};
+		producer.start();
+		producer.join(200);
+		assertTrue(producer.isAlive());
+		
+		producer.interrupt();
+		producer.join(5000);
+		assertFalse(producer.isAlive());
+		assertTrue(interrupted[0]);
+		assertEquals(1, dispatcher.getDroppedCount());
+		
+		release.countDown();
+		this.awaitIdle(dispatcher);
+		assertEquals(Arrays.asList(1), runEvents);
+	}
+	
+	@Test
+	public void testDroppingOldestWhenFull() throws InterruptedException {
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(2, BackpressurePolicy.DROP_OLDEST);
+		this.blockWorker(dispatcher);
+		for (int i = 1; i <= 5; i++) {
+			dispatcher.dispatch(null, new RecordingEvent(i));
+		}
+		assertEquals(2, dispatcher.getQueueDepth());
+		assertEquals(3, dispatcher.getDroppedCount());
+		
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (dispatcher.getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		this.awaitIdle(dispatcher);
+		assertEquals(Arrays.asList(4, 5), runEvents);
+	}
+	
+	@Test
+	public void testCoalescingBySignal() throws InterruptedException {
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, BackpressurePolicy.COALESCE);
+		this.blockWorker(dispatcher);
+		Object signalA = new Object(), signalB = new Object();
+		dispatcher.dispatch(signalA, new RecordingEvent(1));
+		dispatcher.dispatch(signalB, new RecordingEvent(2));
+		dispatcher.dispatch(signalA, new RecordingEvent(3));
+		dispatcher.dispatch(null, new RecordingEvent(4));
+		dispatcher.dispatch(signalA, new RecordingEvent(5));
+		assertEquals(3, dispatcher.getQueueDepth());
+		assertEquals(2, dispatcher.getCoalescedCount());
+		
+		release.countDown();
+		this.awaitIdle(dispatcher);
+		assertEquals(Arrays.asList(5, 2, 4), runEvents);
+		
+		dispatcher.dispatch(signalA, new RecordingEvent(6));
+		this.awaitIdle(dispatcher);
+		assertEquals(Arrays.asList(5, 2, 4, 6), runEvents);
+	}
+	
+	@Test
+	public void testContinuingAfterFailingEvent() throws InterruptedException {
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, BackpressurePolicy.BLOCK);
+		final Thread.UncaughtExceptionHandler handler = new Thread.UncaughtExceptionHandler() {
+			public void uncaughtException(Thread thread, Throwable e) {}
+		};
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				Thread.currentThread().setUncaughtExceptionHandler(handler);
+			}
+		});
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				throw new IllegalStateException();
+			}
+		});
+		dispatcher.dispatch(null, new RecordingEvent(1));
+		this.awaitIdle(dispatcher);
+		assertEquals(Arrays.asList(1), runEvents);
+	}
+	
+	@Test
+	public void testContinuingAfterError() throws InterruptedException {
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, BackpressurePolicy.BLOCK);
+		final Thread.UncaughtExceptionHandler handler = new Thread.UncaughtExceptionHandler() {
+			public void uncaughtException(Thread thread, Throwable e) {}
+		};
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				Thread.currentThread().setUncaughtExceptionHandler(handler);
+			}
+		});
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				throw new AssertionError();
+			}
+		});
+		dispatcher.dispatch(null, new RecordingEvent(1));
+		this.awaitIdle(dispatcher);
+		assertEquals(Arrays.asList(1), runEvents);
+	}
+	
+	@Test
+	public void testRestartingWorkerAfterFailingHandler() throws InterruptedException {
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, BackpressurePolicy.BLOCK);
+		final Thread.UncaughtExceptionHandler handler = new Thread.UncaughtExceptionHandler() {
+			public void uncaughtException(Thread thread, Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		};
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				Thread.currentThread().setUncaughtExceptionHandler(handler);
+			}
+		});
+		this.blockWorker(dispatcher);
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				throw new IllegalStateException();
+			}
+		});
+		dispatcher.dispatch(null, new RecordingEvent(1));
+		release.countDown();
+		this.awaitIdle(dispatcher);
+		assertEquals(Arrays.asList(1), runEvents);
+	}
+	
+	/**
+	 * Queues an event that keeps the worker busy until the test releases it.
+	 */
+	private void blockWorker(AsyncEventDispatcher dispatcher) throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {}
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+	}
+	
+	private void awaitIdle(AsyncEventDispatcher dispatcher) throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		dispatcher.dispatch(null, new LatchEvent(done));
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+	
+	private class RecordingEvent implements Runnable {
+		
+		private final int number;
+		
+		public RecordingEvent(int number) {
+			this.number = number;
+		}
+		
+		public void run() {
+			runEvents.add(number);
+		}
+	}
+	
+	private static class LatchEvent implements Runnable {
+		
+		private final CountDownLatch latch;
+		
+		public LatchEvent(CountDownLatch latch) {
+			this.latch = latch;
+		}
+		
+		public void run() {
+			latch.countDown();
+		}
+	}
+}
@@ -45,7 +45,7 @@ public class CircuitEventDelegatorTest extends EventDelegatorTest<CircuitListene
 	@Override
 	public CircuitListener createListener(boolean isSwingListener) {
 		if(isSwingListener) {
-			return new CircuitListener() {
+			return new CircuitLoadListener() {
 				@Override
 				public void onComponentAdded(Component component) {
 					assertTrue(SwingUtilities.isEventDispatchThread());
@@ -59,9 +59,13 @@ public class CircuitEventDelegatorTest extends EventDelegatorTest<CircuitListene
 				public void onComponentMoved(Component component, Point from, Point to) {
 					assertTrue(SwingUtilities.isEventDispatchThread());
 				}
+				@Override
+				public void onCircuitLoaded() {
+					assertTrue(SwingUtilities.isEventDispatchThread());
+				}
 			};
 		}
-		return new CircuitListener() {
+		return new CircuitLoadListener() {
 			@Override
 			public void onComponentAdded(Component component) {
 				assertFalse(SwingUtilities.isEventDispatchThread());
@@ -74,6 +78,10 @@ public class CircuitEventDelegatorTest extends EventDelegatorTest<CircuitListene
 			public void onComponentMoved(Component component, Point from, Point to) {
 				assertFalse(SwingUtilities.isEventDispatchThread());
 			}
+			@Override
+			public void onCircuitLoaded() {
+				assertFalse(SwingUtilities.isEventDispatchThread());
+			}
 		};
 	}
 
@@ -144,6 +152,24 @@ public class CircuitEventDelegatorTest extends EventDelegatorTest<CircuitListene
 		}
 	}
 
+	@Test
+	public void testOnCircuitLoaded() {
+		CircuitLoadListener modelListener = Mockito.mock(CircuitLoadListener.class);
+		CircuitLoadListener swingListener = Mockito.mock(CircuitLoadListener.class);
+		CircuitLoadListener normalListener = Mockito.mock(CircuitLoadListener.class);
+		CircuitListener plainListener = Mockito.mock(CircuitListener.class);
+		delegator.addListener(ListenerContext.MODEL, modelListener);
+		delegator.addListener(ListenerContext.SWING, swingListener);
+		delegator.addListener(ListenerContext.DEFAULT, normalListener);
+		delegator.addListener(ListenerContext.DEFAULT, plainListener);
+		delegator.onCircuitLoaded();
+		
+		verify(modelListener).onCircuitLoaded();
+		verify(swingListener, Mockito.timeout(1000)).onCircuitLoaded();
+		verify(normalListener).onCircuitLoaded();
+		verifyZeroInteractions(plainListener);
+	}
+
 	@Test
 	public void testEventDispatchThread() {
 		delegator.addListener(ListenerContext.SWING,
@@ -165,9 +191,23 @@ public class CircuitEventDelegatorTest extends EventDelegatorTest<CircuitListene
 		callListenerMethods(delegator);
 	}
 
+	@Test
+	public void testAsyncListeners() {
+		CircuitLoadListener asyncListener = Mockito.mock(CircuitLoadListener.class);
+		delegator.setAsyncDispatcher(new AsyncEventDispatcher(16, BackpressurePolicy.BLOCK));
+		delegator.addListener(ListenerContext.ASYNC, asyncListener);
+		callListenerMethods(delegator);
+
+		verify(asyncListener, Mockito.timeout(1000)).onComponentAdded(component);
+		verify(asyncListener, Mockito.timeout(1000)).onComponentRemoved(component);
+		verify(asyncListener, Mockito.timeout(1000)).onComponentMoved(component, point, point);
+		verify(asyncListener, Mockito.timeout(1000)).onCircuitLoaded();
+	}
+
 	private void callListenerMethods(CircuitEventDelegator cDelegator) {
 		cDelegator.onComponentAdded(component);
 		cDelegator.onComponentRemoved(component);
 		cDelegator.onComponentMoved(component, point, point);
+		cDelegator.onCircuitLoaded();
 	}
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.component.NotGate;
+
+public class ComponentEventBusTest {
+	
+	private ComponentEventBus bus;
+	private NotGate gate1, gate2;
+	private ComponentListener listener;
+	
+	@Before
+	public void setup() {
+		bus = new ComponentEventBus();
+		gate1 = new NotGate("1");
+		gate2 = new NotGate("2");
+		listener = Mockito.mock(ComponentListener.class);
+	}
+	
+	@Test
+	public void testGlobalSubscription() {
+		assertTrue(bus.subscribe(ListenerContext.DEFAULT, listener));
+		assertFalse(bus.subscribe(ListenerContext.DEFAULT, listener));
+		bus.publishSignalChange(gate1, gate1.getOutput());
+		bus.publishSignalChange(gate2, gate2.getOutput());
+		verify(listener, times(1)).onSignalChange(gate1, gate1.getOutput());
+		verify(listener, times(1)).onSignalChange(gate2, gate2.getOutput());
+		assertEquals(0, bus.getIndexedCount());
+		
+		assertTrue(bus.unsubscribe(ListenerContext.DEFAULT, listener));
+		bus.publishSignalChange(gate1, gate1.getOutput());
+		verify(listener, times(1)).onSignalChange(gate1, gate1.getOutput());
+	}
+	
+	@Test
+	public void testSuspendedBusDropsEvents() {
+		bus.subscribe(ListenerContext.DEFAULT, listener);
+		bus.subscribe(gate1, ListenerContext.DEFAULT, listener);
+		bus.setSuspended(true);
+		assertTrue(bus.isSuspended());
+		bus.publishSignalChange(gate1, gate1.getOutput());
+		bus.publishSignalConnection(gate1, gate2.getInput("A"), gate1.getOutput());
+		verifyZeroInteractions(listener);
+		
+		bus.setSuspended(false);
+		bus.publishSignalChange(gate1, gate1.getOutput());
+		verify(listener, times(2)).onSignalChange(gate1, gate1.getOutput());
+	}
+	
+	@Test
+	public void testComponentSubscription() {
+		assertTrue(bus.subscribe(gate1, ListenerContext.DEFAULT, listener));
+		bus.publishSignalChange(gate1, gate1.getOutput());
+		bus.publishSignalChange(gate2, gate2.getOutput());
+		verify(listener, times(1)).onSignalChange(gate1, gate1.getOutput());
+		verify(listener, never()).onSignalChange(gate2, gate2.getOutput());
+	}
+	
+	@Test
+	public void testSignalSubscription() {
+		Input input = gate1.getInput("A");
+		assertTrue(bus.subscribe(gate1.getOutput(), ListenerContext.DEFAULT, listener));
+		bus.publishSignalChange(gate1, input);
+		bus.publishSignalChange(gate1, gate1.getOutput());
+		verify(listener, never()).onSignalChange(gate1, input);
+		verify(listener, times(1)).onSignalChange(gate1, gate1.getOutput());
+	}
+	
+	@Test
+	public void testSignalSubscriptionReceivesConnectionOnce() {
+		Input input = gate2.getInput("A");
+		Output output = gate1.getOutput();
+		bus.subscribe(output, ListenerContext.DEFAULT, listener);
+		bus.subscribe(input, ListenerContext.DEFAULT, listener);
+		bus.publishSignalConnection(gate1, input, output);
+		bus.publishSignalConnection(gate2, input, output);
+		verify(listener, times(2)).onSignalConnection(input, output);
+		
+		ComponentListener outputListener = Mockito.mock(ComponentListener.class);
+		bus.subscribe(output, ListenerContext.DEFAULT, outputListener);
+		bus.publishSignalDisconnection(gate1, input, output);
+		bus.publishSignalDisconnection(gate2, input, output);
+		verify(outputListener, times(1)).onSignalDisconnection(input, output);
+	}
+	
+	@Test
+	public void testUnsubscribingRemovesIndex() {
+		bus.subscribe(gate1, ListenerContext.MODEL, listener);
+		bus.subscribe(gate1.getOutput(), ListenerContext.SWING, listener);
+		assertEquals(2, bus.getIndexedCount());
+		assertFalse(bus.unsubscribe(gate2, ListenerContext.MODEL, listener));
+		assertFalse(bus.unsubscribe(gate1, ListenerContext.SWING, listener));
+		assertTrue(bus.unsubscribe(gate1, ListenerContext.MODEL, listener));
+		assertTrue(bus.unsubscribe(gate1.getOutput(), ListenerContext.SWING, listener));
+		assertEquals(0, bus.getIndexedCount());
+	}
+	
+	@Test
+	public void testSubscribingNull() {
+		assertFalse(bus.subscribe((Component) null, ListenerContext.MODEL, listener));
+		assertFalse(bus.subscribe(gate1, null, listener));
+		assertFalse(bus.subscribe(gate1, ListenerContext.MODEL, null));
+		assertEquals(0, bus.getIndexedCount());
+	}
+	
+	@Test
+	public void testDelegatorPublishesToEveryBus() {
+		ComponentEventBus otherBus = new ComponentEventBus();
+		ComponentListener otherListener = Mockito.mock(ComponentListener.class);
+		bus.subscribe(ListenerContext.DEFAULT, listener);
+		otherBus.subscribe(ListenerContext.DEFAULT, otherListener);
+		gate1.getEventDelegator().addEventBus(bus, gate1);
+		gate1.getEventDelegator().addEventBus(otherBus, gate1);
+		gate1.getEventDelegator().onSignalChange(gate1, gate1.getOutput());
+		verify(listener).onSignalChange(gate1, gate1.getOutput());
+		verify(otherListener).onSignalChange(gate1, gate1.getOutput());
+	}
+	
+	@Test
+	public void testSettingSignalChangeBatcher() {
+		SignalChangeBatcher batcher = new SignalChangeBatcher();
+		bus.subscribe(gate1, ListenerContext.SWING, listener);
+		bus.setSignalChangeBatcher(batcher);
+		assertSame(batcher, bus.getSignalChangeBatcher());
+		bus.publishSignalChange(gate1, gate1.getOutput());
+		assertEquals(1, batcher.getPendingCount());
+	}
+	
+	@Test
+	public void testDelegatorPublishesToBus() {
+		bus.subscribe(gate1.getOutput(), ListenerContext.DEFAULT, listener);
+		assertTrue(gate1.getEventDelegator().addEventBus(bus, gate1));
+		assertFalse(gate1.getEventDelegator().addEventBus(bus, gate1));
+		assertTrue(gate1.getEventDelegator().getEventBuses().contains(bus));
+		gate1.getEventDelegator().onSignalChange(gate1, gate1.getOutput());
+		verify(listener, times(1)).onSignalChange(gate1, gate1.getOutput());
+		
+		assertTrue(gate1.getEventDelegator().removeEventBus(bus));
+		assertFalse(gate1.getEventDelegator().removeEventBus(bus));
+		gate1.getEventDelegator().onSignalChange(gate1, gate1.getOutput());
+		verify(listener, times(1)).onSignalChange(gate1, gate1.getOutput());
+	}
+	
+	@Test
+	public void testDeliveringOneContextAtATime() {
+		ComponentListener componentModel = Mockito.mock(ComponentListener.class);
+		ComponentListener componentDefault = Mockito.mock(ComponentListener.class);
+		ComponentListener signalModel = Mockito.mock(ComponentListener.class);
+		gate1.getEventDelegator().addListener(ListenerContext.MODEL, componentModel);
+		gate1.getEventDelegator().addListener(ListenerContext.DEFAULT, componentDefault);
+		bus.subscribe(ListenerContext.DEFAULT, listener);
+		bus.subscribe(gate1.getOutput(), ListenerContext.MODEL, signalModel);
+		gate1.getEventDelegator().addEventBus(bus, gate1);
+		gate1.getEventDelegator().onSignalChange(gate1, gate1.getOutput());
+		
+		InOrder order = inOrder(componentModel, signalModel, componentDefault, listener);
+		order.verify(componentModel).onSignalChange(gate1, gate1.getOutput());
+		order.verify(signalModel).onSignalChange(gate1, gate1.getOutput());
+		order.verify(componentDefault).onSignalChange(gate1, gate1.getOutput());
+		order.verify(listener).onSignalChange(gate1, gate1.getOutput());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSettingBusWithoutComponent() {
+		gate1.getEventDelegator().addEventBus(bus, null);
+	}
+}
@@ -19,6 +19,9 @@ package se.openflisp.sls.event;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import javax.swing.SwingUtilities;
 import org.junit.Before;
 import org.junit.Test;
@@ -165,6 +168,64 @@ public class ComponentEventDelegatorTest extends EventDelegatorTest<ComponentLis
 		callListenerMethods(delegator);
 	}
 
+	@Test
+	public void testAsyncListeners() {
+		ComponentListener asyncListener = Mockito.mock(ComponentListener.class);
+		delegator.setAsyncDispatcher(new AsyncEventDispatcher(16, BackpressurePolicy.BLOCK));
+		delegator.addListener(ListenerContext.ASYNC, asyncListener);
+		assertTrue(delegator.getAsyncListeners().contains(asyncListener));
+		callListenerMethods(delegator);
+		
+		verify(asyncListener, Mockito.timeout(1000)).onSignalChange(component, signal);
+		verify(asyncListener, Mockito.timeout(1000)).onSignalConnection(input, output);
+		verify(asyncListener, Mockito.timeout(1000)).onSignalDisconnection(input, output);
+	}
+
+	@Test
+	public void testCoalescingPerDelegator() throws InterruptedException {
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(16, BackpressurePolicy.COALESCE);
+		ComponentEventDelegator other = new ComponentEventDelegator();
+		ComponentListener asyncListener = Mockito.mock(ComponentListener.class);
+		ComponentListener otherListener = Mockito.mock(ComponentListener.class);
+		delegator.setAsyncDispatcher(dispatcher);
+		other.setAsyncDispatcher(dispatcher);
+		delegator.addListener(ListenerContext.ASYNC, asyncListener);
+		other.addListener(ListenerContext.ASYNC, otherListener);
+		
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		dispatcher.dispatch(null, new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {}
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		delegator.onSignalChange(component, signal);
+		other.onSignalChange(component, signal);
+		delegator.onSignalChange(component, signal);
+		assertEquals(2, dispatcher.getQueueDepth());
+		assertEquals(1, dispatcher.getCoalescedCount());
+		release.countDown();
+		
+		verify(asyncListener, Mockito.timeout(1000)).onSignalChange(component, signal);
+		verify(otherListener, Mockito.timeout(1000)).onSignalChange(component, signal);
+	}
+
+	@Test
+	public void testNotEventDispatchThread_ASYNC() {
+		delegator.addListener(ListenerContext.ASYNC,
+			createListener(false));
+		callListenerMethods(delegator);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testSettingNullAsyncDispatcher() {
+		delegator.setAsyncDispatcher(null);
+	}
+
 	private void callListenerMethods(ComponentEventDelegator eDelegator) {
 		eDelegator.onSignalChange(component, signal);
 		eDelegator.onSignalConnection(input, output);
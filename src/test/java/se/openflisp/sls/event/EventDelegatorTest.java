@@ -60,6 +60,7 @@ public abstract class EventDelegatorTest<T> {
 		assertThat(eventDelegator.getModelListeners().size(), is(0));
 		assertThat(eventDelegator.getSwingListeners().size(), is(0));
 		assertThat(eventDelegator.getNormalListeners().size(), is(0));
+		assertThat(eventDelegator.getAsyncListeners().size(), is(0));
 	}
 
 	@Test
@@ -230,6 +231,47 @@ public abstract class EventDelegatorTest<T> {
 		assertFalse(eventDelegator.removeListener(listener));
 	}
 
+	@Test
+	public void testAddingSameListenerTwice() {
+		assertTrue(eventDelegator.addListener(ListenerContext.MODEL, listener));
+		assertFalse(eventDelegator.addListener(ListenerContext.MODEL, listener));
+		assertThat(eventDelegator.getModelListeners().size(), is(1));
+	}
+	
+	@Test
+	public void testListenerArrayIsSnapshot() {
+		eventDelegator.addListener(ListenerContext.MODEL, listener);
+		Object[] snapshot = eventDelegator.getListenerArray(ListenerContext.MODEL);
+		eventDelegator.addListener(ListenerContext.MODEL, listener2);
+		eventDelegator.removeListener(listener);
+		
+		assertArrayEquals(new Object[] {listener}, snapshot);
+		assertArrayEquals(new Object[] {listener2}, eventDelegator.getListenerArray(ListenerContext.MODEL));
+		assertThat(eventDelegator.getListenerArray(ListenerContext.SWING).length, is(0));
+	}
+	
+	@Test
+	public void testAddingListenersConcurrently() throws InterruptedException {
+		final int threadCount = 4;
+		final int listenersPerThread = 50;
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < listenersPerThread; j++) {
+						eventDelegator.addListener(ListenerContext.DEFAULT, Mockito.mock(getListenerClass()));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(eventDelegator.getNormalListeners().size(), is(threadCount * listenersPerThread));
+	}
+
 	public abstract EventDelegator<T> getDelegatorInstance();
 	public abstract Class<T> getListenerClass();
 
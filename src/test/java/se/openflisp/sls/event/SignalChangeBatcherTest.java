@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.event;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.AndGate;
+
+public class SignalChangeBatcherTest {
+	
+	private SignalChangeBatcher batcher;
+	
+	private AndGate gate;
+	
+	@Before
+	public void setup() {
+		batcher = new SignalChangeBatcher(10000);
+		gate = new AndGate("gate");
+		gate.initiateInputs(2);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCreatingWithInvalidFlushInterval() {
+		new SignalChangeBatcher(0);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSettingInvalidFlushInterval() {
+		batcher.setFlushInterval(-1);
+	}
+	
+	@Test
+	public void testSettingFlushInterval() {
+		assertEquals(SignalChangeBatcher.DEFAULT_FLUSH_INTERVAL, new SignalChangeBatcher().getFlushInterval());
+		batcher.setFlushInterval(40);
+		assertEquals(40, batcher.getFlushInterval());
+	}
+	
+	@Test
+	public void testCoalescingChanges() {
+		ComponentListener listener = mock(ComponentListener.class);
+		Input input = gate.getInput("0");
+		for (int i = 0; i < 5; i++) {
+			batcher.signalChanged(listener, input);
+			batcher.signalChanged(listener, gate.getOutput());
+		}
+		assertEquals(2, batcher.getPendingCount());
+		verifyZeroInteractions(listener);
+		
+		batcher.flush();
+		verify(listener, times(1)).onSignalChange(gate, input);
+		verify(listener, times(1)).onSignalChange(gate, gate.getOutput());
+		assertEquals(0, batcher.getPendingCount());
+		
+		batcher.flush();
+		verifyNoMoreInteractions(listener);
+	}
+	
+	@Test
+	public void testFlushingToBatchListener() {
+		BatchListener listener = new BatchListener();
+		batcher.signalChanged(listener, gate.getInput("0"));
+		batcher.signalChanged(listener, gate.getInput("1"));
+		batcher.signalChanged(listener, gate.getInput("0"));
+		batcher.flush();
+		
+		assertEquals(1, listener.batches.size());
+		assertEquals(
+			Arrays.<Signal>asList(gate.getInput("0"), gate.getInput("1")), 
+			new ArrayList<Signal>(listener.batches.get(0))
+		);
+		assertEquals(0, listener.singleChanges);
+	}
+	
+	@Test
+	public void testFlushingOnEventDispatchThread() throws InterruptedException {
+		final CountDownLatch flushed = new CountDownLatch(1);
+		final boolean[] onEventThread = new boolean[1];
+		batcher.setFlushInterval(10);
+		batcher.signalChanged(new ComponentAdapter() {
+			@Override
+			public void onSignalChange(Component component, Signal signal) {
+				onEventThread[0] = SwingUtilities.isEventDispatchThread();
+				flushed.countDown();
+			}
+		}, gate.getOutput());
+		assertTrue(flushed.await(5, TimeUnit.SECONDS));
+		assertTrue(onEventThread[0]);
+	}
+	
+	@Test
+	public void testBatchingSwingListenersInDelegator() {
+		ComponentEventDelegator delegator = gate.getEventDelegator();
+		ComponentListener swingListener = mock(ComponentListener.class);
+		ComponentListener modelListener = mock(ComponentListener.class);
+		delegator.addListener(ListenerContext.SWING, swingListener);
+		delegator.addListener(ListenerContext.MODEL, modelListener);
+		delegator.setSignalChangeBatcher(batcher);
+		assertSame(batcher, delegator.getSignalChangeBatcher());
+		
+		for (int i = 0; i < 3; i++) {
+			delegator.onSignalChange(gate, gate.getOutput());
+		}
+		verify(modelListener, times(3)).onSignalChange(gate, gate.getOutput());
+		assertEquals(1, batcher.getPendingCount());
+		
+		batcher.flush();
+		verify(swingListener, times(1)).onSignalChange(gate, gate.getOutput());
+	}
+	
+	private static class BatchListener extends ComponentAdapter implements SignalBatchListener {
+		
+		private final List<Collection<Signal>> batches = new ArrayList<Collection<Signal>>();
+		
+		private int singleChanges = 0;
+		
+		@Override
+		public void onSignalChange(Component component, Signal signal) {
+			singleChanges++;
+		}
+		
+		@Override
+		public void onSignalsChanged(Collection<Signal> signals) {
+			batches.add(new ArrayList<Signal>(signals));
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.io;
+
+import static org.junit.Assert.*;
+
+import java.awt.Point;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.component.NandGate;
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.simulation.Circuit;
+import se.openflisp.sls.simulation.Circuit2D;
+
+public class CircuitBinaryReaderTest {
+	
+	private Circuit2D circuit;
+	
+	@Before
+	public void setup() {
+		circuit = new Circuit2D();
+		ConstantGate high = new ConstantGate("1", Signal.State.HIGH);
+		ConstantGate low = new ConstantGate("0", Signal.State.LOW);
+		NandGate nand = new NandGate("u1");
+		NotGate not = new NotGate("u2");
+		nand.setDelays(3, 5);
+		circuit.addComponent(high, new Point(0, 0));
+		circuit.addComponent(low, new Point(0, 0));
+		circuit.addComponent(nand, new Point(10, -20));
+		circuit.addComponent(not, new Point(30, 40));
+		high.getOutput().connect(nand.getInput("0"));
+		low.getOutput().connect(nand.getInput("1"));
+		nand.getOutput().connect(not.getInput("0"));
+	}
+	
+	private byte[] write(Circuit circuit) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CircuitBinaryWriter writer = new CircuitBinaryWriter(bytes);
+		writer.writeCircuit(circuit);
+		writer.close();
+		return bytes.toByteArray();
+	}
+	
+	private Map<String, Component> byIdentifier(Circuit circuit) {
+		Map<String, Component> components = new HashMap<String, Component>();
+		for (Component component : circuit.getComponents()) {
+			components.put(component.getIdentifier(), component);
+		}
+		return components;
+	}
+	
+	@Test
+	public void testRoundTrip() throws IOException {
+		Circuit2D read = new CircuitBinaryReader(ByteBuffer.wrap(write(circuit))).readCircuit();
+		Map<String, Component> components = byIdentifier(read);
+		assertEquals(4, components.size());
+		assertEquals(Signal.State.HIGH, ((ConstantGate) components.get("1")).getConstantState());
+		assertEquals(Signal.State.LOW, ((ConstantGate) components.get("0")).getConstantState());
+		Component nand = components.get("u1");
+		Component not = components.get("u2");
+		assertTrue(nand instanceof NandGate);
+		assertTrue(not instanceof NotGate);
+		assertEquals(3, nand.getRiseDelay());
+		assertEquals(5, nand.getFallDelay());
+		assertEquals(new Point(10, -20), read.getComponentLocation(nand));
+		assertEquals(new Point(30, 40), read.getComponentLocation(not));
+		assertSame(components.get("1"), nand.getInput("0").getConnection().getOwner());
+		assertSame(components.get("0"), nand.getInput("1").getConnection().getOwner());
+		assertSame(nand, not.getInput("0").getConnection().getOwner());
+		assertEquals(1, nand.getOutputs().iterator().next().getConnections().size());
+		
+		read.runUntilStable();
+		assertEquals(Signal.State.LOW, not.getOutputs().iterator().next().getState());
+	}
+	
+	@Test
+	public void testWritingIsStable() throws IOException {
+		Circuit2D read = new CircuitBinaryReader(ByteBuffer.wrap(write(circuit))).readCircuit();
+		assertEquals(write(circuit).length, write(read).length);
+	}
+	
+	@Test
+	public void testRoundTripWithoutPositions() throws IOException {
+		Circuit plain = new Circuit();
+		NotGate not = new NotGate("u1");
+		plain.addComponent(not);
+		Circuit2D read = new CircuitBinaryReader(ByteBuffer.wrap(write(plain))).readCircuit();
+		assertEquals(new Point(0, 0), read.getComponentLocation(byIdentifier(read).get("u1")));
+	}
+	
+	@Test(expected=IOException.class)
+	public void testReadingWrongMagic() throws IOException {
+		byte[] bytes = write(circuit);
+		bytes[0] = 'X';
+		new CircuitBinaryReader(ByteBuffer.wrap(bytes)).readCircuit();
+	}
+	
+	@Test(expected=IOException.class)
+	public void testReadingTruncatedNetlist() throws IOException {
+		byte[] bytes = write(circuit);
+		new CircuitBinaryReader(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 4))).readCircuit();
+	}
+	
+	@Test
+	public void testReadingNegativeCounts() throws IOException {
+		byte[] bytes = write(circuit);
+		for (int index = 3; index < CircuitBinaryWriter.HEADER_SIZE; index++) {
+			byte[] corrupt = bytes.clone();
+			ByteBuffer.wrap(corrupt).putInt(4 * index, -1);
+			try {
+				new CircuitBinaryReader(ByteBuffer.wrap(corrupt)).readCircuit();
+				fail("Expected a corrupt netlist for header index " + index);
+			} catch (IOException e) {
+				assertEquals("Corrupt binary netlist", e.getMessage());
+			}
+		}
+	}
+	
+	@Test(expected=IOException.class)
+	public void testReadingCorruptConnection() throws IOException {
+		byte[] bytes = write(circuit);
+		ByteBuffer.wrap(bytes).putInt(bytes.length - 4 * 9, Integer.MAX_VALUE);
+		new CircuitBinaryReader(ByteBuffer.wrap(bytes)).readCircuit();
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testWritingComponentWithoutConstructor() throws IOException {
+		Circuit2D custom = new Circuit2D();
+		custom.addComponent(new Component("custom") {
+			public void evaluate() {}
+		});
+		write(custom);
+	}
+	
+	@Test
+	public void testConvertingLegacyFile() throws IOException, ParseException {
+		File legacy = File.createTempFile("netlist", ".txt");
+		File binary = File.createTempFile("netlist", ".ofn");
+		legacy.deleteOnExit();
+		binary.deleteOnExit();
+		FileOutputStream stream = new FileOutputStream(legacy);
+		try {
+			stream.write(">NUM:0,TYPE:1,X=5,Y=6\nIV[0]1\n<\n>NUM:1,TYPE:2,X=7,Y=8\nIV[0]u0\nIV[1]u0\n<\n".getBytes("US-ASCII"));
+		} finally {
+			stream.close();
+		}
+		CircuitConverter.convert(legacy, binary);
+		Circuit2D read = CircuitBinaryReader.open(binary).readCircuit();
+		Map<String, Component> components = byIdentifier(read);
+		assertEquals(3, components.size());
+		assertEquals(new Point(7, 8), read.getComponentLocation(components.get("u1")));
+		for (Input input : components.get("u1").getInputs()) {
+			assertSame(components.get("u0"), input.getConnection().getOwner());
+		}
+	}
+}
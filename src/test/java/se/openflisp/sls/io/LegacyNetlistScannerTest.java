@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.io;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Input;
+import se.openflisp.sls.Output;
+import se.openflisp.sls.component.Gate;
+import se.openflisp.sls.component.NandGate;
+import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.io.CircuitLegacyReaderTest.ComponentMatcher;
+import se.openflisp.sls.io.CircuitLegacyReaderTest.InputConnectionMatcher;
+import se.openflisp.sls.io.CircuitLegacyReaderTest.OutputConnectionMatcher;
+import se.openflisp.sls.simulation.Circuit2D;
+
+public class LegacyNetlistScannerTest {
+	
+	private LegacyNetlistScanner scanner(String text) throws UnsupportedEncodingException {
+		return new LegacyNetlistScanner(ByteBuffer.wrap(text.getBytes("US-ASCII")));
+	}
+	
+	private void assertParseError(String text, int line) throws IOException {
+		try {
+			scanner(text).scan();
+			fail("Expected a parse error for " + text);
+		} catch (ParseException e) {
+			assertEquals(line, e.getErrorOffset());
+		}
+	}
+	
+	@Test
+	public void testIllegalComponentDefinitions() throws IOException {
+		assertParseError(">NUM:FAIL,TYPE:1,X=0,Y=0", 1);
+		assertParseError(">NUM:0,TYPE:99,X=0,Y=0", 1);
+		assertParseError(">NUM:0,TYPE:x,X=0,Y=0", 1);
+		assertParseError(">NUM:0,TYPE:1,X=-A,Y=0", 1);
+		assertParseError(">NUM:0,TYPE:1,X=0,Y=A", 1);
+		assertParseError(">TYPE:x,X=0,Y=0", 1);
+		assertParseError(">NUM:0,X=0,Y=0", 1);
+		assertParseError(">NUM:0,TYPE:1,Y=0", 1);
+		assertParseError(">NUM:0,TYPE:1,X=0", 1);
+		assertParseError(">NUM:0,TYPE:1,X=0,Y=0 ", 1);
+		assertParseError(">NUM:99999999999,TYPE:1,X=0,Y=0", 1);
+	}
+	
+	@Test
+	public void testIllegalConnectionDefinitions() throws IOException {
+		assertParseError(">NUM:0,TYPE:1,X=0,Y=0\nIV[x]1\n<", 2);
+		assertParseError(">NUM:0,TYPE:1,X=0,Y=0\nIV1\n<", 2);
+		assertParseError(">NUM:0,TYPE:1,X=0,Y=0\nIV[0]\n<", 2);
+		assertParseError(">NUM:0,TYPE:1,X=0,Y=0\nIV[0].+$%!\n<", 2);
+		assertParseError("IV[0]1\n", 1);
+		assertParseError(">NUM:0,TYPE:1,X=0,Y=0\n<\nIV[0]1\n", 3);
+	}
+	
+	@Test
+	public void testDuplicateComponentIdentifier() throws IOException {
+		assertParseError(">NUM:0,TYPE:1,X=0,Y=0\n<\n>NUM:0,TYPE:1,X=1,Y=1\n<", 3);
+	}
+	
+	@Test
+	public void testScanningIntoNetlist() throws IOException, ParseException {
+		LegacyNetlist netlist = scanner(
+			"; comment\r\n" +
+			">NUM:7,TYPE:2,X=-10,Y=20\r\n" +
+			"IV[0]1\r\n" +
+			"IV[1]u3:Q\r\n" +
+			"<\r\n" +
+			">NUM:3,TYPE:1,X=5,Y=6\n" +
+			"IV[0]u7\n" +
+			"<"
+		).scan();
+		assertEquals(2, netlist.getComponentCount());
+		assertEquals(7, netlist.getNumber(0));
+		assertEquals(LegacyComponent.NAND_GATE_2, netlist.getType(0));
+		assertEquals("u7", netlist.getIdentifier(0));
+		assertEquals(-10, netlist.getPosition(0).x);
+		assertEquals(20, netlist.getPosition(0).y);
+		assertEquals(3, netlist.getConnectionCount());
+		assertEquals(LegacyNetlist.CONSTANT_HIGH, netlist.getConnectionOutput(0));
+		assertEquals("u3:Q", netlist.getOutputName(netlist.getConnectionOutput(1)));
+		assertEquals(1, netlist.getConnectionInput(1));
+		assertEquals(1, netlist.getConnectionComponent(2));
+		assertEquals(7, netlist.getConnectionOutput(2));
+		assertNull(netlist.getOutputName(7));
+	}
+	
+	@Test
+	public void testReadingCircuit() throws IOException, ParseException {
+		Circuit2D circuit = scanner(
+			">NUM:0,TYPE:1,X=0,Y=0\n" + 
+			"IV[0]0\n" + 
+			"<\n" + 
+			">NUM:1,TYPE:2,X=1,Y=1\n" + 
+			"IV[0]u0\n" + 
+			"IV[1]1\n" + 
+			"<"
+		).readCircuit();
+		assertThat(circuit.getComponents(), hasItem(ComponentMatcher.component(NotGate.class, "u0")));
+		assertThat(circuit.getComponents(), hasItem(ComponentMatcher.component(NandGate.class, "u1")));
+		assertThat(circuit.getComponents(), hasItem(InputConnectionMatcher.withConnectedInput("0", "0")));
+		assertThat(circuit.getComponents(), hasItem(InputConnectionMatcher.withConnectedInput("1", "1")));
+		assertThat(circuit.getComponents(), hasItem(InputConnectionMatcher.withConnectedInput("u0", "0")));
+		assertThat(circuit.getComponents(), hasItem(OutputConnectionMatcher.withConnectedOutput("u0", Gate.OUTPUT)));
+		assertEquals(4, circuit.getComponents().size());
+		for (Component component : circuit.getComponents()) {
+			if (component.getIdentifier().equals("u1")) {
+				assertEquals("u0", component.getInput("0").getConnection().getOwner().getIdentifier());
+				assertEquals("1", component.getInput("1").getConnection().getOwner().getIdentifier());
+			}
+		}
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testReadingUnknownOutput() throws IOException, ParseException {
+		scanner(">NUM:0,TYPE:1,X=0,Y=0\nIV[0]u5\n<").readCircuit();
+	}
+	
+	private String largeNetlist(int components) {
+		StringBuilder text = new StringBuilder();
+		for (int number = 0; number < components; number++) {
+			text.append(">NUM:").append(number).append(",TYPE:2,X=").append(number).append(",Y=0\r\n");
+			text.append("IV[0]u").append((number + 1) % components).append("\r\n");
+			text.append("IV[1]").append(number % 3 == 0 ? "1" : "u" + number / 2 + ":Q").append("\r\n");
+			text.append("<\r\n");
+		}
+		return text.toString();
+	}
+	
+	@Test
+	public void testScanningInParallel() throws IOException, ParseException {
+		String text = largeNetlist(100000);
+		assertTrue(text.length() > 3 * LegacyNetlistScanner.MIN_CHUNK_SIZE);
+		LegacyNetlist expected = scanner(text).scan();
+		LegacyNetlist netlist = scanner(text).scan(4);
+		assertEquals(expected.getComponentCount(), netlist.getComponentCount());
+		for (int index = 0; index < expected.getComponentCount(); index++) {
+			assertEquals(expected.getNumber(index), netlist.getNumber(index));
+			assertEquals(expected.getType(index), netlist.getType(index));
+			assertEquals(expected.getPosition(index), netlist.getPosition(index));
+		}
+		assertEquals(expected.getConnectionCount(), netlist.getConnectionCount());
+		for (int index = 0; index < expected.getConnectionCount(); index++) {
+			assertEquals(expected.getConnectionComponent(index), netlist.getConnectionComponent(index));
+			assertEquals(expected.getConnectionInput(index), netlist.getConnectionInput(index));
+			int output = expected.getConnectionOutput(index);
+			assertEquals(expected.getOutputName(output), netlist.getOutputName(netlist.getConnectionOutput(index)));
+			if (expected.getOutputName(output) == null) {
+				assertEquals(output, netlist.getConnectionOutput(index));
+			}
+		}
+	}
+	
+	@Test
+	public void testReadingCircuitInParallel() throws IOException, ParseException {
+		Circuit2D circuit = scanner(largeNetlist(100000)).readCircuit(4);
+		assertEquals(100001, circuit.getComponents().size());
+		for (Component component : circuit.getComponents()) {
+			if (component.getIdentifier().equals("u99999")) {
+				assertEquals("u0", component.getInput("0").getConnection().getOwner().getIdentifier());
+			}
+		}
+	}
+	
+	@Test
+	public void testParallelParseErrorLines() throws IOException {
+		String text = largeNetlist(100000);
+		try {
+			scanner(text + "IV[0]1\r\n").scan(4);
+			fail("Expected a parse error");
+		} catch (ParseException e) {
+			assertEquals(400001, e.getErrorOffset());
+		}
+		try {
+			scanner(text + ">NUM:5,TYPE:1,X=0,Y=0\r\n<\r\n").scan(4);
+			fail("Expected a parse error");
+		} catch (ParseException e) {
+			assertEquals(400001, e.getErrorOffset());
+			assertThat(e.getMessage(), containsString("u5"));
+		}
+		try {
+			scanner(text.replace(">NUM:99999,", ">NUM:7,")).scan(4);
+			fail("Expected a parse error");
+		} catch (ParseException e) {
+			assertEquals(399997, e.getErrorOffset());
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testScanningWithoutThreads() throws IOException, ParseException {
+		scanner("").scan(0);
+	}
+	
+	@Test
+	public void testBuildingCircuitInParallel() throws IOException, ParseException {
+		LegacyNetlist netlist = scanner(largeNetlist(4 * LegacyNetlist.MIN_CHUNK_COMPONENTS)).scan();
+		Circuit2D circuit = netlist.toCircuit(4);
+		assertEquals(netlist.getComponentCount() + 1, circuit.getComponents().size());
+		for (Component component : circuit.getComponents()) {
+			if (component.getIdentifier().equals("u1")) {
+				assertEquals("u2", component.getInput("0").getConnection().getOwner().getIdentifier());
+				assertEquals(new Point(1, 0), circuit.getComponentLocation(component));
+			}
+		}
+	}
+	
+	@Test
+	public void testBuildingCircuitInParallelMatchesSerial() throws IOException, ParseException {
+		LegacyNetlist netlist = scanner(largeNetlist(4 * LegacyNetlist.MIN_CHUNK_COMPONENTS)).scan();
+		Map<String, Component> expected = new HashMap<String, Component>();
+		for (Component component : netlist.toCircuit().getComponents()) {
+			expected.put(component.getIdentifier(), component);
+		}
+		Circuit2D circuit = netlist.toCircuit(4);
+		assertEquals(expected.size(), circuit.getComponents().size());
+		for (Component component : circuit.getComponents()) {
+			Component serial = expected.get(component.getIdentifier());
+			assertEquals(serial.getInputs().size(), component.getInputs().size());
+			for (Input input : serial.getInputs()) {
+				Output output = component.getInput(input.getIdentifier()).getConnection();
+				assertEquals(input.getConnection().getOwner().getIdentifier(), output.getOwner().getIdentifier());
+				assertEquals(input.getConnection().getIdentifier(), output.getIdentifier());
+			}
+			assertEquals(serial.getOutput(Gate.OUTPUT).getConnections().size(), 
+					component.getOutput(Gate.OUTPUT).getConnections().size());
+		}
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testBuildingCircuitInParallelWithUnknownOutput() throws IOException, ParseException {
+		String text = largeNetlist(4 * LegacyNetlist.MIN_CHUNK_COMPONENTS);
+		scanner(text + ">NUM:99999999,TYPE:1,X=0,Y=0\r\nIV[0]u5000000\r\n<\r\n").scan().toCircuit(4);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testBuildingCircuitWithoutThreads() throws IOException, ParseException {
+		scanner("").scan().toCircuit(0);
+	}
+	
+	@Test
+	public void testOpeningFile() throws IOException, ParseException {
+		File file = File.createTempFile("netlist", ".txt");
+		file.deleteOnExit();
+		FileOutputStream stream = new FileOutputStream(file);
+		try {
+			stream.write(">NUM:0,TYPE:1,X=0,Y=0\nIV[0]1\n<\n".getBytes("US-ASCII"));
+		} finally {
+			stream.close();
+		}
+		LegacyNetlist netlist = LegacyNetlistScanner.open(file).scan();
+		assertEquals(1, netlist.getComponentCount());
+		assertEquals(1, netlist.getConnectionCount());
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.*;
+
+public class BatchEvaluatorTest {
+	
+	public Circuit circuit;
+	
+	@Before
+	public void setup() {
+		circuit = new Circuit();
+	}
+	
+	protected void connect(Gate gate, Gate... inputs) {
+		for (int inputID = 0; inputID < inputs.length; inputID++) {
+			gate.getInput(Integer.toString(inputID)).connect(inputs[inputID].getOutput());
+		}
+		circuit.addComponent(gate);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testNullCompiledCircuit() {
+		new BatchEvaluator((CompiledCircuit) null);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testInputBothHighAndLow() {
+		ConstantGate x = new ConstantGate("x", Signal.State.LOW);
+		circuit.addComponent(x);
+		new BatchEvaluator(circuit).setInput(x, 1L, 1L);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testInputNotInCircuit() {
+		new BatchEvaluator(circuit).setInput(new ConstantGate("x", Signal.State.LOW), Signal.State.HIGH);
+	}
+	
+	@Test
+	public void testAllCombinations() {
+		ConstantGate x = new ConstantGate("x", Signal.State.LOW);
+		ConstantGate y = new ConstantGate("y", Signal.State.LOW);
+		ConstantGate z = new ConstantGate("z", Signal.State.LOW);
+		OrGate or = new OrGate("or");
+		AndGate and = new AndGate("and");
+		connect(or, y, z);
+		connect(and, x, or);
+		
+		BatchEvaluator evaluator = new BatchEvaluator(circuit);
+		evaluator.setInputVectors(Arrays.asList(x, y, z), 0);
+		evaluator.evaluate();
+		for (int vector = 0; vector < 8; vector++) {
+			boolean xValue = (vector & 1) != 0, yValue = (vector & 2) != 0, zValue = (vector & 4) != 0;
+			Signal.State expected = xValue && (yValue || zValue) ? Signal.State.HIGH : Signal.State.LOW;
+			assertEquals(expected, evaluator.getState(and.getOutput(), vector));
+		}
+		assertEquals(Signal.State.FLOATING, and.getOutput().getState());
+	}
+	
+	@Test
+	public void testMatchesCompiledCircuit() {
+		ConstantGate x = new ConstantGate("x", Signal.State.LOW);
+		ConstantGate y = new ConstantGate("y", Signal.State.LOW);
+		NandGate nand1 = new NandGate("nand1");
+		NandGate nand2 = new NandGate("nand2");
+		NandGate nand3 = new NandGate("nand3");
+		NandGate nand4 = new NandGate("nand4");
+		XorGate xor = new XorGate("xor");
+		connect(nand1, x, y);
+		connect(nand2, x, nand1);
+		connect(nand3, nand1, y);
+		connect(nand4, nand2, nand3);
+		connect(xor, x, y);
+		
+		BatchEvaluator evaluator = new BatchEvaluator(circuit);
+		evaluator.setInputVectors(Arrays.asList(x, y), 0);
+		evaluator.evaluate();
+		assertEquals(evaluator.getHighWord(xor.getOutput()), evaluator.getHighWord(nand4.getOutput()));
+		assertEquals(evaluator.getLowWord(xor.getOutput()), evaluator.getLowWord(nand4.getOutput()));
+		assertEquals(0x6666666666666666L, evaluator.getHighWord(nand4.getOutput()));
+		assertEquals(~0x6666666666666666L, evaluator.getLowWord(nand4.getOutput()));
+	}
+	
+	@Test
+	public void testFloatingAndClearedInputs() {
+		ConstantGate x = new ConstantGate("x", Signal.State.HIGH);
+		NotGate not = new NotGate("not");
+		connect(not, x);
+		
+		BatchEvaluator evaluator = new BatchEvaluator(circuit);
+		evaluator.setInput(x, 1L, 2L);
+		evaluator.evaluate();
+		assertEquals(Signal.State.LOW, evaluator.getState(not.getOutput(), 0));
+		assertEquals(Signal.State.HIGH, evaluator.getState(not.getOutput(), 1));
+		assertEquals(Signal.State.FLOATING, evaluator.getState(not.getOutput(), 2));
+		
+		evaluator.clearInput(x);
+		evaluator.evaluate();
+		assertEquals(0, evaluator.getHighWord(not.getOutput()));
+		assertEquals(-1L, evaluator.getLowWord(not.getOutput()));
+	}
+	
+	@Test
+	public void testFeedbackLoopIsStable() {
+		ConstantGate set = new ConstantGate("set", Signal.State.LOW);
+		ConstantGate reset = new ConstantGate("reset", Signal.State.LOW);
+		NandGate q = new NandGate("q");
+		NandGate qInverted = new NandGate("qInverted");
+		q.getInput("0").connect(set.getOutput());
+		q.getInput("1").connect(qInverted.getOutput());
+		qInverted.getInput("0").connect(reset.getOutput());
+		qInverted.getInput("1").connect(q.getOutput());
+		circuit.addComponent(q);
+		
+		BatchEvaluator evaluator = new BatchEvaluator(circuit);
+		evaluator.setInput(set, 0x5L, ~0x5L);
+		evaluator.setInput(reset, 0x6L, ~0x6L);
+		evaluator.evaluate();
+		assertEquals(Signal.State.LOW, evaluator.getState(q.getOutput(), 0));
+		assertEquals(Signal.State.HIGH, evaluator.getState(qInverted.getOutput(), 0));
+		assertEquals(Signal.State.HIGH, evaluator.getState(q.getOutput(), 1));
+		assertEquals(Signal.State.LOW, evaluator.getState(qInverted.getOutput(), 1));
+		assertEquals(Signal.State.FLOATING, evaluator.getState(q.getOutput(), 2));
+		assertEquals(Signal.State.FLOATING, evaluator.getState(qInverted.getOutput(), 2));
+	}
+}
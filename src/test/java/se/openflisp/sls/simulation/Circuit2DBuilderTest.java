@@ -28,6 +28,7 @@ import org.mockito.MockitoAnnotations;
 
 import se.openflisp.sls.Component;
 import se.openflisp.sls.component.NotGate;
+import se.openflisp.sls.event.ComponentEventBus;
 import se.openflisp.sls.event.ComponentEventDelegator;
 
 public class Circuit2DBuilderTest {
@@ -135,6 +136,31 @@ public class Circuit2DBuilderTest {
 		assertSame(component1.getInput("1").getConnection().getOwner(), component2);
 	}
 	
+	@Test
+	public void testBuildingLoadsInBulk() {
+		builder.addComponent(component1, position1);
+		builder.addComponent(component2, position2);
+		builder.addConnection(id1, "0", id2);
+		Circuit2D circuit = builder.build();
+		assertFalse(circuit.isBulkLoading());
+		assertFalse(circuit.getEventBus().isSuspended());
+		assertEquals(1, circuit.runUntilStable());
+	}
+	
+	@Test
+	public void testFailedBuildEndsBulkLoad() {
+		builder.addComponent(component1, position1);
+		builder.addConnection(id1, "0", "unknown");
+		try {
+			builder.build();
+			fail("Expected an unknown component");
+		} catch (IllegalStateException e) {
+			for (ComponentEventBus bus : component1.getEventDelegator().getEventBuses()) {
+				assertFalse(bus.isSuspended());
+			}
+		}
+	}
+	
 	@Test(expected=IllegalStateException.class)
 	public void testBuildingWithUnknownOutputComponent() {
 		builder.addComponent(component1, position1);
@@ -19,12 +19,19 @@ package se.openflisp.sls.simulation;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.awt.Dimension;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
+import se.openflisp.sls.Component;
+
 public class Circuit2DTest extends CircuitTest {
 
 	public Circuit2D circuit2D;
@@ -90,6 +97,19 @@ public class Circuit2DTest extends CircuitTest {
 		verify(delegator).onComponentMoved(component1, point1, point2);
 	}
 	
+	@Test
+	public void testPlacesConnectedComponentsAtOrigin() {
+		component1.getOutput("1").connect(component2.getInput("2"));
+		circuit2D.addComponent(component1, point1);
+		assertSame(point1, circuit2D.getComponentLocation(component1));
+		assertEquals(new Point(0, 0), circuit2D.getComponentLocation(component2));
+		InOrder order = inOrder(delegator);
+		order.verify(delegator).onComponentAdded(component2);
+		order.verify(delegator).onComponentMoved(eq(component2), eq((Point) null), any(Point.class));
+		order.verify(delegator).onComponentAdded(component1);
+		order.verify(delegator).onComponentMoved(component1, null, point1);
+	}
+	
 	@Test
 	public void testRemovesPositionOnRemove() {
 		circuit2D.addComponent(component1, point1);
@@ -105,4 +125,40 @@ public class Circuit2DTest extends CircuitTest {
 		assertNull(circuit2D.getComponentLocation(component1));
 		assertSame(circuit2D.getComponentLocation(component2), point2);
 	}
+	
+	@Test
+	public void testGettingComponentsInArea() {
+		circuit2D.addComponent(component1, new Point(10, 10));
+		circuit2D.addComponent(component2, new Point(500, 500));
+		assertEquals(Arrays.asList(component1), circuit2D.getComponentsIn(new Rectangle(0, 0, 100, 100)));
+	}
+	
+	@Test
+	public void testGettingComponentsInViewport() {
+		circuit2D.addComponent(component1, new Point(-40, 10));
+		circuit2D.addComponent(component2, new Point(-60, 10));
+		List<Component> visible = circuit2D.getComponentsInViewport(
+			new Rectangle(0, 0, 100, 100), 
+			new Dimension(50, 20)
+		);
+		assertEquals(Arrays.asList(component1), visible);
+	}
+	
+	@Test
+	public void testGettingNearestComponent() {
+		assertNull(circuit2D.getNearestComponent(new Point(0, 0)));
+		circuit2D.addComponent(component1, new Point(10, 10));
+		circuit2D.addComponent(component2, new Point(500, 500));
+		assertSame(component2, circuit2D.getNearestComponent(new Point(400, 300)));
+	}
+	
+	@Test
+	public void testIndexFollowsMovesAndRemoves() {
+		circuit2D.addComponent(component1, new Point(10, 10));
+		circuit2D.addComponent(component2, new Point(20, 20));
+		circuit2D.setComponentLocation(component1, new Point(1000, 1000));
+		circuit2D.removeComponent(component2);
+		assertTrue(circuit2D.getComponentsIn(new Rectangle(0, 0, 100, 100)).isEmpty());
+		assertEquals(Arrays.asList(component1), circuit2D.getComponentsIn(new Rectangle(900, 900, 100, 100)));
+	}
 }
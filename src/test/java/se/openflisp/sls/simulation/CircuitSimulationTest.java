@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.annotation.SourceComponent;
+import se.openflisp.sls.component.NotGate;
+
+public class CircuitSimulationTest {
+	
+	public Circuit circuit;
+	public CircuitSimulation simulation;
+	
+	@Before
+	public void setup() {
+		circuit = new Circuit();
+		simulation = circuit.getSimulation();
+		simulation.start();
+	}
+	
+	@After
+	public void stopSim() {
+		simulation.interrupt();
+	}
+	
+	protected void waitForState(Signal signal, Signal.State state) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 5000;
+		while (signal.getState() != state) {
+			assertTrue("Timed out waiting for " + signal, System.currentTimeMillis() < timeout);
+			Thread.sleep(1);
+		}
+	}
+	
+	protected void waitForPark() throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 5000;
+		while (simulation.getState() != Thread.State.WAITING) {
+			assertTrue("Timed out waiting for the simulation to park", System.currentTimeMillis() < timeout);
+			Thread.sleep(1);
+		}
+	}
+	
+	@Test
+	public void testParksWithoutWork() throws InterruptedException {
+		waitForPark();
+		assertEquals(0, simulation.getWakeupCount());
+		assertEquals(0, simulation.getEvaluationCount());
+		assertEquals(0, simulation.getEvaluationsPerWakeup(), 0);
+	}
+	
+	@Test
+	public void testWakesUpOnAddedSource() throws InterruptedException {
+		waitForPark();
+		CountingSource source = new CountingSource();
+		NotGate not = new NotGate("not");
+		not.getInput("0").connect(source.getOutput("Q"));
+		circuit.addComponent(source);
+		
+		waitForState(not.getOutput(), Signal.State.LOW);
+		waitForPark();
+		assertEquals(1, source.evaluations);
+		assertTrue(simulation.getWakeupCount() > 0);
+		assertEquals(2, simulation.getEvaluationCount());
+		assertTrue(simulation.getEvaluationsPerWakeup() > 0);
+		assertTrue(simulation.getIdleTime() > 0);
+	}
+	
+	@Test
+	public void testSourceIsNotEvaluatedAgain() throws InterruptedException {
+		CountingSource source = new CountingSource();
+		circuit.addComponent(source);
+		waitForState(source.getOutput("Q"), Signal.State.HIGH);
+		
+		NotGate not = new NotGate("not");
+		not.getInput("0").connect(source.getOutput("Q"));
+		waitForState(not.getOutput(), Signal.State.LOW);
+		waitForPark();
+		assertEquals(1, source.evaluations);
+	}
+	
+	@SourceComponent
+	public static class CountingSource extends Component {
+		
+		public volatile int evaluations;
+		
+		public CountingSource() {
+			super("source");
+		}
+		
+		@Override
+		public void evaluate() {
+			this.evaluations++;
+			this.setOutputState("Q", Signal.State.HIGH);
+		}
+	}
+}
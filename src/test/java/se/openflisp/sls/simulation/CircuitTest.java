@@ -22,10 +22,18 @@ import static org.mockito.Mockito.*;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import se.openflisp.sls.Component;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.annotation.SourceComponent;
+import se.openflisp.sls.component.ConstantGate;
+import se.openflisp.sls.component.NotGate;
 import se.openflisp.sls.event.CircuitEventDelegator;
+import se.openflisp.sls.event.ComponentListener;
+import se.openflisp.sls.event.ListenerContext;
+import se.openflisp.sls.event.SignalChangeBatcher;
 
 public class CircuitTest {
 
@@ -194,4 +202,260 @@ public class CircuitTest {
 		circuit.removeComponent(component1);
 		assertThat(circuit.getComponents(), not(hasItems(component1)));
 	}
+	
+	@Test
+	public void testRunUntilStable() {
+		ConstantGate constant = new ConstantGate("constant", Signal.State.HIGH);
+		NotGate not1 = new NotGate("not1");
+		NotGate not2 = new NotGate("not2");
+		not1.getInput("0").connect(constant.getOutput());
+		not2.getInput("0").connect(not1.getOutput());
+		circuit.addComponent(constant);
+		
+		assertEquals(3, circuit.runUntilStable());
+		assertEquals(Signal.State.LOW, not1.getOutput().getState());
+		assertEquals(Signal.State.HIGH, not2.getOutput().getState());
+		assertEquals(0, circuit.step());
+	}
+	
+	@Test
+	public void testStepEvaluatesOneLevel() {
+		ConstantGate constant = new ConstantGate("constant", Signal.State.HIGH);
+		NotGate not1 = new NotGate("not1");
+		NotGate not2 = new NotGate("not2");
+		not1.getInput("0").connect(constant.getOutput());
+		not2.getInput("0").connect(not1.getOutput());
+		circuit.addComponent(constant);
+		
+		assertEquals(1, circuit.step());
+		assertEquals(Signal.State.HIGH, constant.getOutput().getState());
+		assertEquals(Signal.State.FLOATING, not1.getOutput().getState());
+		assertEquals(1, circuit.step());
+		assertEquals(Signal.State.LOW, not1.getOutput().getState());
+		assertEquals(Signal.State.FLOATING, not2.getOutput().getState());
+		assertEquals(1, circuit.step());
+		assertEquals(Signal.State.HIGH, not2.getOutput().getState());
+		assertEquals(0, circuit.step());
+	}
+	
+	@Test
+	public void testRunUntilStableLevelized() {
+		circuit.setSimulationEngine(SimulationEngine.LEVELIZED);
+		ConstantGate constant = new ConstantGate("constant", Signal.State.HIGH);
+		NotGate not1 = new NotGate("not1");
+		NotGate not2 = new NotGate("not2");
+		not1.getInput("0").connect(constant.getOutput());
+		not2.getInput("0").connect(not1.getOutput());
+		circuit.addComponent(constant);
+		
+		circuit.runUntilStable();
+		assertEquals(Signal.State.HIGH, not2.getOutput().getState());
+		assertEquals(0, circuit.step());
+	}
+	
+	@Test
+	public void testRunUntilStableInParallel() {
+		circuit.setParallelism(4);
+		circuit.setPartitionSize(2);
+		ConstantGate constant = new ConstantGate("constant", Signal.State.HIGH);
+		NotGate[] branches = new NotGate[8];
+		NotGate[] leaves = new NotGate[64];
+		for (int i = 0; i < branches.length; i++) {
+			branches[i] = new NotGate("branch" + i);
+			branches[i].getInput("0").connect(constant.getOutput());
+			for (int j = 0; j < 8; j++) {
+				leaves[i * 8 + j] = new NotGate("leaf" + i + "." + j);
+				leaves[i * 8 + j].getInput("0").connect(branches[i].getOutput());
+			}
+		}
+		circuit.addComponent(constant);
+		
+		assertEquals(1 + branches.length + leaves.length, circuit.runUntilStable());
+		for (NotGate branch : branches) {
+			assertEquals(Signal.State.LOW, branch.getOutput().getState());
+		}
+		for (NotGate leaf : leaves) {
+			assertEquals(Signal.State.HIGH, leaf.getOutput().getState());
+		}
+	}
+	
+	@Test
+	public void testRunUntilStableInParallelWhenInterrupted() {
+		circuit.setParallelism(4);
+		circuit.setPartitionSize(2);
+		ConstantGate constant = new ConstantGate("constant", Signal.State.HIGH);
+		NotGate[] leaves = new NotGate[16];
+		for (int i = 0; i < leaves.length; i++) {
+			leaves[i] = new NotGate("leaf" + i);
+			leaves[i].getInput("0").connect(constant.getOutput());
+		}
+		circuit.addComponent(constant);
+		
+		Thread.currentThread().interrupt();
+		try {
+			assertEquals(1 + leaves.length, circuit.runUntilStable());
+		} finally {
+			assertTrue(Thread.interrupted());
+		}
+		for (NotGate leaf : leaves) {
+			assertEquals(Signal.State.LOW, leaf.getOutput().getState());
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSettingParallelismBelowOne() {
+		circuit.setParallelism(0);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSettingPartitionSizeBelowOne() {
+		circuit.setPartitionSize(0);
+	}
+	
+	@Test
+	public void testSettingSignalChangeBatcher() {
+		SignalChangeBatcher batcher = new SignalChangeBatcher();
+		circuit.addComponent(component1);
+		circuit.setSignalChangeBatcher(batcher);
+		circuit.addComponent(component2);
+		assertSame(batcher, circuit.getSignalChangeBatcher());
+		assertSame(batcher, component1.getEventDelegator().getSignalChangeBatcher());
+		assertSame(batcher, component2.getEventDelegator().getSignalChangeBatcher());
+		
+		circuit.setSignalChangeBatcher(null);
+		assertNull(component1.getEventDelegator().getSignalChangeBatcher());
+	}
+	
+	@Test
+	public void testComponentsPublishToEventBus() {
+		ComponentListener listener = Mockito.mock(ComponentListener.class);
+		circuit.getEventBus().subscribe(component1, ListenerContext.DEFAULT, listener);
+		circuit.addComponent(component1);
+		assertTrue(component1.getEventDelegator().getEventBuses().contains(circuit.getEventBus()));
+		assertTrue(component1.getEventDelegator().getModelListeners().isEmpty());
+		component1.getEventDelegator().onSignalChange(component1, component1.getOutput("Q"));
+		verify(listener).onSignalChange(component1, component1.getOutput("Q"));
+		
+		circuit.removeComponent(component1);
+		assertTrue(component1.getEventDelegator().getEventBuses().isEmpty());
+	}
+	
+	@Test
+	public void testAddingDeepChain() {
+		Component[] chain = new Component[100000];
+		chain[0] = mockComponent("0");
+		for (int index = 1; index < chain.length; index++) {
+			chain[index] = mockComponent(Integer.toString(index));
+			chain[index - 1].getOutput("1").connect(chain[index].getInput("2"));
+		}
+		circuit.addComponent(chain[chain.length / 2]);
+		assertEquals(chain.length, circuit.getComponents().size());
+		assertTrue(circuit.contains(chain[0]));
+		assertTrue(circuit.contains(chain[chain.length - 1]));
+	}
+	
+	@Test
+	public void testConnectedComponentsAreAnnouncedFirst() {
+		component1.getOutput("1").connect(component2.getInput("2"));
+		circuit.addComponent(component1);
+		InOrder order = inOrder(delegator);
+		order.verify(delegator).onComponentAdded(component2);
+		order.verify(delegator).onComponentAdded(component1);
+	}
+	
+	@Test
+	public void testGettingSourceComponents() {
+		ConstantGate high = new ConstantGate("1", Signal.State.HIGH);
+		circuit.addComponent(component1);
+		circuit.addComponent(high);
+		assertEquals(1, circuit.getSourceComponents().size());
+		assertThat(circuit.getSourceComponents(), hasItem((Component) high));
+		assertSame(circuit.getSourceComponents(), circuit.getSourceComponents());
+		
+		circuit.removeComponent(high);
+		assertTrue(circuit.getSourceComponents().isEmpty());
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testModifyingSourceComponents() {
+		circuit.addComponent(new ConstantGate("1", Signal.State.HIGH));
+		circuit.getSourceComponents().clear();
+	}
+	
+	@Test
+	public void testBulkLoading() {
+		circuit.beginBulkLoad();
+		assertTrue(circuit.isBulkLoading());
+		assertTrue(circuit.getEventBus().isSuspended());
+		circuit.addComponent(component1);
+		component1.getOutput("1").connect(component2.getInput("2"));
+		component3.getOutput("1").connect(component2.getInput("3"));
+		assertThat(circuit.getComponents(), not(hasItem(component2)));
+		circuit.endBulkLoad();
+		
+		assertFalse(circuit.isBulkLoading());
+		assertFalse(circuit.getEventBus().isSuspended());
+		assertThat(circuit.getComponents(), hasItems(component1, component2, component3));
+		verify(delegator, never()).onComponentAdded(Mockito.any(Component.class));
+		verify(delegator).onCircuitLoaded();
+	}
+	
+	@Test
+	public void testBulkLoadingSchedulesConnectedComponents() {
+		ConstantGate high = new ConstantGate("1", Signal.State.HIGH);
+		NotGate gate = new NotGate("not");
+		circuit.beginBulkLoad();
+		circuit.addComponent(high);
+		circuit.addComponent(gate);
+		high.getOutput(ConstantGate.OUTPUT).connect(gate.getInput("0"));
+		circuit.endBulkLoad();
+		circuit.runUntilStable();
+		assertEquals(Signal.State.LOW, gate.getOutput(NotGate.OUTPUT).getState());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testBeginningBulkLoadTwice() {
+		circuit.beginBulkLoad();
+		circuit.beginBulkLoad();
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testEndingBulkLoadWithoutBeginning() {
+		circuit.endBulkLoad();
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testRunUntilStableOscillating() {
+		circuit.addComponent(new Oscillator());
+		circuit.runUntilStable(100);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testRunUntilStableWithoutEvaluations() {
+		circuit.runUntilStable(0);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testStepWhileSimulationIsRunning() {
+		circuit.getSimulation().start();
+		try {
+			circuit.step();
+		} finally {
+			circuit.getSimulation().interrupt();
+		}
+	}
+	
+	@SourceComponent
+	public static class Oscillator extends Component {
+		
+		public Oscillator() {
+			super("oscillator");
+			this.getOutput("Q").connect(this.getInput("A"));
+		}
+		
+		@Override
+		public void evaluate() {
+			this.setOutputState("Q", this.getInput("A").getState() == Signal.State.HIGH ? Signal.State.LOW : Signal.State.HIGH);
+		}
+	}
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.openflisp.sls.Component;
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.*;
+
+public class CompiledCircuitTest {
+	
+	public Circuit circuit;
+	
+	@Before
+	public void setup() {
+		circuit = new Circuit();
+	}
+	
+	protected ConstantGate constant(String identifier, boolean value) {
+		return new ConstantGate(identifier, value ? Signal.State.HIGH : Signal.State.LOW);
+	}
+	
+	protected void connect(Gate gate, Gate... inputs) {
+		for (int inputID = 0; inputID < inputs.length; inputID++) {
+			gate.getInput(Integer.toString(inputID)).connect(inputs[inputID].getOutput());
+		}
+		circuit.addComponent(gate);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCompilingNullCircuit() {
+		new CompiledCircuit(null);
+	}
+	
+	@Test
+	public void testCompilingEmptyCircuit() {
+		CompiledCircuit compiled = new CompiledCircuit(circuit);
+		assertEquals(0, compiled.getGateCount());
+		assertEquals(0, compiled.evaluate());
+		assertEquals(0, compiled.commit());
+	}
+	
+	@Test
+	public void testLevelsOfChain() {
+		ConstantGate x = constant("x", true);
+		NotGate not1 = new NotGate("not1");
+		NotGate not2 = new NotGate("not2");
+		AndGate and = new AndGate("and");
+		connect(not1, x);
+		connect(not2, not1);
+		connect(and, not2, x);
+		
+		CompiledCircuit compiled = new CompiledCircuit(circuit);
+		assertEquals(4, compiled.getGateCount());
+		assertEquals(4, compiled.getLevelCount());
+		assertEquals(0, compiled.getLevel(x));
+		assertEquals(1, compiled.getLevel(not1));
+		assertEquals(2, compiled.getLevel(not2));
+		assertEquals(3, compiled.getLevel(and));
+	}
+	
+	@Test
+	public void testEvaluateAllCombinations() {
+		for (int vector = 0; vector < 8; vector++) {
+			boolean x = (vector & 1) != 0, y = (vector & 2) != 0, z = (vector & 4) != 0;
+			circuit = new Circuit();
+			OrGate or = new OrGate("or");
+			AndGate and = new AndGate("and");
+			connect(or, constant("y", y), constant("z", z));
+			connect(and, constant("x", x), or);
+			
+			CompiledCircuit compiled = new CompiledCircuit(circuit);
+			compiled.evaluate();
+			Signal.State expected = x && (y || z) ? Signal.State.HIGH : Signal.State.LOW;
+			assertEquals(expected, compiled.getState(and.getOutput()));
+			assertEquals(Signal.State.FLOATING, and.getOutput().getState());
+		}
+	}
+	
+	@Test
+	public void testCommitUpdatesModel() {
+		ConstantGate x = constant("x", true);
+		ConstantGate y = constant("y", false);
+		NandGate nand1 = new NandGate("nand1");
+		NandGate nand2 = new NandGate("nand2");
+		NandGate nand3 = new NandGate("nand3");
+		NandGate nand4 = new NandGate("nand4");
+		XorGate xor = new XorGate("xor");
+		connect(nand1, x, y);
+		connect(nand2, x, nand1);
+		connect(nand3, nand1, y);
+		connect(nand4, nand2, nand3);
+		connect(xor, x, y);
+		
+		CompiledCircuit compiled = new CompiledCircuit(circuit);
+		assertEquals(7, compiled.evaluate());
+		assertEquals(7, compiled.commit());
+		assertEquals(Signal.State.HIGH, nand4.getOutput().getState());
+		assertEquals(xor.getOutput().getState(), nand4.getOutput().getState());
+		assertEquals(0, compiled.evaluate());
+		assertEquals(0, compiled.commit());
+	}
+	
+	@Test
+	public void testUnconnectedInputIsFloating() {
+		AndGate and = new AndGate("and");
+		and.initiateInputs(2);
+		and.getInput("0").connect(constant("x", true).getOutput());
+		circuit.addComponent(and);
+		
+		CompiledCircuit compiled = new CompiledCircuit(circuit);
+		compiled.evaluate();
+		assertEquals(Signal.State.FLOATING, compiled.getState(and.getOutput()));
+	}
+	
+	@Test
+	public void testFeedbackLoopIsStable() {
+		ConstantGate set = constant("set", false);
+		ConstantGate reset = constant("reset", true);
+		NandGate q = new NandGate("q");
+		NandGate qInverted = new NandGate("qInverted");
+		q.getInput("0").connect(set.getOutput());
+		q.getInput("1").connect(qInverted.getOutput());
+		qInverted.getInput("0").connect(reset.getOutput());
+		qInverted.getInput("1").connect(q.getOutput());
+		circuit.addComponent(q);
+		
+		CompiledCircuit compiled = new CompiledCircuit(circuit);
+		assertEquals(-1, compiled.getLevel(q));
+		assertEquals(-1, compiled.getLevel(qInverted));
+		compiled.evaluate();
+		assertEquals(Signal.State.HIGH, compiled.getState(q.getOutput()));
+		assertEquals(Signal.State.LOW, compiled.getState(qInverted.getOutput()));
+	}
+	
+	@Test
+	public void testExternalComponentIsReadFromModel() {
+		Component external = new Component("external") {
+			public void evaluate() {}
+		};
+		NotGate not = new NotGate("not");
+		not.getInput("0").connect(external.getOutput("out"));
+		circuit.addComponent(not);
+		
+		CompiledCircuit compiled = new CompiledCircuit(circuit);
+		assertTrue(compiled.contains(not));
+		assertFalse(compiled.contains(external));
+		compiled.evaluate();
+		assertEquals(Signal.State.FLOATING, compiled.getState(not.getOutput()));
+	}
+	
+	public static class Switch extends Component {
+		
+		private Signal.State state = Signal.State.LOW;
+		
+		public Switch(String identifier) {
+			super(identifier);
+		}
+		
+		public void set(Signal.State state) {
+			this.state = state;
+			this.evaluate();
+		}
+		
+		@Override
+		public void evaluate() {
+			this.setOutputState("out", this.state);
+		}
+	}
+	
+	@Test
+	public void testEvaluatingOnlyAffectedGates() {
+		Switch left = new Switch("left");
+		Switch right = new Switch("right");
+		left.evaluate();
+		right.evaluate();
+		NotGate leftNot = new NotGate("leftNot");
+		NotGate leftBuffer = new NotGate("leftBuffer");
+		NotGate rightNot = new NotGate("rightNot");
+		leftNot.getInput("0").connect(left.getOutput("out"));
+		connect(leftBuffer, leftNot);
+		rightNot.getInput("0").connect(right.getOutput("out"));
+		circuit.addComponent(rightNot);
+		
+		CompiledCircuit compiled = new CompiledCircuit(circuit);
+		assertEquals(3, compiled.evaluate());
+		assertEquals(3, compiled.commit());
+		assertEquals(0, compiled.evaluate());
+		
+		// A gate that is not downstream of the change is neither evaluated nor committed.
+		int rightNet = compiled.netOf(rightNot.getOutput());
+		compiled.states.set(rightNet, CompiledCircuit.OP_FLOATING);
+		left.set(Signal.State.HIGH);
+		assertEquals(2, compiled.evaluate());
+		assertEquals(Signal.State.LOW, compiled.getState(leftNot.getOutput()));
+		assertEquals(Signal.State.HIGH, compiled.getState(leftBuffer.getOutput()));
+		assertEquals(Signal.State.FLOATING, compiled.getState(rightNot.getOutput()));
+		assertEquals(2, compiled.commit());
+		assertEquals(Signal.State.HIGH, leftBuffer.getOutput().getState());
+		assertEquals(Signal.State.HIGH, rightNot.getOutput().getState());
+		assertEquals(0, compiled.commit());
+	}
+	
+	@Test
+	public void testFeedbackLoopFollowsExternalChange() {
+		Switch set = new Switch("set");
+		Switch reset = new Switch("reset");
+		set.set(Signal.State.HIGH);
+		reset.set(Signal.State.LOW);
+		NandGate q = new NandGate("q");
+		NandGate qInverted = new NandGate("qInverted");
+		q.getInput("0").connect(set.getOutput("out"));
+		q.getInput("1").connect(qInverted.getOutput());
+		qInverted.getInput("0").connect(reset.getOutput("out"));
+		qInverted.getInput("1").connect(q.getOutput());
+		circuit.addComponent(q);
+		
+		CompiledCircuit compiled = new CompiledCircuit(circuit);
+		compiled.evaluate();
+		compiled.commit();
+		assertEquals(Signal.State.LOW, q.getOutput().getState());
+		
+		reset.set(Signal.State.HIGH);
+		assertEquals(0, compiled.evaluate());
+		set.set(Signal.State.LOW);
+		assertTrue(compiled.evaluate() > 0);
+		assertEquals(Signal.State.HIGH, compiled.getState(q.getOutput()));
+		assertEquals(Signal.State.LOW, compiled.getState(qInverted.getOutput()));
+		compiled.commit();
+		assertEquals(Signal.State.HIGH, q.getOutput().getState());
+	}
+	
+	@Test
+	public void testCompilingFromArrays() {
+		// Gate 0 is high, gate 1 is low, gate 2 is nand(0, 1), gate 3 is xor(2, 0) and gate 4 is and(3, unconnected).
+		byte[] opcodes = {
+			CompiledCircuit.OP_HIGH, CompiledCircuit.OP_LOW, CompiledCircuit.OP_NAND, CompiledCircuit.OP_XOR, CompiledCircuit.OP_AND
+		};
+		int[] inputStart = {0, 0, 0, 2, 4, 6};
+		int[] inputNets = {1, 2, 3, 1, 4, CompiledCircuit.FLOATING_NET};
+		CompiledCircuit compiled = CompiledCircuit.fromArrays(opcodes, inputStart, inputNets);
+		assertEquals(5, compiled.getGateCount());
+		assertEquals(6, compiled.getNetCount());
+		assertEquals(Signal.State.FLOATING, compiled.getNetState(3));
+		
+		compiled.evaluate();
+		assertEquals(Signal.State.HIGH, compiled.getNetState(1));
+		assertEquals(Signal.State.HIGH, compiled.getNetState(3));
+		assertEquals(Signal.State.LOW, compiled.getNetState(4));
+		assertEquals(Signal.State.LOW, compiled.getNetState(5));
+		assertEquals(0, compiled.commit());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCompilingFromArraysWithUnknownNet() {
+		CompiledCircuit.fromArrays(new byte[] {CompiledCircuit.OP_NOT}, new int[] {0, 1}, new int[] {2});
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCompilingFromArraysWithUnknownOpcode() {
+		CompiledCircuit.fromArrays(new byte[] {42}, new int[] {0, 0}, new int[] {});
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCompilingFromArraysWithWrongInputStart() {
+		CompiledCircuit.fromArrays(new byte[] {CompiledCircuit.OP_NOT}, new int[] {0, 2}, new int[] {1});
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testBatchEvaluatingArraysWithoutGates() {
+		new BatchEvaluator(CompiledCircuit.fromArrays(new byte[] {CompiledCircuit.OP_HIGH}, new int[] {0, 0}, new int[] {}));
+	}
+}
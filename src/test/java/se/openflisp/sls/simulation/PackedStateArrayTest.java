@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import se.openflisp.sls.Signal;
+
+public class PackedStateArrayTest {
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testNegativeSize() {
+		new PackedStateArray(-1);
+	}
+	
+	@Test
+	public void testInitialStateIsLow() {
+		PackedStateArray array = new PackedStateArray(3);
+		assertEquals(3, array.size());
+		for (int index = 0; index < array.size(); index++) {
+			assertEquals(Signal.State.LOW, array.getState(index));
+		}
+	}
+	
+	@Test
+	public void testSettingStatesAcrossWords() {
+		Signal.State[] states = Signal.State.values();
+		PackedStateArray array = new PackedStateArray(100);
+		for (int index = 0; index < array.size(); index++) {
+			array.setState(index, states[index % states.length]);
+		}
+		array.setState(31, Signal.State.FLOATING);
+		array.setState(32, Signal.State.HIGH);
+		for (int index = 0; index < array.size(); index++) {
+			Signal.State expected = index == 31 ? Signal.State.FLOATING : index == 32 ? Signal.State.HIGH : states[index % states.length];
+			assertEquals(expected, array.getState(index));
+		}
+	}
+	
+	@Test
+	public void testCopyIsIndependent() {
+		PackedStateArray array = new PackedStateArray(10);
+		array.setState(5, Signal.State.HIGH);
+		PackedStateArray copy = new PackedStateArray(array);
+		copy.setState(5, Signal.State.FLOATING);
+		assertEquals(Signal.State.HIGH, array.getState(5));
+		assertEquals(Signal.State.FLOATING, copy.getState(5));
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testGettingOutside() {
+		new PackedStateArray(32).getState(32);
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testSettingNegativeIndex() {
+		new PackedStateArray(32).setState(-1, Signal.State.HIGH);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSettingNullState() {
+		new PackedStateArray(32).setState(0, null);
+	}
+}
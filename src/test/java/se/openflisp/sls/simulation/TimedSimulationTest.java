@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.openflisp.sls.Signal;
+import se.openflisp.sls.component.*;
+
+public class TimedSimulationTest {
+	
+	public Circuit circuit;
+	
+	@Before
+	public void setup() {
+		circuit = new Circuit();
+	}
+	
+	protected void connect(Gate gate, Gate... inputs) {
+		for (int inputID = 0; inputID < inputs.length; inputID++) {
+			gate.getInput(Integer.toString(inputID)).connect(inputs[inputID].getOutput());
+		}
+		circuit.addComponent(gate);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testNullCompiledCircuit() {
+		new TimedSimulation((CompiledCircuit) null);
+	}
+	
+	@Test
+	public void testPropagationDelays() {
+		ConstantGate x = new ConstantGate("x", Signal.State.HIGH);
+		NotGate not1 = new NotGate("not1");
+		NotGate not2 = new NotGate("not2");
+		not1.setDelays(2, 3);
+		not2.setDelays(5, 1);
+		connect(not1, x);
+		connect(not2, not1);
+		
+		TimedSimulation simulation = new TimedSimulation(circuit);
+		assertEquals(1, simulation.runUntil(1));
+		assertEquals(Signal.State.HIGH, simulation.getState(x.getOutput()));
+		assertEquals(Signal.State.FLOATING, simulation.getState(not1.getOutput()));
+		simulation.runUntil(3);
+		assertEquals(Signal.State.FLOATING, simulation.getState(not1.getOutput()));
+		simulation.runUntil(4);
+		assertEquals(Signal.State.LOW, simulation.getState(not1.getOutput()));
+		simulation.runUntil(8);
+		assertEquals(Signal.State.FLOATING, simulation.getState(not2.getOutput()));
+		assertTrue(simulation.advance());
+		assertEquals(9, simulation.getTime());
+		assertEquals(Signal.State.HIGH, simulation.getState(not2.getOutput()));
+		assertTrue(simulation.isStable());
+		assertFalse(simulation.advance());
+		assertEquals(3, simulation.getEventCount());
+	}
+	
+	@Test
+	public void testHazardIsVisible() {
+		ConstantGate x = new ConstantGate("x", Signal.State.LOW);
+		NotGate not = new NotGate("not");
+		AndGate and = new AndGate("and");
+		not.setDelays(3, 3);
+		connect(not, x);
+		connect(and, x, not);
+		
+		TimedSimulation simulation = new TimedSimulation(circuit);
+		simulation.runUntil(5);
+		assertEquals(Signal.State.LOW, simulation.getState(and.getOutput()));
+		simulation.force(x.getOutput(), Signal.State.HIGH, 10);
+		simulation.runUntil(11);
+		assertEquals(Signal.State.HIGH, simulation.getState(and.getOutput()));
+		simulation.runUntil(20);
+		assertEquals(Signal.State.LOW, simulation.getState(and.getOutput()));
+		assertEquals(3, simulation.getTransitionCount(and.getOutput()));
+	}
+	
+	@Test
+	public void testInertialDelayFiltersShortPulses() {
+		ConstantGate x = new ConstantGate("x", Signal.State.LOW);
+		NotGate not = new NotGate("not");
+		AndGate and = new AndGate("and");
+		and.setDelays(3, 3);
+		connect(not, x);
+		connect(and, x, not);
+		
+		TimedSimulation simulation = new TimedSimulation(circuit);
+		simulation.force(x.getOutput(), Signal.State.HIGH, 10);
+		simulation.runUntil(20);
+		assertEquals(Signal.State.LOW, simulation.getState(and.getOutput()));
+		assertEquals(1, simulation.getTransitionCount(and.getOutput()));
+		assertTrue(simulation.isStable());
+	}
+	
+	@Test
+	public void testRingOscillator() {
+		ConstantGate enable = new ConstantGate("enable", Signal.State.LOW);
+		NandGate nand = new NandGate("nand");
+		NotGate not1 = new NotGate("not1");
+		NotGate not2 = new NotGate("not2");
+		not1.getInput("0").connect(nand.getOutput());
+		not2.getInput("0").connect(not1.getOutput());
+		nand.getInput("0").connect(enable.getOutput());
+		nand.getInput("1").connect(not2.getOutput());
+		circuit.addComponent(nand);
+		
+		TimedSimulation simulation = new TimedSimulation(circuit);
+		simulation.runUntil(10);
+		assertTrue(simulation.isStable());
+		assertEquals(Signal.State.HIGH, simulation.getState(not2.getOutput()));
+		
+		simulation.force(enable.getOutput(), Signal.State.HIGH, 20);
+		simulation.runUntil(80);
+		assertFalse(simulation.isStable());
+		assertEquals(21, simulation.getTransitionCount(nand.getOutput()));
+	}
+	
+	@Test
+	public void testEventsFarInTheFuture() {
+		ConstantGate x = new ConstantGate("x", Signal.State.LOW);
+		NotGate not = new NotGate("not");
+		not.setDelays(5000, 5000);
+		connect(not, x);
+		
+		TimedSimulation simulation = new TimedSimulation(circuit);
+		assertTrue(simulation.advance());
+		assertTrue(simulation.advance());
+		assertEquals(5001, simulation.getTime());
+		assertEquals(Signal.State.HIGH, simulation.getState(not.getOutput()));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testForcingInThePast() {
+		ConstantGate x = new ConstantGate("x", Signal.State.LOW);
+		circuit.addComponent(x);
+		TimedSimulation simulation = new TimedSimulation(circuit);
+		simulation.runUntil(10);
+		simulation.force(x.getOutput(), Signal.State.HIGH, 10);
+	}
+}
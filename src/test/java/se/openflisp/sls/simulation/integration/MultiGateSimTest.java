@@ -65,8 +65,7 @@ public class MultiGateSimTest extends SimulationTest {
 		boolean[][] truthtable = getTruthTable(3);
 		
 		for (int i = 0; i < 8; i++) {
-			Circuit testCircuit = new Circuit();
-			testCircuit.getSimulation().start();
+			Circuit testCircuit = createCircuit();
 			for (int k = 0; k < 3; k++) {
 				if (k == 0) {
 					x = truthtable[i][k];
@@ -87,9 +86,8 @@ public class MultiGateSimTest extends SimulationTest {
 			connectGates(testCircuit, new Gate[] {xGate, orGate}, andGate);
 			
 			Signal.State expectedValue = x && (y || z) ? Signal.State.HIGH : Signal.State.LOW;
-			waitForSignalChange(andGate);
+			simulate(testCircuit);
 			assertEquals(expectedValue, andGate.getOutput().getState());
-			testCircuit.getSimulation().interrupt();
 		}
 	}
 	
@@ -100,8 +98,7 @@ public class MultiGateSimTest extends SimulationTest {
 		boolean[][] truthtable = getTruthTable(3);
 		
 		for (int i = 0; i < 8; i++) {
-			Circuit testCircuit = new Circuit();
-			testCircuit.getSimulation().start();
+			Circuit testCircuit = createCircuit();
 			for (int k = 0; k < 3; k++) {
 				if (k == 0) {
 					x = truthtable[i][k];
@@ -124,9 +121,8 @@ public class MultiGateSimTest extends SimulationTest {
 			connectGates(testCircuit, new Gate[] {andGate1, andGate2}, orGate);
 			
 			Signal.State expectedValue = (x && y) || (x && z) ? Signal.State.HIGH : Signal.State.LOW;
-			waitForSignalChange(orGate);
+			simulate(testCircuit);
 			assertEquals(expectedValue, orGate.getOutput().getState());
-			testCircuit.getSimulation().interrupt();
 		}
 	}
 	
@@ -137,8 +133,7 @@ public class MultiGateSimTest extends SimulationTest {
 		boolean[][] truthtable = getTruthTable(3);
 		
 		for (int i = 0; i < 8; i++) {
-			Circuit testCircuit = new Circuit();
-			testCircuit.getSimulation().start();
+			Circuit testCircuit = createCircuit();
 			for (int k = 0; k < 3; k++) {
 				if (k == 0) {
 					x = truthtable[i][k];
@@ -159,9 +154,8 @@ public class MultiGateSimTest extends SimulationTest {
 			connectGates(testCircuit, new Gate[] {xGate, andGate}, orGate);
 			
 			Signal.State expectedValue = x || (y && z) ? Signal.State.HIGH : Signal.State.LOW;
-			waitForSignalChange(orGate);
+			simulate(testCircuit);
 			assertEquals(expectedValue, orGate.getOutput().getState());
-			testCircuit.getSimulation().interrupt();
 		}
 	}
 	
@@ -171,8 +165,7 @@ public class MultiGateSimTest extends SimulationTest {
 		boolean[][] truthtable = getTruthTable(3);
 		
 		for (int i = 0; i < 8; i++) {
-			Circuit testCircuit = new Circuit();
-			testCircuit.getSimulation().start();
+			Circuit testCircuit = createCircuit();
 			for (int k = 0; k < 3; k++) {
 				if (k == 0) {
 					x = truthtable[i][k];
@@ -195,9 +188,8 @@ public class MultiGateSimTest extends SimulationTest {
 			connectGates(testCircuit, new Gate[] {orGate1, orGate2}, andGate);
 			
 			Signal.State expectedValue = (x || y) && (x || z) ? Signal.State.HIGH : Signal.State.LOW;
-			waitForSignalChange(andGate);
+			simulate(testCircuit);
 			assertEquals(expectedValue, andGate.getOutput().getState());
-			testCircuit.getSimulation().interrupt();
 		}
 	}
 	
@@ -208,8 +200,7 @@ public class MultiGateSimTest extends SimulationTest {
 		boolean[][] truthtable = getTruthTable(2);
 		
 		for (int i = 0; i < 4; i++) {
-			Circuit testCircuit = new Circuit();
-			testCircuit.getSimulation().start();
+			Circuit testCircuit = createCircuit();
 			for (int k = 0; k < 2; k++) {
 				if (k == 0) {
 					x = truthtable[i][k];
@@ -233,10 +224,9 @@ public class MultiGateSimTest extends SimulationTest {
 			connectGates(testCircuit, new Gate[] {nandGate1, yGate}, nandGate4);
 			connectGates(testCircuit, new Gate[] {nandGate3, nandGate4}, nandGate5);
 			
-			waitForSignalChange(nandGate5);
+			simulate(testCircuit);
 			assertNotEquals(Signal.State.FLOATING, xorGate.getOutput().getState());
 			assertEquals(xorGate.getOutput().getState(), nandGate5.getOutput().getState());
-			testCircuit.getSimulation().interrupt();
 		}
 	}
 	
@@ -247,8 +237,7 @@ public class MultiGateSimTest extends SimulationTest {
 		boolean[][] truthtable = getTruthTable(4);
 		
 		for (int i = 0; i < 8; i++) {
-			Circuit testCircuit = new Circuit();
-			testCircuit.getSimulation().start();
+			Circuit testCircuit = createCircuit();
 			for (int k = 0; k < 4; k++) {
 				if (k == 0) {
 					x = truthtable[i][k];
@@ -277,9 +266,8 @@ public class MultiGateSimTest extends SimulationTest {
 			connectGates(testCircuit, new Gate[] {orGate1, orGate2}, andGate);
 			
 			Signal.State expectedValue = (x || y) && (!w || z) ? Signal.State.HIGH : Signal.State.LOW;
-			waitForSignalChange(andGate);
+			simulate(testCircuit);
 			assertEquals(expectedValue, andGate.getOutput().getState());
-			testCircuit.getSimulation().interrupt();
 		}
 	}
 	
@@ -290,8 +278,7 @@ public class MultiGateSimTest extends SimulationTest {
 		boolean[][] truthtable = getTruthTable(4);
 		
 		for (int i = 0; i < 8; i++) {
-			Circuit testCircuit = new Circuit();
-			testCircuit.getSimulation().start();
+			Circuit testCircuit = createCircuit();
 			for (int k = 0; k < 4; k++) {
 				if (k == 0) {
 					x = truthtable[i][k];
@@ -318,9 +305,8 @@ public class MultiGateSimTest extends SimulationTest {
 			connectGates(testCircuit, new Gate[] {orGate, nandGate}, andGate);
 			
 			Signal.State expectedValue = (x || y) && !(w && z) ? Signal.State.HIGH : Signal.State.LOW;
-			waitForSignalChange(andGate);
+			simulate(testCircuit);
 			assertEquals(expectedValue, andGate.getOutput().getState());
-			testCircuit.getSimulation().interrupt();
 		}
 	}
 	
@@ -331,8 +317,7 @@ public class MultiGateSimTest extends SimulationTest {
 		boolean[][] truthtable = getTruthTable(2);
 		
 		for (int i = 0; i < 4; i++) {
-			Circuit testCircuit = new Circuit();
-			testCircuit.getSimulation().start();
+			Circuit testCircuit = createCircuit();
 			for (int k = 0; k < 2; k++) {
 				if (k == 0) {
 					x = truthtable[i][k];
@@ -354,10 +339,9 @@ public class MultiGateSimTest extends SimulationTest {
 			connectGates(testCircuit, new Gate[] {yGate}, notGate3);
 			connectGates(testCircuit, new Gate[] {notGate2, notGate3}, andGate);
 			
-			waitForSignalChange(andGate);
+			simulate(testCircuit);
 			assertNotEquals(Signal.State.FLOATING, notGate1.getOutput().getState());
 			assertEquals(andGate.getOutput().getState(), notGate1.getOutput().getState());
-			testCircuit.getSimulation().interrupt();
 		}
 	}
 	
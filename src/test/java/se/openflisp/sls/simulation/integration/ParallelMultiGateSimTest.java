@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.simulation.integration;
+
+import se.openflisp.sls.simulation.Circuit;
+
+/**
+ * Runs the boolean expression tests with the simulation evaluating each step in parallel.
+ * 
+ * @version 1.0
+ */
+public class ParallelMultiGateSimTest extends MultiGateSimTest {
+	
+	@Override
+	public Circuit createCircuit() {
+		Circuit circuit = new Circuit();
+		circuit.setParallelism(4);
+		circuit.setPartitionSize(1);
+		return circuit;
+	}
+}
@@ -18,7 +18,6 @@ package se.openflisp.sls.simulation.integration;
 
 import static org.junit.Assert.assertTrue;
 
-import org.junit.After;
 import org.junit.Before;
 
 import se.openflisp.sls.Signal;
@@ -26,7 +25,7 @@ import se.openflisp.sls.component.*;
 import se.openflisp.sls.simulation.Circuit;
 
 /**
- * Abstract class for simulation test classes to extend. Creates a circuit, starts and stop the simulation.
+ * Abstract class for simulation test classes to extend. Creates a circuit and simulates it on the calling thread.
  * 
  * @author Pär Svedberg <rockkuf@gmail.com>
  * @version 1.0
@@ -48,13 +47,16 @@ public abstract class SimulationTest {
 		constantLow = new ConstantGate(constantLowID, Signal.State.LOW);
 		constantFloating = new ConstantGate(constantFloatingID, Signal.State.FLOATING);
 		
-		circuit = new Circuit();
-		circuit.getSimulation().start();
+		circuit = createCircuit();
 	}
 	
-	@After
-	public void stopSim() {
-		circuit.getSimulation().interrupt();
+	/**
+	 * Creates a new circuit to simulate in. Subclasses may override to configure the circuit.
+	 * 
+	 * @return a new circuit
+	 */
+	public Circuit createCircuit() {
+		return new Circuit();
 	}
 	
 	/**
@@ -83,21 +85,14 @@ public abstract class SimulationTest {
 		}		
 	}
 	
-	public void waitForSignalChange(Gate gateToTest) {
-		boolean waitedEnough = false;
-		long timeout = System.currentTimeMillis() + 1200;
-		
-		while (!waitedEnough) {
-			if (!gateToTest.getOutput().getState().equals(Signal.State.FLOATING)
-				&& (System.currentTimeMillis() + 900) > timeout ) {
-				waitedEnough = true;
-				if (DEBUG_MESSAGES)
-					System.out.println("Exit by output signal change.");
-			} else if (System.currentTimeMillis() > timeout) {
-				waitedEnough = true;
-				if (DEBUG_MESSAGES)
-					System.out.println("Exit by timeout.");
-			}
-		}
+	/**
+	 * Simulates the circuit on the calling thread until it is stable.
+	 * 
+	 * @param simCircuit	The circuit to simulate.
+	 */
+	public void simulate(Circuit simCircuit) {
+		int evaluations = simCircuit.runUntilStable();
+		if (DEBUG_MESSAGES)
+			System.out.println("Stable after " + evaluations + " evaluations.");
 	}
 }
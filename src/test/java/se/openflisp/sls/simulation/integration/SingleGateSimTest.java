@@ -55,7 +55,7 @@ public abstract class SingleGateSimTest extends SimulationTest {
 		gateToSimulate.getEventDelegator().addListener(testListener);
 		
 		connectGates(circuit, fromOutputs, gateToSimulate);
-		waitForSignalChange(gateToSimulate);
+		simulate(circuit);
 		if (DEBUG_MESSAGES)
 			System.out.println("\tonSignalChange calls: " + String.valueOf(testListener.changedTimes()));
 		assertEquals(expectedOutput, gateToSimulate.getOutput().getState());
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014- See AUTHORS file.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.openflisp.sls.util;
+
+import static org.junit.Assert.*;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class QuadTreeTest {
+	
+	public QuadTree<String> tree;
+	
+	@Before
+	public void setup() {
+		tree = new QuadTree<String>();
+	}
+	
+	@Test
+	public void testTreeIsEmptyAtInit() {
+		assertEquals(0, tree.size());
+		assertNull(tree.nearest(new Point(0, 0)));
+		assertTrue(tree.query(new Rectangle(-100, -100, 200, 200)).isEmpty());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testPuttingNullItem() {
+		tree.put(null, new Point(0, 0));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testPuttingNullPoint() {
+		tree.put("a", null);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testQueryingNullArea() {
+		tree.query(null);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testNearestToNullPoint() {
+		tree.nearest(null);
+	}
+	
+	@Test
+	public void testPuttingCopiesPoint() {
+		Point point = new Point(10, 20);
+		tree.put("a", point);
+		point.setLocation(5000, 5000);
+		assertEquals(new Point(10, 20), tree.get("a"));
+		assertEquals(Arrays.asList("a"), tree.query(new Rectangle(0, 0, 50, 50)));
+	}
+	
+	@Test
+	public void testQueryIncludesEdges() {
+		tree.put("a", new Point(0, 0));
+		tree.put("b", new Point(10, 10));
+		tree.put("c", new Point(11, 10));
+		assertEquals(set(Arrays.asList("a", "b")), set(tree.query(new Rectangle(0, 0, 10, 10))));
+	}
+	
+	@Test
+	public void testMovingItem() {
+		tree.put("a", new Point(0, 0));
+		tree.put("a", new Point(-3000, 7000));
+		assertEquals(1, tree.size());
+		assertTrue(tree.query(new Rectangle(0, 0, 10, 10)).isEmpty());
+		assertEquals(Arrays.asList("a"), tree.query(new Rectangle(-3000, 7000, 0, 0)));
+	}
+	
+	@Test
+	public void testRemovingItem() {
+		tree.put("a", new Point(0, 0));
+		tree.put("b", new Point(1, 1));
+		assertTrue(tree.remove("a"));
+		assertFalse(tree.remove("a"));
+		assertFalse(tree.contains("a"));
+		assertNull(tree.get("a"));
+		assertEquals(Arrays.asList("b"), tree.query(new Rectangle(0, 0, 10, 10)));
+	}
+	
+	@Test
+	public void testNearest() {
+		tree.put("a", new Point(0, 0));
+		tree.put("b", new Point(100, 100));
+		tree.put("c", new Point(-5000, 2000));
+		assertEquals("b", tree.nearest(new Point(80, 70)));
+		assertEquals("c", tree.nearest(new Point(-100000, 0)));
+	}
+	
+	@Test
+	public void testManyItemsAtSamePoint() {
+		for (int i = 0; i < 1000; i++) {
+			tree.put("item" + i, new Point(7, 7));
+		}
+		tree.put("other", new Point(8, 7));
+		assertEquals(1000, tree.query(new Rectangle(7, 7, 0, 0)).size());
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(tree.remove("item" + i));
+		}
+		assertEquals("other", tree.nearest(new Point(7, 7)));
+	}
+	
+	@Test
+	public void testMatchesFullScan() {
+		Random random = new Random(1);
+		List<Point> points = new ArrayList<Point>();
+		for (int i = 0; i < 2000; i++) {
+			Point point = new Point(random.nextInt(20000) - 10000, random.nextInt(20000) - 10000);
+			points.add(point);
+			tree.put("item" + i, point);
+		}
+		for (int i = 0; i < 2000; i += 3) {
+			tree.remove("item" + i);
+		}
+		for (int query = 0; query < 50; query++) {
+			Rectangle area = new Rectangle(
+				random.nextInt(20000) - 10000, 
+				random.nextInt(20000) - 10000, 
+				random.nextInt(4000), 
+				random.nextInt(4000)
+			);
+			Point target = new Point(random.nextInt(30000) - 15000, random.nextInt(30000) - 15000);
+			List<String> expected = new ArrayList<String>();
+			double nearest = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < points.size(); i++) {
+				if (i % 3 == 0) {
+					continue;
+				}
+				Point point = points.get(i);
+				if (point.x >= area.x && point.x <= area.x + area.width 
+						&& point.y >= area.y && point.y <= area.y + area.height) {
+					expected.add("item" + i);
+				}
+				nearest = Math.min(nearest, point.distanceSq(target));
+			}
+			List<String> actual = tree.query(area);
+			assertEquals(expected.size(), actual.size());
+			assertEquals(set(expected), set(actual));
+			assertEquals(nearest, tree.get(tree.nearest(target)).distanceSq(target), 0);
+		}
+	}
+	
+	private Set<String> set(List<String> items) {
+		return new HashSet<String>(items);
+	}
+}